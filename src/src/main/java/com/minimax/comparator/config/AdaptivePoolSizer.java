@@ -0,0 +1,175 @@
+package com.minimax.comparator.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接池自动调整
+ * 对pool.adaptive为true的数据源，按正在执行的比较计划登记的并行连接需求和获取连接的等待时间调整连接池最大连接数：
+ * 有线程等待或平均等待时间超过阈值时扩容，需求结束且不再等待时逐步缩回配置值
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class AdaptivePoolSizer implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    /**
+     * 数据源名称 -> 正在执行的比较计划登记的并行连接数
+     */
+    private final Map<String, AtomicInteger> demand = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @Override
+    public void afterPropertiesSet() {
+        boolean anyAdaptive = comparisonProperties.getDataSources() != null
+                && comparisonProperties.getDataSources().stream()
+                        .anyMatch(config -> config.getPool() != null && config.getPool().isAdaptive());
+        if (!anyAdaptive) {
+            return;
+        }
+        long interval = Math.max(1, comparisonProperties.getPoolSizing().getIntervalSeconds());
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-sizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::adjustAll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 登记数据源的并行连接需求，连接池不足时立即扩容
+     *
+     * @param dataSourceName 数据源名称
+     * @param connections 需要同时占用的连接数
+     */
+    public void reserve(String dataSourceName, int connections) {
+        if (connections <= 0) {
+            return;
+        }
+        demand.computeIfAbsent(dataSourceName, name -> new AtomicInteger()).addAndGet(connections);
+        HikariDataSource pool = dataSourceConfig.getRunningPool(dataSourceName);
+        ComparisonProperties.PoolConfig poolConfig = dataSourceConfig.getPoolConfig(dataSourceName);
+        if (pool == null || poolConfig == null || !poolConfig.isAdaptive()) {
+            return;
+        }
+        int current = pool.getMaximumPoolSize();
+        int target = computeTargetSize(poolConfig, current, getDemand(dataSourceName), 0, 0, Long.MAX_VALUE);
+        if (target > current) {
+            resize(dataSourceName, pool, current, target, "并行需求");
+        }
+    }
+
+    /**
+     * 释放登记的并行连接需求，连接池由定时检查逐步缩回
+     *
+     * @param dataSourceName 数据源名称
+     * @param connections 登记时的连接数
+     */
+    public void release(String dataSourceName, int connections) {
+        if (connections <= 0) {
+            return;
+        }
+        AtomicInteger counter = demand.get(dataSourceName);
+        if (counter != null) {
+            counter.updateAndGet(value -> Math.max(0, value - connections));
+        }
+    }
+
+    /**
+     * 检查所有已创建的连接池并按需调整
+     */
+    void adjustAll() {
+        for (String dataSourceName : dataSourceConfig.getCreatedDataSourceNames()) {
+            try {
+                adjust(dataSourceName);
+            } catch (Exception e) {
+                logger.warn("调整数据源 {} 连接池大小失败: {}", dataSourceName, e.getMessage());
+            }
+        }
+    }
+
+    private void adjust(String dataSourceName) {
+        ComparisonProperties.PoolConfig poolConfig = dataSourceConfig.getPoolConfig(dataSourceName);
+        HikariDataSource pool = dataSourceConfig.getRunningPool(dataSourceName);
+        if (pool == null || poolConfig == null || !poolConfig.isAdaptive()) {
+            return;
+        }
+        int current = pool.getMaximumPoolSize();
+        int awaiting = pool.getHikariPoolMXBean().getThreadsAwaitingConnection();
+        long averageWaitMillis = dataSourceConfig.drainAverageWaitMillis(dataSourceName);
+        int target = computeTargetSize(poolConfig, current, getDemand(dataSourceName), awaiting,
+                averageWaitMillis, comparisonProperties.getPoolSizing().getWaitThresholdMillis());
+        if (target != current) {
+            resize(dataSourceName, pool, current, target,
+                    String.format("等待线程 %d，平均等待 %d 毫秒", awaiting, averageWaitMillis));
+        }
+    }
+
+    private void resize(String dataSourceName, HikariDataSource pool, int current, int target, String reason) {
+        pool.getHikariConfigMXBean().setMaximumPoolSize(target);
+        logger.info("数据源 {} 连接池最大连接数 {} -> {}（{}）", dataSourceName, current, target, reason);
+    }
+
+    private int getDemand(String dataSourceName) {
+        AtomicInteger counter = demand.get(dataSourceName);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 计算连接池目标大小
+     * 下限为配置值与登记需求中的较大者；有线程等待或平均等待超过阈值时按等待线程数扩容，否则每次缩回一半差值；
+     * 结果不超过adaptiveMaxPoolSize
+     *
+     * @param poolConfig 连接池配置
+     * @param current 当前最大连接数
+     * @param demand 登记的并行连接需求
+     * @param awaiting 等待获取连接的线程数
+     * @param averageWaitMillis 采样周期内平均等待毫秒数
+     * @param waitThresholdMillis 等待阈值
+     * @return 目标最大连接数
+     */
+    static int computeTargetSize(ComparisonProperties.PoolConfig poolConfig, int current, int demand,
+                                 int awaiting, long averageWaitMillis, long waitThresholdMillis) {
+        int ceiling = Math.max(poolConfig.getMaximumPoolSize(), poolConfig.getAdaptiveMaxPoolSize());
+        int floor = Math.max(poolConfig.getMaximumPoolSize(), demand);
+
+        int target;
+        if (awaiting > 0 || averageWaitMillis > waitThresholdMillis) {
+            target = Math.max(floor, current + Math.max(1, awaiting));
+        } else if (current > floor) {
+            target = current - Math.max(1, (current - floor) / 2);
+        } else {
+            target = floor;
+        }
+        return Math.max(1, Math.min(ceiling, target));
+    }
+}
@@ -3,6 +3,8 @@ package com.minimax.comparator.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,45 +44,773 @@ public class ComparisonProperties {
      */
     private int threadPoolSize = 10;
 
+    /**
+     * 批量执行时是否合并同一表对、主键和过滤条件的规则，只扫描一次
+     */
+    private boolean sharedScan = true;
+
+    /**
+     * 自适应批次大小配置
+     */
+    private AdaptiveBatchConfig adaptiveBatch = new AdaptiveBatchConfig();
+
+    /**
+     * 比较策略规划器配置
+     */
+    private PlannerConfig planner = new PlannerConfig();
+
+    /**
+     * 表元数据缓存配置
+     */
+    private MetadataConfig metadata = new MetadataConfig();
+
+    /**
+     * 数据源连接校验与预热配置
+     */
+    private ConnectionCheckConfig connectionCheck = new ConnectionCheckConfig();
+
+    /**
+     * 连接池自动调整配置
+     */
+    private PoolSizingConfig poolSizing = new PoolSizingConfig();
+
+    /**
+     * 比较结果缓存配置
+     */
+    private ResultCacheConfig resultCache = new ResultCacheConfig();
+
+    /**
+     * 并行执行规则的调度配置
+     */
+    private SchedulerConfig scheduler = new SchedulerConfig();
+
+    /**
+     * 比较历史存储配置
+     */
+    private HistoryConfig history = new HistoryConfig();
+
+    /**
+     * 差异流式输出配置
+     */
+    private StreamConfig stream = new StreamConfig();
+
     // Getters and Setters
     public List<DataSourceConfig> getDataSources() {
         return dataSources;
     }
 
-    public void setDataSources(List<DataSourceConfig> dataSources) {
-        this.dataSources = dataSources;
-    }
+    public void setDataSources(List<DataSourceConfig> dataSources) {
+        this.dataSources = dataSources;
+    }
+
+    public List<ComparisonRule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<ComparisonRule> rules) {
+        this.rules = rules;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnableParallel() {
+        return enableParallel;
+    }
+
+    public void setEnableParallel(boolean enableParallel) {
+        this.enableParallel = enableParallel;
+    }
+
+    public int getThreadPoolSize() {
+        return threadPoolSize;
+    }
+
+    public void setThreadPoolSize(int threadPoolSize) {
+        this.threadPoolSize = threadPoolSize;
+    }
+
+    public boolean isSharedScan() {
+        return sharedScan;
+    }
+
+    public void setSharedScan(boolean sharedScan) {
+        this.sharedScan = sharedScan;
+    }
+
+    public AdaptiveBatchConfig getAdaptiveBatch() {
+        return adaptiveBatch;
+    }
+
+    public void setAdaptiveBatch(AdaptiveBatchConfig adaptiveBatch) {
+        this.adaptiveBatch = adaptiveBatch;
+    }
+
+    public PlannerConfig getPlanner() {
+        return planner;
+    }
+
+    public void setPlanner(PlannerConfig planner) {
+        this.planner = planner;
+    }
+
+    public MetadataConfig getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(MetadataConfig metadata) {
+        this.metadata = metadata;
+    }
+
+    public ConnectionCheckConfig getConnectionCheck() {
+        return connectionCheck;
+    }
+
+    public void setConnectionCheck(ConnectionCheckConfig connectionCheck) {
+        this.connectionCheck = connectionCheck;
+    }
+
+    public PoolSizingConfig getPoolSizing() {
+        return poolSizing;
+    }
+
+    public void setPoolSizing(PoolSizingConfig poolSizing) {
+        this.poolSizing = poolSizing;
+    }
+
+    public ResultCacheConfig getResultCache() {
+        return resultCache;
+    }
+
+    public void setResultCache(ResultCacheConfig resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public SchedulerConfig getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(SchedulerConfig scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public HistoryConfig getHistory() {
+        return history;
+    }
+
+    public void setHistory(HistoryConfig history) {
+        this.history = history;
+    }
+
+    public StreamConfig getStream() {
+        return stream;
+    }
+
+    public void setStream(StreamConfig stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * 差异流式输出配置
+     * 比较线程把差异写入有界缓冲区，响应线程边取边输出；客户端读取慢时缓冲区写满，比较线程随之暂停读取数据库
+     */
+    public static class StreamConfig {
+        /**
+         * 同时执行的流式比较数，超出的请求排队等待
+         */
+        private int maxConcurrentStreams = 8;
+        /**
+         * 每个流缓冲的差异条数
+         */
+        private int bufferSize = 1000;
+        /**
+         * 缓冲区已满时比较线程等待客户端读取的最长时间（秒），超时后结束比较
+         */
+        private long stallTimeoutSeconds = 300;
+
+        // Getters and Setters
+        public int getMaxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        public void setMaxConcurrentStreams(int maxConcurrentStreams) {
+            this.maxConcurrentStreams = maxConcurrentStreams;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getStallTimeoutSeconds() {
+            return stallTimeoutSeconds;
+        }
+
+        public void setStallTimeoutSeconds(long stallTimeoutSeconds) {
+            this.stallTimeoutSeconds = stallTimeoutSeconds;
+        }
+    }
+
+    /**
+     * 比较历史存储配置
+     * 启用后每次比较的执行信息和差异明细由后台线程批量写入本地文件数据库，可按规则、执行、主键和差异类型查询
+     */
+    public static class HistoryConfig {
+        /**
+         * 是否保存比较历史
+         */
+        private boolean enabled = false;
+        /**
+         * 历史库JDBC URL，默认为本地H2文件库
+         */
+        private String url = "jdbc:h2:file:./data/comparison-history";
+        private String username = "sa";
+        private String password = "";
+        /**
+         * 每批写入的差异条数
+         */
+        private int batchSize = 1000;
+        /**
+         * 等待写入的比较结果上限，超出时丢弃新结果并记录警告
+         */
+        private int queueCapacity = 1000;
+        /**
+         * 历史保留天数，0表示不清理
+         */
+        private int retentionDays = 30;
+        /**
+         * 差异明细的存储方式
+         */
+        private DifferenceStorage differenceStorage = DifferenceStorage.TABLE;
+        /**
+         * FILE方式下差异文件所在目录，每次执行一个文件
+         */
+        private String differenceDirectory = "./data/differences";
+        /**
+         * FILE方式下差异文件每块的行数
+         */
+        private int differenceBlockRows = 4096;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public DifferenceStorage getDifferenceStorage() {
+            return differenceStorage;
+        }
+
+        public void setDifferenceStorage(DifferenceStorage differenceStorage) {
+            this.differenceStorage = differenceStorage;
+        }
+
+        public String getDifferenceDirectory() {
+            return differenceDirectory;
+        }
+
+        public void setDifferenceDirectory(String differenceDirectory) {
+            this.differenceDirectory = differenceDirectory;
+        }
+
+        public int getDifferenceBlockRows() {
+            return differenceBlockRows;
+        }
+
+        public void setDifferenceBlockRows(int differenceBlockRows) {
+            this.differenceBlockRows = differenceBlockRows;
+        }
+    }
+
+    /**
+     * 差异明细存储方式
+     */
+    public enum DifferenceStorage {
+        /**
+         * 写入历史库的comparison_difference表
+         */
+        TABLE,
+        /**
+         * 写入按列压缩的差异文件，适合差异数很大的执行
+         */
+        FILE
+    }
+
+    /**
+     * 规则调度配置
+     * 并行执行多个规则时，优先级高的规则先执行；同一优先级按预计耗时除以权重从小到大执行，
+     * 预计耗时取该规则历次执行耗时的移动平均。每个数据源同时执行的规则数不超过上限
+     */
+    public static class SchedulerConfig {
+        /**
+         * 同时执行的规则数，0表示使用threadPoolSize
+         */
+        private int maxConcurrentRules = 0;
+        /**
+         * 每个数据源同时执行的规则数，0表示不限制
+         */
+        private int maxRulesPerDataSource = 0;
+        /**
+         * 没有执行记录的规则的预计耗时（毫秒），0表示取已有记录的平均值
+         */
+        private long defaultExpectedMillis = 0;
+
+        // Getters and Setters
+        public int getMaxConcurrentRules() {
+            return maxConcurrentRules;
+        }
+
+        public void setMaxConcurrentRules(int maxConcurrentRules) {
+            this.maxConcurrentRules = maxConcurrentRules;
+        }
+
+        public int getMaxRulesPerDataSource() {
+            return maxRulesPerDataSource;
+        }
+
+        public void setMaxRulesPerDataSource(int maxRulesPerDataSource) {
+            this.maxRulesPerDataSource = maxRulesPerDataSource;
+        }
+
+        public long getDefaultExpectedMillis() {
+            return defaultExpectedMillis;
+        }
+
+        public void setDefaultExpectedMillis(long defaultExpectedMillis) {
+            this.defaultExpectedMillis = defaultExpectedMillis;
+        }
+    }
+
+    /**
+     * 比较结果缓存配置
+     * 相同规则的并发请求始终合并为一次执行；启用后成功的结果在有效期内直接返回，不再查询数据库
+     */
+    public static class ResultCacheConfig {
+        /**
+         * 是否缓存比较结果
+         */
+        private boolean enabled = false;
+        /**
+         * 默认有效期（秒）
+         */
+        private long ttlSeconds = 60;
+        /**
+         * 最多缓存的结果数，超出时淘汰最久未访问的结果
+         */
+        private int maxEntries = 100;
+        /**
+         * 按规则名称单独指定的有效期（秒），0表示该规则不缓存
+         */
+        private Map<String, Long> ruleTtlSeconds = new HashMap<>();
+
+        /**
+         * 获取规则的结果有效期
+         *
+         * @param ruleName 规则名称
+         * @return 有效期（秒）
+         */
+        public long getTtlSecondsFor(String ruleName) {
+            return ruleTtlSeconds.getOrDefault(ruleName, ttlSeconds);
+        }
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Map<String, Long> getRuleTtlSeconds() {
+            return ruleTtlSeconds;
+        }
+
+        public void setRuleTtlSeconds(Map<String, Long> ruleTtlSeconds) {
+            this.ruleTtlSeconds = ruleTtlSeconds;
+        }
+    }
+
+    /**
+     * 连接池自动调整配置，仅对pool.adaptive为true的数据源生效
+     */
+    public static class PoolSizingConfig {
+        /**
+         * 检查间隔（秒）
+         */
+        private long intervalSeconds = 10;
+        /**
+         * 获取连接的平均等待时间超过该值（毫秒）时扩容
+         */
+        private long waitThresholdMillis = 50;
+
+        // Getters and Setters
+        public long getIntervalSeconds() {
+            return intervalSeconds;
+        }
+
+        public void setIntervalSeconds(long intervalSeconds) {
+            this.intervalSeconds = intervalSeconds;
+        }
+
+        public long getWaitThresholdMillis() {
+            return waitThresholdMillis;
+        }
+
+        public void setWaitThresholdMillis(long waitThresholdMillis) {
+            this.waitThresholdMillis = waitThresholdMillis;
+        }
+    }
+
+    /**
+     * 数据源连接校验与预热配置
+     */
+    public static class ConnectionCheckConfig {
+        /**
+         * 连接校验截止时间（秒），所有数据源并行校验
+         */
+        private long validationTimeoutSeconds = 5;
+        /**
+         * 是否在启动后预热所有连接池
+         */
+        private boolean warmUpOnStartup = false;
+        /**
+         * 连接池预热截止时间（秒）
+         */
+        private long warmUpTimeoutSeconds = 60;
+        /**
+         * 不可用副本的重新校验间隔（秒），校验失败或获取连接超时的副本超过该间隔后在路由时异步重新校验，
+         * 不大于0时只在手动校验时恢复
+         */
+        private long replicaRecheckSeconds = 30;
+
+        // Getters and Setters
+        public long getValidationTimeoutSeconds() {
+            return validationTimeoutSeconds;
+        }
+
+        public void setValidationTimeoutSeconds(long validationTimeoutSeconds) {
+            this.validationTimeoutSeconds = validationTimeoutSeconds;
+        }
+
+        public boolean isWarmUpOnStartup() {
+            return warmUpOnStartup;
+        }
+
+        public void setWarmUpOnStartup(boolean warmUpOnStartup) {
+            this.warmUpOnStartup = warmUpOnStartup;
+        }
+
+        public long getWarmUpTimeoutSeconds() {
+            return warmUpTimeoutSeconds;
+        }
+
+        public void setWarmUpTimeoutSeconds(long warmUpTimeoutSeconds) {
+            this.warmUpTimeoutSeconds = warmUpTimeoutSeconds;
+        }
+
+        public long getReplicaRecheckSeconds() {
+            return replicaRecheckSeconds;
+        }
+
+        public void setReplicaRecheckSeconds(long replicaRecheckSeconds) {
+            this.replicaRecheckSeconds = replicaRecheckSeconds;
+        }
+    }
+
+    /**
+     * 表元数据缓存配置
+     */
+    public static class MetadataConfig {
+        /**
+         * 元数据缓存有效期（秒）
+         */
+        private long ttlSeconds = 1800;
+
+        // Getters and Setters
+        public long getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+
+    /**
+     * 比较策略规划器配置
+     * 根据数据库目录统计信息选择比较策略
+     */
+    public static class PlannerConfig {
+        /**
+         * 统计信息缓存有效期（秒）
+         */
+        private long statisticsTtlSeconds = 600;
+        /**
+         * 预估行数达到该值时使用主键范围并行比较
+         */
+        private long rangeParallelThreshold = 1000000;
+        /**
+         * 范围并行比较时每个范围的目标行数
+         */
+        private long rangeRows = 200000;
+        /**
+         * 同类型数据库之间是否先做校验和预检
+         */
+        private boolean checksumEnabled = false;
+        /**
+         * 主键无可用索引时，预估行数达到该值则不让数据库排序，改为无序读取后在本机外部排序再归并；0表示不启用
+         */
+        private long externalSortThreshold = 0;
+        /**
+         * 外部排序时每个有序段在内存中排序的行数
+         */
+        private int externalSortRunRows = 200000;
+        /**
+         * 外部排序段文件和哈希分区文件的目录，为空时使用系统临时目录
+         */
+        private String externalSortDirectory;
+        /**
+         * 主键无可用索引时，预估行数达到该值则两端按主键哈希分区写入本机临时文件，再逐个分区并行比较；
+         * 优先于外部排序，0表示不启用
+         */
+        private long hashPartitionThreshold = 0;
+        /**
+         * 哈希分区比较时每个分区的目标行数，决定分区数和单个分区比较时的内存占用
+         */
+        private long hashPartitionRows = 200000;
+        /**
+         * 是否识别两端的原生分区：两端分区名称和边界一致时逐个分区并行比较，每次查询只读取一个分区。
+         * 分区列取值在两端不一致的行会在各自分区中分别报告为仅源端存在和仅目标端存在
+         */
+        private boolean partitionAware = false;
+
+        // Getters and Setters
+        public long getStatisticsTtlSeconds() {
+            return statisticsTtlSeconds;
+        }
+
+        public void setStatisticsTtlSeconds(long statisticsTtlSeconds) {
+            this.statisticsTtlSeconds = statisticsTtlSeconds;
+        }
+
+        public long getRangeParallelThreshold() {
+            return rangeParallelThreshold;
+        }
+
+        public void setRangeParallelThreshold(long rangeParallelThreshold) {
+            this.rangeParallelThreshold = rangeParallelThreshold;
+        }
+
+        public long getRangeRows() {
+            return rangeRows;
+        }
+
+        public void setRangeRows(long rangeRows) {
+            this.rangeRows = rangeRows;
+        }
+
+        public boolean isChecksumEnabled() {
+            return checksumEnabled;
+        }
+
+        public void setChecksumEnabled(boolean checksumEnabled) {
+            this.checksumEnabled = checksumEnabled;
+        }
+
+        public long getExternalSortThreshold() {
+            return externalSortThreshold;
+        }
+
+        public void setExternalSortThreshold(long externalSortThreshold) {
+            this.externalSortThreshold = externalSortThreshold;
+        }
+
+        public int getExternalSortRunRows() {
+            return externalSortRunRows;
+        }
+
+        public void setExternalSortRunRows(int externalSortRunRows) {
+            this.externalSortRunRows = externalSortRunRows;
+        }
+
+        public String getExternalSortDirectory() {
+            return externalSortDirectory;
+        }
+
+        public void setExternalSortDirectory(String externalSortDirectory) {
+            this.externalSortDirectory = externalSortDirectory;
+        }
+
+        public long getHashPartitionThreshold() {
+            return hashPartitionThreshold;
+        }
+
+        public void setHashPartitionThreshold(long hashPartitionThreshold) {
+            this.hashPartitionThreshold = hashPartitionThreshold;
+        }
+
+        public long getHashPartitionRows() {
+            return hashPartitionRows;
+        }
+
+        public void setHashPartitionRows(long hashPartitionRows) {
+            this.hashPartitionRows = hashPartitionRows;
+        }
+
+        public boolean isPartitionAware() {
+            return partitionAware;
+        }
+
+        public void setPartitionAware(boolean partitionAware) {
+            this.partitionAware = partitionAware;
+        }
+    }
+
+    /**
+     * 自适应批次大小配置
+     * 按规则和数据源根据批次耗时、行宽和堆内存余量动态调整分页大小
+     */
+    public static class AdaptiveBatchConfig {
+        private boolean enabled = true;
+        private int minBatchSize = 500;
+        private int maxBatchSize = 50000;
+        /**
+         * 单批次目标耗时（毫秒）
+         */
+        private long targetBatchMillis = 500;
+        /**
+         * 单批次最大内存占用估算值（字节）
+         */
+        private long maxBatchBytes = 16L * 1024 * 1024;
+        /**
+         * 最小空闲堆内存比例，低于该值时批次减半
+         */
+        private double minFreeHeapRatio = 0.2;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMinBatchSize() {
+            return minBatchSize;
+        }
 
-    public List<ComparisonRule> getRules() {
-        return rules;
-    }
+        public void setMinBatchSize(int minBatchSize) {
+            this.minBatchSize = minBatchSize;
+        }
 
-    public void setRules(List<ComparisonRule> rules) {
-        this.rules = rules;
-    }
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
 
-    public int getBatchSize() {
-        return batchSize;
-    }
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
 
-    public void setBatchSize(int batchSize) {
-        this.batchSize = batchSize;
-    }
+        public long getTargetBatchMillis() {
+            return targetBatchMillis;
+        }
 
-    public boolean isEnableParallel() {
-        return enableParallel;
-    }
+        public void setTargetBatchMillis(long targetBatchMillis) {
+            this.targetBatchMillis = targetBatchMillis;
+        }
 
-    public void setEnableParallel(boolean enableParallel) {
-        this.enableParallel = enableParallel;
-    }
+        public long getMaxBatchBytes() {
+            return maxBatchBytes;
+        }
 
-    public int getThreadPoolSize() {
-        return threadPoolSize;
-    }
+        public void setMaxBatchBytes(long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+        }
 
-    public void setThreadPoolSize(int threadPoolSize) {
-        this.threadPoolSize = threadPoolSize;
+        public double getMinFreeHeapRatio() {
+            return minFreeHeapRatio;
+        }
+
+        public void setMinFreeHeapRatio(double minFreeHeapRatio) {
+            this.minFreeHeapRatio = minFreeHeapRatio;
+        }
     }
 
     /**
@@ -93,6 +823,134 @@ public class ComparisonProperties {
         private String password;
         private String driverClassName;
         private Map<String, String> properties;
+        private PoolConfig pool = new PoolConfig();
+        private ThrottleConfig throttle = new ThrottleConfig();
+        /**
+         * 只读副本，比较查询按routing路由到副本，元数据和统计信息查询仍使用主库
+         */
+        private List<ReplicaConfig> replicas = new ArrayList<>();
+        /**
+         * 比较查询的路由策略
+         */
+        private ReadRouting routing = ReadRouting.PRIMARY;
+
+        // Getters and Setters
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getDriverClassName() {
+            return driverClassName;
+        }
+
+        public void setDriverClassName(String driverClassName) {
+            this.driverClassName = driverClassName;
+        }
+
+        public Map<String, String> getProperties() {
+            return properties;
+        }
+
+        public void setProperties(Map<String, String> properties) {
+            this.properties = properties;
+        }
+
+        public PoolConfig getPool() {
+            return pool;
+        }
+
+        public void setPool(PoolConfig pool) {
+            this.pool = pool;
+        }
+
+        public ThrottleConfig getThrottle() {
+            return throttle;
+        }
+
+        public void setThrottle(ThrottleConfig throttle) {
+            this.throttle = throttle;
+        }
+
+        public List<ReplicaConfig> getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(List<ReplicaConfig> replicas) {
+            this.replicas = replicas;
+        }
+
+        public ReadRouting getRouting() {
+            return routing;
+        }
+
+        public void setRouting(ReadRouting routing) {
+            this.routing = routing;
+        }
+    }
+
+    /**
+     * 比较查询的路由策略，副本都不可用或未配置副本时使用主库
+     */
+    public enum ReadRouting {
+        /**
+         * 只使用主库
+         */
+        PRIMARY,
+        /**
+         * 使用配置顺序中第一个可用的副本，其余副本用于故障切换
+         */
+        REPLICA_PREFERRED,
+        /**
+         * 使用连接池等待线程和活动连接占比最低的副本
+         */
+        LEAST_LOADED,
+        /**
+         * 按主键范围序号轮流分配到各副本，同一范围总是路由到同一副本
+         */
+        ROUND_ROBIN
+    }
+
+    /**
+     * 只读副本配置，未配置的用户名、密码、驱动沿用主库配置，连接属性在主库配置基础上覆盖
+     */
+    public static class ReplicaConfig {
+        /**
+         * 副本名称，物理数据源名称为"逻辑数据源名称#副本名称"，默认为replica加序号
+         */
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private Map<String, String> properties;
 
         // Getters and Setters
         public String getName() {
@@ -144,6 +1002,186 @@ public class ComparisonProperties {
         }
     }
 
+    /**
+     * 负载限制配置（按数据源）
+     * 限制比较对数据源的读取速度和并发语句数，并按查询耗时自动降速，避免影响线上业务
+     */
+    public static class ThrottleConfig {
+        /**
+         * 是否启用负载限制
+         */
+        private boolean enabled = false;
+        /**
+         * 每秒读取行数上限，0表示不限制
+         */
+        private long maxRowsPerSecond = 0;
+        /**
+         * 每秒查询数上限，0表示不限制
+         */
+        private double maxQueriesPerSecond = 0;
+        /**
+         * 同时执行的语句数上限，0表示不限制
+         */
+        private int maxConcurrentQueries = 0;
+        /**
+         * 查询耗时目标（毫秒），平均耗时超过该值时按比例降低上述限制，0表示不自动降速
+         */
+        private long latencyTargetMillis = 0;
+        /**
+         * 自动降速后的限制不低于配置值的该比例
+         */
+        private double minRateRatio = 0.1;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMaxRowsPerSecond() {
+            return maxRowsPerSecond;
+        }
+
+        public void setMaxRowsPerSecond(long maxRowsPerSecond) {
+            this.maxRowsPerSecond = maxRowsPerSecond;
+        }
+
+        public double getMaxQueriesPerSecond() {
+            return maxQueriesPerSecond;
+        }
+
+        public void setMaxQueriesPerSecond(double maxQueriesPerSecond) {
+            this.maxQueriesPerSecond = maxQueriesPerSecond;
+        }
+
+        public int getMaxConcurrentQueries() {
+            return maxConcurrentQueries;
+        }
+
+        public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+            this.maxConcurrentQueries = maxConcurrentQueries;
+        }
+
+        public long getLatencyTargetMillis() {
+            return latencyTargetMillis;
+        }
+
+        public void setLatencyTargetMillis(long latencyTargetMillis) {
+            this.latencyTargetMillis = latencyTargetMillis;
+        }
+
+        public double getMinRateRatio() {
+            return minRateRatio;
+        }
+
+        public void setMinRateRatio(double minRateRatio) {
+            this.minRateRatio = minRateRatio;
+        }
+    }
+
+    /**
+     * 连接池配置（按数据源）
+     */
+    public static class PoolConfig {
+        private int maximumPoolSize = 20;
+        private int minimumIdle = 5;
+        private long connectionTimeout = 30000;
+        private long idleTimeout = 600000;
+        private long maxLifetime = 1800000;
+        /**
+         * 是否根据并行需求和获取连接的等待时间自动调整连接池大小
+         */
+        private boolean adaptive = false;
+        /**
+         * 自动调整时连接池大小的上限
+         */
+        private int adaptiveMaxPoolSize = 50;
+        /**
+         * 驱动预编译语句缓存条数
+         */
+        private int statementCacheSize = 250;
+        /**
+         * 可缓存的SQL最大长度
+         */
+        private int statementCacheSqlLimit = 2048;
+
+        // Getters and Setters
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public int getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(int minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public long getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(long connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public long getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public long getMaxLifetime() {
+            return maxLifetime;
+        }
+
+        public void setMaxLifetime(long maxLifetime) {
+            this.maxLifetime = maxLifetime;
+        }
+
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        public int getAdaptiveMaxPoolSize() {
+            return adaptiveMaxPoolSize;
+        }
+
+        public void setAdaptiveMaxPoolSize(int adaptiveMaxPoolSize) {
+            this.adaptiveMaxPoolSize = adaptiveMaxPoolSize;
+        }
+
+        public int getStatementCacheSize() {
+            return statementCacheSize;
+        }
+
+        public void setStatementCacheSize(int statementCacheSize) {
+            this.statementCacheSize = statementCacheSize;
+        }
+
+        public int getStatementCacheSqlLimit() {
+            return statementCacheSqlLimit;
+        }
+
+        public void setStatementCacheSqlLimit(int statementCacheSqlLimit) {
+            this.statementCacheSqlLimit = statementCacheSqlLimit;
+        }
+    }
+
     /**
      * 比较规则配置
      */
@@ -156,6 +1194,22 @@ public class ComparisonProperties {
         private String keyField;
         private String whereCondition;
         private boolean enabled = true;
+        /**
+         * 调度优先级，数值大的先执行
+         */
+        private int priority = 0;
+        /**
+         * 调度权重，同一优先级下按预计耗时除以权重排序，权重越大越早执行
+         */
+        private int weight = 1;
+        /**
+         * 定时执行配置，为空时只按请求执行
+         */
+        private RuleScheduleConfig schedule;
+        /**
+         * 滚动时间窗口配置，配置后定时执行只比较最近的窗口，为空时比较WHERE条件限定的全部数据
+         */
+        private TimeWindowConfig timeWindow;
 
         // Getters and Setters
         public String getName() {
@@ -221,6 +1275,175 @@ public class ComparisonProperties {
         public void setEnabled(boolean enabled) {
             this.enabled = enabled;
         }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public void setPriority(int priority) {
+            this.priority = priority;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        public RuleScheduleConfig getSchedule() {
+            return schedule;
+        }
+
+        public void setSchedule(RuleScheduleConfig schedule) {
+            this.schedule = schedule;
+        }
+
+        public TimeWindowConfig getTimeWindow() {
+            return timeWindow;
+        }
+
+        public void setTimeWindow(TimeWindowConfig timeWindow) {
+            this.timeWindow = timeWindow;
+        }
+    }
+
+    /**
+     * 规则定时执行配置
+     * 相同cron表达式和错开窗口的规则在窗口内均匀错开启动，再叠加随机抖动
+     */
+    public static class RuleScheduleConfig {
+        /**
+         * Spring cron表达式（秒 分 时 日 月 周），如"0 0 2 * * *"
+         */
+        private String cron;
+        /**
+         * 时区，为空时使用系统时区
+         */
+        private String zone;
+        /**
+         * 错开窗口（秒）
+         */
+        private long staggerSeconds = 0;
+        /**
+         * 随机抖动上限（秒）
+         */
+        private long jitterSeconds = 0;
+        /**
+         * 上一次执行尚未结束时是否跳过本次执行
+         */
+        private boolean skipIfRunning = true;
+
+        // Getters and Setters
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+
+        public String getZone() {
+            return zone;
+        }
+
+        public void setZone(String zone) {
+            this.zone = zone;
+        }
+
+        public long getStaggerSeconds() {
+            return staggerSeconds;
+        }
+
+        public void setStaggerSeconds(long staggerSeconds) {
+            this.staggerSeconds = staggerSeconds;
+        }
+
+        public long getJitterSeconds() {
+            return jitterSeconds;
+        }
+
+        public void setJitterSeconds(long jitterSeconds) {
+            this.jitterSeconds = jitterSeconds;
+        }
+
+        public boolean isSkipIfRunning() {
+            return skipIfRunning;
+        }
+
+        public void setSkipIfRunning(boolean skipIfRunning) {
+            this.skipIfRunning = skipIfRunning;
+        }
+    }
+
+    /**
+     * 滚动时间窗口配置
+     * 按时间列把数据切成固定长度、首尾相接的窗口，每次执行比较刚结束的窗口；回看范围内已比较过的窗口
+     * 在结束后第1、2、4、8…个窗口时长时复查以发现迟到的数据，上次比较有差异或失败的窗口每次都复查
+     */
+    public static class TimeWindowConfig {
+        /**
+         * 时间列，两端列名相同
+         */
+        private String timeColumn;
+        /**
+         * 窗口长度（秒），窗口按时区内的整点对齐，如3600为每小时、86400为每天
+         */
+        private long windowSeconds = 3600;
+        /**
+         * 回看的已结束窗口数，更早的窗口不再复查
+         */
+        private int lookbackWindows = 24;
+        /**
+         * 每次执行最多比较的窗口数，越新的窗口越先比较，0表示不限制
+         */
+        private int maxWindowsPerRun = 0;
+        /**
+         * 时间列取值所在的时区，为空时使用系统时区
+         */
+        private String zone;
+
+        // Getters and Setters
+        public String getTimeColumn() {
+            return timeColumn;
+        }
+
+        public void setTimeColumn(String timeColumn) {
+            this.timeColumn = timeColumn;
+        }
+
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public int getLookbackWindows() {
+            return lookbackWindows;
+        }
+
+        public void setLookbackWindows(int lookbackWindows) {
+            this.lookbackWindows = lookbackWindows;
+        }
+
+        public int getMaxWindowsPerRun() {
+            return maxWindowsPerRun;
+        }
+
+        public void setMaxWindowsPerRun(int maxWindowsPerRun) {
+            this.maxWindowsPerRun = maxWindowsPerRun;
+        }
+
+        public String getZone() {
+            return zone;
+        }
+
+        public void setZone(String zone) {
+            this.zone = zone;
+        }
     }
 
     /**
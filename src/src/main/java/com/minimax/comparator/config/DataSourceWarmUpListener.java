@@ -0,0 +1,51 @@
+package com.minimax.comparator.config;
+
+import com.minimax.comparator.model.DataSourceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 连接池启动预热
+ * 应用就绪后在后台线程中并行预热所有数据源连接池，避免首次执行规则时才创建连接池
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class DataSourceWarmUpListener implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceWarmUpListener.class);
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!comparisonProperties.getConnectionCheck().isWarmUpOnStartup()) {
+            return;
+        }
+
+        Thread warmUpThread = new Thread(() -> {
+            logger.info("开始预热数据源连接池");
+            Map<String, DataSourceStatus> results = dataSourceConfig.warmUpAll();
+            results.values().forEach(status -> {
+                if (status.isReady()) {
+                    logger.info("数据源 {} 预热完成，耗时 {} 毫秒", status.getDataSourceName(), status.getLatencyMillis());
+                } else {
+                    logger.warn("数据源 {} 预热失败: {}", status.getDataSourceName(), status.getMessage());
+                }
+            });
+        }, "datasource-warmup");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+}
@@ -1,20 +1,36 @@
 package com.minimax.comparator.config;
 
+import com.minimax.comparator.model.DataSourceStatus;
+import com.minimax.comparator.util.SqlBuilder;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
-import java.util.HashMap;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * 动态数据源配置类
- * 支持运行时动态创建和管理多个数据源
+ * 支持运行时动态创建和管理多个数据源。配置了只读副本的逻辑数据源，每个副本作为名为"逻辑名称#副本名称"的
+ * 物理数据源单独建立连接池，比较查询按路由策略选择副本
  * 
  * @author MiniMax Agent
  * @since 2025-06-27
@@ -22,6 +38,13 @@ import java.util.concurrent.ConcurrentHashMap;
 @Configuration
 public class DynamicDataSourceConfig {
 
+    /**
+     * 逻辑数据源名称与副本名称的分隔符
+     */
+    public static final String REPLICA_SEPARATOR = "#";
+
+    private static final String POOL_NAME_PREFIX = "HikariCP-";
+
     @Autowired
     private ComparisonProperties comparisonProperties;
 
@@ -35,6 +58,35 @@ public class DynamicDataSourceConfig {
      */
     private final Map<String, JdbcTemplate> jdbcTemplateCache = new ConcurrentHashMap<>();
 
+    /**
+     * 数据源状态：最近一次连接校验或预热的结果
+     */
+    private final Map<String, DataSourceStatus> statusCache = new ConcurrentHashMap<>();
+
+    /**
+     * 逻辑数据源名称 -> 无分区读取的轮转计数
+     */
+    private final Map<String, AtomicLong> routingCounters = new ConcurrentHashMap<>();
+
+    /**
+     * 获取连接等待时间统计，所有连接池共用
+     */
+    private final PoolWaitTracker poolWaitTracker = new PoolWaitTracker(this::recordAcquireTimeout);
+
+    /**
+     * 正在异步重新校验的副本
+     */
+    private final Set<String> rechecking = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 连接校验和预热线程池，使用守护线程，卡在网络连接上的线程不会阻止应用退出
+     */
+    private final ExecutorService connectionCheckExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "datasource-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * 获取数据源
      * 
@@ -56,6 +108,147 @@ public class DynamicDataSourceConfig {
             dsName -> new JdbcTemplate(getDataSource(dsName)));
     }
 
+    /**
+     * 获取比较查询使用的JdbcTemplate，按逻辑数据源的路由策略选择主库或副本
+     * 
+     * @param dataSourceName 逻辑数据源名称
+     * @return JdbcTemplate
+     */
+    public JdbcTemplate getReadJdbcTemplate(String dataSourceName) {
+        return getJdbcTemplate(routeRead(dataSourceName, -1));
+    }
+
+    /**
+     * 获取读取某个主键范围使用的JdbcTemplate，ROUND_ROBIN策略下按范围序号分配副本
+     * 
+     * @param dataSourceName 逻辑数据源名称
+     * @param partition 主键范围序号，非负
+     * @return JdbcTemplate
+     */
+    public JdbcTemplate getReadJdbcTemplate(String dataSourceName, long partition) {
+        return getJdbcTemplate(routeRead(dataSourceName, partition));
+    }
+
+    /**
+     * 选择比较查询使用的物理数据源
+     * 
+     * @param dataSourceName 逻辑数据源名称
+     * @param partition 主键范围序号，负数表示不分区（ROUND_ROBIN策略下按调用次数轮转）
+     * @return 物理数据源名称
+     */
+    public String routeRead(String dataSourceName, long partition) {
+        ComparisonProperties.DataSourceConfig config = findDataSourceConfig(dataSourceName);
+        if (config == null || config.getRouting() == null || config.getRouting() == ComparisonProperties.ReadRouting.PRIMARY) {
+            return dataSourceName;
+        }
+        List<String> replicas = getAvailableReplicas(config);
+        if (replicas.isEmpty()) {
+            return dataSourceName;
+        }
+        switch (config.getRouting()) {
+            case LEAST_LOADED:
+                return replicas.stream()
+                        .min(java.util.Comparator.comparingDouble(this::currentLoad))
+                        .orElse(dataSourceName);
+            case ROUND_ROBIN:
+                long slot = partition >= 0 ? partition
+                        : routingCounters.computeIfAbsent(dataSourceName, name -> new AtomicLong()).getAndIncrement();
+                return replicas.get((int) Math.floorMod(slot, (long) replicas.size()));
+            case REPLICA_PREFERRED:
+            default:
+                return replicas.get(0);
+        }
+    }
+
+    /**
+     * 比较查询可能使用的物理数据源，用于登记并行连接需求
+     * 
+     * @param dataSourceName 逻辑数据源名称
+     * @return 物理数据源名称列表
+     */
+    public List<String> getReadEndpoints(String dataSourceName) {
+        ComparisonProperties.DataSourceConfig config = findDataSourceConfig(dataSourceName);
+        if (config == null || config.getRouting() == null || config.getRouting() == ComparisonProperties.ReadRouting.PRIMARY) {
+            return java.util.Collections.singletonList(dataSourceName);
+        }
+        List<String> replicas = getAvailableReplicas(config);
+        if (replicas.isEmpty()) {
+            return java.util.Collections.singletonList(dataSourceName);
+        }
+        return config.getRouting() == ComparisonProperties.ReadRouting.REPLICA_PREFERRED
+                ? java.util.Collections.singletonList(replicas.get(0)) : replicas;
+    }
+
+    /**
+     * 最近一次校验或获取连接未失败的副本，按配置顺序；不可用状态已超过重新校验间隔的副本异步重新校验
+     */
+    private List<String> getAvailableReplicas(ComparisonProperties.DataSourceConfig config) {
+        List<String> replicas = new ArrayList<>();
+        for (String replicaName : getReplicaNames(config)) {
+            DataSourceStatus status = statusCache.get(replicaName);
+            if (status == null || (status.getState() != DataSourceStatus.State.FAILED
+                    && status.getState() != DataSourceStatus.State.TIMEOUT)) {
+                replicas.add(replicaName);
+            } else {
+                recheckIfStale(replicaName, status);
+            }
+        }
+        return replicas;
+    }
+
+    /**
+     * 在校验线程池中重新校验不可用的副本，校验成功后副本重新参与路由；同一副本同时只有一个重新校验
+     */
+    private void recheckIfStale(String dataSourceName, DataSourceStatus status) {
+        long interval = comparisonProperties.getConnectionCheck().getReplicaRecheckSeconds();
+        if (interval <= 0 || status.getCheckedAt() == null
+                || status.getCheckedAt().isAfter(LocalDateTime.now().minusSeconds(interval))
+                || !rechecking.add(dataSourceName)) {
+            return;
+        }
+        connectionCheckExecutor.execute(() -> {
+            try {
+                checkConnection(dataSourceName);
+            } finally {
+                rechecking.remove(dataSourceName);
+            }
+        });
+    }
+
+    /**
+     * 运行中获取连接超时（包括无法建立新连接）时标记数据源不可用，副本在重新校验成功前不参与路由
+     */
+    private void recordAcquireTimeout(String poolName) {
+        String dataSourceName = poolName.substring(POOL_NAME_PREFIX.length());
+        statusCache.put(dataSourceName, new DataSourceStatus(dataSourceName, DataSourceStatus.State.FAILED, "获取连接超时"));
+    }
+
+    /**
+     * 连接池当前负载：等待连接的线程数加活动连接占比，未创建的连接池为0
+     */
+    private double currentLoad(String dataSourceName) {
+        HikariDataSource pool = getRunningPool(dataSourceName);
+        if (pool == null) {
+            return 0;
+        }
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        return bean.getThreadsAwaitingConnection() + (double) bean.getActiveConnections() / Math.max(1, pool.getMaximumPoolSize());
+    }
+
+    private static List<String> getReplicaNames(ComparisonProperties.DataSourceConfig config) {
+        List<String> names = new ArrayList<>();
+        if (config.getReplicas() != null) {
+            for (int i = 0; i < config.getReplicas().size(); i++) {
+                names.add(config.getName() + REPLICA_SEPARATOR + getReplicaLabel(config.getReplicas().get(i), i));
+            }
+        }
+        return names;
+    }
+
+    private static String getReplicaLabel(ComparisonProperties.ReplicaConfig replica, int index) {
+        return replica.getName() != null && !replica.getName().isEmpty() ? replica.getName() : "replica" + (index + 1);
+    }
+
     /**
      * 创建数据源
      * 
@@ -75,21 +268,143 @@ public class DynamicDataSourceConfig {
         hikariConfig.setDriverClassName(config.getDriverClassName());
 
         // 设置连接池参数
-        hikariConfig.setMaximumPoolSize(20);
-        hikariConfig.setMinimumIdle(5);
-        hikariConfig.setConnectionTimeout(30000);
-        hikariConfig.setIdleTimeout(600000);
-        hikariConfig.setMaxLifetime(1800000);
+        ComparisonProperties.PoolConfig pool = getPoolConfig(config);
+        hikariConfig.setMaximumPoolSize(pool.getMaximumPoolSize());
+        hikariConfig.setMinimumIdle(Math.min(pool.getMinimumIdle(), pool.getMaximumPoolSize()));
+        hikariConfig.setConnectionTimeout(pool.getConnectionTimeout());
+        hikariConfig.setIdleTimeout(pool.getIdleTimeout());
+        hikariConfig.setMaxLifetime(pool.getMaxLifetime());
+        hikariConfig.setMetricsTrackerFactory(poolWaitTracker);
 
         // 设置连接池名称
-        hikariConfig.setPoolName("HikariCP-" + dataSourceName);
+        hikariConfig.setPoolName(getPoolName(dataSourceName));
+
+        // 预编译语句缓存
+        applyStatementCacheProperties(hikariConfig, SqlBuilder.inferDatabaseType(config.getUrl()), pool);
 
-        // 应用自定义属性
+        // 应用自定义属性（可覆盖上面的默认设置）
         if (config.getProperties() != null) {
             config.getProperties().forEach(hikariConfig::addDataSourceProperty);
         }
 
-        return new HikariDataSource(hikariConfig);
+        try {
+            return new HikariDataSource(hikariConfig);
+        } catch (RuntimeException e) {
+            // 连接池初始化时无法建立连接，同样标记为不可用
+            statusCache.put(dataSourceName, new DataSourceStatus(dataSourceName, DataSourceStatus.State.FAILED, e.getMessage()));
+            throw e;
+        }
+    }
+
+    /**
+     * 按数据库方言设置驱动的预编译语句缓存，分页和批量查询反复执行相同SQL时可跳过重复解析
+     */
+    private void applyStatementCacheProperties(HikariConfig hikariConfig,
+                                               SqlBuilder.DatabaseType databaseType,
+                                               ComparisonProperties.PoolConfig pool) {
+        int cacheSize = pool.getStatementCacheSize();
+        if (cacheSize <= 0) {
+            return;
+        }
+        switch (databaseType) {
+            case MYSQL:
+                hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+                hikariConfig.addDataSourceProperty("prepStmtCacheSize", String.valueOf(cacheSize));
+                hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(pool.getStatementCacheSqlLimit()));
+                hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+                break;
+            case POSTGRESQL:
+                hikariConfig.addDataSourceProperty("prepareThreshold", "1");
+                hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(cacheSize));
+                break;
+            case ORACLE:
+                hikariConfig.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(cacheSize));
+                break;
+            case SQL_SERVER:
+                hikariConfig.addDataSourceProperty("disableStatementPooling", "false");
+                hikariConfig.addDataSourceProperty("statementPoolingCacheSize", String.valueOf(cacheSize));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 获取数据源的连接池配置，未配置时使用默认值
+     * 
+     * @param dataSourceName 数据源名称
+     * @return PoolConfig，数据源不存在时返回null
+     */
+    public ComparisonProperties.PoolConfig getPoolConfig(String dataSourceName) {
+        ComparisonProperties.DataSourceConfig config = findDataSourceConfig(dataSourceName);
+        return config != null ? getPoolConfig(config) : null;
+    }
+
+    private ComparisonProperties.PoolConfig getPoolConfig(ComparisonProperties.DataSourceConfig config) {
+        return config.getPool() != null ? config.getPool() : new ComparisonProperties.PoolConfig();
+    }
+
+    /**
+     * 获取数据源的负载限制配置，未配置时使用默认值（不限制）
+     * 
+     * @param dataSourceName 数据源名称
+     * @return ThrottleConfig，数据源不存在时返回null
+     */
+    public ComparisonProperties.ThrottleConfig getThrottleConfig(String dataSourceName) {
+        ComparisonProperties.DataSourceConfig config = findDataSourceConfig(dataSourceName);
+        if (config == null) {
+            return null;
+        }
+        return config.getThrottle() != null ? config.getThrottle() : new ComparisonProperties.ThrottleConfig();
+    }
+
+    /**
+     * 获取已创建且正在运行的连接池，不会触发创建
+     * 
+     * @param dataSourceName 数据源名称
+     * @return HikariDataSource，未创建或已关闭时返回null
+     */
+    HikariDataSource getRunningPool(String dataSourceName) {
+        DataSource dataSource = dataSourceCache.get(dataSourceName);
+        if (dataSource instanceof HikariDataSource && ((HikariDataSource) dataSource).isRunning()) {
+            return (HikariDataSource) dataSource;
+        }
+        return null;
+    }
+
+    /**
+     * 获取已创建连接池的数据源名称
+     * 
+     * @return Set<String>
+     */
+    java.util.Set<String> getCreatedDataSourceNames() {
+        return java.util.Collections.unmodifiableSet(dataSourceCache.keySet());
+    }
+
+    /**
+     * 读取并清零连接池在当前采样周期内获取连接的平均等待时间
+     * 
+     * @param dataSourceName 数据源名称
+     * @return 平均等待毫秒数
+     */
+    long drainAverageWaitMillis(String dataSourceName) {
+        return poolWaitTracker.drainAverageWaitMillis(getPoolName(dataSourceName));
+    }
+
+    private static String getPoolName(String dataSourceName) {
+        return POOL_NAME_PREFIX + dataSourceName;
+    }
+
+    /**
+     * 按JDBC URL推断数据源的数据库类型，不需要建立连接
+     * 生成SQL时应使用 {@code DialectRegistry}，其按JDBC元数据确定方言和版本
+     * 
+     * @param dataSourceName 数据源名称
+     * @return DatabaseType
+     */
+    public SqlBuilder.DatabaseType getDatabaseType(String dataSourceName) {
+        ComparisonProperties.DataSourceConfig config = findDataSourceConfig(dataSourceName);
+        return config != null ? SqlBuilder.inferDatabaseType(config.getUrl()) : SqlBuilder.DatabaseType.UNKNOWN;
     }
 
     /**
@@ -102,6 +417,10 @@ public class DynamicDataSourceConfig {
         if (comparisonProperties.getDataSources() == null) {
             return null;
         }
+        int separator = dataSourceName.indexOf(REPLICA_SEPARATOR);
+        if (separator > 0) {
+            return findReplicaConfig(dataSourceName.substring(0, separator), dataSourceName);
+        }
         return comparisonProperties.getDataSources().stream()
                 .filter(config -> dataSourceName.equals(config.getName()))
                 .findFirst()
@@ -109,7 +428,42 @@ public class DynamicDataSourceConfig {
     }
 
     /**
-     * 获取所有数据源名称
+     * 按副本配置生成物理数据源配置，未配置的项沿用主库，连接池和负载限制配置与主库相同
+     */
+    private ComparisonProperties.DataSourceConfig findReplicaConfig(String logicalName, String replicaName) {
+        ComparisonProperties.DataSourceConfig primary = findDataSourceConfig(logicalName);
+        if (primary == null || primary.getReplicas() == null) {
+            return null;
+        }
+        for (int i = 0; i < primary.getReplicas().size(); i++) {
+            ComparisonProperties.ReplicaConfig replica = primary.getReplicas().get(i);
+            if (!replicaName.equals(logicalName + REPLICA_SEPARATOR + getReplicaLabel(replica, i))) {
+                continue;
+            }
+            ComparisonProperties.DataSourceConfig config = new ComparisonProperties.DataSourceConfig();
+            config.setName(replicaName);
+            config.setUrl(replica.getUrl());
+            config.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.getUsername());
+            config.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.getPassword());
+            config.setDriverClassName(replica.getDriverClassName() != null
+                    ? replica.getDriverClassName() : primary.getDriverClassName());
+            Map<String, String> properties = new java.util.HashMap<>();
+            if (primary.getProperties() != null) {
+                properties.putAll(primary.getProperties());
+            }
+            if (replica.getProperties() != null) {
+                properties.putAll(replica.getProperties());
+            }
+            config.setProperties(properties);
+            config.setPool(primary.getPool());
+            config.setThrottle(primary.getThrottle());
+            return config;
+        }
+        return null;
+    }
+
+    /**
+     * 获取所有数据源名称，包括副本的物理数据源名称
      * 
      * @return Set<String>
      */
@@ -117,9 +471,12 @@ public class DynamicDataSourceConfig {
         if (comparisonProperties.getDataSources() == null) {
             return java.util.Collections.emptySet();
         }
-        return comparisonProperties.getDataSources().stream()
-                .map(ComparisonProperties.DataSourceConfig::getName)
-                .collect(java.util.stream.Collectors.toSet());
+        java.util.Set<String> names = new java.util.HashSet<>();
+        for (ComparisonProperties.DataSourceConfig config : comparisonProperties.getDataSources()) {
+            names.add(config.getName());
+            names.addAll(getReplicaNames(config));
+        }
+        return names;
     }
 
     /**
@@ -129,12 +486,137 @@ public class DynamicDataSourceConfig {
      * @return boolean
      */
     public boolean testConnection(String dataSourceName) {
+        return checkConnection(dataSourceName).isReady();
+    }
+
+    /**
+     * 并行校验所有数据源连接，每个数据源受同一截止时间约束
+     * 
+     * @return Map<String, DataSourceStatus> 数据源名称 -> 状态
+     */
+    public Map<String, DataSourceStatus> validateConnections() {
+        long timeoutMillis = comparisonProperties.getConnectionCheck().getValidationTimeoutSeconds() * 1000;
+        return runConcurrently(this::checkConnection, timeoutMillis);
+    }
+
+    /**
+     * 并行预热所有数据源连接池，将每个连接池填充到minimumIdle
+     * 
+     * @return Map<String, DataSourceStatus> 数据源名称 -> 状态
+     */
+    public Map<String, DataSourceStatus> warmUpAll() {
+        long timeoutMillis = comparisonProperties.getConnectionCheck().getWarmUpTimeoutSeconds() * 1000;
+        return runConcurrently(this::warmUp, timeoutMillis);
+    }
+
+    /**
+     * 获取所有数据源的就绪状态及连接池指标
+     * 
+     * @return Map<String, DataSourceStatus> 数据源名称 -> 状态
+     */
+    public Map<String, DataSourceStatus> getReadiness() {
+        Map<String, DataSourceStatus> readiness = new TreeMap<>();
+        for (String dataSourceName : getAllDataSourceNames()) {
+            DataSourceStatus status = statusCache.getOrDefault(dataSourceName,
+                    new DataSourceStatus(dataSourceName, DataSourceStatus.State.NOT_INITIALIZED, null));
+            fillPoolMetrics(status);
+            readiness.put(dataSourceName, status);
+        }
+        return readiness;
+    }
+
+    /**
+     * 校验单个数据源连接并记录状态
+     */
+    private DataSourceStatus checkConnection(String dataSourceName) {
+        long start = System.currentTimeMillis();
+        DataSourceStatus status;
         try {
             JdbcTemplate jdbcTemplate = getJdbcTemplate(dataSourceName);
             jdbcTemplate.queryForObject("SELECT 1", Integer.class);
-            return true;
+            status = new DataSourceStatus(dataSourceName, DataSourceStatus.State.READY, null);
+        } catch (Exception e) {
+            status = new DataSourceStatus(dataSourceName, DataSourceStatus.State.FAILED, e.getMessage());
+        }
+        status.setLatencyMillis(System.currentTimeMillis() - start);
+        statusCache.put(dataSourceName, status);
+        return status;
+    }
+
+    /**
+     * 预热单个数据源：同时借出minimumIdle个连接再归还，使连接池立即建立这些连接
+     */
+    private DataSourceStatus warmUp(String dataSourceName) {
+        statusCache.put(dataSourceName, new DataSourceStatus(dataSourceName, DataSourceStatus.State.WARMING_UP, null));
+        long start = System.currentTimeMillis();
+        DataSourceStatus status;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            DataSource dataSource = getDataSource(dataSourceName);
+            int target = dataSource instanceof HikariDataSource ? ((HikariDataSource) dataSource).getMinimumIdle() : 1;
+            for (int i = 0; i < Math.max(1, target); i++) {
+                connections.add(dataSource.getConnection());
+            }
+            status = new DataSourceStatus(dataSourceName, DataSourceStatus.State.READY, 
+                    "已预热 " + connections.size() + " 个连接");
         } catch (Exception e) {
-            return false;
+            status = new DataSourceStatus(dataSourceName, DataSourceStatus.State.FAILED, e.getMessage());
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (Exception ignored) {
+                    // 归还连接失败不影响预热结果
+                }
+            }
+        }
+        status.setLatencyMillis(System.currentTimeMillis() - start);
+        statusCache.put(dataSourceName, status);
+        return status;
+    }
+
+    /**
+     * 对所有数据源并行执行任务，超过截止时间未完成的标记为超时
+     */
+    private Map<String, DataSourceStatus> runConcurrently(Function<String, DataSourceStatus> task, long timeoutMillis) {
+        Map<String, CompletableFuture<DataSourceStatus>> futures = new TreeMap<>();
+        for (String dataSourceName : getAllDataSourceNames()) {
+            futures.put(dataSourceName, CompletableFuture.supplyAsync(() -> task.apply(dataSourceName), connectionCheckExecutor));
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        Map<String, DataSourceStatus> results = new TreeMap<>();
+        futures.forEach((dataSourceName, future) -> {
+            DataSourceStatus status;
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                status = future.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                status = new DataSourceStatus(dataSourceName, DataSourceStatus.State.TIMEOUT, 
+                        "超过 " + timeoutMillis + " 毫秒未完成");
+                status.setLatencyMillis(timeoutMillis);
+                statusCache.put(dataSourceName, status);
+            } catch (Exception e) {
+                status = new DataSourceStatus(dataSourceName, DataSourceStatus.State.FAILED, e.getMessage());
+                statusCache.put(dataSourceName, status);
+            }
+            results.put(dataSourceName, status);
+        });
+        return results;
+    }
+
+    /**
+     * 填充连接池运行指标（仅已创建的连接池）
+     */
+    private void fillPoolMetrics(DataSourceStatus status) {
+        DataSource dataSource = dataSourceCache.get(status.getDataSourceName());
+        if (dataSource instanceof HikariDataSource && ((HikariDataSource) dataSource).isRunning()) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            status.setMaximumPoolSize(((HikariDataSource) dataSource).getMaximumPoolSize());
+            status.setActiveConnections(pool.getActiveConnections());
+            status.setIdleConnections(pool.getIdleConnections());
+            status.setTotalConnections(pool.getTotalConnections());
+            status.setThreadsAwaitingConnection(pool.getThreadsAwaitingConnection());
         }
     }
 
@@ -142,12 +624,14 @@ public class DynamicDataSourceConfig {
      * 关闭所有数据源
      */
     public void closeAllDataSources() {
-        dataSourceCache.values().forEach(dataSource -> {
+        dataSourceCache.forEach((dataSourceName, dataSource) -> {
             if (dataSource instanceof HikariDataSource) {
                 ((HikariDataSource) dataSource).close();
             }
+            poolWaitTracker.remove(getPoolName(dataSourceName));
         });
         dataSourceCache.clear();
         jdbcTemplateCache.clear();
+        statusCache.clear();
     }
 }
@@ -0,0 +1,87 @@
+package com.minimax.comparator.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 连接池等待时间统计
+ * 作为HikariCP的指标采集器记录每次获取连接的等待时间，供连接池自动调整按采样周期读取；
+ * 获取连接超时时通知监听器
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class PoolWaitTracker implements MetricsTrackerFactory {
+
+    /**
+     * 连接池名称 -> 当前采样周期内的等待统计
+     */
+    private final Map<String, WaitStats> waitStats = new ConcurrentHashMap<>();
+
+    /**
+     * 获取连接超时监听器，参数为连接池名称
+     */
+    private final Consumer<String> timeoutListener;
+
+    public PoolWaitTracker() {
+        this(poolName -> { });
+    }
+
+    public PoolWaitTracker(Consumer<String> timeoutListener) {
+        this.timeoutListener = timeoutListener;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        WaitStats stats = waitStats.computeIfAbsent(poolName, name -> new WaitStats());
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                stats.totalNanos.add(elapsedAcquiredNanos);
+                stats.count.increment();
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeoutListener.accept(poolName);
+            }
+        };
+    }
+
+    /**
+     * 读取并清零当前采样周期内获取连接的平均等待时间
+     *
+     * @param poolName 连接池名称
+     * @return 平均等待毫秒数，周期内没有获取连接时返回0
+     */
+    public long drainAverageWaitMillis(String poolName) {
+        WaitStats stats = waitStats.get(poolName);
+        if (stats == null) {
+            return 0;
+        }
+        long count = stats.count.sumThenReset();
+        long totalNanos = stats.totalNanos.sumThenReset();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalNanos / count) : 0;
+    }
+
+    /**
+     * 移除连接池的统计
+     *
+     * @param poolName 连接池名称
+     */
+    public void remove(String poolName) {
+        waitStats.remove(poolName);
+    }
+
+    private static class WaitStats {
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder count = new LongAdder();
+    }
+}
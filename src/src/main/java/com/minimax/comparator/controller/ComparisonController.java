@@ -1,11 +1,30 @@
 package com.minimax.comparator.controller;
 
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonPlan;
 import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.ComparisonRunRecord;
+import com.minimax.comparator.model.DataSourceStatus;
+import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.DifferenceRecord;
+import com.minimax.comparator.model.HistoryPage;
+import com.minimax.comparator.model.SamplingOptions;
+import com.minimax.comparator.model.TimeWindowRecord;
+import com.minimax.comparator.service.ComparisonHistoryStore;
+import com.minimax.comparator.service.CronComparisonTrigger;
+import com.minimax.comparator.service.DifferenceStreamService;
 import com.minimax.comparator.service.FieldComparisonService;
+import com.minimax.comparator.service.TimeWindowComparisonService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -25,6 +44,18 @@ public class ComparisonController {
     @Autowired
     private FieldComparisonService fieldComparisonService;
 
+    @Autowired
+    private CronComparisonTrigger cronComparisonTrigger;
+
+    @Autowired
+    private ComparisonHistoryStore comparisonHistoryStore;
+
+    @Autowired
+    private DifferenceStreamService differenceStreamService;
+
+    @Autowired
+    private TimeWindowComparisonService timeWindowComparisonService;
+
     /**
      * 执行所有启用的比较规则
      * 
@@ -59,12 +90,48 @@ public class ComparisonController {
      * 执行单个比较规则
      * 
      * @param ruleName 规则名称
+     * @param refresh 是否忽略缓存的结果重新比较
+     * @param countsOnly 是否只统计差异数量，不返回差异详情
+     * @param maxDifferences 差异数达到该值时结束扫描，0表示不限制
+     * @param maxMismatchRatio 差异比例达到该值时结束扫描，0表示不限制
      * @return ResponseEntity<ComparisonResult>
      */
     @PostMapping("/execute/{ruleName}")
-    public ResponseEntity<ComparisonResult> executeComparison(@PathVariable String ruleName) {
+    public ResponseEntity<ComparisonResult> executeComparison(@PathVariable String ruleName,
+                                                              @RequestParam(defaultValue = "false") boolean refresh,
+                                                              @RequestParam(defaultValue = "false") boolean countsOnly,
+                                                              @RequestParam(defaultValue = "0") long maxDifferences,
+                                                              @RequestParam(defaultValue = "0") double maxMismatchRatio) {
+        try {
+            ComparisonOptions options = new ComparisonOptions(countsOnly, maxDifferences, maxMismatchRatio);
+            ComparisonResult result = fieldComparisonService.executeComparison(ruleName, refresh, options);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 按规划器选择的策略执行单个比较规则
+     * 
+     * @param ruleName 规则名称
+     * @param refresh 是否忽略缓存的结果重新比较
+     * @param countsOnly 是否只统计差异数量，不返回差异详情
+     * @param maxDifferences 差异数达到该值时结束扫描，0表示不限制
+     * @param maxMismatchRatio 差异比例达到该值时结束扫描，0表示不限制
+     * @return ResponseEntity<ComparisonResult>
+     */
+    @PostMapping("/execute-optimized/{ruleName}")
+    public ResponseEntity<ComparisonResult> executeOptimizedComparison(@PathVariable String ruleName,
+                                                                       @RequestParam(defaultValue = "false") boolean refresh,
+                                                                       @RequestParam(defaultValue = "false") boolean countsOnly,
+                                                                       @RequestParam(defaultValue = "0") long maxDifferences,
+                                                                       @RequestParam(defaultValue = "0") double maxMismatchRatio) {
         try {
-            ComparisonResult result = fieldComparisonService.executeComparison(ruleName);
+            ComparisonOptions options = new ComparisonOptions(countsOnly, maxDifferences, maxMismatchRatio);
+            ComparisonResult result = fieldComparisonService.executeOptimizedComparison(ruleName, refresh, options);
             return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -73,6 +140,103 @@ public class ComparisonController {
         }
     }
 
+    /**
+     * 按时间窗口比较单个规则，只比较最近结束的窗口和到期复查的窗口
+     * 
+     * @param ruleName 规则名称
+     * @param countsOnly 是否只统计差异数量，不返回差异详情
+     * @param maxDifferences 每个窗口差异数达到该值时结束扫描，0表示不限制
+     * @param maxMismatchRatio 每个窗口差异比例达到该值时结束扫描，0表示不限制
+     * @return ResponseEntity<List<ComparisonResult>>
+     */
+    @PostMapping("/execute-window/{ruleName}")
+    public ResponseEntity<List<ComparisonResult>> executeWindowComparison(@PathVariable String ruleName,
+                                                                          @RequestParam(defaultValue = "false") boolean countsOnly,
+                                                                          @RequestParam(defaultValue = "0") long maxDifferences,
+                                                                          @RequestParam(defaultValue = "0") double maxMismatchRatio) {
+        try {
+            ComparisonOptions options = new ComparisonOptions(countsOnly, maxDifferences, maxMismatchRatio);
+            return ResponseEntity.ok(timeWindowComparisonService.compareWindows(ruleName, options));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 按规划器选择的策略比较单个规则，差异逐条以NDJSON流式返回，最后一行为比较结果汇总
+     * 
+     * @param ruleName 规则名称
+     * @param maxDifferences 差异数达到该值时结束扫描，0表示不限制
+     * @param maxMismatchRatio 差异比例达到该值时结束扫描，0表示不限制
+     * @return ResponseEntity<StreamingResponseBody>
+     */
+    @PostMapping(value = "/execute-stream/{ruleName}", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> executeStreamingComparison(@PathVariable String ruleName,
+                                                                            @RequestParam(defaultValue = "0") long maxDifferences,
+                                                                            @RequestParam(defaultValue = "0") double maxMismatchRatio) {
+        try {
+            ComparisonProperties.ComparisonRule rule = differenceStreamService.findRule(ruleName);
+            ComparisonOptions options = new ComparisonOptions(false, maxDifferences, maxMismatchRatio);
+            StreamingResponseBody body = out -> differenceStreamService.stream(rule, options, out);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 抽样比较指定规则，返回估计差异比例和置信区间
+     * 
+     * @param ruleName 规则名称
+     * @param refresh 是否忽略缓存的结果重新比较
+     * @param sampleSize 每端样本行数
+     * @param confidenceLevel 置信水平
+     * @param stratified 是否按主键范围分层抽样
+     * @param strata 分层数
+     * @param escalateThreshold 估计差异比例达到该值时改为完整比较，0表示不升级
+     * @return ResponseEntity<ComparisonResult>
+     */
+    @PostMapping("/execute-sampled/{ruleName}")
+    public ResponseEntity<ComparisonResult> executeSampledComparison(@PathVariable String ruleName,
+                                                                     @RequestParam(defaultValue = "false") boolean refresh,
+                                                                     @RequestParam(defaultValue = "10000") int sampleSize,
+                                                                     @RequestParam(defaultValue = "0.95") double confidenceLevel,
+                                                                     @RequestParam(defaultValue = "false") boolean stratified,
+                                                                     @RequestParam(defaultValue = "10") int strata,
+                                                                     @RequestParam(defaultValue = "0") double escalateThreshold) {
+        try {
+            SamplingOptions options = new SamplingOptions(sampleSize, confidenceLevel, stratified, strata, escalateThreshold);
+            ComparisonResult result = fieldComparisonService.executeSampledComparison(ruleName, refresh, options);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 查看规则的执行计划
+     * 
+     * @param ruleName 规则名称
+     * @return ResponseEntity<ComparisonPlan>
+     */
+    @GetMapping("/plan/{ruleName}")
+    public ResponseEntity<ComparisonPlan> explainComparison(@PathVariable String ruleName) {
+        try {
+            ComparisonPlan plan = fieldComparisonService.explainComparison(ruleName);
+            return ResponseEntity.ok(plan);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * 执行指定的比较规则列表
      * 
@@ -104,6 +268,20 @@ public class ComparisonController {
         }
     }
 
+    /**
+     * 获取定时执行的规则及下次执行时间
+     * 
+     * @return ResponseEntity<List<Map<String, Object>>>
+     */
+    @GetMapping("/schedules")
+    public ResponseEntity<List<Map<String, Object>>> getSchedules() {
+        try {
+            return ResponseEntity.ok(cronComparisonTrigger.getSchedules());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * 验证数据源连接
      * 
@@ -119,6 +297,184 @@ public class ComparisonController {
         }
     }
 
+    /**
+     * 数据源就绪状态，任一数据源未就绪时返回503
+     * 
+     * @return ResponseEntity<Map<String, Object>>
+     */
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, Object>> readiness() {
+        try {
+            Map<String, DataSourceStatus> dataSources = fieldComparisonService.getDataSourceReadiness();
+            boolean ready = dataSources.values().stream().allMatch(DataSourceStatus::isReady);
+            Map<String, Object> body = Map.of("ready", ready, "dataSources", dataSources);
+            return ready ? ResponseEntity.ok(body) : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 校验所有规则的表和字段
+     * 
+     * @return ResponseEntity<Map<String, List<String>>>
+     */
+    @GetMapping("/validate-rules")
+    public ResponseEntity<Map<String, List<String>>> validateRules() {
+        try {
+            Map<String, List<String>> validationResults = fieldComparisonService.validateRules();
+            return ResponseEntity.ok(validationResults);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 刷新表元数据缓存
+     * 
+     * @param dataSource 数据源名称，为空时刷新全部
+     * @return ResponseEntity<String>
+     */
+    @PostMapping("/metadata/refresh")
+    public ResponseEntity<String> refreshMetadata(@RequestParam(required = false) String dataSource) {
+        try {
+            fieldComparisonService.refreshMetadata(dataSource);
+            return ResponseEntity.ok("元数据缓存已刷新");
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 分页查询比较历史中的执行记录，开始时间倒序
+     * 
+     * @param rule 规则名称
+     * @param status 执行状态
+     * @param from 开始时间下限（含）
+     * @param to 开始时间上限（不含）
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return ResponseEntity<HistoryPage<ComparisonRunRecord>>
+     */
+    @GetMapping("/history/runs")
+    public ResponseEntity<HistoryPage<ComparisonRunRecord>> getHistoryRuns(
+            @RequestParam(required = false) String rule,
+            @RequestParam(required = false) ComparisonResult.ExecutionStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(comparisonHistoryStore.findRuns(rule, status, from, to, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 查询比较历史中的单次执行记录
+     * 
+     * @param runId 执行ID
+     * @return ResponseEntity<ComparisonRunRecord>
+     */
+    @GetMapping("/history/runs/{runId}")
+    public ResponseEntity<ComparisonRunRecord> getHistoryRun(@PathVariable String runId) {
+        try {
+            ComparisonRunRecord run = comparisonHistoryStore.findRun(runId);
+            return run != null ? ResponseEntity.ok(run) : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 分页查询单次执行保存的差异明细
+     * 
+     * @param runId 执行ID
+     * @param type 差异类型
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return ResponseEntity<HistoryPage<DifferenceRecord>>
+     */
+    @GetMapping("/history/runs/{runId}/differences")
+    public ResponseEntity<HistoryPage<DifferenceRecord>> getHistoryDifferences(
+            @PathVariable String runId,
+            @RequestParam(required = false) DifferenceDetail.DifferenceType type,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(comparisonHistoryStore.findDifferences(runId, type, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 分页查询某个主键最近几天在各次执行中的差异记录，执行时间倒序
+     * 
+     * @param ruleName 规则名称
+     * @param key 主键值
+     * @param days 查询最近的天数
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return ResponseEntity<HistoryPage<DifferenceRecord>>
+     */
+    @GetMapping("/history/rules/{ruleName}/keys/{key}")
+    public ResponseEntity<HistoryPage<DifferenceRecord>> getKeyHistory(@PathVariable String ruleName,
+                                                                       @PathVariable String key,
+                                                                       @RequestParam(defaultValue = "7") int days,
+                                                                       @RequestParam(defaultValue = "0") int page,
+                                                                       @RequestParam(defaultValue = "100") int size) {
+        try {
+            LocalDateTime from = LocalDateTime.now().minusDays(days);
+            return ResponseEntity.ok(comparisonHistoryStore.findKeyHistory(ruleName, key, from, null, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 分页查询规则各时间窗口的最近一次比较结果，窗口开始时间倒序
+     * 
+     * @param ruleName 规则名称
+     * @param from 窗口开始时间下限（含）
+     * @param to 窗口开始时间上限（不含）
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return ResponseEntity<HistoryPage<TimeWindowRecord>>
+     */
+    @GetMapping("/history/rules/{ruleName}/windows")
+    public ResponseEntity<HistoryPage<TimeWindowRecord>> getWindowHistory(
+            @PathVariable String ruleName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(comparisonHistoryStore.findWindows(ruleName, from, to, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * 健康检查接口
      * 
@@ -0,0 +1,152 @@
+package com.minimax.comparator.model;
+
+import java.sql.Types;
+
+/**
+ * 列元数据实体类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class ColumnMetadata {
+
+    /**
+     * 列名
+     */
+    private String name;
+
+    /**
+     * JDBC类型（java.sql.Types）
+     */
+    private int jdbcType;
+
+    /**
+     * 数据库类型名称
+     */
+    private String typeName;
+
+    /**
+     * 列长度或精度，未知时为-1
+     */
+    private int size;
+
+    /**
+     * 小数位数，未知时为-1
+     */
+    private int scale;
+
+    /**
+     * 是否允许为空
+     */
+    private boolean nullable;
+
+    // Constructors
+    public ColumnMetadata() {}
+
+    public ColumnMetadata(String name, int jdbcType, String typeName, int size, int scale, boolean nullable) {
+        this.name = name;
+        this.jdbcType = jdbcType;
+        this.typeName = typeName;
+        this.size = size;
+        this.scale = scale;
+        this.nullable = nullable;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getJdbcType() {
+        return jdbcType;
+    }
+
+    public void setJdbcType(int jdbcType) {
+        this.jdbcType = jdbcType;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public void setTypeName(String typeName) {
+        this.typeName = typeName;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public void setScale(int scale) {
+        this.scale = scale;
+    }
+
+    public boolean isNullable() {
+        return nullable;
+    }
+
+    public void setNullable(boolean nullable) {
+        this.nullable = nullable;
+    }
+
+    /**
+     * 是否为数值类型
+     *
+     * @return boolean
+     */
+    public boolean isNumeric() {
+        switch (jdbcType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 是否为整数类型（精度已知且小数位数为0的NUMERIC/DECIMAL也视为整数；
+     * 未指定精度的NUMERIC/DECIMAL，如Oracle的NUMBER，目录中精度为0或NULL，可能存有小数）
+     *
+     * @return boolean
+     */
+    public boolean isIntegral() {
+        switch (jdbcType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return true;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return size > 0 && scale == 0;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ColumnMetadata{name='%s', typeName='%s', jdbcType=%d, size=%d, scale=%d, nullable=%s}",
+                name, typeName, jdbcType, size, scale, nullable);
+    }
+}
@@ -0,0 +1,110 @@
+package com.minimax.comparator.model;
+
+/**
+ * 比较执行选项
+ * 控制单次执行是否保留差异详情，以及达到差异数或差异比例阈值时是否提前结束扫描
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class ComparisonOptions {
+
+    /**
+     * 是否只统计差异数量，不生成差异详情
+     */
+    private boolean countsOnly = false;
+
+    /**
+     * 差异数达到该值时结束扫描，0表示不限制
+     */
+    private long maxDifferences = 0;
+
+    /**
+     * 差异比例（差异数 / 已扫描主键数）达到该值时结束扫描，0表示不限制
+     */
+    private double maxMismatchRatio = 0;
+
+    /**
+     * 按差异比例结束扫描前至少扫描的主键数，避免开头少量差异导致误判
+     */
+    private long minRowsForRatio = 1000;
+
+    public ComparisonOptions() {
+    }
+
+    public ComparisonOptions(boolean countsOnly, long maxDifferences, double maxMismatchRatio) {
+        this.countsOnly = countsOnly;
+        this.maxDifferences = maxDifferences;
+        this.maxMismatchRatio = maxMismatchRatio;
+    }
+
+    /**
+     * 默认选项：保留全部差异详情，完整扫描
+     *
+     * @return ComparisonOptions
+     */
+    public static ComparisonOptions defaults() {
+        return new ComparisonOptions();
+    }
+
+    /**
+     * 是否可能提前结束扫描
+     *
+     * @return boolean
+     */
+    public boolean isEarlyTermination() {
+        return maxDifferences > 0 || maxMismatchRatio > 0;
+    }
+
+    /**
+     * 用于区分结果缓存的标识，默认选项为空字符串
+     *
+     * @return 选项标识
+     */
+    public String cacheKey() {
+        if (!countsOnly && !isEarlyTermination()) {
+            return "";
+        }
+        return (countsOnly ? "counts" : "details") + ",max=" + maxDifferences
+                + ",ratio=" + maxMismatchRatio + ",minRows=" + minRowsForRatio;
+    }
+
+    // Getters and Setters
+    public boolean isCountsOnly() {
+        return countsOnly;
+    }
+
+    public void setCountsOnly(boolean countsOnly) {
+        this.countsOnly = countsOnly;
+    }
+
+    public long getMaxDifferences() {
+        return maxDifferences;
+    }
+
+    public void setMaxDifferences(long maxDifferences) {
+        this.maxDifferences = maxDifferences;
+    }
+
+    public double getMaxMismatchRatio() {
+        return maxMismatchRatio;
+    }
+
+    public void setMaxMismatchRatio(double maxMismatchRatio) {
+        this.maxMismatchRatio = maxMismatchRatio;
+    }
+
+    public long getMinRowsForRatio() {
+        return minRowsForRatio;
+    }
+
+    public void setMinRowsForRatio(long minRowsForRatio) {
+        this.minRowsForRatio = minRowsForRatio;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComparisonOptions{countsOnly=%s, maxDifferences=%d, maxMismatchRatio=%s, minRowsForRatio=%d}",
+                countsOnly, maxDifferences, maxMismatchRatio, minRowsForRatio);
+    }
+}
@@ -0,0 +1,156 @@
+package com.minimax.comparator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 比较执行计划实体类
+ * 记录规划器选择的比较策略及其依据
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class ComparisonPlan {
+
+    /**
+     * 比较策略
+     */
+    private Strategy strategy;
+
+    /**
+     * 校验和不一致时使用的后备策略；分区并行时为每个分区使用的策略
+     */
+    private Strategy fallbackStrategy;
+
+    /**
+     * 并行度（仅范围并行、哈希分区和分区并行策略有效）
+     */
+    private int parallelism = 1;
+
+    /**
+     * 逐个比较的原生分区名称，两端分区按顺序一一对应（仅分区并行策略有效）
+     */
+    private List<String> partitions = new ArrayList<>();
+
+    /**
+     * 源表统计信息
+     */
+    private TableStatistics sourceStatistics;
+
+    /**
+     * 目标表统计信息
+     */
+    private TableStatistics targetStatistics;
+
+    /**
+     * 选择原因
+     */
+    private String reason;
+
+    /**
+     * 比较策略枚举
+     */
+    public enum Strategy {
+        DIRECT("直接比较"),
+        BATCH("分批比较"),
+        MERGE("有序归并比较"),
+        CHECKSUM("校验和预检"),
+        RANGE_PARALLEL("主键范围并行比较"),
+        SAMPLED("抽样比较"),
+        EXTERNAL_SORT("本地外部排序归并比较"),
+        HASH_PARTITION("本地哈希分区并行比较"),
+        PARTITION_PARALLEL("原生分区并行比较");
+
+        private final String description;
+
+        Strategy(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    // Constructors
+    public ComparisonPlan() {}
+
+    public ComparisonPlan(Strategy strategy, String reason) {
+        this.strategy = strategy;
+        this.reason = reason;
+    }
+
+    // Getters and Setters
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(Strategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public Strategy getFallbackStrategy() {
+        return fallbackStrategy;
+    }
+
+    public void setFallbackStrategy(Strategy fallbackStrategy) {
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public List<String> getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(List<String> partitions) {
+        this.partitions = partitions;
+    }
+
+    public TableStatistics getSourceStatistics() {
+        return sourceStatistics;
+    }
+
+    public void setSourceStatistics(TableStatistics sourceStatistics) {
+        this.sourceStatistics = sourceStatistics;
+    }
+
+    public TableStatistics getTargetStatistics() {
+        return targetStatistics;
+    }
+
+    public void setTargetStatistics(TableStatistics targetStatistics) {
+        this.targetStatistics = targetStatistics;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * 源表和目标表中较大的预估行数
+     *
+     * @return 预估行数
+     */
+    public long getEstimatedRows() {
+        long source = sourceStatistics != null ? sourceStatistics.getEstimatedRows() : 0;
+        long target = targetStatistics != null ? targetStatistics.getEstimatedRows() : 0;
+        return Math.max(source, target);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComparisonPlan{strategy=%s, fallbackStrategy=%s, parallelism=%d, estimatedRows=%d, reason='%s'}",
+                strategy, fallbackStrategy, parallelism, getEstimatedRows(), reason);
+    }
+}
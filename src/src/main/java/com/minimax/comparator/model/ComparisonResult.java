@@ -69,6 +69,11 @@ public class ComparisonResult {
      * 差异详情列表
      */
     private List<DifferenceDetail> differences;
+
+    /**
+     * 差异分布统计，比较过程中增量累计
+     */
+    private DifferenceStatistics statistics;
     
     /**
      * 执行状态
@@ -79,6 +84,43 @@ public class ComparisonResult {
      * 错误信息
      */
     private String errorMessage;
+    
+    /**
+     * 执行计划（仅优化比较时设置）
+     */
+    private ComparisonPlan plan;
+
+    /**
+     * 是否只统计差异数量（differences为空）
+     */
+    private boolean countsOnly;
+
+    /**
+     * 是否因达到差异阈值提前结束扫描
+     */
+    private boolean terminatedEarly;
+
+    /**
+     * 抽样估计（仅抽样比较时设置）
+     */
+    private SamplingEstimate sampling;
+
+    /**
+     * 比较历史中的执行ID（仅启用历史存储时设置）
+     */
+    private String runId;
+
+    /**
+     * 时间窗口开始时间（含，仅按时间窗口比较时设置）
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime windowStart;
+
+    /**
+     * 时间窗口结束时间（不含，仅按时间窗口比较时设置）
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime windowEnd;
 
     /**
      * 执行状态枚举
@@ -202,6 +244,14 @@ public class ComparisonResult {
         this.differences = differences;
     }
 
+    public DifferenceStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(DifferenceStatistics statistics) {
+        this.statistics = statistics;
+    }
+
     public ExecutionStatus getStatus() {
         return status;
     }
@@ -218,22 +268,87 @@ public class ComparisonResult {
         this.errorMessage = errorMessage;
     }
 
+    public ComparisonPlan getPlan() {
+        return plan;
+    }
+
+    public void setPlan(ComparisonPlan plan) {
+        this.plan = plan;
+    }
+
+    public boolean isCountsOnly() {
+        return countsOnly;
+    }
+
+    public void setCountsOnly(boolean countsOnly) {
+        this.countsOnly = countsOnly;
+    }
+
+    public boolean isTerminatedEarly() {
+        return terminatedEarly;
+    }
+
+    public void setTerminatedEarly(boolean terminatedEarly) {
+        this.terminatedEarly = terminatedEarly;
+    }
+
+    public SamplingEstimate getSampling() {
+        return sampling;
+    }
+
+    public void setSampling(SamplingEstimate sampling) {
+        this.sampling = sampling;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public LocalDateTime getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(LocalDateTime windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public LocalDateTime getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(LocalDateTime windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
     /**
-     * 计算差异统计
+     * 由差异详情列表重新计算差异统计，只遍历一次。
+     * 比较引擎已在收集差异时增量统计，此方法仅用于手工构造的结果
      */
     public void calculateStatistics() {
-        if (differences != null) {
-            this.differenceCount = differences.size();
-            this.sourceOnlyCount = differences.stream()
-                    .mapToLong(d -> DifferenceDetail.DifferenceType.SOURCE_ONLY.equals(d.getType()) ? 1 : 0)
-                    .sum();
-            this.targetOnlyCount = differences.stream()
-                    .mapToLong(d -> DifferenceDetail.DifferenceType.TARGET_ONLY.equals(d.getType()) ? 1 : 0)
-                    .sum();
-            this.valueDifferenceCount = differences.stream()
-                    .mapToLong(d -> DifferenceDetail.DifferenceType.VALUE_DIFFERENT.equals(d.getType()) ? 1 : 0)
-                    .sum();
+        if (differences == null) {
+            return;
+        }
+        long[] counts = new long[DifferenceDetail.DifferenceType.values().length];
+        if (differences instanceof DifferenceBuffer) {
+            DifferenceBuffer buffer = (DifferenceBuffer) differences;
+            for (int i = 0; i < buffer.size(); i++) {
+                counts[buffer.getType(i).ordinal()]++;
+            }
+        } else {
+            for (DifferenceDetail detail : differences) {
+                if (detail.getType() != null) {
+                    counts[detail.getType().ordinal()]++;
+                }
+            }
         }
+        this.differenceCount = differences.size();
+        this.sourceOnlyCount = counts[DifferenceDetail.DifferenceType.SOURCE_ONLY.ordinal()];
+        this.targetOnlyCount = counts[DifferenceDetail.DifferenceType.TARGET_ONLY.ordinal()];
+        this.valueDifferenceCount = counts[DifferenceDetail.DifferenceType.VALUE_DIFFERENT.ordinal()];
     }
 
     @Override
@@ -0,0 +1,233 @@
+package com.minimax.comparator.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 比较历史中的一次执行
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class ComparisonRunRecord {
+
+    /**
+     * 执行ID
+     */
+    private String runId;
+
+    /**
+     * 规则名称
+     */
+    private String ruleName;
+
+    /**
+     * 规则描述
+     */
+    private String ruleDescription;
+
+    /**
+     * 执行状态
+     */
+    private ComparisonResult.ExecutionStatus status;
+
+    /**
+     * 比较策略，未经规划器执行时为空
+     */
+    private String strategy;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 执行耗时（毫秒）
+     */
+    private long executionTime;
+
+    /**
+     * 总记录数
+     */
+    private long totalRecords;
+
+    /**
+     * 差异记录数
+     */
+    private long differenceCount;
+
+    /**
+     * 仅在源表存在的记录数
+     */
+    private long sourceOnlyCount;
+
+    /**
+     * 仅在目标表存在的记录数
+     */
+    private long targetOnlyCount;
+
+    /**
+     * 值不同的记录数
+     */
+    private long valueDifferenceCount;
+
+    /**
+     * 保存的差异明细条数
+     */
+    private long storedDifferences;
+
+    /**
+     * 是否只统计数量
+     */
+    private boolean countsOnly;
+
+    /**
+     * 是否达到差异阈值提前结束
+     */
+    private boolean terminatedEarly;
+
+    /**
+     * 错误信息
+     */
+    private String errorMessage;
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public void setRuleName(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    public String getRuleDescription() {
+        return ruleDescription;
+    }
+
+    public void setRuleDescription(String ruleDescription) {
+        this.ruleDescription = ruleDescription;
+    }
+
+    public ComparisonResult.ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ComparisonResult.ExecutionStatus status) {
+        this.status = status;
+    }
+
+    public String getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(String strategy) {
+        this.strategy = strategy;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public void setExecutionTime(long executionTime) {
+        this.executionTime = executionTime;
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+
+    public void setTotalRecords(long totalRecords) {
+        this.totalRecords = totalRecords;
+    }
+
+    public long getDifferenceCount() {
+        return differenceCount;
+    }
+
+    public void setDifferenceCount(long differenceCount) {
+        this.differenceCount = differenceCount;
+    }
+
+    public long getSourceOnlyCount() {
+        return sourceOnlyCount;
+    }
+
+    public void setSourceOnlyCount(long sourceOnlyCount) {
+        this.sourceOnlyCount = sourceOnlyCount;
+    }
+
+    public long getTargetOnlyCount() {
+        return targetOnlyCount;
+    }
+
+    public void setTargetOnlyCount(long targetOnlyCount) {
+        this.targetOnlyCount = targetOnlyCount;
+    }
+
+    public long getValueDifferenceCount() {
+        return valueDifferenceCount;
+    }
+
+    public void setValueDifferenceCount(long valueDifferenceCount) {
+        this.valueDifferenceCount = valueDifferenceCount;
+    }
+
+    public long getStoredDifferences() {
+        return storedDifferences;
+    }
+
+    public void setStoredDifferences(long storedDifferences) {
+        this.storedDifferences = storedDifferences;
+    }
+
+    public boolean isCountsOnly() {
+        return countsOnly;
+    }
+
+    public void setCountsOnly(boolean countsOnly) {
+        this.countsOnly = countsOnly;
+    }
+
+    public boolean isTerminatedEarly() {
+        return terminatedEarly;
+    }
+
+    public void setTerminatedEarly(boolean terminatedEarly) {
+        this.terminatedEarly = terminatedEarly;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
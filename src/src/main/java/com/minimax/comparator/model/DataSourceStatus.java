@@ -0,0 +1,193 @@
+package com.minimax.comparator.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 数据源状态实体类
+ * 记录连接校验、连接池预热结果和连接池运行指标
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class DataSourceStatus {
+
+    /**
+     * 数据源名称
+     */
+    private String dataSourceName;
+
+    /**
+     * 状态
+     */
+    private State state;
+
+    /**
+     * 状态说明或错误信息
+     */
+    private String message;
+
+    /**
+     * 最近一次校验或预热耗时（毫秒）
+     */
+    private long latencyMillis;
+
+    /**
+     * 最近一次校验时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime checkedAt;
+
+    /**
+     * 活动连接数
+     */
+    private int activeConnections;
+
+    /**
+     * 空闲连接数
+     */
+    private int idleConnections;
+
+    /**
+     * 总连接数
+     */
+    private int totalConnections;
+
+    /**
+     * 等待获取连接的线程数
+     */
+    private int threadsAwaitingConnection;
+
+    /**
+     * 当前连接池最大连接数（自动调整后的值）
+     */
+    private int maximumPoolSize;
+
+    /**
+     * 数据源状态枚举
+     */
+    public enum State {
+        NOT_INITIALIZED("未初始化"),
+        WARMING_UP("预热中"),
+        READY("就绪"),
+        FAILED("失败"),
+        TIMEOUT("超时");
+
+        private final String description;
+
+        State(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    // Constructors
+    public DataSourceStatus() {}
+
+    public DataSourceStatus(String dataSourceName, State state, String message) {
+        this.dataSourceName = dataSourceName;
+        this.state = state;
+        this.message = message;
+        this.checkedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public void setDataSourceName(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public LocalDateTime getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(LocalDateTime checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public void setActiveConnections(int activeConnections) {
+        this.activeConnections = activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public void setIdleConnections(int idleConnections) {
+        this.idleConnections = idleConnections;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public void setTotalConnections(int totalConnections) {
+        this.totalConnections = totalConnections;
+    }
+
+    public int getThreadsAwaitingConnection() {
+        return threadsAwaitingConnection;
+    }
+
+    public void setThreadsAwaitingConnection(int threadsAwaitingConnection) {
+        this.threadsAwaitingConnection = threadsAwaitingConnection;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    /**
+     * 是否就绪
+     *
+     * @return boolean
+     */
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DataSourceStatus{dataSource='%s', state=%s, latency=%dms, message='%s'}",
+                dataSourceName, state, latencyMillis, message);
+    }
+}
@@ -0,0 +1,173 @@
+package com.minimax.comparator.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * 按列存储的差异缓冲区
+ * 每条差异占一个字节的类型和主键种类编码，Long和Integer主键存入long数组，其余主键才保留对象引用；
+ * 字段名放在共享字典中，只有出现第二个字段名后才为每行记录字典编号；源值和目标值数组在第一次出现非空值时才分配。
+ * 对外是只读的List，DifferenceDetail在读取或序列化时按需创建，不常驻内存。写入方法线程安全
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class DifferenceBuffer extends AbstractList<DifferenceDetail> implements RandomAccess {
+
+    private static final DifferenceDetail.DifferenceType[] TYPES = DifferenceDetail.DifferenceType.values();
+
+    private static final int TYPE_MASK = 0x03;
+    private static final int KEY_LONG = 0;
+    private static final int KEY_INTEGER = 1 << 2;
+    private static final int KEY_OBJECT = 2 << 2;
+    private static final int KEY_MASK = 0x0C;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] codes = new byte[INITIAL_CAPACITY];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] objectKeys;
+    private String[] fieldNames = new String[0];
+    private char[] fieldIndexes;
+    private Object[] sourceValues;
+    private Object[] targetValues;
+    private int size;
+
+    /**
+     * 追加一条差异
+     *
+     * @param key 主键值
+     * @param type 差异类型
+     * @param sourceValue 源表值
+     * @param targetValue 目标表值
+     * @param fieldName 比较字段名
+     */
+    public synchronized void add(Object key, DifferenceDetail.DifferenceType type,
+                                 Object sourceValue, Object targetValue, String fieldName) {
+        if (size == codes.length) {
+            grow();
+        }
+        int keyKind;
+        if (key instanceof Long) {
+            keys[size] = (Long) key;
+            keyKind = KEY_LONG;
+        } else if (key instanceof Integer) {
+            keys[size] = (Integer) key;
+            keyKind = KEY_INTEGER;
+        } else {
+            if (objectKeys == null) {
+                objectKeys = new Object[codes.length];
+            }
+            objectKeys[size] = key;
+            keyKind = KEY_OBJECT;
+        }
+        codes[size] = (byte) (type.ordinal() | keyKind);
+        setFieldName(fieldName);
+        if (sourceValue != null) {
+            if (sourceValues == null) {
+                sourceValues = new Object[codes.length];
+            }
+            sourceValues[size] = sourceValue;
+        }
+        if (targetValue != null) {
+            if (targetValues == null) {
+                targetValues = new Object[codes.length];
+            }
+            targetValues[size] = targetValue;
+        }
+        size++;
+    }
+
+    @Override
+    public synchronized DifferenceDetail get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int code = codes[index];
+        Object key;
+        switch (code & KEY_MASK) {
+            case KEY_LONG:
+                key = keys[index];
+                break;
+            case KEY_INTEGER:
+                key = (int) keys[index];
+                break;
+            default:
+                key = objectKeys[index];
+                break;
+        }
+        return new DifferenceDetail(key, TYPES[code & TYPE_MASK],
+                sourceValues != null ? sourceValues[index] : null,
+                targetValues != null ? targetValues[index] : null,
+                fieldNameAt(index));
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 某行的差异类型，不创建DifferenceDetail
+     *
+     * @param index 行号
+     * @return 差异类型
+     */
+    public synchronized DifferenceDetail.DifferenceType getType(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return TYPES[codes[index] & TYPE_MASK];
+    }
+
+    private void setFieldName(String fieldName) {
+        int index = -1;
+        for (int i = 0; i < fieldNames.length; i++) {
+            if (fieldNames[i] == null ? fieldName == null : fieldNames[i].equals(fieldName)) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            if (fieldNames.length > Character.MAX_VALUE) {
+                throw new IllegalStateException("差异字段名超过" + (Character.MAX_VALUE + 1) + "个");
+            }
+            index = fieldNames.length;
+            fieldNames = Arrays.copyOf(fieldNames, index + 1);
+            fieldNames[index] = fieldName;
+        }
+        if (fieldIndexes == null && index > 0) {
+            // 此前所有行都使用第一个字段名，编号均为0
+            fieldIndexes = new char[codes.length];
+        }
+        if (fieldIndexes != null) {
+            fieldIndexes[size] = (char) index;
+        }
+    }
+
+    private String fieldNameAt(int index) {
+        if (fieldNames.length == 0) {
+            return null;
+        }
+        return fieldNames[fieldIndexes != null ? fieldIndexes[index] : 0];
+    }
+
+    private void grow() {
+        int capacity = codes.length + (codes.length >> 1);
+        codes = Arrays.copyOf(codes, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        if (objectKeys != null) {
+            objectKeys = Arrays.copyOf(objectKeys, capacity);
+        }
+        if (fieldIndexes != null) {
+            fieldIndexes = Arrays.copyOf(fieldIndexes, capacity);
+        }
+        if (sourceValues != null) {
+            sourceValues = Arrays.copyOf(sourceValues, capacity);
+        }
+        if (targetValues != null) {
+            targetValues = Arrays.copyOf(targetValues, capacity);
+        }
+    }
+}
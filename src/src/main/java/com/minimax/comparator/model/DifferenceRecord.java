@@ -0,0 +1,116 @@
+package com.minimax.comparator.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * 比较历史中保存的一条差异明细
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class DifferenceRecord {
+
+    /**
+     * 执行ID
+     */
+    private String runId;
+
+    /**
+     * 规则名称
+     */
+    private String ruleName;
+
+    /**
+     * 所属执行的开始时间
+     */
+    private LocalDateTime recordedAt;
+
+    /**
+     * 主键值
+     */
+    private String keyValue;
+
+    /**
+     * 差异类型
+     */
+    private DifferenceDetail.DifferenceType type;
+
+    /**
+     * 源表值
+     */
+    private String sourceValue;
+
+    /**
+     * 目标表值
+     */
+    private String targetValue;
+
+    /**
+     * 比较字段名
+     */
+    private String fieldName;
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public void setRuleName(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public String getKeyValue() {
+        return keyValue;
+    }
+
+    public void setKeyValue(String keyValue) {
+        this.keyValue = keyValue;
+    }
+
+    public DifferenceDetail.DifferenceType getType() {
+        return type;
+    }
+
+    public void setType(DifferenceDetail.DifferenceType type) {
+        this.type = type;
+    }
+
+    public String getSourceValue() {
+        return sourceValue;
+    }
+
+    public void setSourceValue(String sourceValue) {
+        this.sourceValue = sourceValue;
+    }
+
+    public String getTargetValue() {
+        return targetValue;
+    }
+
+    public void setTargetValue(String targetValue) {
+        this.targetValue = targetValue;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public void setFieldName(String fieldName) {
+        this.fieldName = fieldName;
+    }
+}
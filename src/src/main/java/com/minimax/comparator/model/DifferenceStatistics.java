@@ -0,0 +1,262 @@
+package com.minimax.comparator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 差异分布统计
+ * 比较过程中随差异写入增量累计，不依赖差异详情列表，只统计数量时同样可用：
+ * 按主键范围或批次的差异分组、出现次数最多的不一致取值、数值主键的差异分布直方图
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class DifferenceStatistics {
+
+    /**
+     * 各主键范围或批次的差异统计，按开始顺序排列
+     */
+    private List<Segment> segments = new ArrayList<>();
+
+    /**
+     * 超出记录上限未单独列出的范围或批次数
+     */
+    private long omittedSegments;
+
+    /**
+     * 出现次数最多的不一致取值（源值到目标值），次数为近似值，不会低估
+     */
+    private List<ValueCount> topValueDifferences = new ArrayList<>();
+
+    /**
+     * 数值主键的差异分布，桶宽相同、按主键升序
+     */
+    private List<KeyBucket> keyHistogram = new ArrayList<>();
+
+    /**
+     * 主键不是整数、未计入直方图的差异数
+     */
+    private long nonNumericKeyDifferences;
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    public long getOmittedSegments() {
+        return omittedSegments;
+    }
+
+    public void setOmittedSegments(long omittedSegments) {
+        this.omittedSegments = omittedSegments;
+    }
+
+    public List<ValueCount> getTopValueDifferences() {
+        return topValueDifferences;
+    }
+
+    public void setTopValueDifferences(List<ValueCount> topValueDifferences) {
+        this.topValueDifferences = topValueDifferences;
+    }
+
+    public List<KeyBucket> getKeyHistogram() {
+        return keyHistogram;
+    }
+
+    public void setKeyHistogram(List<KeyBucket> keyHistogram) {
+        this.keyHistogram = keyHistogram;
+    }
+
+    public long getNonNumericKeyDifferences() {
+        return nonNumericKeyDifferences;
+    }
+
+    public void setNonNumericKeyDifferences(long nonNumericKeyDifferences) {
+        this.nonNumericKeyDifferences = nonNumericKeyDifferences;
+    }
+
+    /**
+     * 一个主键范围或批次的统计
+     */
+    public static class Segment {
+
+        /**
+         * 分组类型：RANGE（主键范围）、BATCH（批次）或 PARTITION（哈希分区）
+         */
+        private String kind;
+
+        /**
+         * 分组说明，如主键范围[1000, 2000)或批次序号
+         */
+        private String name;
+
+        private long scannedKeys;
+
+        private long sourceOnlyCount;
+
+        private long targetOnlyCount;
+
+        private long valueDifferenceCount;
+
+        public Segment() {}
+
+        public Segment(String kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public void setKind(String kind) {
+            this.kind = kind;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public long getScannedKeys() {
+            return scannedKeys;
+        }
+
+        public void setScannedKeys(long scannedKeys) {
+            this.scannedKeys = scannedKeys;
+        }
+
+        public long getSourceOnlyCount() {
+            return sourceOnlyCount;
+        }
+
+        public void setSourceOnlyCount(long sourceOnlyCount) {
+            this.sourceOnlyCount = sourceOnlyCount;
+        }
+
+        public long getTargetOnlyCount() {
+            return targetOnlyCount;
+        }
+
+        public void setTargetOnlyCount(long targetOnlyCount) {
+            this.targetOnlyCount = targetOnlyCount;
+        }
+
+        public long getValueDifferenceCount() {
+            return valueDifferenceCount;
+        }
+
+        public void setValueDifferenceCount(long valueDifferenceCount) {
+            this.valueDifferenceCount = valueDifferenceCount;
+        }
+
+        public long getDifferenceCount() {
+            return sourceOnlyCount + targetOnlyCount + valueDifferenceCount;
+        }
+    }
+
+    /**
+     * 一组不一致取值的出现次数
+     */
+    public static class ValueCount {
+
+        private String fieldName;
+
+        private String sourceValue;
+
+        private String targetValue;
+
+        private long count;
+
+        public ValueCount() {}
+
+        public ValueCount(String fieldName, String sourceValue, String targetValue, long count) {
+            this.fieldName = fieldName;
+            this.sourceValue = sourceValue;
+            this.targetValue = targetValue;
+            this.count = count;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public void setFieldName(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        public String getSourceValue() {
+            return sourceValue;
+        }
+
+        public void setSourceValue(String sourceValue) {
+            this.sourceValue = sourceValue;
+        }
+
+        public String getTargetValue() {
+            return targetValue;
+        }
+
+        public void setTargetValue(String targetValue) {
+            this.targetValue = targetValue;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+
+    /**
+     * 直方图的一个桶，主键区间为[lowerKey, upperKey)
+     */
+    public static class KeyBucket {
+
+        private long lowerKey;
+
+        private long upperKey;
+
+        private long count;
+
+        public KeyBucket() {}
+
+        public KeyBucket(long lowerKey, long upperKey, long count) {
+            this.lowerKey = lowerKey;
+            this.upperKey = upperKey;
+            this.count = count;
+        }
+
+        public long getLowerKey() {
+            return lowerKey;
+        }
+
+        public void setLowerKey(long lowerKey) {
+            this.lowerKey = lowerKey;
+        }
+
+        public long getUpperKey() {
+            return upperKey;
+        }
+
+        public void setUpperKey(long upperKey) {
+            this.upperKey = upperKey;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.minimax.comparator.model;
+
+import java.util.List;
+
+/**
+ * 分页查询结果
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class HistoryPage<T> {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> content;
+
+    /**
+     * 页码，从0开始
+     */
+    private int page;
+
+    /**
+     * 每页条数
+     */
+    private int size;
+
+    /**
+     * 总条数
+     */
+    private long total;
+
+    public HistoryPage() {}
+
+    public HistoryPage(List<T> content, int page, int size, long total) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.total = total;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
@@ -0,0 +1,175 @@
+package com.minimax.comparator.model;
+
+/**
+ * 抽样估计结果
+ * 由样本推算的整表差异比例、置信区间和差异行数
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class SamplingEstimate {
+
+    /**
+     * 抽样方式：BLOCK（数据块抽样）或 HASH（主键哈希取模抽样）
+     */
+    private String method;
+
+    /**
+     * 是否按主键范围分层
+     */
+    private boolean stratified;
+
+    /**
+     * 源表样本行数
+     */
+    private long sourceSampleSize;
+
+    /**
+     * 目标表样本行数
+     */
+    private long targetSampleSize;
+
+    /**
+     * 源表预估行数
+     */
+    private long sourceRows;
+
+    /**
+     * 目标表预估行数
+     */
+    private long targetRows;
+
+    /**
+     * 估计差异比例（差异行数 / 两端较大的行数）
+     */
+    private double estimatedMismatchRate;
+
+    /**
+     * 差异比例置信下界
+     */
+    private double lowerBound;
+
+    /**
+     * 差异比例置信上界
+     */
+    private double upperBound;
+
+    /**
+     * 置信水平
+     */
+    private double confidenceLevel;
+
+    /**
+     * 估计差异行数
+     */
+    private long estimatedDifferenceRows;
+
+    /**
+     * 是否因估计差异比例达到阈值而升级为完整比较
+     */
+    private boolean escalated;
+
+    // Getters and Setters
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public boolean isStratified() {
+        return stratified;
+    }
+
+    public void setStratified(boolean stratified) {
+        this.stratified = stratified;
+    }
+
+    public long getSourceSampleSize() {
+        return sourceSampleSize;
+    }
+
+    public void setSourceSampleSize(long sourceSampleSize) {
+        this.sourceSampleSize = sourceSampleSize;
+    }
+
+    public long getTargetSampleSize() {
+        return targetSampleSize;
+    }
+
+    public void setTargetSampleSize(long targetSampleSize) {
+        this.targetSampleSize = targetSampleSize;
+    }
+
+    public long getSourceRows() {
+        return sourceRows;
+    }
+
+    public void setSourceRows(long sourceRows) {
+        this.sourceRows = sourceRows;
+    }
+
+    public long getTargetRows() {
+        return targetRows;
+    }
+
+    public void setTargetRows(long targetRows) {
+        this.targetRows = targetRows;
+    }
+
+    public double getEstimatedMismatchRate() {
+        return estimatedMismatchRate;
+    }
+
+    public void setEstimatedMismatchRate(double estimatedMismatchRate) {
+        this.estimatedMismatchRate = estimatedMismatchRate;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public void setLowerBound(double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public void setUpperBound(double upperBound) {
+        this.upperBound = upperBound;
+    }
+
+    public double getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public void setConfidenceLevel(double confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    public long getEstimatedDifferenceRows() {
+        return estimatedDifferenceRows;
+    }
+
+    public void setEstimatedDifferenceRows(long estimatedDifferenceRows) {
+        this.estimatedDifferenceRows = estimatedDifferenceRows;
+    }
+
+    public boolean isEscalated() {
+        return escalated;
+    }
+
+    public void setEscalated(boolean escalated) {
+        this.escalated = escalated;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SamplingEstimate{method=%s, samples=%d/%d, rate=%.6f [%.6f, %.6f] @%s, rows=%d, escalated=%s}",
+                method, sourceSampleSize, targetSampleSize, estimatedMismatchRate, lowerBound, upperBound,
+                confidenceLevel, estimatedDifferenceRows, escalated);
+    }
+}
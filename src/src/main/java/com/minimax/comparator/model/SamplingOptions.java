@@ -0,0 +1,125 @@
+package com.minimax.comparator.model;
+
+/**
+ * 抽样比较选项
+ * 控制样本量、置信水平、是否按主键范围分层，以及估计差异比例达到阈值时是否升级为完整比较
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class SamplingOptions {
+
+    /**
+     * 每端的目标样本行数
+     */
+    private int sampleSize = 10000;
+
+    /**
+     * 置信水平，(0, 1)
+     */
+    private double confidenceLevel = 0.95;
+
+    /**
+     * 是否按主键范围分层抽样（仅数值主键，否则退化为简单随机抽样）
+     */
+    private boolean stratified = false;
+
+    /**
+     * 分层数
+     */
+    private int strata = 10;
+
+    /**
+     * 估计差异比例达到该值时升级为完整比较，0表示不升级
+     */
+    private double escalateThreshold = 0;
+
+    public SamplingOptions() {
+    }
+
+    public SamplingOptions(int sampleSize, double confidenceLevel, boolean stratified, int strata,
+                           double escalateThreshold) {
+        this.sampleSize = sampleSize;
+        this.confidenceLevel = confidenceLevel;
+        this.stratified = stratified;
+        this.strata = strata;
+        this.escalateThreshold = escalateThreshold;
+    }
+
+    /**
+     * 校验选项取值
+     *
+     * @throws IllegalArgumentException 取值无效
+     */
+    public void validate() {
+        if (sampleSize <= 0) {
+            throw new IllegalArgumentException("样本量必须大于0: " + sampleSize);
+        }
+        if (!(confidenceLevel > 0 && confidenceLevel < 1)) {
+            throw new IllegalArgumentException("置信水平必须在0和1之间: " + confidenceLevel);
+        }
+        if (stratified && strata <= 0) {
+            throw new IllegalArgumentException("分层数必须大于0: " + strata);
+        }
+        if (escalateThreshold < 0 || escalateThreshold > 1) {
+            throw new IllegalArgumentException("升级阈值必须在0和1之间: " + escalateThreshold);
+        }
+    }
+
+    /**
+     * 用于区分结果缓存的标识
+     *
+     * @return 选项标识
+     */
+    public String cacheKey() {
+        return "size=" + sampleSize + ",confidence=" + confidenceLevel
+                + (stratified ? ",strata=" + strata : "") + ",escalate=" + escalateThreshold;
+    }
+
+    // Getters and Setters
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public void setSampleSize(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public double getConfidenceLevel() {
+        return confidenceLevel;
+    }
+
+    public void setConfidenceLevel(double confidenceLevel) {
+        this.confidenceLevel = confidenceLevel;
+    }
+
+    public boolean isStratified() {
+        return stratified;
+    }
+
+    public void setStratified(boolean stratified) {
+        this.stratified = stratified;
+    }
+
+    public int getStrata() {
+        return strata;
+    }
+
+    public void setStrata(int strata) {
+        this.strata = strata;
+    }
+
+    public double getEscalateThreshold() {
+        return escalateThreshold;
+    }
+
+    public void setEscalateThreshold(double escalateThreshold) {
+        this.escalateThreshold = escalateThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SamplingOptions{sampleSize=%d, confidenceLevel=%s, stratified=%s, strata=%d, escalateThreshold=%s}",
+                sampleSize, confidenceLevel, stratified, strata, escalateThreshold);
+    }
+}
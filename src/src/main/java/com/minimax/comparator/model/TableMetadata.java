@@ -0,0 +1,180 @@
+package com.minimax.comparator.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 表元数据实体类
+ * 包含列类型、可空性、主键、唯一键和索引信息
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class TableMetadata {
+
+    /**
+     * 数据源名称
+     */
+    private String dataSourceName;
+
+    /**
+     * 表名（含模式）
+     */
+    private String tableName;
+
+    /**
+     * 列元数据，列名不区分大小写
+     */
+    private Map<String, ColumnMetadata> columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * 主键列（按键内顺序）
+     */
+    private List<String> primaryKeyColumns = new ArrayList<>();
+
+    /**
+     * 索引名 -> 索引列（按索引内顺序）
+     */
+    private Map<String, List<String>> indexes = new LinkedHashMap<>();
+
+    /**
+     * 唯一索引名列表
+     */
+    private List<String> uniqueIndexes = new ArrayList<>();
+
+    /**
+     * 加载时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime loadedAt;
+
+    // Constructors
+    public TableMetadata() {
+        this.loadedAt = LocalDateTime.now();
+    }
+
+    public TableMetadata(String dataSourceName, String tableName) {
+        this();
+        this.dataSourceName = dataSourceName;
+        this.tableName = tableName;
+    }
+
+    // Getters and Setters
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public void setDataSourceName(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public Map<String, ColumnMetadata> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(Map<String, ColumnMetadata> columns) {
+        this.columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.columns.putAll(columns);
+    }
+
+    public List<String> getPrimaryKeyColumns() {
+        return primaryKeyColumns;
+    }
+
+    public void setPrimaryKeyColumns(List<String> primaryKeyColumns) {
+        this.primaryKeyColumns = primaryKeyColumns;
+    }
+
+    public Map<String, List<String>> getIndexes() {
+        return indexes;
+    }
+
+    public void setIndexes(Map<String, List<String>> indexes) {
+        this.indexes = indexes;
+    }
+
+    public List<String> getUniqueIndexes() {
+        return uniqueIndexes;
+    }
+
+    public void setUniqueIndexes(List<String> uniqueIndexes) {
+        this.uniqueIndexes = uniqueIndexes;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public void setLoadedAt(LocalDateTime loadedAt) {
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * 表是否存在（至少有一列）
+     *
+     * @return boolean
+     */
+    public boolean exists() {
+        return !columns.isEmpty();
+    }
+
+    /**
+     * 获取列元数据
+     *
+     * @param columnName 列名（不区分大小写）
+     * @return ColumnMetadata，不存在时返回null
+     */
+    public ColumnMetadata getColumn(String columnName) {
+        return columnName != null ? columns.get(columnName) : null;
+    }
+
+    /**
+     * 列是否为主键或某个索引的前导列
+     *
+     * @param columnName 列名
+     * @return boolean
+     */
+    public boolean isIndexLeadingColumn(String columnName) {
+        if (!primaryKeyColumns.isEmpty() && primaryKeyColumns.get(0).equalsIgnoreCase(columnName)) {
+            return true;
+        }
+        return indexes.values().stream()
+                .anyMatch(indexColumns -> !indexColumns.isEmpty() && indexColumns.get(0).equalsIgnoreCase(columnName));
+    }
+
+    /**
+     * 列是否单独构成主键或唯一索引
+     *
+     * @param columnName 列名
+     * @return boolean
+     */
+    public boolean isUniqueColumn(String columnName) {
+        if (primaryKeyColumns.size() == 1 && primaryKeyColumns.get(0).equalsIgnoreCase(columnName)) {
+            return true;
+        }
+        return uniqueIndexes.stream()
+                .map(indexes::get)
+                .anyMatch(indexColumns -> indexColumns != null && indexColumns.size() == 1
+                        && indexColumns.get(0).equalsIgnoreCase(columnName));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TableMetadata{dataSource='%s', table='%s', columns=%d, primaryKey=%s, indexes=%d}",
+                dataSourceName, tableName, columns.size(), primaryKeyColumns, indexes.size());
+    }
+}
@@ -0,0 +1,79 @@
+package com.minimax.comparator.model;
+
+/**
+ * 表分区实体类
+ * 来自数据库目录的一个原生分区（MySQL分区、PostgreSQL声明式分区的子表、Oracle分区）
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class TablePartition {
+
+    /**
+     * 分区名称
+     */
+    private String name;
+
+    /**
+     * 目录中的近似行数，未收集统计信息时为0
+     */
+    private long estimatedRows;
+
+    /**
+     * 分区边界定义（如MySQL的PARTITION_DESCRIPTION、PostgreSQL的FOR VALUES子句），目录未提供时为null
+     */
+    private String bound;
+
+    /**
+     * 只读取该分区的表引用，直接用于FROM子句
+     */
+    private String tableReference;
+
+    // Constructors
+    public TablePartition() {}
+
+    public TablePartition(String name, long estimatedRows, String bound, String tableReference) {
+        this.name = name;
+        this.estimatedRows = estimatedRows;
+        this.bound = bound;
+        this.tableReference = tableReference;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public String getBound() {
+        return bound;
+    }
+
+    public void setBound(String bound) {
+        this.bound = bound;
+    }
+
+    public String getTableReference() {
+        return tableReference;
+    }
+
+    public void setTableReference(String tableReference) {
+        this.tableReference = tableReference;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TablePartition{name='%s', estimatedRows=%d, bound='%s'}", name, estimatedRows, bound);
+    }
+}
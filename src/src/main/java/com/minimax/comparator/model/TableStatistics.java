@@ -0,0 +1,153 @@
+package com.minimax.comparator.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表统计信息实体类
+ * 来自数据库目录的近似统计值，用于选择比较策略
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class TableStatistics {
+
+    /**
+     * 数据源名称
+     */
+    private String dataSourceName;
+
+    /**
+     * 表名（含模式）
+     */
+    private String tableName;
+
+    /**
+     * 近似行数
+     */
+    private long estimatedRows;
+
+    /**
+     * 平均行长度（字节），未知时为0
+     */
+    private long averageRowBytes;
+
+    /**
+     * 主键字段是否为索引前导列
+     */
+    private boolean keyIndexed;
+
+    /**
+     * 主键字段是否为数值类型
+     */
+    private boolean keyNumeric;
+
+    /**
+     * 行数是否来自数据库目录（否则为COUNT(*)精确值）
+     */
+    private boolean fromCatalog;
+
+    /**
+     * 原生分区，按分区顺序排列；未分区或未启用分区感知时为空
+     */
+    private List<TablePartition> partitions = new ArrayList<>();
+
+    /**
+     * 采集时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime collectedAt;
+
+    // Constructors
+    public TableStatistics() {
+        this.collectedAt = LocalDateTime.now();
+    }
+
+    public TableStatistics(String dataSourceName, String tableName) {
+        this();
+        this.dataSourceName = dataSourceName;
+        this.tableName = tableName;
+    }
+
+    // Getters and Setters
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public void setDataSourceName(String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public long getAverageRowBytes() {
+        return averageRowBytes;
+    }
+
+    public void setAverageRowBytes(long averageRowBytes) {
+        this.averageRowBytes = averageRowBytes;
+    }
+
+    public boolean isKeyIndexed() {
+        return keyIndexed;
+    }
+
+    public void setKeyIndexed(boolean keyIndexed) {
+        this.keyIndexed = keyIndexed;
+    }
+
+    public boolean isKeyNumeric() {
+        return keyNumeric;
+    }
+
+    public void setKeyNumeric(boolean keyNumeric) {
+        this.keyNumeric = keyNumeric;
+    }
+
+    public boolean isFromCatalog() {
+        return fromCatalog;
+    }
+
+    public void setFromCatalog(boolean fromCatalog) {
+        this.fromCatalog = fromCatalog;
+    }
+
+    public List<TablePartition> getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(List<TablePartition> partitions) {
+        this.partitions = partitions;
+    }
+
+    public LocalDateTime getCollectedAt() {
+        return collectedAt;
+    }
+
+    public void setCollectedAt(LocalDateTime collectedAt) {
+        this.collectedAt = collectedAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TableStatistics{dataSource='%s', table='%s', estimatedRows=%d, averageRowBytes=%d, keyIndexed=%s, fromCatalog=%s, partitions=%d}",
+                dataSourceName, tableName, estimatedRows, averageRowBytes, keyIndexed, fromCatalog, partitions.size());
+    }
+}
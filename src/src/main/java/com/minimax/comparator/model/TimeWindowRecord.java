@@ -0,0 +1,165 @@
+package com.minimax.comparator.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 比较历史中一个时间窗口的最近一次比较结果
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public class TimeWindowRecord {
+
+    /**
+     * 规则名称
+     */
+    private String ruleName;
+
+    /**
+     * 窗口开始时间（含）
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime windowStart;
+
+    /**
+     * 窗口结束时间（不含）
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime windowEnd;
+
+    /**
+     * 最近一次比较的执行状态
+     */
+    private ComparisonResult.ExecutionStatus status;
+
+    /**
+     * 最近一次比较的时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime checkedAt;
+
+    /**
+     * 累计比较次数
+     */
+    private int checkCount;
+
+    /**
+     * 总记录数
+     */
+    private long totalRecords;
+
+    /**
+     * 差异记录数
+     */
+    private long differenceCount;
+
+    private long sourceOnlyCount;
+
+    private long targetOnlyCount;
+
+    private long valueDifferenceCount;
+
+    /**
+     * 最近一次比较的执行ID
+     */
+    private String runId;
+
+    // Getters and Setters
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public void setRuleName(String ruleName) {
+        this.ruleName = ruleName;
+    }
+
+    public LocalDateTime getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(LocalDateTime windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public LocalDateTime getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(LocalDateTime windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
+    public ComparisonResult.ExecutionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ComparisonResult.ExecutionStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(LocalDateTime checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
+    public int getCheckCount() {
+        return checkCount;
+    }
+
+    public void setCheckCount(int checkCount) {
+        this.checkCount = checkCount;
+    }
+
+    public long getTotalRecords() {
+        return totalRecords;
+    }
+
+    public void setTotalRecords(long totalRecords) {
+        this.totalRecords = totalRecords;
+    }
+
+    public long getDifferenceCount() {
+        return differenceCount;
+    }
+
+    public void setDifferenceCount(long differenceCount) {
+        this.differenceCount = differenceCount;
+    }
+
+    public long getSourceOnlyCount() {
+        return sourceOnlyCount;
+    }
+
+    public void setSourceOnlyCount(long sourceOnlyCount) {
+        this.sourceOnlyCount = sourceOnlyCount;
+    }
+
+    public long getTargetOnlyCount() {
+        return targetOnlyCount;
+    }
+
+    public void setTargetOnlyCount(long targetOnlyCount) {
+        this.targetOnlyCount = targetOnlyCount;
+    }
+
+    public long getValueDifferenceCount() {
+        return valueDifferenceCount;
+    }
+
+    public void setValueDifferenceCount(long valueDifferenceCount) {
+        this.valueDifferenceCount = valueDifferenceCount;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+}
@@ -0,0 +1,181 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 自适应批次大小控制器
+ * 按"规则 + 数据源"记录每批次的耗时和行宽，在配置的上下限内放大或缩小分页大小
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class AdaptiveBatchSizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchSizer.class);
+
+    /**
+     * 指数移动平均的平滑系数
+     */
+    private static final double EWMA_ALPHA = 0.3;
+
+    /**
+     * 单次调整的最大放大倍数，避免一次跳到上限
+     */
+    private static final int MAX_GROWTH_FACTOR = 2;
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    /**
+     * 批次状态缓存：规则名|数据源名 -> 状态
+     */
+    private final Map<String, BatchState> batchStates = new ConcurrentHashMap<>();
+
+    /**
+     * 获取下一批次的大小
+     *
+     * @param ruleName 规则名称
+     * @param dataSourceName 数据源名称
+     * @return 批次大小
+     */
+    public int nextBatchSize(String ruleName, String dataSourceName) {
+        ComparisonProperties.AdaptiveBatchConfig config = comparisonProperties.getAdaptiveBatch();
+        if (config == null || !config.isEnabled()) {
+            return comparisonProperties.getBatchSize();
+        }
+        return getState(ruleName, dataSourceName, config).batchSize;
+    }
+
+    /**
+     * 记录一个已完成批次的观测值并调整后续批次大小
+     *
+     * @param ruleName 规则名称
+     * @param dataSourceName 数据源名称
+     * @param rows 本批次行数
+     * @param bytes 本批次估算字节数
+     * @param elapsedMillis 本批次耗时（毫秒）
+     */
+    public void recordBatch(String ruleName, String dataSourceName, int rows, long bytes, long elapsedMillis) {
+        ComparisonProperties.AdaptiveBatchConfig config = comparisonProperties.getAdaptiveBatch();
+        if (config == null || !config.isEnabled() || rows <= 0) {
+            return;
+        }
+
+        BatchState state = getState(ruleName, dataSourceName, config);
+        synchronized (state) {
+            state.bytesPerRow = ewma(state.bytesPerRow, (double) bytes / rows);
+            state.millisPerRow = ewma(state.millisPerRow, (double) Math.max(elapsedMillis, 1) / rows);
+
+            long desired = config.getMaxBatchSize();
+            if (state.millisPerRow > 0) {
+                desired = Math.min(desired, (long) (config.getTargetBatchMillis() / state.millisPerRow));
+            }
+            if (state.bytesPerRow > 0) {
+                desired = Math.min(desired, (long) (config.getMaxBatchBytes() / state.bytesPerRow));
+            }
+            desired = Math.min(desired, (long) state.batchSize * MAX_GROWTH_FACTOR);
+
+            if (freeHeapRatio() < config.getMinFreeHeapRatio()) {
+                desired = Math.min(desired, state.batchSize / 2);
+            }
+
+            int newSize = (int) Math.max(config.getMinBatchSize(), Math.min(config.getMaxBatchSize(), desired));
+            if (newSize != state.batchSize) {
+                logger.debug("调整批次大小 [{}]: {} -> {} (行宽约 {} 字节, 每行耗时约 {} 毫秒)",
+                        state.key, state.batchSize, newSize,
+                        Math.round(state.bytesPerRow), String.format("%.4f", state.millisPerRow));
+                state.batchSize = newSize;
+            }
+        }
+    }
+
+    /**
+     * 重置所有批次状态
+     */
+    public void reset() {
+        batchStates.clear();
+    }
+
+    /**
+     * 估算一行数据中所有值的内存占用
+     *
+     * @param values 列值
+     * @return 估算字节数
+     */
+    public static long estimateRowBytes(Object... values) {
+        long bytes = 0;
+        for (Object value : values) {
+            bytes += estimateValueBytes(value);
+        }
+        return bytes;
+    }
+
+    /**
+     * 估算单个JDBC值的内存占用
+     *
+     * @param value 值
+     * @return 估算字节数
+     */
+    public static long estimateValueBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return 40 + 2L * ((CharSequence) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof BigDecimal) {
+            return 40 + ((BigDecimal) value).precision() / 2;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 16;
+        }
+        // 日期时间及其他对象的粗略估算
+        return 32;
+    }
+
+    private BatchState getState(String ruleName, String dataSourceName, ComparisonProperties.AdaptiveBatchConfig config) {
+        String key = ruleName + "|" + dataSourceName;
+        return batchStates.computeIfAbsent(key, k -> {
+            int initial = Math.max(config.getMinBatchSize(),
+                    Math.min(config.getMaxBatchSize(), comparisonProperties.getBatchSize()));
+            return new BatchState(k, initial);
+        });
+    }
+
+    private static double ewma(double previous, double sample) {
+        return previous <= 0 ? sample : EWMA_ALPHA * sample + (1 - EWMA_ALPHA) * previous;
+    }
+
+    private static double freeHeapRatio() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return (double) (runtime.maxMemory() - used) / runtime.maxMemory();
+    }
+
+    /**
+     * 单个规则在单个数据源上的批次状态
+     */
+    private static class BatchState {
+        private final String key;
+        private volatile int batchSize;
+        private double bytesPerRow;
+        private double millisPerRow;
+
+        BatchState(String key, int batchSize) {
+            this.key = key;
+            this.batchSize = batchSize;
+        }
+    }
+}
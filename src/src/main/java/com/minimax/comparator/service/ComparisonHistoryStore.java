@@ -0,0 +1,705 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.ComparisonRunRecord;
+import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.DifferenceRecord;
+import com.minimax.comparator.model.HistoryPage;
+import com.minimax.comparator.model.TimeWindowRecord;
+import com.minimax.comparator.util.DifferenceFileReader;
+import com.minimax.comparator.util.DifferenceFileWriter;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 比较历史存储
+ * 启用后每次比较的执行信息和差异明细保存到本地文件数据库（默认H2），差异按执行、规则+主键、规则+差异类型建立索引；
+ * 差异明细也可以改为每次执行写一个按列压缩的差异文件，查询时内存映射读取；按时间窗口比较时另外保存每个窗口的最近一次结果。
+ * 比较线程只把结果放入队列，由后台线程批量写入，不增加比较耗时；队列已满时丢弃新结果并记录警告
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class ComparisonHistoryStore implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonHistoryStore.class);
+
+    /**
+     * 单次写入从队列取出的最多结果数
+     */
+    private static final int MAX_RESULTS_PER_WRITE = 100;
+
+    /**
+     * 每页最多条数
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 启动时用于估计规则耗时的历史天数
+     */
+    private static final int DURATION_SEED_DAYS = 7;
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final int MAX_KEY_LENGTH = 512;
+
+    private static final int MAX_VALUE_LENGTH = 4000;
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS comparison_run ("
+                    + "run_id VARCHAR(36) PRIMARY KEY, rule_name VARCHAR(255) NOT NULL, rule_description VARCHAR(1000), "
+                    + "status VARCHAR(16) NOT NULL, strategy VARCHAR(32), start_time TIMESTAMP NOT NULL, end_time TIMESTAMP, "
+                    + "execution_time BIGINT, total_records BIGINT, difference_count BIGINT, source_only_count BIGINT, "
+                    + "target_only_count BIGINT, value_difference_count BIGINT, stored_differences BIGINT, "
+                    + "counts_only BOOLEAN, terminated_early BOOLEAN, error_message VARCHAR(4000))",
+            "CREATE INDEX IF NOT EXISTS idx_run_rule_time ON comparison_run (rule_name, start_time)",
+            "CREATE INDEX IF NOT EXISTS idx_run_time ON comparison_run (start_time)",
+            "CREATE TABLE IF NOT EXISTS comparison_difference ("
+                    + "run_id VARCHAR(36) NOT NULL, seq INT NOT NULL, rule_name VARCHAR(255) NOT NULL, "
+                    + "recorded_at TIMESTAMP NOT NULL, key_value VARCHAR(512), difference_type VARCHAR(16) NOT NULL, "
+                    + "source_value VARCHAR(4000), target_value VARCHAR(4000), field_name VARCHAR(255), "
+                    + "PRIMARY KEY (run_id, seq))",
+            "CREATE INDEX IF NOT EXISTS idx_diff_run_type ON comparison_difference (run_id, difference_type)",
+            "CREATE INDEX IF NOT EXISTS idx_diff_rule_key ON comparison_difference (rule_name, key_value, recorded_at)",
+            "CREATE INDEX IF NOT EXISTS idx_diff_rule_type ON comparison_difference (rule_name, difference_type, recorded_at)",
+            "CREATE TABLE IF NOT EXISTS comparison_window ("
+                    + "rule_name VARCHAR(255) NOT NULL, window_start TIMESTAMP NOT NULL, window_end TIMESTAMP NOT NULL, "
+                    + "status VARCHAR(16) NOT NULL, checked_at TIMESTAMP NOT NULL, check_count INT NOT NULL, "
+                    + "total_records BIGINT, difference_count BIGINT, source_only_count BIGINT, target_only_count BIGINT, "
+                    + "value_difference_count BIGINT, run_id VARCHAR(36), PRIMARY KEY (rule_name, window_start))"
+    };
+
+    private static final String RUN_COLUMNS = "run_id, rule_name, rule_description, status, strategy, start_time, end_time, "
+            + "execution_time, total_records, difference_count, source_only_count, target_only_count, "
+            + "value_difference_count, stored_differences, counts_only, terminated_early, error_message";
+
+    private static final String WINDOW_COLUMNS = "rule_name, window_start, window_end, status, checked_at, check_count, "
+            + "total_records, difference_count, source_only_count, target_only_count, value_difference_count, run_id";
+
+    private static final String DIFFERENCE_COLUMNS =
+            "run_id, rule_name, recorded_at, key_value, difference_type, source_value, target_value, field_name";
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private RuleScheduler ruleScheduler;
+
+    private HikariDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 一批结果的执行记录、差异和时间窗口在同一个事务中写入，失败时整批回滚
+     */
+    private TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<ComparisonResult> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    /**
+     * 已登记尚未写完（含写入失败）的结果数
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private long lastPurgeMillis;
+
+    @Override
+    public void afterPropertiesSet() {
+        ComparisonProperties.HistoryConfig config = comparisonProperties.getHistory();
+        if (!config.isEnabled()) {
+            return;
+        }
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(config.getUrl());
+        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setPassword(config.getPassword());
+        hikariConfig.setMaximumPoolSize(2);
+        hikariConfig.setMinimumIdle(1);
+        hikariConfig.setPoolName("comparison-history");
+        dataSource = new HikariDataSource(hikariConfig);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        for (String ddl : SCHEMA) {
+            jdbcTemplate.execute(ddl);
+        }
+        seedExpectedDurations();
+
+        queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        running = true;
+        writer = new Thread(this::writeLoop, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("比较历史存储已启用: {}", config.getUrl());
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // 写入线程在停止前写完队列中剩余的结果
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        dataSource.close();
+    }
+
+    /**
+     * 是否启用历史存储
+     *
+     * @return boolean
+     */
+    public boolean isEnabled() {
+        return jdbcTemplate != null;
+    }
+
+    /**
+     * 登记一次比较结果，分配执行ID后放入写入队列立即返回
+     *
+     * @param result 比较结果
+     * @return 同一比较结果，便于在表达式中使用
+     */
+    public ComparisonResult record(ComparisonResult result) {
+        if (!isEnabled() || result == null) {
+            return result;
+        }
+        result.setRunId(UUID.randomUUID().toString());
+        pending.incrementAndGet();
+        if (!queue.offer(result)) {
+            pending.decrementAndGet();
+            logger.warn("比较历史写入队列已满，规则 {} 的本次结果未保存", result.getRuleName());
+            result.setRunId(null);
+        }
+        return result;
+    }
+
+    /**
+     * 等待已登记的结果全部写入
+     */
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        while (pending.get() > 0 && writer.isAlive()) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按条件查询执行记录，开始时间倒序
+     *
+     * @param ruleName 规则名称，为空时不限
+     * @param status 执行状态，为空时不限
+     * @param from 开始时间下限（含），为空时不限
+     * @param to 开始时间上限（不含），为空时不限
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return HistoryPage<ComparisonRunRecord>
+     */
+    public HistoryPage<ComparisonRunRecord> findRuns(String ruleName, ComparisonResult.ExecutionStatus status,
+                                                     LocalDateTime from, LocalDateTime to, int page, int size) {
+        Query query = new Query();
+        query.equal("rule_name", ruleName);
+        query.equal("status", status != null ? status.name() : null);
+        query.range("start_time", from, to);
+        return query.page("comparison_run", RUN_COLUMNS, "start_time DESC, run_id", page, size, this::mapRun);
+    }
+
+    /**
+     * 查询单次执行记录
+     *
+     * @param runId 执行ID
+     * @return ComparisonRunRecord，不存在时返回null
+     */
+    public ComparisonRunRecord findRun(String runId) {
+        requireEnabled();
+        List<ComparisonRunRecord> runs = jdbcTemplate.query(
+                "SELECT " + RUN_COLUMNS + " FROM comparison_run WHERE run_id = ?", this::mapRun, runId);
+        return runs.isEmpty() ? null : runs.get(0);
+    }
+
+    /**
+     * 查询单次执行保存的差异明细
+     *
+     * @param runId 执行ID
+     * @param type 差异类型，为空时不限
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return HistoryPage<DifferenceRecord>
+     */
+    public HistoryPage<DifferenceRecord> findDifferences(String runId, DifferenceDetail.DifferenceType type,
+                                                         int page, int size) {
+        if (isFileStorage()) {
+            validatePage(page, size);
+            ComparisonRunRecord run = findRun(runId);
+            DifferenceFileReader reader = run != null ? openDifferenceFile(runId) : null;
+            if (reader == null) {
+                return new HistoryPage<>(new ArrayList<>(), page, size, 0);
+            }
+            List<DifferenceRecord> content = new ArrayList<>();
+            for (DifferenceDetail detail : reader.read(type, (long) page * size, size)) {
+                content.add(toRecord(run.getRunId(), run.getRuleName(), run.getStartTime(), detail));
+            }
+            return new HistoryPage<>(content, page, size, reader.count(type));
+        }
+        Query query = new Query();
+        query.equal("run_id", runId);
+        query.equal("difference_type", type != null ? type.name() : null);
+        return query.page("comparison_difference", DIFFERENCE_COLUMNS, "seq", page, size, this::mapDifference);
+    }
+
+    /**
+     * 查询某个主键在各次执行中的差异记录，执行时间倒序，用于判断差异是否持续存在
+     *
+     * @param ruleName 规则名称
+     * @param keyValue 主键值
+     * @param from 执行时间下限（含），为空时不限
+     * @param to 执行时间上限（不含），为空时不限
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return HistoryPage<DifferenceRecord>
+     */
+    public HistoryPage<DifferenceRecord> findKeyHistory(String ruleName, String keyValue,
+                                                        LocalDateTime from, LocalDateTime to, int page, int size) {
+        if (isFileStorage()) {
+            return findKeyHistoryInFiles(ruleName, keyValue, from, to, page, size);
+        }
+        Query query = new Query();
+        query.equal("rule_name", ruleName);
+        query.equal("key_value", truncate(keyValue, MAX_KEY_LENGTH));
+        query.range("recorded_at", from, to);
+        return query.page("comparison_difference", DIFFERENCE_COLUMNS, "recorded_at DESC, run_id, seq",
+                page, size, this::mapDifference);
+    }
+
+    /**
+     * 逐个打开规则在时间范围内的差异文件，用块索引定位主键所在的块
+     */
+    private HistoryPage<DifferenceRecord> findKeyHistoryInFiles(String ruleName, String keyValue,
+                                                                LocalDateTime from, LocalDateTime to,
+                                                                int page, int size) {
+        validatePage(page, size);
+        Query query = new Query();
+        query.equal("rule_name", ruleName);
+        query.range("start_time", from, to);
+        List<ComparisonRunRecord> runs = jdbcTemplate.query("SELECT " + RUN_COLUMNS + " FROM comparison_run"
+                + query.where + " ORDER BY start_time DESC, run_id", this::mapRun, query.args.toArray());
+        List<DifferenceRecord> matches = new ArrayList<>();
+        for (ComparisonRunRecord run : runs) {
+            DifferenceFileReader reader = run.getStoredDifferences() > 0 ? openDifferenceFile(run.getRunId()) : null;
+            if (reader == null) {
+                continue;
+            }
+            for (DifferenceDetail detail : reader.findKey(keyValue)) {
+                matches.add(toRecord(run.getRunId(), run.getRuleName(), run.getStartTime(), detail));
+            }
+        }
+        int start = (int) Math.min(matches.size(), (long) page * size);
+        return new HistoryPage<>(new ArrayList<>(matches.subList(start, Math.min(matches.size(), start + size))),
+                page, size, matches.size());
+    }
+
+    /**
+     * 查询规则各时间窗口的最近一次比较结果，窗口开始时间倒序
+     *
+     * @param ruleName 规则名称
+     * @param from 窗口开始时间下限（含），为空时不限
+     * @param to 窗口开始时间上限（不含），为空时不限
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return HistoryPage<TimeWindowRecord>
+     */
+    public HistoryPage<TimeWindowRecord> findWindows(String ruleName, LocalDateTime from, LocalDateTime to,
+                                                     int page, int size) {
+        Query query = new Query();
+        query.equal("rule_name", ruleName);
+        query.range("window_start", from, to);
+        return query.page("comparison_window", WINDOW_COLUMNS, "window_start DESC", page, size, this::mapWindow);
+    }
+
+    private boolean isFileStorage() {
+        return comparisonProperties.getHistory().getDifferenceStorage() == ComparisonProperties.DifferenceStorage.FILE;
+    }
+
+    private Path differenceFile(String runId) {
+        return Paths.get(comparisonProperties.getHistory().getDifferenceDirectory(), runId + ".cdf");
+    }
+
+    private DifferenceFileReader openDifferenceFile(String runId) {
+        Path path = differenceFile(runId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return DifferenceFileReader.open(path);
+        } catch (IOException e) {
+            throw new IllegalStateException("读取差异文件失败: " + path, e);
+        }
+    }
+
+    private static DifferenceRecord toRecord(String runId, String ruleName, LocalDateTime recordedAt,
+                                             DifferenceDetail detail) {
+        DifferenceRecord record = new DifferenceRecord();
+        record.setRunId(runId);
+        record.setRuleName(ruleName);
+        record.setRecordedAt(recordedAt);
+        record.setKeyValue(stringValue(detail.getKeyValue()));
+        record.setType(detail.getType());
+        record.setSourceValue(stringValue(detail.getSourceValue()));
+        record.setTargetValue(stringValue(detail.getTargetValue()));
+        record.setFieldName(detail.getFieldName());
+        return record;
+    }
+
+    private void writeLoop() {
+        int batchSize = Math.max(1, comparisonProperties.getHistory().getBatchSize());
+        List<ComparisonResult> results = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                ComparisonResult first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    results.add(first);
+                    queue.drainTo(results, MAX_RESULTS_PER_WRITE - 1);
+                    write(results, batchSize);
+                }
+                purgeExpired();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("写入比较历史失败，{} 次比较的结果未保存", results.size(), e);
+            } finally {
+                pending.addAndGet(-results.size());
+                results.clear();
+            }
+        }
+    }
+
+    /**
+     * 差异文件先于执行记录写入，写入失败的执行记录的已保存差异数为0，查询时不会去读不存在的文件；
+     * 执行记录、差异和时间窗口在同一个事务中写入，事务失败时删除本批已写入的差异文件
+     */
+    private void write(List<ComparisonResult> results, int batchSize) {
+        boolean fileStorage = isFileStorage();
+        Set<String> unstored = fileStorage ? writeDifferenceFiles(results) : Collections.emptySet();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                writeRuns(results, unstored);
+                if (!fileStorage) {
+                    writeDifferenceRows(results, batchSize);
+                }
+                writeWindows(results);
+            });
+        } catch (RuntimeException e) {
+            if (fileStorage) {
+                deleteDifferenceFiles(results);
+            }
+            throw e;
+        }
+        logger.debug("已写入 {} 次比较的历史记录", results.size());
+    }
+
+    private void writeRuns(List<ComparisonResult> results, Set<String> unstored) {
+        List<Object[]> runs = new ArrayList<>(results.size());
+        for (ComparisonResult result : results) {
+            List<DifferenceDetail> details = result.getDifferences();
+            int stored = details != null && !unstored.contains(result.getRunId()) ? details.size() : 0;
+            runs.add(new Object[]{
+                    result.getRunId(), result.getRuleName(), truncate(result.getRuleDescription(), 1000),
+                    result.getStatus().name(),
+                    result.getPlan() != null && result.getPlan().getStrategy() != null ? result.getPlan().getStrategy().name() : null,
+                    toTimestamp(result.getStartTime()), toTimestamp(result.getEndTime()), result.getExecutionTime(),
+                    result.getTotalRecords(), result.getDifferenceCount(), result.getSourceOnlyCount(),
+                    result.getTargetOnlyCount(), result.getValueDifferenceCount(), stored,
+                    result.isCountsOnly(), result.isTerminatedEarly(), truncate(result.getErrorMessage(), MAX_VALUE_LENGTH)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO comparison_run (" + RUN_COLUMNS + ") VALUES "
+                + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", runs);
+    }
+
+    private void writeDifferenceRows(List<ComparisonResult> results, int batchSize) {
+        List<Object[]> differences = new ArrayList<>(batchSize);
+        String insertDifference = "INSERT INTO comparison_difference (seq, " + DIFFERENCE_COLUMNS + ") "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        for (ComparisonResult result : results) {
+            if (result.getDifferences() == null) {
+                continue;
+            }
+            Timestamp recordedAt = toTimestamp(result.getStartTime());
+            int seq = 0;
+            for (DifferenceDetail detail : result.getDifferences()) {
+                differences.add(new Object[]{
+                        seq++, result.getRunId(), result.getRuleName(), recordedAt,
+                        truncate(stringValue(detail.getKeyValue()), MAX_KEY_LENGTH), detail.getType().name(),
+                        truncate(stringValue(detail.getSourceValue()), MAX_VALUE_LENGTH),
+                        truncate(stringValue(detail.getTargetValue()), MAX_VALUE_LENGTH), detail.getFieldName()});
+                if (differences.size() >= batchSize) {
+                    jdbcTemplate.batchUpdate(insertDifference, differences);
+                    differences.clear();
+                }
+            }
+        }
+        if (!differences.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertDifference, differences);
+        }
+    }
+
+    /**
+     * 按时间窗口比较的结果更新窗口的最近一次比较结果，同一窗口只保留一行
+     */
+    private void writeWindows(List<ComparisonResult> results) {
+        for (ComparisonResult result : results) {
+            if (result.getWindowStart() == null) {
+                continue;
+            }
+            Object[] values = {
+                    toTimestamp(result.getWindowEnd()), result.getStatus().name(),
+                    toTimestamp(result.getEndTime() != null ? result.getEndTime() : LocalDateTime.now()),
+                    result.getTotalRecords(), result.getDifferenceCount(), result.getSourceOnlyCount(),
+                    result.getTargetOnlyCount(), result.getValueDifferenceCount(), result.getRunId(),
+                    result.getRuleName(), toTimestamp(result.getWindowStart())};
+            int updated = jdbcTemplate.update("UPDATE comparison_window SET window_end = ?, status = ?, checked_at = ?, "
+                    + "check_count = check_count + 1, total_records = ?, difference_count = ?, source_only_count = ?, "
+                    + "target_only_count = ?, value_difference_count = ?, run_id = ? "
+                    + "WHERE rule_name = ? AND window_start = ?", values);
+            if (updated == 0) {
+                jdbcTemplate.update("INSERT INTO comparison_window (" + WINDOW_COLUMNS + ") "
+                                + "VALUES (?, ?, ?, ?, ?, 1, ?, ?, ?, ?, ?, ?)",
+                        result.getRuleName(), toTimestamp(result.getWindowStart()), values[0], values[1], values[2],
+                        values[3], values[4], values[5], values[6], values[7], values[8]);
+            }
+        }
+    }
+
+    /**
+     * 写入各次执行的差异文件，返回写入失败的执行ID
+     */
+    private Set<String> writeDifferenceFiles(List<ComparisonResult> results) {
+        int blockRows = comparisonProperties.getHistory().getDifferenceBlockRows();
+        Set<String> failed = new HashSet<>();
+        for (ComparisonResult result : results) {
+            if (result.getDifferences() == null || result.getDifferences().isEmpty()) {
+                continue;
+            }
+            Path path = differenceFile(result.getRunId());
+            try {
+                DifferenceFileWriter.write(path, result.getDifferences(), blockRows);
+            } catch (IOException e) {
+                failed.add(result.getRunId());
+                logger.error("写入差异文件 {} 失败，执行 {} 的差异未保存", path, result.getRunId(), e);
+            }
+        }
+        return failed;
+    }
+
+    private void deleteDifferenceFiles(List<ComparisonResult> results) {
+        for (ComparisonResult result : results) {
+            try {
+                Files.deleteIfExists(differenceFile(result.getRunId()));
+            } catch (IOException e) {
+                logger.warn("删除差异文件 {} 失败: {}", differenceFile(result.getRunId()), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 每小时清理一次超过保留天数的历史
+     */
+    private void purgeExpired() {
+        int retentionDays = comparisonProperties.getHistory().getRetentionDays();
+        long now = System.currentTimeMillis();
+        if (retentionDays <= 0 || now - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeMillis = now;
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        try {
+            if (isFileStorage()) {
+                for (String runId : jdbcTemplate.queryForList(
+                        "SELECT run_id FROM comparison_run WHERE start_time < ?", String.class, cutoff)) {
+                    Files.deleteIfExists(differenceFile(runId));
+                }
+            }
+            int differences = jdbcTemplate.update("DELETE FROM comparison_difference WHERE recorded_at < ?", cutoff);
+            int runs = jdbcTemplate.update("DELETE FROM comparison_run WHERE start_time < ?", cutoff);
+            jdbcTemplate.update("DELETE FROM comparison_window WHERE checked_at < ?", cutoff);
+            if (runs > 0) {
+                logger.info("已清理 {} 天前的比较历史：{} 次执行，{} 条差异", retentionDays, runs, differences);
+            }
+        } catch (DataAccessException | IOException e) {
+            logger.warn("清理比较历史失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 用最近几天成功执行的耗时初始化规则调度器的预计耗时
+     */
+    private void seedExpectedDurations() {
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now().minusDays(DURATION_SEED_DAYS));
+        jdbcTemplate.query("SELECT rule_name, execution_time FROM comparison_run "
+                        + "WHERE status = ? AND start_time >= ? ORDER BY start_time",
+                (RowCallbackHandler) rs -> ruleScheduler.recordDuration(rs.getString(1), rs.getLong(2)),
+                ComparisonResult.ExecutionStatus.SUCCESS.name(), since);
+    }
+
+    private void validatePage(int page, int size) {
+        requireEnabled();
+        if (page < 0 || size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("分页参数无效：页码不能小于0，每页条数应在1到" + MAX_PAGE_SIZE + "之间");
+        }
+    }
+
+    private void requireEnabled() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("未启用比较历史存储");
+        }
+    }
+
+    private ComparisonRunRecord mapRun(ResultSet rs, int rowNum) throws SQLException {
+        ComparisonRunRecord run = new ComparisonRunRecord();
+        run.setRunId(rs.getString("run_id"));
+        run.setRuleName(rs.getString("rule_name"));
+        run.setRuleDescription(rs.getString("rule_description"));
+        run.setStatus(ComparisonResult.ExecutionStatus.valueOf(rs.getString("status")));
+        run.setStrategy(rs.getString("strategy"));
+        run.setStartTime(toLocalDateTime(rs.getTimestamp("start_time")));
+        run.setEndTime(toLocalDateTime(rs.getTimestamp("end_time")));
+        run.setExecutionTime(rs.getLong("execution_time"));
+        run.setTotalRecords(rs.getLong("total_records"));
+        run.setDifferenceCount(rs.getLong("difference_count"));
+        run.setSourceOnlyCount(rs.getLong("source_only_count"));
+        run.setTargetOnlyCount(rs.getLong("target_only_count"));
+        run.setValueDifferenceCount(rs.getLong("value_difference_count"));
+        run.setStoredDifferences(rs.getLong("stored_differences"));
+        run.setCountsOnly(rs.getBoolean("counts_only"));
+        run.setTerminatedEarly(rs.getBoolean("terminated_early"));
+        run.setErrorMessage(rs.getString("error_message"));
+        return run;
+    }
+
+    private TimeWindowRecord mapWindow(ResultSet rs, int rowNum) throws SQLException {
+        TimeWindowRecord window = new TimeWindowRecord();
+        window.setRuleName(rs.getString("rule_name"));
+        window.setWindowStart(toLocalDateTime(rs.getTimestamp("window_start")));
+        window.setWindowEnd(toLocalDateTime(rs.getTimestamp("window_end")));
+        window.setStatus(ComparisonResult.ExecutionStatus.valueOf(rs.getString("status")));
+        window.setCheckedAt(toLocalDateTime(rs.getTimestamp("checked_at")));
+        window.setCheckCount(rs.getInt("check_count"));
+        window.setTotalRecords(rs.getLong("total_records"));
+        window.setDifferenceCount(rs.getLong("difference_count"));
+        window.setSourceOnlyCount(rs.getLong("source_only_count"));
+        window.setTargetOnlyCount(rs.getLong("target_only_count"));
+        window.setValueDifferenceCount(rs.getLong("value_difference_count"));
+        window.setRunId(rs.getString("run_id"));
+        return window;
+    }
+
+    private DifferenceRecord mapDifference(ResultSet rs, int rowNum) throws SQLException {
+        DifferenceRecord difference = new DifferenceRecord();
+        difference.setRunId(rs.getString("run_id"));
+        difference.setRuleName(rs.getString("rule_name"));
+        difference.setRecordedAt(toLocalDateTime(rs.getTimestamp("recorded_at")));
+        difference.setKeyValue(rs.getString("key_value"));
+        difference.setType(DifferenceDetail.DifferenceType.valueOf(rs.getString("difference_type")));
+        difference.setSourceValue(rs.getString("source_value"));
+        difference.setTargetValue(rs.getString("target_value"));
+        difference.setFieldName(rs.getString("field_name"));
+        return difference;
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    /**
+     * 分页查询的条件拼接
+     */
+    private final class Query {
+        private final StringBuilder where = new StringBuilder();
+        private final List<Object> args = new ArrayList<>();
+
+        void equal(String column, Object value) {
+            if (value != null && !(value instanceof String && ((String) value).isEmpty())) {
+                append(column + " = ?", value);
+            }
+        }
+
+        void range(String column, LocalDateTime from, LocalDateTime to) {
+            if (from != null) {
+                append(column + " >= ?", Timestamp.valueOf(from));
+            }
+            if (to != null) {
+                append(column + " < ?", Timestamp.valueOf(to));
+            }
+        }
+
+        private void append(String condition, Object value) {
+            where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+            args.add(value);
+        }
+
+        <T> HistoryPage<T> page(String table, String columns, String orderBy, int page, int size, RowMapper<T> mapper) {
+            validatePage(page, size);
+            Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + where, Long.class, args.toArray());
+            List<Object> pageArgs = new ArrayList<>(args);
+            pageArgs.add(size);
+            pageArgs.add((long) page * size);
+            List<T> content = jdbcTemplate.query("SELECT " + columns + " FROM " + table + where
+                    + " ORDER BY " + orderBy + " LIMIT ? OFFSET ?", mapper, pageArgs.toArray());
+            return new HistoryPage<>(content, page, size, total != null ? total : 0);
+        }
+    }
+}
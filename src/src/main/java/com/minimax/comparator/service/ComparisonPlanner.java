@@ -0,0 +1,343 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.ColumnMetadata;
+import com.minimax.comparator.model.ComparisonPlan;
+import com.minimax.comparator.model.TableMetadata;
+import com.minimax.comparator.model.TablePartition;
+import com.minimax.comparator.model.TableStatistics;
+import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 比较策略规划器
+ * 从数据库目录读取近似行数和平均行长度，结合元数据缓存中的主键索引信息选择比较策略，避免每次执行前的COUNT(*)全表扫描
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class ComparisonPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonPlanner.class);
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @Autowired
+    private DialectRegistry dialectRegistry;
+
+    /**
+     * 统计信息缓存：数据源|表名|主键|WHERE条件 -> 统计信息
+     */
+    private final Map<String, TableStatistics> statisticsCache = new ConcurrentHashMap<>();
+
+    /**
+     * 为规则生成执行计划
+     *
+     * @param rule 比较规则
+     * @return ComparisonPlan
+     */
+    public ComparisonPlan plan(ComparisonProperties.ComparisonRule rule) {
+        return plan(rule, new Object[0]);
+    }
+
+    /**
+     * 为绑定了WHERE条件参数的一次执行生成执行计划，如时间窗口比较的单个窗口。
+     * 索引等表级信息取自缓存的表统计信息，行数按绑定参数后的WHERE条件单独统计，不使用整表的目录行数
+     *
+     * @param rule 比较规则
+     * @param whereParameters WHERE条件中?占位符的绑定参数，为空时与 {@link #plan(ComparisonProperties.ComparisonRule)} 相同
+     * @return ComparisonPlan
+     */
+    public ComparisonPlan plan(ComparisonProperties.ComparisonRule rule, Object[] whereParameters) {
+        TableStatistics sourceStatistics = getTableStatistics(rule.getSourceTable(), rule.getKeyField(),
+                rule.getWhereCondition(), whereParameters);
+        TableStatistics targetStatistics = getTableStatistics(rule.getTargetTable(), rule.getKeyField(),
+                rule.getWhereCondition(), whereParameters);
+
+        ComparisonPlan plan = choosePlan(rule, sourceStatistics, targetStatistics);
+        logger.info("规则 {} 的执行计划: {}", rule.getName(), plan);
+        return plan;
+    }
+
+    /**
+     * 根据统计信息选择策略
+     */
+    ComparisonPlan choosePlan(ComparisonProperties.ComparisonRule rule,
+                              TableStatistics sourceStatistics,
+                              TableStatistics targetStatistics) {
+        ComparisonProperties.PlannerConfig config = comparisonProperties.getPlanner();
+        long estimatedRows = Math.max(sourceStatistics.getEstimatedRows(), targetStatistics.getEstimatedRows());
+        boolean orderedKeys = hasOrderedKeys(sourceStatistics, targetStatistics);
+
+        List<String> pairedPartitions = config.isPartitionAware()
+                ? pairPartitions(sourceStatistics, targetStatistics) : Collections.emptyList();
+
+        ComparisonPlan plan;
+        if (estimatedRows <= comparisonProperties.getBatchSize()) {
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.DIRECT, "预估行数不超过批处理大小");
+        } else if (pairedPartitions.size() > 1) {
+            // 分区内有序归并要求数据库排序与本机主键顺序一致；否则不超过批处理大小的分区读入内存比较，
+            // 超过批处理大小或没有统计信息的分区在分区内按主键哈希落盘后比较
+            boolean inMemory = allFitInMemory(sourceStatistics, targetStatistics, pairedPartitions.size());
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.PARTITION_PARALLEL, orderedKeys
+                    ? "两端原生分区一致，逐个分区按主键有序归并"
+                    : inMemory ? "两端原生分区一致，逐个分区读入内存比较"
+                    : "两端原生分区一致，超过批处理大小的分区按主键哈希落盘后逐个分区比较");
+            plan.setFallbackStrategy(orderedKeys ? ComparisonPlan.Strategy.MERGE
+                    : inMemory ? ComparisonPlan.Strategy.DIRECT : ComparisonPlan.Strategy.HASH_PARTITION);
+            plan.setPartitions(pairedPartitions);
+            plan.setParallelism(Math.max(1, Math.min(comparisonProperties.getThreadPoolSize(), pairedPartitions.size())));
+        } else if (orderedKeys && estimatedRows >= config.getRangeParallelThreshold()
+                && comparisonProperties.getThreadPoolSize() > 1) {
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.RANGE_PARALLEL, "数值主键有索引且预估行数达到并行阈值");
+            long ranges = (estimatedRows + config.getRangeRows() - 1) / config.getRangeRows();
+            plan.setParallelism((int) Math.max(1, Math.min(comparisonProperties.getThreadPoolSize(), ranges)));
+        } else if (orderedKeys) {
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.MERGE, "数值主键有索引，按主键有序流式归并");
+        } else if (config.getHashPartitionThreshold() > 0 && estimatedRows >= config.getHashPartitionThreshold()) {
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.HASH_PARTITION,
+                    "主键无可用索引或非数值类型且数据量大，无序读取后按主键哈希分区落盘，逐个分区并行比较");
+            long partitions = (estimatedRows + config.getHashPartitionRows() - 1) / Math.max(1, config.getHashPartitionRows());
+            plan.setParallelism((int) Math.max(1, Math.min(comparisonProperties.getThreadPoolSize(), partitions)));
+        } else if (config.getExternalSortThreshold() > 0 && estimatedRows >= config.getExternalSortThreshold()) {
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.EXTERNAL_SORT,
+                    "主键无可用索引或非数值类型且数据量大，无序读取后在本机外部排序归并，避免数据库排序");
+        } else {
+            plan = new ComparisonPlan(ComparisonPlan.Strategy.BATCH, "主键无可用索引或非数值类型，分批比较");
+        }
+
+        // 分区并行在每个分区比较前各自预检校验和
+        if (config.isChecksumEnabled() && plan.getStrategy() != ComparisonPlan.Strategy.DIRECT
+                && plan.getStrategy() != ComparisonPlan.Strategy.PARTITION_PARALLEL && supportsChecksum(rule)) {
+            plan.setFallbackStrategy(plan.getStrategy());
+            plan.setStrategy(ComparisonPlan.Strategy.CHECKSUM);
+            plan.setReason("同类型数据库先比较校验和，不一致时" + plan.getReason());
+        }
+
+        plan.setSourceStatistics(sourceStatistics);
+        plan.setTargetStatistics(targetStatistics);
+        return plan;
+    }
+
+    /**
+     * 分区对能否整体读入内存比较：两端分区都收集了统计信息，且预估行数都不超过批处理大小
+     *
+     * @param source 源表分区
+     * @param target 目标表分区
+     * @param batchSize 批处理大小
+     * @return boolean
+     */
+    static boolean fitsInMemory(TablePartition source, TablePartition target, int batchSize) {
+        long rows = Math.max(source.getEstimatedRows(), target.getEstimatedRows());
+        return rows > 0 && rows <= batchSize;
+    }
+
+    private boolean allFitInMemory(TableStatistics sourceStatistics, TableStatistics targetStatistics, int partitions) {
+        for (int i = 0; i < partitions; i++) {
+            if (!fitsInMemory(sourceStatistics.getPartitions().get(i), targetStatistics.getPartitions().get(i),
+                    comparisonProperties.getBatchSize())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 两端主键是否都有索引且为数值类型：只有此时数据库按主键排序的结果与本机主键顺序一致，可以有序归并
+     *
+     * @param sourceStatistics 源表统计信息
+     * @param targetStatistics 目标表统计信息
+     * @return boolean
+     */
+    static boolean hasOrderedKeys(TableStatistics sourceStatistics, TableStatistics targetStatistics) {
+        return sourceStatistics.isKeyIndexed() && targetStatistics.isKeyIndexed()
+                && sourceStatistics.isKeyNumeric() && targetStatistics.isKeyNumeric();
+    }
+
+    /**
+     * 获取表统计信息（带缓存）
+     *
+     * @param tableConfig 表配置
+     * @param keyField 主键字段
+     * @param whereCondition WHERE条件，仅在目录统计不可用、回退到COUNT(*)时使用
+     * @return TableStatistics
+     */
+    public TableStatistics getTableStatistics(ComparisonProperties.TableConfig tableConfig,
+                                              String keyField,
+                                              String whereCondition) {
+        String cacheKey = tableConfig.getDataSource() + "|" + tableConfig.getFullTableName() + "|" + keyField + "|" + whereCondition;
+        LocalDateTime expireBefore = LocalDateTime.now().minusSeconds(comparisonProperties.getPlanner().getStatisticsTtlSeconds());
+
+        TableStatistics cached = statisticsCache.get(cacheKey);
+        if (cached != null && cached.getCollectedAt().isAfter(expireBefore)) {
+            return cached;
+        }
+
+        TableStatistics statistics = loadTableStatistics(tableConfig, keyField, whereCondition);
+        // 加入新条目时顺带清理过期条目，避免不再使用的条件一直留在缓存中
+        statisticsCache.values().removeIf(entry -> !entry.getCollectedAt().isAfter(expireBefore));
+        statisticsCache.put(cacheKey, statistics);
+        return statistics;
+    }
+
+    /**
+     * 获取绑定参数后的WHERE条件范围内的统计信息：表级信息来自不带条件的表统计信息缓存，
+     * 行数每次执行COUNT(*)统计；条件范围通常只覆盖少量分区，不按原生分区并行
+     */
+    private TableStatistics getTableStatistics(ComparisonProperties.TableConfig tableConfig,
+                                               String keyField,
+                                               String whereCondition,
+                                               Object[] whereParameters) {
+        if (whereParameters == null || whereParameters.length == 0) {
+            return getTableStatistics(tableConfig, keyField, whereCondition);
+        }
+        TableStatistics table = getTableStatistics(tableConfig, keyField, null);
+        TableStatistics statistics = new TableStatistics(table.getDataSourceName(), table.getTableName());
+        statistics.setAverageRowBytes(table.getAverageRowBytes());
+        statistics.setKeyIndexed(table.isKeyIndexed());
+        statistics.setKeyNumeric(table.isKeyNumeric());
+        Long count = dataSourceConfig.getJdbcTemplate(tableConfig.getDataSource()).queryForObject(
+                SqlBuilder.buildCountSql(tableConfig, whereCondition), Long.class, whereParameters);
+        statistics.setEstimatedRows(count != null ? count : 0L);
+        return statistics;
+    }
+
+    /**
+     * 清空统计信息缓存
+     */
+    public void clearStatistics() {
+        statisticsCache.clear();
+    }
+
+    /**
+     * 从数据库目录加载统计信息，目录不可用时回退到COUNT(*)
+     */
+    private TableStatistics loadTableStatistics(ComparisonProperties.TableConfig tableConfig,
+                                                String keyField,
+                                                String whereCondition) {
+        String dataSourceName = tableConfig.getDataSource();
+        JdbcTemplate jdbcTemplate = dataSourceConfig.getJdbcTemplate(dataSourceName);
+        SqlBuilder.DatabaseType databaseType = dialectRegistry.getDatabaseType(dataSourceName);
+        TableStatistics statistics = new TableStatistics(dataSourceName, tableConfig.getFullTableName());
+
+        String statisticsSql = SqlBuilder.buildTableStatisticsSql(tableConfig, databaseType);
+        if (statisticsSql != null) {
+            try {
+                jdbcTemplate.query(statisticsSql, SqlBuilder.buildCatalogParameters(tableConfig, databaseType), rs -> {
+                    statistics.setEstimatedRows(rs.getLong(1));
+                    statistics.setAverageRowBytes(rs.getLong(2));
+                });
+                // 从未收集过统计信息的表行数为0或负数，不可信
+                statistics.setFromCatalog(statistics.getEstimatedRows() > 0);
+            } catch (Exception e) {
+                logger.warn("读取表 {} 的目录统计信息失败: {}", tableConfig.getFullTableName(), e.getMessage());
+            }
+        }
+
+        if (!statistics.isFromCatalog()) {
+            Long count = jdbcTemplate.queryForObject(SqlBuilder.buildCountSql(tableConfig, whereCondition), Long.class);
+            statistics.setEstimatedRows(count != null ? count : 0L);
+        }
+
+        if (comparisonProperties.getPlanner().isPartitionAware()) {
+            statistics.setPartitions(loadPartitions(tableConfig, jdbcTemplate, databaseType));
+        }
+
+        ColumnMetadata keyColumn = null;
+        try {
+            TableMetadata metadata = metadataCache.getTableMetadata(tableConfig);
+            statistics.setKeyIndexed(metadata.isIndexLeadingColumn(keyField));
+            keyColumn = metadata.getColumn(keyField);
+        } catch (Exception e) {
+            logger.warn("读取表 {} 的元数据失败: {}", tableConfig.getFullTableName(), e.getMessage());
+        }
+        statistics.setKeyNumeric(keyColumn != null && keyColumn.isNumeric());
+
+        logger.debug("加载表统计信息: {}", statistics);
+        return statistics;
+    }
+
+    /**
+     * 从数据库目录读取原生分区，目录不可用或表未分区时返回空列表
+     */
+    private List<TablePartition> loadPartitions(ComparisonProperties.TableConfig tableConfig,
+                                                JdbcTemplate jdbcTemplate,
+                                                SqlBuilder.DatabaseType databaseType) {
+        List<TablePartition> partitions = new ArrayList<>();
+        String partitionSql = SqlBuilder.buildPartitionListSql(tableConfig, databaseType);
+        if (partitionSql == null) {
+            return partitions;
+        }
+        try {
+            jdbcTemplate.query(partitionSql, SqlBuilder.buildCatalogParameters(tableConfig, databaseType), rs -> {
+                String name = rs.getString(1);
+                String reference = rs.getString(4);
+                partitions.add(new TablePartition(name, Math.max(0, rs.getLong(2)), rs.getString(3),
+                        reference != null ? reference
+                                : SqlBuilder.buildPartitionTableReference(tableConfig, name, databaseType)));
+            });
+        } catch (Exception e) {
+            logger.warn("读取表 {} 的分区信息失败: {}", tableConfig.getFullTableName(), e.getMessage());
+            partitions.clear();
+        }
+        return partitions;
+    }
+
+    /**
+     * 两端分区数量、名称和顺序一致，且边界定义（两端都有时）相同才能逐个分区对应比较
+     *
+     * @return 对应的分区名称，不能对应时为空列表
+     */
+    List<String> pairPartitions(TableStatistics sourceStatistics, TableStatistics targetStatistics) {
+        List<TablePartition> sourcePartitions = sourceStatistics.getPartitions();
+        List<TablePartition> targetPartitions = targetStatistics.getPartitions();
+        if (sourcePartitions.isEmpty() || sourcePartitions.size() != targetPartitions.size()) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < sourcePartitions.size(); i++) {
+            TablePartition source = sourcePartitions.get(i);
+            TablePartition target = targetPartitions.get(i);
+            boolean boundsDiffer = source.getBound() != null && target.getBound() != null
+                    && !Objects.equals(source.getBound(), target.getBound());
+            if (!source.getName().equalsIgnoreCase(target.getName()) || boundsDiffer) {
+                logger.info("表 {} 与 {} 的分区 {}/{} 不一致，不按分区比较", sourceStatistics.getTableName(),
+                        targetStatistics.getTableName(), source.getName(), target.getName());
+                return Collections.emptyList();
+            }
+            names.add(source.getName());
+        }
+        return names;
+    }
+
+    /**
+     * 校验和仅在两端为同类型且支持哈希聚合的数据库时可用
+     */
+    private boolean supportsChecksum(ComparisonProperties.ComparisonRule rule) {
+        SqlDialect sourceDialect = dialectRegistry.getDialect(rule.getSourceTable().getDataSource());
+        SqlDialect targetDialect = dialectRegistry.getDialect(rule.getTargetTable().getDataSource());
+        return sourceDialect.getDatabaseType() == targetDialect.getDatabaseType() && sourceDialect.supportsChecksum();
+    }
+}
@@ -0,0 +1,165 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 比较结果缓存
+ * 相同规则的并发请求合并为一次执行，后到的请求等待并共享正在执行的结果；
+ * 启用结果缓存后，未失败的结果按规则有效期保留，超出容量时淘汰最久未访问的结果
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class ComparisonResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ComparisonResultCache.class);
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    /**
+     * 执行方式|规则指纹 -> 正在执行的比较
+     */
+    private final Map<String, CompletableFuture<ComparisonResult>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 执行方式|规则指纹 -> 已完成的结果，按访问顺序排列
+     */
+    private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 获取规则的比较结果：命中缓存时直接返回，同一规则正在执行时等待其结果，否则执行并缓存
+     *
+     * @param mode 执行方式，不同方式的结果分开缓存
+     * @param rule 比较规则
+     * @param refresh 是否忽略已缓存的结果
+     * @param comparison 实际执行比较
+     * @return ComparisonResult
+     */
+    public ComparisonResult getOrExecute(String mode, ComparisonProperties.ComparisonRule rule, boolean refresh,
+                                         Supplier<ComparisonResult> comparison) {
+        // 配置相同的不同规则各自执行，结果中的规则名称和历史记录归属各自的规则
+        String key = mode + "|" + rule.getName() + "|" + RuleQueryPlan.fingerprint(rule);
+        if (!refresh) {
+            ComparisonResult cached = getCached(key);
+            if (cached != null) {
+                logger.debug("规则 {} 命中结果缓存", rule.getName());
+                return cached;
+            }
+        }
+
+        CompletableFuture<ComparisonResult> execution = new CompletableFuture<>();
+        CompletableFuture<ComparisonResult> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            logger.info("规则 {} 正在执行，等待并共享其结果", rule.getName());
+            return await(running);
+        }
+
+        try {
+            ComparisonResult result = comparison.get();
+            if (result.getStatus() != ComparisonResult.ExecutionStatus.FAILED) {
+                putCached(key, result, comparisonProperties.getResultCache().getTtlSecondsFor(rule.getName()));
+            }
+            execution.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // 包括Error在内的任何失败都要结束等待中的请求，否则它们会一直阻塞
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    /**
+     * 清空全部缓存结果
+     */
+    public void invalidate() {
+        synchronized (results) {
+            results.clear();
+        }
+        logger.info("已清空比较结果缓存");
+    }
+
+    /**
+     * 当前缓存的结果数
+     *
+     * @return 结果数
+     */
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    private ComparisonResult getCached(String key) {
+        if (!comparisonProperties.getResultCache().isEnabled()) {
+            return null;
+        }
+        synchronized (results) {
+            CachedResult cached = results.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expireAt <= System.currentTimeMillis()) {
+                results.remove(key);
+                return null;
+            }
+            return cached.result;
+        }
+    }
+
+    private void putCached(String key, ComparisonResult result, long ttlSeconds) {
+        ComparisonProperties.ResultCacheConfig config = comparisonProperties.getResultCache();
+        if (!config.isEnabled() || ttlSeconds <= 0 || config.getMaxEntries() <= 0) {
+            return;
+        }
+        synchronized (results) {
+            results.put(key, new CachedResult(result, System.currentTimeMillis() + ttlSeconds * 1000));
+            while (results.size() > config.getMaxEntries()) {
+                String eldest = results.keySet().iterator().next();
+                results.remove(eldest);
+            }
+        }
+    }
+
+    private static ComparisonResult await(CompletableFuture<ComparisonResult> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 缓存的结果及其过期时间
+     */
+    private static class CachedResult {
+        private final ComparisonResult result;
+        private final long expireAt;
+
+        CachedResult(ComparisonResult result, long expireAt) {
+            this.result = result;
+            this.expireAt = expireAt;
+        }
+    }
+}
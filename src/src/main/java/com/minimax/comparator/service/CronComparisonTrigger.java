@@ -0,0 +1,274 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 规则定时执行
+ * 按规则的cron表达式触发比较，在规则调度线程池中执行。相同cron表达式和错开窗口的规则按名称排序后在窗口内均匀错开启动，
+ * 再叠加随机抖动，使各数据源的负载分散在维护窗口内；上一次执行尚未结束时按配置跳过本次执行
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class CronComparisonTrigger implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CronComparisonTrigger.class);
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private FieldComparisonService fieldComparisonService;
+
+    @Autowired
+    private RuleScheduler ruleScheduler;
+
+    @Autowired
+    private TimeWindowComparisonService timeWindowComparisonService;
+
+    /**
+     * 规则名称 -> 定时任务，按规则配置顺序
+     */
+    private final Map<String, ScheduledRule> scheduledRules = new LinkedHashMap<>();
+
+    private ScheduledExecutorService timer;
+
+    @Override
+    public void afterPropertiesSet() {
+        List<ComparisonProperties.ComparisonRule> rules = comparisonProperties.getRules() == null
+                ? Collections.emptyList()
+                : comparisonProperties.getRules().stream()
+                        .filter(rule -> rule.isEnabled() && rule.getSchedule() != null
+                                && rule.getSchedule().getCron() != null && !rule.getSchedule().getCron().trim().isEmpty())
+                        .collect(Collectors.toList());
+        if (rules.isEmpty()) {
+            return;
+        }
+
+        // 相同cron表达式、时区和错开窗口的规则为一组，组内按名称排序后均匀分配启动偏移
+        Map<String, List<ComparisonProperties.ComparisonRule>> groups = rules.stream()
+                .collect(Collectors.groupingBy(CronComparisonTrigger::staggerGroup, LinkedHashMap::new, Collectors.toList()));
+        for (List<ComparisonProperties.ComparisonRule> group : groups.values()) {
+            group.sort(Comparator.comparing(ComparisonProperties.ComparisonRule::getName));
+            for (int i = 0; i < group.size(); i++) {
+                ComparisonProperties.ComparisonRule rule = group.get(i);
+                long offsetMillis = staggerOffsetMillis(rule.getSchedule().getStaggerSeconds(), i, group.size());
+                scheduledRules.put(rule.getName(), new ScheduledRule(rule, parse(rule), resolveZone(rule), offsetMillis));
+            }
+        }
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comparison-cron");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ZonedDateTime now = ZonedDateTime.now();
+        for (ComparisonProperties.ComparisonRule rule : rules) {
+            scheduleNext(scheduledRules.get(rule.getName()), now);
+        }
+        logger.info("已启用 {} 个规则的定时执行", scheduledRules.size());
+    }
+
+    @Override
+    public void destroy() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * 定时执行的规则及下次执行时间
+     *
+     * @return List<Map<String, Object>>
+     */
+    public List<Map<String, Object>> getSchedules() {
+        List<Map<String, Object>> schedules = new ArrayList<>();
+        for (ScheduledRule scheduled : scheduledRules.values()) {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("rule", scheduled.rule.getName());
+            info.put("cron", scheduled.rule.getSchedule().getCron());
+            info.put("staggerOffsetSeconds", TimeUnit.MILLISECONDS.toSeconds(scheduled.offsetMillis));
+            info.put("nextRun", scheduled.nextRun);
+            info.put("running", scheduled.running.get() > 0);
+            info.put("lastRun", scheduled.lastRun);
+            info.put("lastStatus", scheduled.lastStatus);
+            info.put("skipped", scheduled.skipped);
+            schedules.add(info);
+        }
+        return schedules;
+    }
+
+    /**
+     * 组内第index个规则的启动偏移：把错开窗口均分为size份
+     *
+     * @param staggerSeconds 错开窗口（秒）
+     * @param index 规则在组内的序号
+     * @param size 组内规则数
+     * @return 偏移（毫秒）
+     */
+    static long staggerOffsetMillis(long staggerSeconds, int index, int size) {
+        if (staggerSeconds <= 0 || size <= 1) {
+            return 0;
+        }
+        return TimeUnit.SECONDS.toMillis(staggerSeconds) * index / size;
+    }
+
+    /**
+     * 计算cron时间点之后第一个不早于now的执行时间，错过的时间点不补执行
+     *
+     * @param cron cron表达式
+     * @param after 上一个cron时间点
+     * @param offsetMillis 启动偏移
+     * @param now 当前时间
+     * @return 下一个cron时间点，无后续时间点时返回null
+     */
+    static ZonedDateTime nextCronTime(CronExpression cron, ZonedDateTime after, long offsetMillis, ZonedDateTime now) {
+        ZonedDateTime next = cron.next(after);
+        while (next != null && next.plus(Duration.ofMillis(offsetMillis)).isBefore(now)) {
+            next = cron.next(next);
+        }
+        return next;
+    }
+
+    private void scheduleNext(ScheduledRule scheduled, ZonedDateTime after) {
+        ZonedDateTime now = ZonedDateTime.now(scheduled.zone);
+        ZonedDateTime cronTime = nextCronTime(scheduled.cron, after.withZoneSameInstant(scheduled.zone),
+                scheduled.offsetMillis, now);
+        if (cronTime == null) {
+            scheduled.nextRun = null;
+            return;
+        }
+        long jitterSeconds = scheduled.rule.getSchedule().getJitterSeconds();
+        long jitterMillis = jitterSeconds > 0 ? ThreadLocalRandom.current().nextLong(TimeUnit.SECONDS.toMillis(jitterSeconds)) : 0;
+        ZonedDateTime fireAt = cronTime.plus(Duration.ofMillis(scheduled.offsetMillis + jitterMillis));
+        scheduled.nextRun = fireAt.toLocalDateTime();
+        long delay = Math.max(0, Duration.between(now, fireAt).toMillis());
+        timer.schedule(() -> {
+            try {
+                fire(scheduled);
+            } finally {
+                scheduleNext(scheduled, cronTime);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void fire(ScheduledRule scheduled) {
+        String ruleName = scheduled.rule.getName();
+        // 只有定时线程触发执行，检查和计数之间不会有其他触发
+        if (scheduled.running.get() > 0) {
+            if (scheduled.rule.getSchedule().isSkipIfRunning()) {
+                scheduled.skipped++;
+                logger.warn("规则 {} 上一次定时执行尚未结束，跳过本次执行", ruleName);
+                return;
+            }
+            logger.info("规则 {} 上一次定时执行尚未结束，本次执行将共享其结果", ruleName);
+        }
+        scheduled.running.incrementAndGet();
+        scheduled.lastRun = LocalDateTime.now(scheduled.zone);
+        logger.info("定时执行比较规则: {}", ruleName);
+        ruleScheduler.submit(new RuleScheduler.ScheduledTask(Collections.singletonList(scheduled.rule), () -> {
+            if (scheduled.rule.getTimeWindow() != null) {
+                fireWindows(scheduled);
+                return;
+            }
+            ComparisonResult result = fieldComparisonService.executeComparison(ruleName, true, ComparisonOptions.defaults());
+            scheduled.lastStatus = result.getStatus();
+            logger.info("规则 {} 定时执行完成，状态 {}，差异 {} 条", ruleName, result.getStatus(), result.getDifferenceCount());
+        })).whenComplete((ignored, error) -> {
+            if (error != null) {
+                scheduled.lastStatus = ComparisonResult.ExecutionStatus.FAILED;
+                logger.error("规则 {} 定时执行失败", ruleName, error);
+            }
+            scheduled.running.decrementAndGet();
+        });
+    }
+
+    /**
+     * 按时间窗口比较规则，任一窗口失败时状态为失败，否则任一窗口部分成功时为部分成功
+     */
+    private void fireWindows(ScheduledRule scheduled) {
+        String ruleName = scheduled.rule.getName();
+        List<ComparisonResult> results = timeWindowComparisonService.compareWindows(scheduled.rule, ComparisonOptions.defaults());
+        ComparisonResult.ExecutionStatus status = ComparisonResult.ExecutionStatus.SUCCESS;
+        long differences = 0;
+        for (ComparisonResult result : results) {
+            if (result.getStatus() == ComparisonResult.ExecutionStatus.FAILED) {
+                status = ComparisonResult.ExecutionStatus.FAILED;
+            } else if (result.getStatus() == ComparisonResult.ExecutionStatus.PARTIAL
+                    && status == ComparisonResult.ExecutionStatus.SUCCESS) {
+                status = ComparisonResult.ExecutionStatus.PARTIAL;
+            }
+            differences += result.getDifferenceCount();
+        }
+        scheduled.lastStatus = status;
+        logger.info("规则 {} 定时执行完成，比较 {} 个时间窗口，状态 {}，差异 {} 条", ruleName, results.size(), status, differences);
+    }
+
+    private static String staggerGroup(ComparisonProperties.ComparisonRule rule) {
+        ComparisonProperties.RuleScheduleConfig schedule = rule.getSchedule();
+        return schedule.getCron().trim() + "|" + schedule.getZone() + "|" + schedule.getStaggerSeconds();
+    }
+
+    private static CronExpression parse(ComparisonProperties.ComparisonRule rule) {
+        try {
+            return CronExpression.parse(rule.getSchedule().getCron().trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("规则 " + rule.getName() + " 的cron表达式无效: "
+                    + rule.getSchedule().getCron(), e);
+        }
+    }
+
+    private static ZoneId resolveZone(ComparisonProperties.ComparisonRule rule) {
+        String zone = rule.getSchedule().getZone();
+        return zone == null || zone.trim().isEmpty() ? ZoneId.systemDefault() : ZoneId.of(zone.trim());
+    }
+
+    /**
+     * 单个规则的定时状态
+     */
+    private static final class ScheduledRule {
+        private final ComparisonProperties.ComparisonRule rule;
+        private final CronExpression cron;
+        private final ZoneId zone;
+        private final long offsetMillis;
+        private final AtomicInteger running = new AtomicInteger();
+        private volatile LocalDateTime nextRun;
+        private volatile LocalDateTime lastRun;
+        private volatile ComparisonResult.ExecutionStatus lastStatus;
+        private volatile long skipped;
+
+        ScheduledRule(ComparisonProperties.ComparisonRule rule, CronExpression cron, ZoneId zone, long offsetMillis) {
+            this.rule = rule;
+            this.cron = cron;
+            this.zone = zone;
+            this.offsetMillis = offsetMillis;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * 数据源负载限制
+ * 对启用throttle的数据源，按令牌桶限制每秒查询数和每秒读取行数，并限制同时执行的语句数；
+ * 配置了耗时目标时，按查询耗时的指数移动平均自动调整限制比例：超过目标时乘性降低，低于目标一半时逐步恢复
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class DataSourceGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceGovernor.class);
+
+    /**
+     * 限制比例两次调整的最小间隔
+     */
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final double DECREASE_FACTOR = 0.7;
+
+    private static final double INCREASE_STEP = 0.1;
+
+    /**
+     * 耗时指数移动平均的平滑系数
+     */
+    private static final double LATENCY_ALPHA = 0.3;
+
+    /**
+     * 当前线程已持有的执行名额数，不区分数据源
+     */
+    private static final ThreadLocal<int[]> HELD_SLOTS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    /**
+     * 数据源名称 -> 限制状态，配置在运行期间不变
+     */
+    private final Map<String, Throttle> throttles = new ConcurrentHashMap<>();
+
+    /**
+     * 在执行名额内执行一条语句：等待并发数低于上限并取得查询令牌后执行，结束时释放名额，并将语句耗时计入自动降速
+     *
+     * @param dataSourceName 数据源名称
+     * @param statement 执行语句并返回结果
+     * @return 语句的结果
+     */
+    public <T> T execute(String dataSourceName, Supplier<T> statement) {
+        return execute(dataSourceName, true, statement);
+    }
+
+    /**
+     * 在执行名额内执行一条无返回值的语句，见 {@link #execute(String, Supplier)}
+     *
+     * @param dataSourceName 数据源名称
+     * @param statement 执行语句
+     */
+    public void run(String dataSourceName, Runnable statement) {
+        execute(dataSourceName, true, () -> {
+            statement.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在执行名额内执行流式查询。流式查询的耗时取决于读取的行数，不计入自动降速
+     *
+     * @param dataSourceName 数据源名称
+     * @param query 执行查询并返回结果
+     * @return 查询的结果
+     */
+    public <T> T executeStream(String dataSourceName, Supplier<T> query) {
+        return execute(dataSourceName, false, query);
+    }
+
+    private <T> T execute(String dataSourceName, boolean recordLatency, Supplier<T> statement) {
+        Throttle throttle = getThrottle(dataSourceName);
+        if (throttle == null) {
+            return statement.get();
+        }
+        int[] held = HELD_SLOTS.get();
+        throttle.acquireSlot(held[0] > 0);
+        held[0]++;
+        long startNanos = -1;
+        try {
+            throttle.pace(throttle.queries, 1);
+            startNanos = recordLatency ? System.nanoTime() : -1;
+            return statement.get();
+        } finally {
+            held[0]--;
+            throttle.releaseSlot(startNanos >= 0 ? System.nanoTime() - startNanos : -1);
+        }
+    }
+
+    /**
+     * 逐行读取时使用的行计数器，每累计一定行数计入一次行数限制
+     *
+     * @param dataSourceName 数据源名称
+     * @return RowMeter
+     */
+    public RowMeter meter(String dataSourceName) {
+        Throttle throttle = getThrottle(dataSourceName);
+        return new RowMeter(throttle != null && throttle.rows != null ? throttle : null);
+    }
+
+    /**
+     * 计入已读取的行数，超过每秒行数上限时阻塞到令牌补足
+     *
+     * @param dataSourceName 数据源名称
+     * @param rows 行数
+     */
+    public void consumeRows(String dataSourceName, long rows) {
+        Throttle throttle = getThrottle(dataSourceName);
+        if (throttle != null && rows > 0) {
+            throttle.pace(throttle.rows, rows);
+        }
+    }
+
+    /**
+     * 当前限制比例，未启用限制时为1
+     *
+     * @param dataSourceName 数据源名称
+     * @return 比例，(0, 1]
+     */
+    public double getRateRatio(String dataSourceName) {
+        Throttle throttle = getThrottle(dataSourceName);
+        return throttle != null ? throttle.ratio : 1.0;
+    }
+
+    private Throttle getThrottle(String dataSourceName) {
+        Throttle throttle = throttles.get(dataSourceName);
+        if (throttle != null) {
+            return throttle.config != null ? throttle : null;
+        }
+        ComparisonProperties.ThrottleConfig config = dataSourceConfig.getThrottleConfig(dataSourceName);
+        throttle = throttles.computeIfAbsent(dataSourceName,
+                name -> new Throttle(name, config != null && config.isEnabled() ? config : null));
+        return throttle.config != null ? throttle : null;
+    }
+
+    /**
+     * 行计数器，单线程使用
+     */
+    public static final class RowMeter {
+        private static final int CHUNK_ROWS = 500;
+
+        private final Throttle throttle;
+        private int pending;
+
+        private RowMeter(Throttle throttle) {
+            this.throttle = throttle;
+        }
+
+        /**
+         * 计入一行
+         */
+        public void row() {
+            if (throttle != null && ++pending >= CHUNK_ROWS) {
+                flush();
+            }
+        }
+
+        /**
+         * 计入尚未提交的行
+         */
+        public void flush() {
+            if (throttle != null && pending > 0) {
+                throttle.pace(throttle.rows, pending);
+                pending = 0;
+            }
+        }
+    }
+
+    /**
+     * 单个数据源的限制状态
+     */
+    static final class Throttle {
+        private final String dataSourceName;
+        private final ComparisonProperties.ThrottleConfig config;
+        private final TokenBucket queries;
+        private final TokenBucket rows;
+
+        private int active;
+        private volatile double ratio = 1.0;
+        private double averageLatencyMillis = -1;
+        private long lastAdjustNanos;
+
+        Throttle(String dataSourceName, ComparisonProperties.ThrottleConfig config) {
+            this.dataSourceName = dataSourceName;
+            this.config = config;
+            this.queries = config != null && config.getMaxQueriesPerSecond() > 0
+                    ? new TokenBucket(config.getMaxQueriesPerSecond()) : null;
+            this.rows = config != null && config.getMaxRowsPerSecond() > 0
+                    ? new TokenBucket(config.getMaxRowsPerSecond()) : null;
+        }
+
+        /**
+         * 按当前比例从令牌桶取令牌，不足时在锁外等待
+         */
+        void pace(TokenBucket bucket, double permits) {
+            if (bucket == null) {
+                return;
+            }
+            long waitNanos = bucket.reserve(permits, ratio);
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+        }
+
+        /**
+         * 取得执行名额。只有线程的最外层语句受并发上限限制：已持有任一数据源名额的线程再打开的语句
+         * （如归并比较同时读取源和目标的游标）不等待，否则两个线程各持有一侧名额又等待另一侧时会交叉死锁
+         *
+         * @param nested 当前线程是否已持有名额
+         */
+        synchronized void acquireSlot(boolean nested) {
+            while (!nested && config.getMaxConcurrentQueries() > 0 && active >= concurrencyLimit()) {
+                try {
+                    // 限制比例可能在等待期间变化，定时重新检查
+                    wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("等待数据源 " + dataSourceName + " 的执行名额时被中断", e);
+                }
+            }
+            active++;
+        }
+
+        synchronized void releaseSlot(long elapsedNanos) {
+            active--;
+            if (elapsedNanos >= 0) {
+                recordLatency(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            }
+            notifyAll();
+        }
+
+        int concurrencyLimit() {
+            return Math.max(1, (int) Math.ceil(config.getMaxConcurrentQueries() * ratio));
+        }
+
+        /**
+         * 更新平均耗时，并在间隔到期后调整限制比例
+         */
+        private void recordLatency(long latencyMillis) {
+            if (config.getLatencyTargetMillis() <= 0) {
+                return;
+            }
+            averageLatencyMillis = averageLatencyMillis < 0 ? latencyMillis
+                    : LATENCY_ALPHA * latencyMillis + (1 - LATENCY_ALPHA) * averageLatencyMillis;
+            long now = System.nanoTime();
+            if (now - lastAdjustNanos < ADJUST_INTERVAL_NANOS) {
+                return;
+            }
+            double target = config.getLatencyTargetMillis();
+            double previous = ratio;
+            if (averageLatencyMillis > target) {
+                ratio = Math.max(Math.min(1.0, config.getMinRateRatio()), ratio * DECREASE_FACTOR);
+            } else if (averageLatencyMillis < target / 2) {
+                ratio = Math.min(1.0, ratio + INCREASE_STEP);
+            }
+            if (ratio != previous) {
+                lastAdjustNanos = now;
+                logger.info("数据源 {} 平均查询耗时 {} 毫秒（目标 {}），限制比例 {} -> {}", dataSourceName,
+                        Math.round(averageLatencyMillis), config.getLatencyTargetMillis(),
+                        String.format("%.2f", previous), String.format("%.2f", ratio));
+            }
+        }
+    }
+
+    /**
+     * 令牌桶，容量为一秒的令牌数。允许透支：一次取超过余量的令牌时立即返回需等待的时间，
+     * 后续请求按透支额顺延，长期速率不超过设定值
+     */
+    static final class TokenBucket {
+        private final double ratePerSecond;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+            this.tokens = ratePerSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * 取令牌
+         *
+         * @param permits 令牌数
+         * @param ratio 限制比例
+         * @return 需要等待的纳秒数
+         */
+        synchronized long reserve(double permits, double ratio) {
+            double rate = ratePerSecond * ratio;
+            long now = System.nanoTime();
+            tokens = Math.min(rate, tokens + (now - lastRefillNanos) / 1e9 * rate);
+            lastRefillNanos = now;
+            tokens -= permits;
+            return tokens >= 0 ? 0 : (long) (-tokens / rate * 1e9);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL方言注册表
+ * 每个数据源首次使用时从JDBC元数据的产品名称和主版本号确定方言并缓存；
+ * 元数据读取失败时按JDBC URL推断，且不缓存，下次重新解析
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class DialectRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DialectRegistry.class);
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    /**
+     * 数据源名称 -> 方言
+     */
+    private final Map<String, SqlDialect> dialectCache = new ConcurrentHashMap<>();
+
+    /**
+     * 获取数据源的方言
+     *
+     * @param dataSourceName 数据源名称
+     * @return SqlDialect
+     */
+    public SqlDialect getDialect(String dataSourceName) {
+        SqlDialect dialect = dialectCache.get(dataSourceName);
+        if (dialect != null) {
+            return dialect;
+        }
+
+        try {
+            dialect = dataSourceConfig.getJdbcTemplate(dataSourceName).execute((ConnectionCallback<SqlDialect>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                return SqlDialect.of(SqlDialect.inferFromProductName(metaData.getDatabaseProductName()),
+                        metaData.getDatabaseMajorVersion());
+            });
+        } catch (Exception e) {
+            SqlBuilder.DatabaseType databaseType = dataSourceConfig.getDatabaseType(dataSourceName);
+            logger.warn("读取数据源 {} 的数据库元数据失败，按URL推断为 {}: {}",
+                    dataSourceName, databaseType.getDisplayName(), e.getMessage());
+            return SqlDialect.of(databaseType);
+        }
+
+        SqlDialect existing = dialectCache.putIfAbsent(dataSourceName, dialect);
+        if (existing != null) {
+            return existing;
+        }
+        logger.info("数据源 {} 使用方言 {}", dataSourceName, dialect);
+        return dialect;
+    }
+
+    /**
+     * 获取数据源的数据库类型
+     *
+     * @param dataSourceName 数据源名称
+     * @return DatabaseType
+     */
+    public SqlBuilder.DatabaseType getDatabaseType(String dataSourceName) {
+        return getDialect(dataSourceName).getDatabaseType();
+    }
+
+    /**
+     * 清空方言缓存
+     */
+    public void refresh() {
+        dialectCache.clear();
+    }
+}
@@ -0,0 +1,546 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.DifferenceBuffer;
+import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.DifferenceStatistics;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 差异收集器
+ * 按执行选项累计差异：只统计数量时不创建差异详情；达到差异数或差异比例阈值后标记停止，
+ * 比较引擎据此提前结束扫描。差异详情按列写入DifferenceBuffer，范围并行时由多个线程共同写入。
+ * 差异分布（各主键范围或批次的差异数、高频不一致取值、主键直方图）随写入增量累计，不需要保留差异详情；
+ * 高频取值和直方图按写入线程分别累计，并行比较的各线程互不争用，生成结果时再合并。
+ * 设置了监听器时每条差异同时交给监听器，用于流式输出
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class DifferenceCollector {
+
+    /**
+     * 单独列出的范围或批次上限
+     */
+    private static final int MAX_SEGMENTS = 1000;
+
+    /**
+     * 高频取值计数器个数，超出后替换计数最小的一项（Space-Saving）
+     */
+    private static final int VALUE_COUNTERS = 100;
+
+    private static final int TOP_VALUES = 10;
+
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    private final ComparisonOptions options;
+
+    /**
+     * 根收集器；范围或批次的子收集器把差异和阈值判断都转交给它
+     */
+    private final DifferenceCollector root;
+
+    /**
+     * 子收集器所属的范围或批次统计，根收集器为null
+     */
+    private final SegmentCounter segment;
+
+    private final AtomicLong sourceOnly = new AtomicLong();
+    private final AtomicLong targetOnly = new AtomicLong();
+    private final AtomicLong valueDifferent = new AtomicLong();
+    private final AtomicLong scannedKeys = new AtomicLong();
+
+    private final DifferenceBuffer details;
+
+    private final DifferenceListener listener;
+
+    private final List<SegmentCounter> segments;
+    private final AtomicLong omittedSegments = new AtomicLong();
+    /**
+     * 写入线程 -> 该线程累计的高频取值和主键直方图，只在根收集器上使用
+     */
+    private final Map<Thread, StatisticsShard> shards;
+
+    private volatile boolean stopped;
+
+    public DifferenceCollector(ComparisonOptions options) {
+        this(options, null);
+    }
+
+    public DifferenceCollector(ComparisonOptions options, DifferenceListener listener) {
+        this.options = options;
+        this.root = this;
+        this.segment = null;
+        this.details = options.isCountsOnly() ? null : new DifferenceBuffer();
+        this.listener = listener;
+        this.segments = Collections.synchronizedList(new ArrayList<>());
+        this.shards = new ConcurrentHashMap<>();
+    }
+
+    private DifferenceCollector(DifferenceCollector root, SegmentCounter segment) {
+        this.options = root.options;
+        this.root = root;
+        this.segment = segment;
+        this.details = null;
+        this.listener = null;
+        this.segments = null;
+        this.shards = null;
+    }
+
+    /**
+     * 为一个主键范围或批次创建子收集器，写入的差异同时计入总数和该分组
+     *
+     * @param kind 分组类型：RANGE 或 BATCH
+     * @param name 分组说明
+     * @return DifferenceCollector
+     */
+    public DifferenceCollector segment(String kind, String name) {
+        SegmentCounter counter = new SegmentCounter(kind, name);
+        synchronized (root.segments) {
+            if (root.segments.size() < MAX_SEGMENTS) {
+                root.segments.add(counter);
+            } else {
+                root.omittedSegments.incrementAndGet();
+            }
+        }
+        return new DifferenceCollector(root, counter);
+    }
+
+    /**
+     * 记录一条差异
+     *
+     * @param key 主键值
+     * @param type 差异类型
+     * @param sourceValue 源表值
+     * @param targetValue 目标表值
+     * @param fieldName 比较字段名
+     */
+    public void add(Object key, DifferenceDetail.DifferenceType type,
+                    Object sourceValue, Object targetValue, String fieldName) {
+        if (root.stopped) {
+            return;
+        }
+        StatisticsShard shard = root.shard();
+        switch (type) {
+            case SOURCE_ONLY:
+                root.sourceOnly.incrementAndGet();
+                break;
+            case TARGET_ONLY:
+                root.targetOnly.incrementAndGet();
+                break;
+            default:
+                root.valueDifferent.incrementAndGet();
+                shard.values.add(fieldName, sourceValue, targetValue);
+                break;
+        }
+        if (segment != null) {
+            segment.add(type);
+        }
+        shard.keys.add(key);
+        if (!options.isCountsOnly()) {
+            root.details.add(key, type, sourceValue, targetValue, fieldName);
+        }
+        if (root.listener != null) {
+            root.listener.onDifference(new DifferenceDetail(key, type, sourceValue, targetValue, fieldName));
+        }
+        root.checkThresholds();
+    }
+
+    /**
+     * 记录已比较的主键数，用于计算差异比例
+     *
+     * @param keys 主键数
+     */
+    public void addScanned(long keys) {
+        root.scannedKeys.addAndGet(keys);
+        if (segment != null) {
+            segment.scannedKeys.addAndGet(keys);
+        }
+        root.checkThresholds();
+    }
+
+    /**
+     * 是否已达到差异阈值，应停止扫描
+     *
+     * @return boolean
+     */
+    public boolean isStopped() {
+        return root.stopped;
+    }
+
+    public long getDifferenceCount() {
+        return root.sourceOnly.get() + root.targetOnly.get() + root.valueDifferent.get();
+    }
+
+    /**
+     * 将差异统计写入比较结果
+     *
+     * @param result 比较结果
+     */
+    public void applyTo(ComparisonResult result) {
+        DifferenceCollector collector = root;
+        result.setDifferences(options.isCountsOnly() ? new ArrayList<>() : collector.details);
+        result.setSourceOnlyCount(collector.sourceOnly.get());
+        result.setTargetOnlyCount(collector.targetOnly.get());
+        result.setValueDifferenceCount(collector.valueDifferent.get());
+        result.setDifferenceCount(getDifferenceCount());
+        result.setCountsOnly(options.isCountsOnly());
+        result.setTerminatedEarly(collector.stopped);
+        result.setStatistics(collector.buildStatistics());
+        if (collector.stopped) {
+            result.setStatus(ComparisonResult.ExecutionStatus.PARTIAL);
+        }
+    }
+
+    private DifferenceStatistics buildStatistics() {
+        DifferenceStatistics statistics = new DifferenceStatistics();
+        synchronized (segments) {
+            for (SegmentCounter counter : segments) {
+                statistics.getSegments().add(counter.snapshot());
+            }
+        }
+        statistics.setOmittedSegments(omittedSegments.get());
+        ValueCounter values = new ValueCounter();
+        KeyHistogram keys = new KeyHistogram();
+        for (StatisticsShard shard : shards.values()) {
+            shard.values.mergeInto(values);
+            shard.keys.mergeInto(keys);
+        }
+        statistics.setTopValueDifferences(values.top(TOP_VALUES));
+        keys.snapshot(statistics);
+        return statistics;
+    }
+
+    private StatisticsShard shard() {
+        Thread thread = Thread.currentThread();
+        StatisticsShard shard = shards.get(thread);
+        return shard != null ? shard : shards.computeIfAbsent(thread, key -> new StatisticsShard());
+    }
+
+    private void checkThresholds() {
+        if (stopped || !options.isEarlyTermination()) {
+            return;
+        }
+        long differences = getDifferenceCount();
+        if (options.getMaxDifferences() > 0 && differences >= options.getMaxDifferences()) {
+            stopped = true;
+            return;
+        }
+        long scanned = scannedKeys.get();
+        if (options.getMaxMismatchRatio() > 0 && scanned > 0 && scanned >= options.getMinRowsForRatio()
+                && (double) differences / scanned >= options.getMaxMismatchRatio()) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * 一个主键范围或批次的计数
+     */
+    private static final class SegmentCounter {
+        private final String kind;
+        private final String name;
+        private final AtomicLong scannedKeys = new AtomicLong();
+        private final AtomicLong sourceOnly = new AtomicLong();
+        private final AtomicLong targetOnly = new AtomicLong();
+        private final AtomicLong valueDifferent = new AtomicLong();
+
+        SegmentCounter(String kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        void add(DifferenceDetail.DifferenceType type) {
+            switch (type) {
+                case SOURCE_ONLY:
+                    sourceOnly.incrementAndGet();
+                    break;
+                case TARGET_ONLY:
+                    targetOnly.incrementAndGet();
+                    break;
+                default:
+                    valueDifferent.incrementAndGet();
+                    break;
+            }
+        }
+
+        DifferenceStatistics.Segment snapshot() {
+            DifferenceStatistics.Segment snapshot = new DifferenceStatistics.Segment(kind, name);
+            snapshot.setScannedKeys(scannedKeys.get());
+            snapshot.setSourceOnlyCount(sourceOnly.get());
+            snapshot.setTargetOnlyCount(targetOnly.get());
+            snapshot.setValueDifferenceCount(valueDifferent.get());
+            return snapshot;
+        }
+    }
+
+    /**
+     * 一个写入线程的高频取值和主键直方图，只有该线程写入，锁不会争用
+     */
+    private static final class StatisticsShard {
+        private final ValueCounter values = new ValueCounter();
+        private final KeyHistogram keys = new KeyHistogram();
+    }
+
+    /**
+     * 高频不一致取值计数，计数器个数固定，内存不随差异数增长；
+     * 计数器按计数排序，替换计数最小的一项不需要遍历全部计数器
+     */
+    private static final class ValueCounter {
+        private final Map<ValueKey, Counter> counters = new HashMap<>();
+        private final TreeSet<Counter> byCount = new TreeSet<>((left, right) -> left.count != right.count
+                ? Long.compare(left.count, right.count) : Long.compare(left.sequence, right.sequence));
+        private long sequence;
+
+        synchronized void add(String fieldName, Object sourceValue, Object targetValue) {
+            increment(new ValueKey(fieldName, abbreviate(sourceValue), abbreviate(targetValue)), 1);
+        }
+
+        /**
+         * 把本计数器的各项累加到target，合并后的计数同样只会高估不会低估
+         */
+        synchronized void mergeInto(ValueCounter target) {
+            for (Counter counter : counters.values()) {
+                target.increment(counter.key, counter.count);
+            }
+        }
+
+        List<DifferenceStatistics.ValueCount> top(int limit) {
+            List<DifferenceStatistics.ValueCount> top = new ArrayList<>();
+            for (Counter counter : byCount.descendingSet()) {
+                if (top.size() >= limit) {
+                    break;
+                }
+                top.add(new DifferenceStatistics.ValueCount(counter.key.fieldName, counter.key.sourceValue,
+                        counter.key.targetValue, counter.count));
+            }
+            return top;
+        }
+
+        private void increment(ValueKey key, long count) {
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                byCount.remove(counter);
+                counter.count += count;
+                byCount.add(counter);
+                return;
+            }
+            long initial = count;
+            if (counters.size() >= VALUE_COUNTERS) {
+                // 替换计数最小的一项，新项继承其计数，结果只会高估不会低估
+                Counter minimum = byCount.pollFirst();
+                counters.remove(minimum.key);
+                initial += minimum.count;
+            }
+            counter = new Counter(key, initial, sequence++);
+            counters.put(key, counter);
+            byCount.add(counter);
+        }
+
+        private static String abbreviate(Object value) {
+            if (value == null) {
+                return null;
+            }
+            String text = value.toString();
+            return text.length() > MAX_VALUE_LENGTH ? text.substring(0, MAX_VALUE_LENGTH) : text;
+        }
+    }
+
+    private static final class ValueKey {
+        private final String fieldName;
+        private final String sourceValue;
+        private final String targetValue;
+
+        ValueKey(String fieldName, String sourceValue, String targetValue) {
+            this.fieldName = fieldName;
+            this.sourceValue = sourceValue;
+            this.targetValue = targetValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ValueKey)) {
+                return false;
+            }
+            ValueKey other = (ValueKey) o;
+            return Objects.equals(fieldName, other.fieldName) && Objects.equals(sourceValue, other.sourceValue)
+                    && Objects.equals(targetValue, other.targetValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fieldName, sourceValue, targetValue);
+        }
+    }
+
+    private static final class Counter {
+        private final ValueKey key;
+        private final long sequence;
+        private long count;
+
+        Counter(ValueKey key, long count, long sequence) {
+            this.key = key;
+            this.count = count;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * 整数主键直方图：桶数固定，主键超出当前覆盖范围时桶宽翻倍并两两合并，
+     * 第一个桶始终对齐到最小主键所在的桶，正负主键混合时范围向两侧扩展
+     */
+    private static final class KeyHistogram {
+        private static final int BUCKETS = 32;
+        private static final long MAX_WIDTH = 1L << 62;
+
+        private final long[] counts = new long[BUCKETS];
+        private long width = 1;
+        /**
+         * 第一个桶的编号，桶i覆盖[(originIndex + i) * width, (originIndex + i + 1) * width)
+         */
+        private long originIndex;
+        private long minKey;
+        private long maxKey;
+        private boolean initialized;
+        private long nonNumeric;
+
+        synchronized void add(Object key) {
+            Long value = integralKey(key);
+            if (value == null) {
+                nonNumeric++;
+                return;
+            }
+            extend(value, value, 1);
+            counts[(int) (Math.floorDiv(value, width) - originIndex)]++;
+        }
+
+        /**
+         * 把本直方图累加到target：target先扩展到覆盖本直方图的主键范围且桶宽不小于本直方图，
+         * 桶宽都是2的幂且按桶宽对齐，本直方图的每个桶都完整落在target的一个桶内
+         */
+        synchronized void mergeInto(KeyHistogram target) {
+            target.nonNumeric += nonNumeric;
+            if (!initialized) {
+                return;
+            }
+            target.extend(minKey, maxKey, width);
+            long ratio = target.width / width;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) {
+                    target.counts[(int) (Math.floorDiv(originIndex + i, ratio) - target.originIndex)] += counts[i];
+                }
+            }
+        }
+
+        void snapshot(DifferenceStatistics statistics) {
+            statistics.setNonNumericKeyDifferences(nonNumeric);
+            int first = 0;
+            int last = BUCKETS - 1;
+            while (first <= last && counts[first] == 0) {
+                first++;
+            }
+            while (last >= first && counts[last] == 0) {
+                last--;
+            }
+            for (int i = first; i <= last; i++) {
+                statistics.getKeyHistogram().add(new DifferenceStatistics.KeyBucket(
+                        bound(originIndex + i), bound(originIndex + i + 1), counts[i]));
+            }
+        }
+
+        /**
+         * 扩展覆盖范围到[low, high]且桶宽不小于minWidth，第一个桶对齐到最小主键所在的桶
+         */
+        private void extend(long low, long high, long minWidth) {
+            if (!initialized) {
+                originIndex = low;
+                minKey = low;
+                maxKey = high;
+                initialized = true;
+            }
+            minKey = Math.min(minKey, low);
+            maxKey = Math.max(maxKey, high);
+            while ((!fits() || width < minWidth) && width < MAX_WIDTH) {
+                widen();
+            }
+            realign(Math.floorDiv(minKey, width));
+        }
+
+        private void widen() {
+            long newOrigin = Math.floorDiv(originIndex, 2);
+            long[] merged = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) {
+                    merged[(int) (Math.floorDiv(originIndex + i, 2) - newOrigin)] += counts[i];
+                }
+            }
+            System.arraycopy(merged, 0, counts, 0, BUCKETS);
+            originIndex = newOrigin;
+            width <<= 1;
+        }
+
+        /**
+         * 最小和最大主键所在的桶是否都在桶数以内，差值溢出时视为放不下
+         */
+        private boolean fits() {
+            long span = Math.floorDiv(maxKey, width) - Math.floorDiv(minKey, width);
+            return span >= 0 && span < BUCKETS;
+        }
+
+        /**
+         * 平移各桶使第一个桶编号为newOrigin，已有计数都落在最小和最大主键之间，平移后不会越界
+         */
+        private void realign(long newOrigin) {
+            if (newOrigin == originIndex) {
+                return;
+            }
+            long[] shifted = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) {
+                    shifted[(int) (originIndex + i - newOrigin)] = counts[i];
+                }
+            }
+            System.arraycopy(shifted, 0, counts, 0, BUCKETS);
+            originIndex = newOrigin;
+        }
+
+        private long bound(long bucketIndex) {
+            try {
+                return Math.multiplyExact(bucketIndex, width);
+            } catch (ArithmeticException e) {
+                return bucketIndex < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+        }
+
+        private static Long integralKey(Object key) {
+            if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+                return ((Number) key).longValue();
+            }
+            if (key instanceof BigInteger && ((BigInteger) key).bitLength() < 64) {
+                return ((BigInteger) key).longValue();
+            }
+            if (key instanceof BigDecimal) {
+                try {
+                    return ((BigDecimal) key).longValueExact();
+                } catch (ArithmeticException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.model.DifferenceDetail;
+
+/**
+ * 差异监听器
+ * 比较引擎每发现一条差异即回调，范围并行时由多个线程同时调用。
+ * 抛出运行时异常会中止本次比较，流式输出在客户端断开时据此停止扫描
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@FunctionalInterface
+public interface DifferenceListener {
+
+    /**
+     * 发现一条差异
+     *
+     * @param detail 差异详情
+     */
+    void onDifference(DifferenceDetail detail);
+}
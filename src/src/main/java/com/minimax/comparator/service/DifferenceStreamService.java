@@ -0,0 +1,176 @@
+package com.minimax.comparator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 差异流式输出服务
+ * 按规划器选择的策略比较规则，发现的差异逐条以NDJSON输出给客户端，最后一行为不含差异详情的比较结果。
+ * 比较线程与响应线程之间是有界缓冲区：客户端读取慢时缓冲区写满，比较线程等待，数据库游标随之暂停读取；
+ * 客户端断开或长时间不读取时中止比较。差异不在服务端累积，同时执行的流式比较数受配置限制
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Service
+public class DifferenceStreamService implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(DifferenceStreamService.class);
+
+    private static final byte[] LINE_SEPARATOR = {'\n'};
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private OptimizedComparisonService optimizedComparisonService;
+
+    @Autowired
+    private ComparisonHistoryStore comparisonHistoryStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ExecutorService streamExecutor;
+
+    @Override
+    public void afterPropertiesSet() {
+        int streams = Math.max(1, comparisonProperties.getStream().getMaxConcurrentStreams());
+        streamExecutor = Executors.newFixedThreadPool(streams, runnable -> {
+            Thread thread = new Thread(runnable, "difference-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        streamExecutor.shutdownNow();
+    }
+
+    /**
+     * 查找规则，在开始输出前校验规则存在
+     *
+     * @param ruleName 规则名称
+     * @return 比较规则
+     */
+    public ComparisonProperties.ComparisonRule findRule(String ruleName) {
+        if (comparisonProperties.getRules() != null) {
+            for (ComparisonProperties.ComparisonRule rule : comparisonProperties.getRules()) {
+                if (rule.getName().equals(ruleName)) {
+                    return rule;
+                }
+            }
+        }
+        throw new IllegalArgumentException("未找到规则: " + ruleName);
+    }
+
+    /**
+     * 执行比较并把差异逐条写入输出流，比较结束后返回
+     *
+     * @param rule 比较规则
+     * @param options 执行选项，差异详情不在结果中保留
+     * @param out 输出流
+     * @throws IOException 写入失败，通常是客户端已断开
+     */
+    public void stream(ComparisonProperties.ComparisonRule rule, ComparisonOptions options,
+                       OutputStream out) throws IOException {
+        ComparisonProperties.StreamConfig config = comparisonProperties.getStream();
+        BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferSize()));
+        AtomicBoolean cancelled = new AtomicBoolean();
+        long stallMillis = TimeUnit.SECONDS.toMillis(config.getStallTimeoutSeconds());
+
+        ComparisonOptions streamOptions = new ComparisonOptions(true, options.getMaxDifferences(),
+                options.getMaxMismatchRatio());
+        streamOptions.setMinRowsForRatio(options.getMinRowsForRatio());
+        streamExecutor.execute(() -> {
+            ComparisonResult result = optimizedComparisonService.performOptimizedComparison(rule, streamOptions,
+                    detail -> put(buffer, detail, cancelled, stallMillis));
+            if (cancelled.get()) {
+                logger.info("规则 {} 的流式比较已中止", rule.getName());
+                return;
+            }
+            comparisonHistoryStore.record(result);
+            try {
+                put(buffer, result, cancelled, stallMillis);
+            } catch (CancellationException e) {
+                logger.info("规则 {} 的流式比较结果未能送达客户端", rule.getName());
+            }
+        });
+
+        try {
+            while (true) {
+                Object item = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    if (cancelled.get()) {
+                        throw new IOException("客户端长时间未读取，流式比较已中止");
+                    }
+                    continue;
+                }
+                boolean last = item instanceof ComparisonResult;
+                writeLine(out, last ? "summary" : "difference", item);
+                if (last) {
+                    out.flush();
+                    return;
+                }
+                if (buffer.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("流式输出被中断", e);
+        } finally {
+            cancelled.set(true);
+        }
+    }
+
+    private void writeLine(OutputStream out, String event, Object data) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("event", event);
+        line.put("data", data);
+        out.write(objectMapper.writeValueAsBytes(line));
+        out.write(LINE_SEPARATOR);
+    }
+
+    /**
+     * 写入缓冲区，已满时等待；客户端已断开或等待超时则抛出异常中止比较
+     */
+    private static void put(BlockingQueue<Object> buffer, Object item, AtomicBoolean cancelled, long stallMillis) {
+        if (cancelled.get()) {
+            throw new CancellationException("客户端已断开，结束流式比较");
+        }
+        long deadline = System.currentTimeMillis() + stallMillis;
+        try {
+            while (!buffer.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                if (cancelled.get() || System.currentTimeMillis() > deadline) {
+                    cancelled.set(true);
+                    throw new CancellationException("客户端已断开或长时间未读取，结束流式比较");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("流式比较被中断");
+        }
+    }
+}
@@ -2,8 +2,13 @@ package com.minimax.comparator.service;
 
 import com.minimax.comparator.config.ComparisonProperties;
 import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonPlan;
 import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.DataSourceStatus;
 import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.SamplingOptions;
+import com.minimax.comparator.util.ValueComparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +19,6 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -35,6 +39,33 @@ public class FieldComparisonService {
     @Autowired
     private DynamicDataSourceConfig dataSourceConfig;
 
+    @Autowired
+    private OptimizedComparisonService optimizedComparisonService;
+
+    @Autowired
+    private ComparisonPlanner comparisonPlanner;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @Autowired
+    private RuleQueryPlanCache ruleQueryPlanCache;
+
+    @Autowired
+    private DialectRegistry dialectRegistry;
+
+    @Autowired
+    private ComparisonResultCache comparisonResultCache;
+
+    @Autowired
+    private SamplingComparisonService samplingComparisonService;
+
+    @Autowired
+    private RuleScheduler ruleScheduler;
+
+    @Autowired
+    private ComparisonHistoryStore comparisonHistoryStore;
+
     /**
      * 执行所有启用的比较规则
      * 
@@ -57,12 +88,86 @@ public class FieldComparisonService {
      * @return ComparisonResult
      */
     public ComparisonResult executeComparison(String ruleName) {
+        return executeComparison(ruleName, false, ComparisonOptions.defaults());
+    }
+
+    /**
+     * 执行单个比较规则，同一规则的并发请求共享一次执行
+     * 
+     * @param ruleName 规则名称
+     * @param refresh 是否忽略缓存的结果重新比较
+     * @param options 执行选项（只统计数量、提前结束阈值）
+     * @return ComparisonResult
+     */
+    public ComparisonResult executeComparison(String ruleName, boolean refresh, ComparisonOptions options) {
         ComparisonProperties.ComparisonRule rule = findRuleByName(ruleName);
         if (rule == null) {
             throw new IllegalArgumentException("未找到规则: " + ruleName);
         }
         
-        return performComparison(rule);
+        return comparisonResultCache.getOrExecute("simple" + options.cacheKey(), rule, refresh,
+                () -> comparisonHistoryStore.record(performComparison(rule, options)));
+    }
+
+    /**
+     * 按规划器选择的策略执行单个比较规则
+     * 
+     * @param ruleName 规则名称
+     * @return ComparisonResult
+     */
+    public ComparisonResult executeOptimizedComparison(String ruleName) {
+        return executeOptimizedComparison(ruleName, false, ComparisonOptions.defaults());
+    }
+
+    /**
+     * 按规划器选择的策略执行单个比较规则，同一规则的并发请求共享一次执行
+     * 
+     * @param ruleName 规则名称
+     * @param refresh 是否忽略缓存的结果重新比较
+     * @param options 执行选项（只统计数量、提前结束阈值）
+     * @return ComparisonResult
+     */
+    public ComparisonResult executeOptimizedComparison(String ruleName, boolean refresh, ComparisonOptions options) {
+        ComparisonProperties.ComparisonRule rule = findRuleByName(ruleName);
+        if (rule == null) {
+            throw new IllegalArgumentException("未找到规则: " + ruleName);
+        }
+        
+        return comparisonResultCache.getOrExecute("optimized" + options.cacheKey(), rule, refresh,
+                () -> comparisonHistoryStore.record(optimizedComparisonService.performOptimizedComparison(rule, options)));
+    }
+
+    /**
+     * 抽样比较单个规则，估计整表差异比例及其置信区间，同一规则的并发请求共享一次执行
+     * 
+     * @param ruleName 规则名称
+     * @param refresh 是否忽略缓存的结果重新比较
+     * @param options 抽样选项
+     * @return ComparisonResult
+     */
+    public ComparisonResult executeSampledComparison(String ruleName, boolean refresh, SamplingOptions options) {
+        ComparisonProperties.ComparisonRule rule = findRuleByName(ruleName);
+        if (rule == null) {
+            throw new IllegalArgumentException("未找到规则: " + ruleName);
+        }
+        
+        return comparisonResultCache.getOrExecute("sampled" + options.cacheKey(), rule, refresh,
+                () -> comparisonHistoryStore.record(samplingComparisonService.performSampledComparison(rule, options)));
+    }
+
+    /**
+     * 获取规则的执行计划（不执行比较）
+     * 
+     * @param ruleName 规则名称
+     * @return ComparisonPlan
+     */
+    public ComparisonPlan explainComparison(String ruleName) {
+        ComparisonProperties.ComparisonRule rule = findRuleByName(ruleName);
+        if (rule == null) {
+            throw new IllegalArgumentException("未找到规则: " + ruleName);
+        }
+        
+        return comparisonPlanner.plan(rule);
     }
 
     /**
@@ -95,35 +200,85 @@ public class FieldComparisonService {
     }
 
     /**
-     * 并行执行比较
+     * 并行执行比较，共享扫描的规则组作为一个任务，由调度器按优先级、预计耗时和数据源名额分派
      * 
      * @param rules 规则列表
-     * @return List<ComparisonResult>
+     * @return List<ComparisonResult>，保持规则的原始顺序
      */
     private List<ComparisonResult> executeComparisonsInParallel(List<ComparisonProperties.ComparisonRule> rules) {
         logger.info("开始并行执行 {} 个比较规则", rules.size());
         
-        List<CompletableFuture<ComparisonResult>> futures = rules.stream()
-                .map(rule -> CompletableFuture.supplyAsync(() -> performComparison(rule)))
-                .collect(Collectors.toList());
-        
-        return futures.stream()
-                .map(CompletableFuture::join)
-                .collect(Collectors.toList());
+        ComparisonResult[] results = new ComparisonResult[rules.size()];
+        ruleScheduler.executeAll(scheduleRuleGroups(rules, results));
+        return Arrays.asList(results);
     }
 
     /**
-     * 串行执行比较
+     * 串行执行比较，按调度顺序逐组执行
      * 
      * @param rules 规则列表
-     * @return List<ComparisonResult>
+     * @return List<ComparisonResult>，保持规则的原始顺序
      */
     private List<ComparisonResult> executeComparisonsSequentially(List<ComparisonProperties.ComparisonRule> rules) {
         logger.info("开始串行执行 {} 个比较规则", rules.size());
         
-        return rules.stream()
-                .map(this::performComparison)
+        ComparisonResult[] results = new ComparisonResult[rules.size()];
+        ruleScheduler.executeSequentially(scheduleRuleGroups(rules, results));
+        return Arrays.asList(results);
+    }
+
+    private List<RuleScheduler.ScheduledTask> scheduleRuleGroups(List<ComparisonProperties.ComparisonRule> rules,
+                                                                 ComparisonResult[] results) {
+        return groupRulesForSharedScan(rules).stream()
+                .map(group -> new RuleScheduler.ScheduledTask(
+                        group.stream().map(rules::get).collect(Collectors.toList()),
+                        () -> executeRuleGroup(rules, group, results)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按表对、主键和过滤条件对规则分组，同组规则可以共享一次扫描；未启用共享扫描时每个规则单独一组
+     * 
+     * @param rules 规则列表
+     * @return 规则下标分组，保持规则的原始顺序
+     */
+    private List<List<Integer>> groupRulesForSharedScan(List<ComparisonProperties.ComparisonRule> rules) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            ComparisonProperties.ComparisonRule rule = rules.get(i);
+            String scanKey = comparisonProperties.isSharedScan() ? sharedScanKey(rule) : rule.getName() + "#" + i;
+            groups.computeIfAbsent(scanKey, key -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static String sharedScanKey(ComparisonProperties.ComparisonRule rule) {
+        return String.join("|",
+                rule.getSourceTable().getDataSource(), rule.getSourceTable().getFullTableName().toLowerCase(),
+                rule.getTargetTable().getDataSource(), rule.getTargetTable().getFullTableName().toLowerCase(),
+                rule.getKeyField().toLowerCase(), String.valueOf(rule.getWhereCondition()).trim());
+    }
+
+    /**
+     * 执行一组规则：单个规则单独比较，多个规则共享一次扫描
+     */
+    private void executeRuleGroup(List<ComparisonProperties.ComparisonRule> rules,
+                                  List<Integer> group,
+                                  ComparisonResult[] results) {
+        if (group.size() == 1) {
+            int index = group.get(0);
+            results[index] = comparisonHistoryStore.record(performComparison(rules.get(index)));
+            return;
+        }
+        
+        List<ComparisonProperties.ComparisonRule> groupRules = group.stream()
+                .map(rules::get)
                 .collect(Collectors.toList());
+        List<ComparisonResult> groupResults = optimizedComparisonService.performSharedComparison(groupRules,
+                ComparisonOptions.defaults());
+        for (int i = 0; i < group.size(); i++) {
+            results[group.get(i)] = comparisonHistoryStore.record(groupResults.get(i));
+        }
     }
 
     /**
@@ -133,6 +288,17 @@ public class FieldComparisonService {
      * @return ComparisonResult
      */
     private ComparisonResult performComparison(ComparisonProperties.ComparisonRule rule) {
+        return performComparison(rule, ComparisonOptions.defaults());
+    }
+
+    /**
+     * 按执行选项执行具体的比较逻辑
+     * 
+     * @param rule 比较规则
+     * @param options 执行选项
+     * @return ComparisonResult
+     */
+    private ComparisonResult performComparison(ComparisonProperties.ComparisonRule rule, ComparisonOptions options) {
         ComparisonResult result = new ComparisonResult(rule.getName());
         result.setRuleDescription(rule.getDescription());
         
@@ -140,8 +306,8 @@ public class FieldComparisonService {
             logger.info("开始执行比较规则: {}", rule.getName());
             
             // 获取JdbcTemplate
-            JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getJdbcTemplate(rule.getSourceTable().getDataSource());
-            JdbcTemplate targetJdbcTemplate = dataSourceConfig.getJdbcTemplate(rule.getTargetTable().getDataSource());
+            JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(rule.getSourceTable().getDataSource());
+            JdbcTemplate targetJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(rule.getTargetTable().getDataSource());
             
             // 构建查询SQL
             String sourceQuery = buildQuery(rule.getSourceTable(), rule.getKeyField(), rule.getCompareField(), rule.getWhereCondition());
@@ -152,16 +318,16 @@ public class FieldComparisonService {
             Map<Object, Object> targetData = queryData(targetJdbcTemplate, targetQuery);
             
             // 比较数据
-            List<DifferenceDetail> differences = compareData(sourceData, targetData, rule.getCompareField());
+            DifferenceCollector collector = new DifferenceCollector(options);
+            compareData(sourceData, targetData, rule.getCompareField(), collector);
             
             // 设置结果
             result.setTotalRecords(Math.max(sourceData.size(), targetData.size()));
-            result.setDifferences(differences);
-            result.calculateStatistics();
-            result.setEndTime(LocalDateTime.now());
             result.setStatus(ComparisonResult.ExecutionStatus.SUCCESS);
+            collector.applyTo(result);
+            result.setEndTime(LocalDateTime.now());
             
-            logger.info("比较规则 {} 执行完成，发现 {} 个差异", rule.getName(), differences.size());
+            logger.info("比较规则 {} 执行完成，发现 {} 个差异", rule.getName(), collector.getDifferenceCount());
             
         } catch (Exception e) {
             logger.error("执行比较规则 {} 时发生错误", rule.getName(), e);
@@ -202,10 +368,11 @@ public class FieldComparisonService {
      * @return Map<Object, Object> 键值对数据
      */
     private Map<Object, Object> queryData(JdbcTemplate jdbcTemplate, String query) {
-        Map<Object, Object> dataMap = new ConcurrentHashMap<>();
+        // 比较字段允许为NULL，使用HashMap；数值主键统一类型，两端驱动返回不同数值类型时仍能匹配
+        Map<Object, Object> dataMap = new HashMap<>();
         
         jdbcTemplate.query(query, rs -> {
-            Object key = rs.getObject(1);
+            Object key = ValueComparator.canonicalKey(rs.getObject(1));
             Object value = rs.getObject(2);
             dataMap.put(key, value);
         });
@@ -219,40 +386,36 @@ public class FieldComparisonService {
      * @param sourceData 源数据
      * @param targetData 目标数据
      * @param compareField 比较字段
-     * @return List<DifferenceDetail> 差异列表
+     * @param collector 差异收集器，达到差异阈值时停止比较
      */
-    private List<DifferenceDetail> compareData(Map<Object, Object> sourceData, 
-                                             Map<Object, Object> targetData, 
-                                             String compareField) {
-        List<DifferenceDetail> differences = new ArrayList<>();
-        
+    private void compareData(Map<Object, Object> sourceData, 
+                             Map<Object, Object> targetData, 
+                             String compareField,
+                             DifferenceCollector collector) {
         // 找出所有唯一的键
         Set<Object> allKeys = new HashSet<>();
         allKeys.addAll(sourceData.keySet());
         allKeys.addAll(targetData.keySet());
         
         for (Object key : allKeys) {
+            if (collector.isStopped()) {
+                return;
+            }
+            collector.addScanned(1);
             Object sourceValue = sourceData.get(key);
             Object targetValue = targetData.get(key);
             
-            if (sourceValue == null && targetValue != null) {
+            if (!sourceData.containsKey(key)) {
                 // 仅在目标表存在
-                differences.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.TARGET_ONLY, 
-                        null, targetValue, compareField));
-            } else if (sourceValue != null && targetValue == null) {
+                collector.add(key, DifferenceDetail.DifferenceType.TARGET_ONLY, null, targetValue, compareField);
+            } else if (!targetData.containsKey(key)) {
                 // 仅在源表存在
-                differences.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.SOURCE_ONLY, 
-                        sourceValue, null, compareField));
-            } else if (sourceValue != null && targetValue != null) {
-                // 都存在，比较值
-                if (!Objects.equals(sourceValue, targetValue)) {
-                    differences.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, 
-                            sourceValue, targetValue, compareField));
-                }
+                collector.add(key, DifferenceDetail.DifferenceType.SOURCE_ONLY, sourceValue, null, compareField);
+            } else if (!ValueComparator.genericEquals(sourceValue, targetValue)) {
+                // 都存在，按数值大小、时间值比较，忽略驱动返回类型的差异
+                collector.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, sourceValue, targetValue, compareField);
             }
         }
-        
-        return differences;
     }
 
     /**
@@ -289,26 +452,76 @@ public class FieldComparisonService {
 
     /**
      * 验证数据源连接
+     * 所有数据源并行校验，单个不可达的数据源不会阻塞其他数据源的结果
      * 
      * @return Map<String, Boolean> 数据源名称 -> 连接状态
      */
     public Map<String, Boolean> validateDataSourceConnections() {
         Map<String, Boolean> connectionStatus = new HashMap<>();
         
-        for (String dataSourceName : dataSourceConfig.getAllDataSourceNames()) {
-            boolean isConnected = dataSourceConfig.testConnection(dataSourceName);
-            connectionStatus.put(dataSourceName, isConnected);
+        dataSourceConfig.validateConnections().forEach((dataSourceName, status) -> {
+            connectionStatus.put(dataSourceName, status.isReady());
             
-            if (isConnected) {
-                logger.info("数据源 {} 连接正常", dataSourceName);
+            if (status.isReady()) {
+                logger.info("数据源 {} 连接正常，耗时 {} 毫秒", dataSourceName, status.getLatencyMillis());
             } else {
-                logger.warn("数据源 {} 连接失败", dataSourceName);
+                logger.warn("数据源 {} 连接{}: {}", dataSourceName, status.getState().getDescription(), status.getMessage());
             }
-        }
+        });
         
         return connectionStatus;
     }
 
+    /**
+     * 获取数据源就绪状态
+     * 
+     * @return Map<String, DataSourceStatus> 数据源名称 -> 状态
+     */
+    public Map<String, DataSourceStatus> getDataSourceReadiness() {
+        return dataSourceConfig.getReadiness();
+    }
+
+    /**
+     * 基于元数据缓存校验所有规则的表和字段
+     * 
+     * @return Map<String, List<String>> 规则名称 -> 错误信息列表（为空表示校验通过）
+     */
+    public Map<String, List<String>> validateRules() {
+        if (comparisonProperties.getRules() == null) {
+            return Collections.emptyMap();
+        }
+        
+        Map<String, List<String>> validationResults = new LinkedHashMap<>();
+        for (ComparisonProperties.ComparisonRule rule : comparisonProperties.getRules()) {
+            List<String> errors = metadataCache.validateRule(rule);
+            validationResults.put(rule.getName(), errors);
+            
+            if (!errors.isEmpty()) {
+                logger.warn("规则 {} 校验失败: {}", rule.getName(), errors);
+            }
+        }
+        
+        return validationResults;
+    }
+
+    /**
+     * 刷新表元数据、统计信息和规则查询计划缓存，全部刷新时同时重新解析数据源方言
+     * 
+     * @param dataSourceName 数据源名称，为空时刷新全部
+     */
+    public void refreshMetadata(String dataSourceName) {
+        if (dataSourceName == null || dataSourceName.trim().isEmpty()) {
+            metadataCache.refresh();
+            dialectRegistry.refresh();
+            ruleQueryPlanCache.invalidate();
+        } else {
+            metadataCache.refresh(dataSourceName);
+            ruleQueryPlanCache.invalidateDataSource(dataSourceName);
+        }
+        comparisonPlanner.clearStatistics();
+        comparisonResultCache.invalidate();
+    }
+
     /**
      * 获取所有规则的基本信息
      * 
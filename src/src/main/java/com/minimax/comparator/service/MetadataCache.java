@@ -0,0 +1,226 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.ColumnMetadata;
+import com.minimax.comparator.model.TableMetadata;
+import com.minimax.comparator.util.SqlBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表元数据缓存
+ * 通过JDBC DatabaseMetaData按数据源和表懒加载列类型、可空性、主键和索引信息，过期后自动重新加载
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class MetadataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @Autowired
+    private DialectRegistry dialectRegistry;
+
+    /**
+     * 元数据缓存：数据源|表名 -> 表元数据
+     */
+    private final Map<String, TableMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    /**
+     * 获取表元数据（带缓存）
+     *
+     * @param tableConfig 表配置
+     * @return TableMetadata，表不存在时columns为空
+     */
+    public TableMetadata getTableMetadata(ComparisonProperties.TableConfig tableConfig) {
+        String cacheKey = tableConfig.getDataSource() + "|" + tableConfig.getFullTableName();
+        LocalDateTime expireBefore = LocalDateTime.now().minusSeconds(comparisonProperties.getMetadata().getTtlSeconds());
+
+        TableMetadata cached = metadataCache.get(cacheKey);
+        if (cached != null && cached.getLoadedAt().isAfter(expireBefore)) {
+            return cached;
+        }
+        // 目录查询在锁外执行，慢速或不可达的数据源不会阻塞其他表的读取；并发加载时保留较新的结果
+        TableMetadata loaded = loadTableMetadata(tableConfig);
+        return metadataCache.merge(cacheKey, loaded,
+                (current, candidate) -> current.getLoadedAt().isAfter(candidate.getLoadedAt()) ? current : candidate);
+    }
+
+    /**
+     * 校验规则的表和字段是否存在
+     *
+     * @param rule 比较规则
+     * @return 错误信息列表，为空表示校验通过
+     */
+    public List<String> validateRule(ComparisonProperties.ComparisonRule rule) {
+        List<String> errors = new ArrayList<>();
+        validateTable(rule.getSourceTable(), rule, "源表", errors);
+        validateTable(rule.getTargetTable(), rule, "目标表", errors);
+        return errors;
+    }
+
+    /**
+     * 清空全部元数据缓存
+     */
+    public void refresh() {
+        metadataCache.clear();
+        logger.info("已清空全部表元数据缓存");
+    }
+
+    /**
+     * 清空指定数据源的元数据缓存
+     *
+     * @param dataSourceName 数据源名称
+     */
+    public void refresh(String dataSourceName) {
+        metadataCache.keySet().removeIf(key -> key.startsWith(dataSourceName + "|"));
+        logger.info("已清空数据源 {} 的表元数据缓存", dataSourceName);
+    }
+
+    private void validateTable(ComparisonProperties.TableConfig tableConfig,
+                               ComparisonProperties.ComparisonRule rule,
+                               String side,
+                               List<String> errors) {
+        TableMetadata metadata;
+        try {
+            metadata = getTableMetadata(tableConfig);
+        } catch (Exception e) {
+            errors.add(String.format("%s %s 元数据读取失败: %s", side, tableConfig.getFullTableName(), e.getMessage()));
+            return;
+        }
+
+        if (!metadata.exists()) {
+            errors.add(String.format("%s %s 不存在", side, tableConfig.getFullTableName()));
+            return;
+        }
+        for (String field : new String[]{rule.getKeyField(), rule.getCompareField()}) {
+            if (metadata.getColumn(field) == null) {
+                errors.add(String.format("%s %s 中不存在字段 %s", side, tableConfig.getFullTableName(), field));
+            }
+        }
+    }
+
+    /**
+     * 从JDBC元数据加载表信息
+     */
+    private TableMetadata loadTableMetadata(ComparisonProperties.TableConfig tableConfig) {
+        String dataSourceName = tableConfig.getDataSource();
+        SqlBuilder.DatabaseType databaseType = dialectRegistry.getDatabaseType(dataSourceName);
+
+        TableMetadata metadata = dataSourceConfig.getJdbcTemplate(dataSourceName).execute(
+                (ConnectionCallback<TableMetadata>) connection -> {
+                    DatabaseMetaData dbMetaData = connection.getMetaData();
+                    String catalog = null;
+                    String schema = tableConfig.getSchema();
+                    if (databaseType == SqlBuilder.DatabaseType.MYSQL) {
+                        // MySQL的database对应JDBC的catalog
+                        catalog = StringUtils.isNotBlank(schema) ? schema : connection.getCatalog();
+                        schema = null;
+                    } else if (StringUtils.isBlank(schema)) {
+                        schema = connection.getSchema();
+                    }
+                    String table = normalizeIdentifier(dbMetaData, tableConfig.getTableName());
+                    schema = schema != null ? normalizeIdentifier(dbMetaData, schema) : null;
+
+                    TableMetadata result = new TableMetadata(dataSourceName, tableConfig.getFullTableName());
+                    result.setColumns(loadColumns(dbMetaData, catalog, schema, table));
+                    if (result.exists()) {
+                        result.setPrimaryKeyColumns(loadPrimaryKey(dbMetaData, catalog, schema, table));
+                        loadIndexes(dbMetaData, catalog, schema, table, result);
+                    }
+                    return result;
+                });
+
+        logger.debug("加载表元数据: {}", metadata);
+        return metadata;
+    }
+
+    private Map<String, ColumnMetadata> loadColumns(DatabaseMetaData dbMetaData, String catalog,
+                                                   String schema, String table) throws SQLException {
+        Map<String, ColumnMetadata> columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (ResultSet rs = dbMetaData.getColumns(catalog, schema, table, "%")) {
+            while (rs.next()) {
+                String name = rs.getString("COLUMN_NAME");
+                columns.put(name, new ColumnMetadata(name, rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"),
+                        getOptionalInt(rs, "COLUMN_SIZE"), getOptionalInt(rs, "DECIMAL_DIGITS"),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 读取可能为NULL的整数列，NULL时返回-1（如未指定精度的Oracle NUMBER）
+     */
+    private static int getOptionalInt(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? -1 : value;
+    }
+
+    private List<String> loadPrimaryKey(DatabaseMetaData dbMetaData, String catalog,
+                                        String schema, String table) throws SQLException {
+        Map<Short, String> keyColumns = new TreeMap<>();
+        try (ResultSet rs = dbMetaData.getPrimaryKeys(catalog, schema, table)) {
+            while (rs.next()) {
+                keyColumns.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        return new ArrayList<>(keyColumns.values());
+    }
+
+    private void loadIndexes(DatabaseMetaData dbMetaData, String catalog, String schema,
+                             String table, TableMetadata metadata) throws SQLException {
+        Map<String, Map<Short, String>> indexColumns = new TreeMap<>();
+        try (ResultSet rs = dbMetaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    // 表统计行或函数索引
+                    continue;
+                }
+                indexColumns.computeIfAbsent(indexName, k -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), columnName);
+                if (!rs.getBoolean("NON_UNIQUE") && !metadata.getUniqueIndexes().contains(indexName)) {
+                    metadata.getUniqueIndexes().add(indexName);
+                }
+            }
+        }
+        indexColumns.forEach((name, columns) -> metadata.getIndexes().put(name, new ArrayList<>(columns.values())));
+    }
+
+    /**
+     * 按数据库的标识符存储规则转换大小写（Oracle大写、PostgreSQL小写）
+     */
+    private static String normalizeIdentifier(DatabaseMetaData dbMetaData, String identifier) throws SQLException {
+        if (dbMetaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase();
+        }
+        if (dbMetaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase();
+        }
+        return identifier;
+    }
+}
@@ -1,19 +1,46 @@
 package com.minimax.comparator.service;
 
+import com.minimax.comparator.config.AdaptivePoolSizer;
 import com.minimax.comparator.config.ComparisonProperties;
 import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonPlan;
 import com.minimax.comparator.model.ComparisonResult;
 import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.TablePartition;
+import com.minimax.comparator.util.ExternalSorter;
+import com.minimax.comparator.util.HashPartitioner;
 import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import com.minimax.comparator.util.ValueComparator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -24,16 +51,54 @@ import java.util.stream.Collectors;
  * @since 2025-06-27
  */
 @Service
-public class OptimizedComparisonService {
+public class OptimizedComparisonService implements InitializingBean, DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(OptimizedComparisonService.class);
 
+    /**
+     * 哈希分区数上限，限制同时打开的分区文件数
+     */
+    private static final int MAX_HASH_PARTITIONS = 512;
+
     @Autowired
     private ComparisonProperties comparisonProperties;
 
     @Autowired
     private DynamicDataSourceConfig dataSourceConfig;
 
+    @Autowired
+    private AdaptiveBatchSizer adaptiveBatchSizer;
+
+    @Autowired
+    private ComparisonPlanner comparisonPlanner;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @Autowired
+    private AdaptivePoolSizer adaptivePoolSizer;
+
+    @Autowired
+    private RuleQueryPlanCache ruleQueryPlanCache;
+
+    @Autowired
+    private DataSourceGovernor dataSourceGovernor;
+
+    /**
+     * 主键范围并行比较线程池
+     */
+    private ExecutorService rangeExecutor;
+
+    @Override
+    public void afterPropertiesSet() {
+        rangeExecutor = Executors.newFixedThreadPool(Math.max(1, comparisonProperties.getThreadPoolSize()));
+    }
+
+    @Override
+    public void destroy() {
+        rangeExecutor.shutdownNow();
+    }
+
     /**
      * 大数据量优化比较
      * 
@@ -41,6 +106,53 @@ public class OptimizedComparisonService {
      * @return ComparisonResult
      */
     public ComparisonResult performOptimizedComparison(ComparisonProperties.ComparisonRule rule) {
+        return performOptimizedComparison(rule, ComparisonOptions.defaults());
+    }
+
+    /**
+     * 大数据量优化比较，按执行选项只统计数量或在达到差异阈值时提前结束
+     * 
+     * @param rule 比较规则
+     * @param options 执行选项
+     * @return ComparisonResult
+     */
+    public ComparisonResult performOptimizedComparison(ComparisonProperties.ComparisonRule rule,
+                                                       ComparisonOptions options) {
+        return performOptimizedComparison(rule, options, null);
+    }
+
+    /**
+     * 大数据量优化比较，每发现一条差异即交给监听器
+     * 
+     * @param rule 比较规则
+     * @param options 执行选项
+     * @param listener 差异监听器，为null时不回调
+     * @return ComparisonResult
+     */
+    public ComparisonResult performOptimizedComparison(ComparisonProperties.ComparisonRule rule,
+                                                       ComparisonOptions options,
+                                                       DifferenceListener listener) {
+        return performOptimizedComparison(rule, new Object[0], options, listener);
+    }
+
+    /**
+     * 大数据量优化比较，WHERE条件中的?占位符按参数绑定，不同参数的多次执行共用同一查询计划和SQL文本
+     * 
+     * @param rule 比较规则
+     * @param whereParameters WHERE条件的绑定参数，按占位符出现顺序
+     * @param options 执行选项
+     * @return ComparisonResult
+     */
+    public ComparisonResult performOptimizedComparison(ComparisonProperties.ComparisonRule rule,
+                                                       Object[] whereParameters,
+                                                       ComparisonOptions options) {
+        return performOptimizedComparison(rule, whereParameters, options, null);
+    }
+
+    private ComparisonResult performOptimizedComparison(ComparisonProperties.ComparisonRule rule,
+                                                        Object[] whereParameters,
+                                                        ComparisonOptions options,
+                                                        DifferenceListener listener) {
         ComparisonResult result = new ComparisonResult(rule.getName());
         result.setRuleDescription(rule.getDescription());
         
@@ -48,36 +160,36 @@ public class OptimizedComparisonService {
             logger.info("开始执行优化比较规则: {}", rule.getName());
             
             // 获取JdbcTemplate
-            JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getJdbcTemplate(rule.getSourceTable().getDataSource());
-            JdbcTemplate targetJdbcTemplate = dataSourceConfig.getJdbcTemplate(rule.getTargetTable().getDataSource());
+            JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(rule.getSourceTable().getDataSource());
+            JdbcTemplate targetJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(rule.getTargetTable().getDataSource());
             
             // 检查表和字段是否存在
-            validateTableAndFields(sourceJdbcTemplate, targetJdbcTemplate, rule);
+            validateTableAndFields(rule);
             
-            // 获取总记录数
-            long sourceTotalCount = getTotalCount(sourceJdbcTemplate, rule.getSourceTable(), rule.getWhereCondition());
-            long targetTotalCount = getTotalCount(targetJdbcTemplate, rule.getTargetTable(), rule.getWhereCondition());
+            // 根据目录统计信息选择比较策略
+            ComparisonPlan plan = comparisonPlanner.plan(rule, whereParameters);
+            result.setPlan(plan);
             
-            result.setTotalRecords(Math.max(sourceTotalCount, targetTotalCount));
+            // 获取规则编译后的参数化查询，绑定本次执行的WHERE条件参数
+            RuleQueryPlan queryPlan = ruleQueryPlanCache.getPlan(rule).bind(whereParameters);
             
-            // 选择比较策略
-            List<DifferenceDetail> differences;
-            if (sourceTotalCount <= comparisonProperties.getBatchSize() && 
-                targetTotalCount <= comparisonProperties.getBatchSize()) {
-                // 小数据量，直接比较
-                differences = performDirectComparison(sourceJdbcTemplate, targetJdbcTemplate, rule);
-            } else {
-                // 大数据量，分批比较
-                differences = performBatchComparison(sourceJdbcTemplate, targetJdbcTemplate, rule);
-            }
+            ScanCounter counter = new ScanCounter();
+            DifferenceCollector collector = new DifferenceCollector(options, listener);
+            executeStrategy(plan.getStrategy(), plan, queryPlan,
+                    sourceJdbcTemplate, targetJdbcTemplate, rule, counter, collector);
+            result.setTotalRecords(counter.getTotalRecords());
             
             // 设置结果
-            result.setDifferences(differences);
-            result.calculateStatistics();
-            result.setEndTime(LocalDateTime.now());
             result.setStatus(ComparisonResult.ExecutionStatus.SUCCESS);
+            collector.applyTo(result);
+            result.setEndTime(LocalDateTime.now());
             
-            logger.info("优化比较规则 {} 执行完成，发现 {} 个差异", rule.getName(), differences.size());
+            if (collector.isStopped()) {
+                logger.info("优化比较规则 {} 达到差异阈值提前结束，已发现 {} 个差异", 
+                        rule.getName(), collector.getDifferenceCount());
+            } else {
+                logger.info("优化比较规则 {} 执行完成，发现 {} 个差异", rule.getName(), collector.getDifferenceCount());
+            }
             
         } catch (Exception e) {
             logger.error("执行优化比较规则 {} 时发生错误", rule.getName(), e);
@@ -90,77 +202,108 @@ public class OptimizedComparisonService {
     }
 
     /**
-     * 验证表和字段是否存在
+     * 验证表和字段是否存在（基于元数据缓存，不在每次执行时查询数据库目录）
      */
-    private void validateTableAndFields(JdbcTemplate sourceJdbcTemplate, 
-                                      JdbcTemplate targetJdbcTemplate, 
-                                      ComparisonProperties.ComparisonRule rule) {
-        // 这里可以添加表和字段存在性验证逻辑
-        // 为了简化示例，暂时跳过
-        logger.debug("验证表和字段存在性: {}", rule.getName());
+    private void validateTableAndFields(ComparisonProperties.ComparisonRule rule) {
+        List<String> errors = metadataCache.validateRule(rule);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("规则 " + rule.getName() + " 校验失败: " + String.join("; ", errors));
+        }
     }
 
     /**
-     * 获取总记录数
+     * 按策略执行比较
      */
-    private long getTotalCount(JdbcTemplate jdbcTemplate, 
-                             ComparisonProperties.TableConfig tableConfig, 
-                             String whereCondition) {
-        String countSql = SqlBuilder.buildCountSql(tableConfig, whereCondition);
-        Long count = jdbcTemplate.queryForObject(countSql, Long.class);
-        return count != null ? count : 0L;
+    private void executeStrategy(ComparisonPlan.Strategy strategy,
+                                 ComparisonPlan plan,
+                                 RuleQueryPlan queryPlan,
+                                 JdbcTemplate sourceJdbcTemplate,
+                                 JdbcTemplate targetJdbcTemplate,
+                                 ComparisonProperties.ComparisonRule rule,
+                                 ScanCounter counter,
+                                 DifferenceCollector collector) {
+        switch (strategy) {
+            case DIRECT:
+                performDirectComparison(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan, counter, collector);
+                break;
+            case MERGE:
+                performMergeComparison(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan, counter, collector);
+                break;
+            case EXTERNAL_SORT:
+                performExternalSortComparison(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan, counter, collector);
+                break;
+            case PARTITION_PARALLEL:
+                performPartitionParallelComparison(rule, plan, queryPlan, counter, collector);
+                break;
+            case HASH_PARTITION:
+                performHashPartitionComparison(sourceJdbcTemplate, targetJdbcTemplate, rule, plan, queryPlan,
+                        counter, collector);
+                break;
+            case RANGE_PARALLEL:
+                performRangeParallelComparison(sourceJdbcTemplate, targetJdbcTemplate, rule, plan, queryPlan, 
+                        counter, collector);
+                break;
+            case CHECKSUM:
+                if (checksumMatches(sourceJdbcTemplate, targetJdbcTemplate, queryPlan, counter)) {
+                    logger.info("规则 {} 两端校验和一致，跳过逐行比较", rule.getName());
+                    break;
+                }
+                executeStrategy(plan.getFallbackStrategy(), plan, queryPlan, 
+                        sourceJdbcTemplate, targetJdbcTemplate, rule, counter, collector);
+                break;
+            case BATCH:
+            default:
+                performBatchComparison(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan, counter, collector);
+                break;
+        }
     }
 
     /**
      * 直接比较（小数据量）
      */
-    private List<DifferenceDetail> performDirectComparison(JdbcTemplate sourceJdbcTemplate,
-                                                         JdbcTemplate targetJdbcTemplate,
-                                                         ComparisonProperties.ComparisonRule rule) {
+    private void performDirectComparison(JdbcTemplate sourceJdbcTemplate,
+                                         JdbcTemplate targetJdbcTemplate,
+                                         ComparisonProperties.ComparisonRule rule,
+                                         RuleQueryPlan queryPlan,
+                                         ScanCounter counter,
+                                         DifferenceCollector collector) {
         logger.debug("执行直接比较策略");
         
-        // 构建查询SQL
-        String sourceQuery = buildQuery(rule.getSourceTable(), rule.getKeyField(), rule.getCompareField(), rule.getWhereCondition());
-        String targetQuery = buildQuery(rule.getTargetTable(), rule.getKeyField(), rule.getCompareField(), rule.getWhereCondition());
-        
         // 查询数据
-        Map<Object, Object> sourceData = queryData(sourceJdbcTemplate, sourceQuery);
-        Map<Object, Object> targetData = queryData(targetJdbcTemplate, targetQuery);
+        Map<Object, Object> sourceData = queryData(sourceJdbcTemplate, queryPlan, queryPlan.getSource(), 
+                queryPlan.getSource().getSelectSql(), queryPlan.getSource().getWhereParameters());
+        Map<Object, Object> targetData = queryData(targetJdbcTemplate, queryPlan, queryPlan.getTarget(), 
+                queryPlan.getTarget().getSelectSql(), queryPlan.getTarget().getWhereParameters());
+        counter.add(sourceData.size(), targetData.size());
         
         // 比较数据
-        return compareData(sourceData, targetData, rule.getCompareField());
+        compareData(sourceData, targetData, rule.getCompareField(), queryPlan.getValueComparator(), collector);
     }
 
     /**
      * 分批比较（大数据量）
      */
-    private List<DifferenceDetail> performBatchComparison(JdbcTemplate sourceJdbcTemplate,
-                                                        JdbcTemplate targetJdbcTemplate,
-                                                        ComparisonProperties.ComparisonRule rule) {
+    private void performBatchComparison(JdbcTemplate sourceJdbcTemplate,
+                                        JdbcTemplate targetJdbcTemplate,
+                                        ComparisonProperties.ComparisonRule rule,
+                                        RuleQueryPlan queryPlan,
+                                        ScanCounter counter,
+                                        DifferenceCollector collector) {
         logger.debug("执行分批比较策略");
         
-        List<DifferenceDetail> allDifferences = new ArrayList<>();
-        int batchSize = comparisonProperties.getBatchSize();
-        int offset = 0;
-        
-        // 获取数据库类型（简化处理，实际应该从配置中获取）
-        SqlBuilder.DatabaseType sourceDbType = SqlBuilder.DatabaseType.MYSQL;
-        SqlBuilder.DatabaseType targetDbType = SqlBuilder.DatabaseType.MYSQL;
+        RuleQueryPlan.TableQueries sourceQueries = queryPlan.getSource();
+        String sourceDataSource = sourceQueries.getDataSourceName();
+        Object lastKey = null;
+        int batchNumber = 0;
         
         while (true) {
-            // 分批查询源数据
-            String sourceQuery = SqlBuilder.buildPagedSelectSql(
-                    rule.getSourceTable(),
-                    rule.getKeyField() + ", " + rule.getCompareField(),
-                    rule.getWhereCondition(),
-                    rule.getKeyField(),
-                    offset,
-                    batchSize,
-                    sourceDbType
-            );
+            int batchSize = adaptiveBatchSizer.nextBatchSize(rule.getName(), sourceDataSource);
+            long batchStart = System.currentTimeMillis();
             
-            Map<Object, Object> sourceBatch = queryData(sourceJdbcTemplate, sourceQuery);
-            if (sourceBatch.isEmpty()) {
+            // 按键集分页查询源数据，从上一批最后一个主键之后读取
+            KeysetPage sourcePage = queryKeysetPage(sourceJdbcTemplate, queryPlan, sourceQueries, lastKey, batchSize);
+            Map<Object, Object> sourceBatch = sourcePage.rows;
+            if (sourcePage.rowCount == 0) {
                 break;
             }
             
@@ -168,59 +311,83 @@ public class OptimizedComparisonService {
             Set<Object> keySet = sourceBatch.keySet();
             
             // 查询目标数据中对应的记录
-            Map<Object, Object> targetBatch = queryDataByKeys(targetJdbcTemplate, rule.getTargetTable(), 
-                    rule.getKeyField(), rule.getCompareField(), keySet, rule.getWhereCondition());
+            Map<Object, Object> targetBatch = queryDataByKeys(targetJdbcTemplate, queryPlan, queryPlan.getTarget(), keySet);
             
             // 比较当前批次
-            List<DifferenceDetail> batchDifferences = compareData(sourceBatch, targetBatch, rule.getCompareField());
-            allDifferences.addAll(batchDifferences);
+            long differencesBefore = collector.getDifferenceCount();
+            DifferenceCollector batchCollector = collector.segment("BATCH",
+                    "#" + (++batchNumber) + (lastKey != null ? " 主键 > " + lastKey : ""));
+            compareData(sourceBatch, targetBatch, rule.getCompareField(), queryPlan.getValueComparator(), batchCollector);
+            counter.add(sourcePage.rowCount, 0);
             
-            logger.debug("完成批次比较，偏移量: {}, 差异数: {}", offset, batchDifferences.size());
+            // 反馈本批次观测值，调整下一批次大小
+            adaptiveBatchSizer.recordBatch(rule.getName(), sourceDataSource, sourcePage.rowCount,
+                    estimateBatchBytes(sourceBatch), System.currentTimeMillis() - batchStart);
             
-            offset += batchSize;
+            logger.debug("完成批次比较，起始主键: {}, 批次大小: {}, 差异数: {}", lastKey, batchSize, 
+                    collector.getDifferenceCount() - differencesBefore);
             
-            // 避免无限循环
-            if (sourceBatch.size() < batchSize) {
+            if (collector.isStopped()) {
+                return;
+            }
+            lastKey = sourcePage.lastKey;
+            if (sourcePage.isLastPage(batchSize)) {
                 break;
             }
         }
         
         // 处理仅在目标表中存在的记录
-        allDifferences.addAll(findTargetOnlyRecords(sourceJdbcTemplate, targetJdbcTemplate, rule));
-        
-        return allDifferences;
+        findTargetOnlyRecords(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan, counter, collector);
+    }
+
+    /**
+     * 按键集分页读取一页数据
+     */
+    private KeysetPage queryKeysetPage(JdbcTemplate jdbcTemplate, RuleQueryPlan queryPlan,
+                                      RuleQueryPlan.TableQueries queries, Object lastKey, int batchSize) {
+        KeysetPage page = new KeysetPage();
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        ValueComparator valueComparator = queryPlan.getValueComparator();
+        dataSourceGovernor.run(queries.getDataSourceName(), () ->
+                jdbcTemplate.query(queries.getKeysetPageSql(lastKey != null), queries.keysetPageParameters(lastKey, batchSize), rs -> {
+                    Object key = keyComparator.readKey(rs, 1);
+                    page.rows.put(key, valueComparator.read(rs, 2));
+                    page.lastKey = key;
+                    page.rowCount++;
+                }));
+        dataSourceGovernor.consumeRows(queries.getDataSourceName(), page.rowCount);
+        return page;
     }
 
     /**
      * 根据主键列表查询数据
      */
     private Map<Object, Object> queryDataByKeys(JdbcTemplate jdbcTemplate,
-                                              ComparisonProperties.TableConfig tableConfig,
-                                              String keyField,
-                                              String compareField,
-                                              Set<Object> keys,
-                                              String whereCondition) {
+                                              RuleQueryPlan queryPlan,
+                                              RuleQueryPlan.TableQueries queries,
+                                              Set<Object> keys) {
         if (keys.isEmpty()) {
             return new HashMap<>();
         }
         
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT ").append(keyField).append(", ").append(compareField);
-        sql.append(" FROM ").append(tableConfig.getFullTableName());
-        sql.append(" WHERE ").append(SqlBuilder.buildInCondition(keyField, keys.size()));
-        
-        if (whereCondition != null && !whereCondition.trim().isEmpty()) {
-            sql.append(" AND (").append(whereCondition).append(")");
-        }
-        
-        Map<Object, Object> dataMap = new ConcurrentHashMap<>();
+        // 比较字段允许为NULL，使用HashMap
+        Map<Object, Object> dataMap = new HashMap<>();
         List<Object> keyList = new ArrayList<>(keys);
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        ValueComparator valueComparator = queryPlan.getValueComparator();
         
-        jdbcTemplate.query(sql.toString(), keyList.toArray(), rs -> {
-            Object key = rs.getObject(1);
-            Object value = rs.getObject(2);
-            dataMap.put(key, value);
-        });
+        // 批次可能超过数据库IN参数上限，按块查询；块大小按分档补齐以复用SQL
+        int chunkSize = queries.getMaxLookupKeys();
+        for (int from = 0; from < keyList.size(); from += chunkSize) {
+            List<Object> chunk = keyList.subList(from, Math.min(from + chunkSize, keyList.size()));
+            int before = dataMap.size();
+            
+            dataSourceGovernor.run(queries.getDataSourceName(), () ->
+                    jdbcTemplate.query(queries.getKeyLookupSql(chunk.size()), queries.keyLookupParameters(chunk), rs -> {
+                        dataMap.put(keyComparator.readKey(rs, 1), valueComparator.read(rs, 2));
+                    }));
+            dataSourceGovernor.consumeRows(queries.getDataSourceName(), dataMap.size() - before);
+        }
         
         return dataMap;
     }
@@ -228,114 +395,923 @@ public class OptimizedComparisonService {
     /**
      * 查找仅在目标表中存在的记录
      */
-    private List<DifferenceDetail> findTargetOnlyRecords(JdbcTemplate sourceJdbcTemplate,
-                                                        JdbcTemplate targetJdbcTemplate,
-                                                        ComparisonProperties.ComparisonRule rule) {
-        List<DifferenceDetail> targetOnlyDifferences = new ArrayList<>();
-        
+    private void findTargetOnlyRecords(JdbcTemplate sourceJdbcTemplate,
+                                       JdbcTemplate targetJdbcTemplate,
+                                       ComparisonProperties.ComparisonRule rule,
+                                       RuleQueryPlan queryPlan,
+                                       ScanCounter counter,
+                                       DifferenceCollector collector) {
         // 获取所有源表的主键
-        String sourceKeysQuery = SqlBuilder.buildSelectSql(rule.getSourceTable(), rule.getKeyField(), rule.getWhereCondition());
         Set<Object> sourceKeys = new HashSet<>();
-        sourceJdbcTemplate.query(sourceKeysQuery, rs -> {
-            sourceKeys.add(rs.getObject(1));
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        String sourceDataSource = queryPlan.getSource().getDataSourceName();
+        DataSourceGovernor.RowMeter meter = dataSourceGovernor.meter(sourceDataSource);
+        dataSourceGovernor.executeStream(sourceDataSource, () -> {
+            sourceJdbcTemplate.query(queryPlan.getSource().getKeySelectSql(), rs -> {
+                sourceKeys.add(keyComparator.readKey(rs, 1));
+                meter.row();
+            }, queryPlan.getSource().getWhereParameters());
+            meter.flush();
+            return null;
         });
         
         // 分批处理目标表数据
-        int batchSize = comparisonProperties.getBatchSize();
-        int offset = 0;
-        SqlBuilder.DatabaseType targetDbType = SqlBuilder.DatabaseType.MYSQL;
+        RuleQueryPlan.TableQueries targetQueries = queryPlan.getTarget();
+        String targetDataSource = targetQueries.getDataSourceName();
+        Object lastKey = null;
         
         while (true) {
-            String targetQuery = SqlBuilder.buildPagedSelectSql(
-                    rule.getTargetTable(),
-                    rule.getKeyField() + ", " + rule.getCompareField(),
-                    rule.getWhereCondition(),
-                    rule.getKeyField(),
-                    offset,
-                    batchSize,
-                    targetDbType
-            );
+            int batchSize = adaptiveBatchSizer.nextBatchSize(rule.getName(), targetDataSource);
+            long batchStart = System.currentTimeMillis();
             
-            List<DifferenceDetail> batchTargetOnly = new ArrayList<>();
-            targetJdbcTemplate.query(targetQuery, rs -> {
-                Object key = rs.getObject(1);
-                Object value = rs.getObject(2);
-                
+            KeysetPage targetPage = queryKeysetPage(targetJdbcTemplate, queryPlan, targetQueries, lastKey, batchSize);
+            targetPage.rows.forEach((key, value) -> {
                 if (!sourceKeys.contains(key)) {
-                    batchTargetOnly.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.TARGET_ONLY, 
-                            null, value, rule.getCompareField()));
+                    // 源表已有的主键在分批比较中已计数
+                    collector.addScanned(1);
+                    collector.add(key, DifferenceDetail.DifferenceType.TARGET_ONLY, null, value, rule.getCompareField());
                 }
             });
             
-            targetOnlyDifferences.addAll(batchTargetOnly);
+            counter.add(0, targetPage.rowCount);
+            adaptiveBatchSizer.recordBatch(rule.getName(), targetDataSource, targetPage.rowCount,
+                    estimateBatchBytes(targetPage.rows), System.currentTimeMillis() - batchStart);
             
-            if (batchTargetOnly.size() < batchSize) {
+            lastKey = targetPage.lastKey;
+            if (targetPage.isLastPage(batchSize) || collector.isStopped()) {
                 break;
             }
-            
-            offset += batchSize;
         }
+    }
+
+    /**
+     * 有序归并比较：两端按主键排序流式读取，内存占用与数据量无关
+     */
+    private void performMergeComparison(JdbcTemplate sourceJdbcTemplate,
+                                        JdbcTemplate targetJdbcTemplate,
+                                        ComparisonProperties.ComparisonRule rule,
+                                        RuleQueryPlan queryPlan,
+                                        ScanCounter counter,
+                                        DifferenceCollector collector) {
+        logger.debug("执行有序归并比较策略");
         
-        return targetOnlyDifferences;
+        RuleQueryPlan.TableQueries sourceQueries = queryPlan.getSource();
+        RuleQueryPlan.TableQueries targetQueries = queryPlan.getTarget();
+        
+        MergeColumn column = new MergeColumn(2, rule.getCompareField(), queryPlan.getValueComparator(), collector);
+        streamQuery(sourceJdbcTemplate, sourceQueries, sourceQueries.getOrderedSelectSql(), sourceRs -> 
+                streamQuery(targetJdbcTemplate, targetQueries, targetQueries.getOrderedSelectSql(), targetRs -> {
+                    mergeOrdered(sourceRs, targetRs, queryPlan, queryPlan.getKeyComparator(),
+                            Collections.singletonList(column), counter);
+                    return null;
+                }));
     }
 
     /**
-     * 构建查询SQL
+     * 外部排序归并比较：两端不带ORDER BY流式读取，在本机按主键分段排序并写入临时文件，
+     * 再多路归并为有序序列后归并比较。排序开销从数据库转移到比较器所在主机，内存占用不超过一段的行数
      */
-    private String buildQuery(ComparisonProperties.TableConfig tableConfig, String keyField, String compareField, String whereCondition) {
-        return SqlBuilder.buildSelectSql(tableConfig, keyField + ", " + compareField, whereCondition);
+    private void performExternalSortComparison(JdbcTemplate sourceJdbcTemplate,
+                                               JdbcTemplate targetJdbcTemplate,
+                                               ComparisonProperties.ComparisonRule rule,
+                                               RuleQueryPlan queryPlan,
+                                               ScanCounter counter,
+                                               DifferenceCollector collector) {
+        logger.debug("执行外部排序归并比较策略");
+        
+        ComparisonProperties.PlannerConfig config = comparisonProperties.getPlanner();
+        Path directory = null;
+        try {
+            directory = createSpillDirectory("comparator-sort-");
+            try (ExternalSorter source = new ExternalSorter(directory, config.getExternalSortRunRows(),
+                         OptimizedComparisonService::compareKeys);
+                 ExternalSorter target = new ExternalSorter(directory, config.getExternalSortRunRows(),
+                         OptimizedComparisonService::compareKeys)) {
+                spillUnordered(sourceJdbcTemplate, queryPlan, queryPlan.getSource(), source::add);
+                spillUnordered(targetJdbcTemplate, queryPlan, queryPlan.getTarget(), target::add);
+                logger.debug("规则 {} 外部排序完成，源表 {} 行 {} 段，目标表 {} 行 {} 段", rule.getName(),
+                        source.getRowCount(), source.getRunCount(), target.getRowCount(), target.getRunCount());
+                counter.add(source.getRowCount(), target.getRowCount());
+                mergeSorted(source.finish(), target.finish(), rule.getCompareField(), queryPlan.getValueComparator(),
+                        collector);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("外部排序失败: " + e.getMessage(), e);
+        } finally {
+            deleteSpillDirectory(directory);
+        }
     }
 
     /**
-     * 查询数据
+     * 哈希分区比较：两端不带ORDER BY流式读取，按主键哈希写入本机临时分区文件，
+     * 之后每个分区对单独读入内存比较，各分区在线程池中并行执行。内存占用取决于分区大小和并行度，与表大小无关
      */
-    private Map<Object, Object> queryData(JdbcTemplate jdbcTemplate, String query) {
-        Map<Object, Object> dataMap = new ConcurrentHashMap<>();
+    private void performHashPartitionComparison(JdbcTemplate sourceJdbcTemplate,
+                                                JdbcTemplate targetJdbcTemplate,
+                                                ComparisonProperties.ComparisonRule rule,
+                                                ComparisonPlan plan,
+                                                RuleQueryPlan queryPlan,
+                                                ScanCounter counter,
+                                                DifferenceCollector collector) {
+        logger.debug("执行哈希分区比较策略");
         
-        jdbcTemplate.query(query, rs -> {
-            Object key = rs.getObject(1);
-            Object value = rs.getObject(2);
-            dataMap.put(key, value);
+        long partitionRows = Math.max(1, comparisonProperties.getPlanner().getHashPartitionRows());
+        int partitions = (int) Math.max(1, Math.min(MAX_HASH_PARTITIONS,
+                (plan.getEstimatedRows() + partitionRows - 1) / partitionRows));
+        Path directory = null;
+        try {
+            directory = createSpillDirectory("comparator-hash-");
+            try (HashPartitioner source = new HashPartitioner(directory, "source", partitions);
+                 HashPartitioner target = new HashPartitioner(directory, "target", partitions)) {
+                spillUnordered(sourceJdbcTemplate, queryPlan, queryPlan.getSource(), source::add);
+                source.finish();
+                spillUnordered(targetJdbcTemplate, queryPlan, queryPlan.getTarget(), target::add);
+                target.finish();
+                logger.debug("规则 {} 哈希分区完成，{} 个分区，源表 {} 行，目标表 {} 行", rule.getName(),
+                        partitions, source.getRowCount(), target.getRowCount());
+                counter.add(source.getRowCount(), target.getRowCount());
+                
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (int i = 0; i < partitions; i++) {
+                    if (source.getRowCount(i) == 0 && target.getRowCount(i) == 0) {
+                        continue;
+                    }
+                    int partition = i;
+                    DifferenceCollector partitionCollector = collector.segment("PARTITION", "#" + partition);
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        // 已达到差异阈值时，尚未开始的分区不再读取
+                        if (collector.isStopped()) {
+                            return;
+                        }
+                        try {
+                            compareData(source.load(partition), target.load(partition), rule.getCompareField(),
+                                    queryPlan.getValueComparator(), partitionCollector);
+                            source.delete(partition);
+                            target.delete(partition);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, rangeExecutor));
+                }
+                awaitAll(futures);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("哈希分区失败: " + e.getMessage(), e);
+        } finally {
+            deleteSpillDirectory(directory);
+        }
+    }
+
+    /**
+     * 等待所有并行任务结束后再抛出第一个失败，避免调用方在其他任务仍在读取分区文件或占用连接时清理资源
+     */
+    private static void awaitAll(List<CompletableFuture<Void>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * 在配置的目录（为空时为系统临时目录）下为一次比较创建独立的临时文件目录
+     */
+    private Path createSpillDirectory(String prefix) throws IOException {
+        String configuredDirectory = comparisonProperties.getPlanner().getExternalSortDirectory();
+        Path baseDirectory = configuredDirectory != null && !configuredDirectory.trim().isEmpty()
+                ? Files.createDirectories(Paths.get(configuredDirectory.trim()))
+                : Paths.get(System.getProperty("java.io.tmpdir"));
+        return Files.createTempDirectory(baseDirectory, prefix);
+    }
+
+    private void deleteSpillDirectory(Path directory) {
+        if (directory != null) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                logger.warn("删除临时目录 {} 失败: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 不排序流式读取一端数据，逐行交给落盘目标
+     */
+    private void spillUnordered(JdbcTemplate jdbcTemplate, RuleQueryPlan queryPlan,
+                                RuleQueryPlan.TableQueries queries, RowSink sink) {
+        spillUnordered(jdbcTemplate, queryPlan, queries, queries.getSelectSql(), sink);
+    }
+
+    private void spillUnordered(JdbcTemplate jdbcTemplate, RuleQueryPlan queryPlan,
+                                RuleQueryPlan.TableQueries queries, String sql, RowSink sink) {
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        ValueComparator valueComparator = queryPlan.getValueComparator();
+        DataSourceGovernor.RowMeter meter = dataSourceGovernor.meter(queries.getDataSourceName());
+        streamQuery(jdbcTemplate, queries, sql, rs -> {
+            try {
+                while (rs.next()) {
+                    sink.add(keyComparator.readKey(rs, 1), valueComparator.read(rs, 2));
+                    meter.row();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
         });
+        meter.flush();
+    }
+
+    /**
+     * 归并两个按主键升序排列的外部排序结果
+     */
+    private void mergeSorted(ExternalSorter.SortedRows source, ExternalSorter.SortedRows target, String compareField,
+                             ValueComparator comparator, DifferenceCollector collector) throws IOException {
+        boolean hasSource = source.next();
+        boolean hasTarget = target.next();
+        while ((hasSource || hasTarget) && !collector.isStopped()) {
+            int order = !hasSource ? 1 : !hasTarget ? -1 : compareKeys(source.key(), target.key());
+            collector.addScanned(1);
+            if (order < 0) {
+                collector.add(source.key(), DifferenceDetail.DifferenceType.SOURCE_ONLY, source.value(), null, compareField);
+                hasSource = source.next();
+            } else if (order > 0) {
+                collector.add(target.key(), DifferenceDetail.DifferenceType.TARGET_ONLY, null, target.value(), compareField);
+                hasTarget = target.next();
+            } else {
+                if (!comparator.matches(source.value(), target.value())) {
+                    collector.add(source.key(), DifferenceDetail.DifferenceType.VALUE_DIFFERENT,
+                            source.value(), target.value(), compareField);
+                }
+                hasSource = source.next();
+                hasTarget = target.next();
+            }
+        }
+    }
+
+    /**
+     * 共享扫描比较：表对、主键和过滤条件相同的多个规则只扫描一次两端数据，
+     * 查询各规则比较字段的并集，每行按规则分发到各自的差异收集器。
+     * 两端主键都有索引且为数值类型时按主键有序归并，否则不排序读取后按主键哈希连接，数据量大时按主键哈希分区落盘逐个分区连接。
+     * 字段按通用方式读取和比较，与单个规则单独比较的结果一致，不因同组是否有其他规则而变化
+     *
+     * @param rules 表对、主键和过滤条件相同的规则
+     * @param options 执行选项，每个规则分别按该选项统计差异和提前结束
+     * @return 比较结果，顺序与rules一致
+     */
+    public List<ComparisonResult> performSharedComparison(List<ComparisonProperties.ComparisonRule> rules,
+                                                          ComparisonOptions options) {
+        List<ComparisonResult> results = new ArrayList<>();
+        List<ComparisonProperties.ComparisonRule> scanRules = new ArrayList<>();
+        List<ComparisonResult> scanResults = new ArrayList<>();
         
-        return dataMap;
+        for (ComparisonProperties.ComparisonRule rule : rules) {
+            ComparisonResult result = new ComparisonResult(rule.getName());
+            result.setRuleDescription(rule.getDescription());
+            results.add(result);
+            try {
+                validateTableAndFields(rule);
+                scanRules.add(rule);
+                scanResults.add(result);
+            } catch (Exception e) {
+                logger.error("执行优化比较规则 {} 时发生错误", rule.getName(), e);
+                markFailed(result, e);
+            }
+        }
+        if (scanRules.isEmpty()) {
+            return results;
+        }
+        
+        try {
+            logger.info("开始共享扫描比较，规则: {}", 
+                    scanRules.stream().map(ComparisonProperties.ComparisonRule::getName).collect(Collectors.toList()));
+            
+            ComparisonProperties.ComparisonRule first = scanRules.get(0);
+            RuleQueryPlan firstPlan = ruleQueryPlanCache.getPlan(first);
+            ComparisonPlan tablePlan = comparisonPlanner.plan(first);
+            boolean ordered = ComparisonPlanner.hasOrderedKeys(tablePlan.getSourceStatistics(),
+                    tablePlan.getTargetStatistics());
+            
+            // 比较字段并集，各规则按列序号读取自己的比较字段
+            List<String> selectFields = new ArrayList<>();
+            selectFields.add(first.getKeyField());
+            Map<String, Integer> columnIndexes = new HashMap<>();
+            List<MergeColumn> columns = new ArrayList<>();
+            for (ComparisonProperties.ComparisonRule rule : scanRules) {
+                String compareField = rule.getCompareField();
+                Integer index = columnIndexes.get(compareField.toLowerCase());
+                if (index == null) {
+                    selectFields.add(compareField);
+                    index = selectFields.size();
+                    columnIndexes.put(compareField.toLowerCase(), index);
+                }
+                columns.add(new MergeColumn(index, compareField, ValueComparator.GENERIC,
+                        new DifferenceCollector(options)));
+            }
+            
+            JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(first.getSourceTable().getDataSource());
+            JdbcTemplate targetJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(first.getTargetTable().getDataSource());
+            ScanCounter counter = new ScanCounter();
+            String fields = String.join(", ", selectFields);
+            ComparisonPlan plan;
+            if (ordered) {
+                String sourceSql = SqlBuilder.buildOrderedSelectSql(first.getSourceTable(), fields,
+                        first.getWhereCondition(), first.getKeyField());
+                String targetSql = SqlBuilder.buildOrderedSelectSql(first.getTargetTable(), fields,
+                        first.getWhereCondition(), first.getKeyField());
+                streamQuery(sourceJdbcTemplate, firstPlan.getSource(), sourceSql, sourceRs ->
+                        streamQuery(targetJdbcTemplate, firstPlan.getTarget(), targetSql, targetRs -> {
+                            mergeOrdered(sourceRs, targetRs, firstPlan, ValueComparator.GENERIC, columns, counter);
+                            return null;
+                        }));
+                plan = new ComparisonPlan(ComparisonPlan.Strategy.MERGE,
+                        "与 " + scanRules.size() + " 个规则共享一次有序归并扫描");
+            } else {
+                int partitions = performSharedHashJoin(sourceJdbcTemplate, targetJdbcTemplate, first, firstPlan,
+                        tablePlan, fields, selectFields.size() - 1, columns, counter);
+                plan = new ComparisonPlan(partitions > 1 ? ComparisonPlan.Strategy.HASH_PARTITION
+                        : ComparisonPlan.Strategy.DIRECT, "与 " + scanRules.size() + " 个规则共享一次无序扫描，"
+                        + (partitions > 1 ? "按主键哈希分为 " + partitions + " 个分区逐个连接" : "在内存中按主键连接"));
+            }
+            plan.setSourceStatistics(tablePlan.getSourceStatistics());
+            plan.setTargetStatistics(tablePlan.getTargetStatistics());
+            
+            for (int i = 0; i < scanRules.size(); i++) {
+                ComparisonResult result = scanResults.get(i);
+                result.setPlan(plan);
+                result.setTotalRecords(counter.getTotalRecords());
+                result.setStatus(ComparisonResult.ExecutionStatus.SUCCESS);
+                columns.get(i).collector.applyTo(result);
+                result.setEndTime(LocalDateTime.now());
+                logger.info("优化比较规则 {} 执行完成，发现 {} 个差异", scanRules.get(i).getName(), 
+                        columns.get(i).collector.getDifferenceCount());
+            }
+        } catch (Exception e) {
+            logger.error("共享扫描比较时发生错误", e);
+            scanResults.forEach(result -> markFailed(result, e));
+        }
+        
+        return results;
     }
 
     /**
-     * 比较数据
+     * 共享扫描的无序连接：两端不带ORDER BY流式读取主键和各比较字段，预估行数不超过一个哈希分区时直接在内存中连接，
+     * 否则按主键哈希分区落盘后逐个分区连接
+     *
+     * @return 分区数，1表示在内存中连接
      */
-    private List<DifferenceDetail> compareData(Map<Object, Object> sourceData, 
-                                             Map<Object, Object> targetData, 
-                                             String compareField) {
-        List<DifferenceDetail> differences = new ArrayList<>();
+    private int performSharedHashJoin(JdbcTemplate sourceJdbcTemplate,
+                                      JdbcTemplate targetJdbcTemplate,
+                                      ComparisonProperties.ComparisonRule rule,
+                                      RuleQueryPlan queryPlan,
+                                      ComparisonPlan tablePlan,
+                                      String fields,
+                                      int valueCount,
+                                      List<MergeColumn> columns,
+                                      ScanCounter counter) throws IOException {
+        String sourceSql = SqlBuilder.buildSelectSql(rule.getSourceTable(), fields, rule.getWhereCondition());
+        String targetSql = SqlBuilder.buildSelectSql(rule.getTargetTable(), fields, rule.getWhereCondition());
+        long partitionRows = Math.max(1, comparisonProperties.getPlanner().getHashPartitionRows());
+        int partitions = (int) Math.max(1, Math.min(MAX_HASH_PARTITIONS,
+                (tablePlan.getEstimatedRows() + partitionRows - 1) / partitionRows));
+        
+        if (partitions == 1) {
+            Map<Object, Object> sourceRows = new HashMap<>();
+            Map<Object, Object> targetRows = new HashMap<>();
+            spillSharedRows(sourceJdbcTemplate, queryPlan.getSource(), sourceSql, valueCount, sourceRows::put);
+            spillSharedRows(targetJdbcTemplate, queryPlan.getTarget(), targetSql, valueCount, targetRows::put);
+            counter.add(sourceRows.size(), targetRows.size());
+            joinSharedRows(sourceRows, targetRows, columns);
+            return 1;
+        }
         
+        Path directory = null;
+        try {
+            directory = createSpillDirectory("comparator-shared-");
+            try (HashPartitioner source = new HashPartitioner(directory, "source", partitions);
+                 HashPartitioner target = new HashPartitioner(directory, "target", partitions)) {
+                spillSharedRows(sourceJdbcTemplate, queryPlan.getSource(), sourceSql, valueCount, source::add);
+                source.finish();
+                spillSharedRows(targetJdbcTemplate, queryPlan.getTarget(), targetSql, valueCount, target::add);
+                target.finish();
+                counter.add(source.getRowCount(), target.getRowCount());
+                // 各分区依次连接，内存中只保留一个分区
+                for (int i = 0; i < partitions && !allStopped(columns); i++) {
+                    joinSharedRows(source.load(i), target.load(i), columns);
+                    source.delete(i);
+                    target.delete(i);
+                }
+            }
+        } finally {
+            deleteSpillDirectory(directory);
+        }
+        return partitions;
+    }
+
+    /**
+     * 不排序流式读取一端的主键和各比较字段，每行的比较字段按列顺序组成数组
+     */
+    private void spillSharedRows(JdbcTemplate jdbcTemplate, RuleQueryPlan.TableQueries queries, String sql,
+                                 int valueCount, RowSink sink) {
+        DataSourceGovernor.RowMeter meter = dataSourceGovernor.meter(queries.getDataSourceName());
+        streamQuery(jdbcTemplate, queries, sql, rs -> {
+            try {
+                while (rs.next()) {
+                    Object[] values = new Object[valueCount];
+                    for (int i = 0; i < valueCount; i++) {
+                        values[i] = ValueComparator.GENERIC.read(rs, i + 2);
+                    }
+                    sink.add(ValueComparator.GENERIC.readKey(rs, 1), values);
+                    meter.row();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        });
+        meter.flush();
+    }
+
+    /**
+     * 按主键连接两端的行，每行依次交给各比较列；所有比较列都达到差异阈值时结束
+     */
+    private static void joinSharedRows(Map<Object, Object> sourceRows, Map<Object, Object> targetRows,
+                                       List<MergeColumn> columns) {
+        Set<Object> allKeys = new HashSet<>(sourceRows.keySet());
+        allKeys.addAll(targetRows.keySet());
+        for (Object key : allKeys) {
+            if (allStopped(columns)) {
+                return;
+            }
+            Object[] sourceValues = (Object[]) sourceRows.get(key);
+            Object[] targetValues = (Object[]) targetRows.get(key);
+            for (MergeColumn column : columns) {
+                column.collector.addScanned(1);
+                int index = column.index - 2;
+                if (sourceValues == null) {
+                    column.collector.add(key, DifferenceDetail.DifferenceType.TARGET_ONLY,
+                            null, targetValues[index], column.compareField);
+                } else if (targetValues == null) {
+                    column.collector.add(key, DifferenceDetail.DifferenceType.SOURCE_ONLY,
+                            sourceValues[index], null, column.compareField);
+                } else if (!column.comparator.matches(sourceValues[index], targetValues[index])) {
+                    column.collector.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT,
+                            sourceValues[index], targetValues[index], column.compareField);
+                }
+            }
+        }
+    }
+
+    private static void markFailed(ComparisonResult result, Exception e) {
+        result.setStatus(ComparisonResult.ExecutionStatus.FAILED);
+        result.setErrorMessage(e.getMessage());
+        result.setEndTime(LocalDateTime.now());
+    }
+
+    /**
+     * 归并两个按主键升序排列的结果集，每行依次交给各比较列；所有比较列都达到差异阈值时结束
+     */
+    private void mergeOrdered(ResultSet sourceRs, ResultSet targetRs, RuleQueryPlan queryPlan,
+                              ValueComparator keyComparator, List<MergeColumn> columns,
+                              ScanCounter counter) throws SQLException {
+        DataSourceGovernor.RowMeter sourceMeter = dataSourceGovernor.meter(queryPlan.getSource().getDataSourceName());
+        DataSourceGovernor.RowMeter targetMeter = dataSourceGovernor.meter(queryPlan.getTarget().getDataSourceName());
+        boolean hasSource = sourceRs.next();
+        boolean hasTarget = targetRs.next();
+        long sourceRows = 0;
+        long targetRows = 0;
+        
+        while ((hasSource || hasTarget) && !allStopped(columns)) {
+            Object sourceKey = hasSource ? keyComparator.readKey(sourceRs, 1) : null;
+            Object targetKey = hasTarget ? keyComparator.readKey(targetRs, 1) : null;
+            int order = !hasSource ? 1 : !hasTarget ? -1 : compareKeys(sourceKey, targetKey);
+            
+            for (MergeColumn column : columns) {
+                column.collector.addScanned(1);
+            }
+            if (order < 0) {
+                for (MergeColumn column : columns) {
+                    column.collector.add(sourceKey, DifferenceDetail.DifferenceType.SOURCE_ONLY, 
+                            column.comparator.read(sourceRs, column.index), null, column.compareField);
+                }
+                sourceRows++;
+                sourceMeter.row();
+                hasSource = sourceRs.next();
+            } else if (order > 0) {
+                for (MergeColumn column : columns) {
+                    column.collector.add(targetKey, DifferenceDetail.DifferenceType.TARGET_ONLY, 
+                            null, column.comparator.read(targetRs, column.index), column.compareField);
+                }
+                targetRows++;
+                targetMeter.row();
+                hasTarget = targetRs.next();
+            } else {
+                for (MergeColumn column : columns) {
+                    Object sourceValue = column.comparator.read(sourceRs, column.index);
+                    Object targetValue = column.comparator.read(targetRs, column.index);
+                    if (!column.comparator.matches(sourceValue, targetValue)) {
+                        column.collector.add(sourceKey, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, 
+                                sourceValue, targetValue, column.compareField);
+                    }
+                }
+                sourceRows++;
+                targetRows++;
+                sourceMeter.row();
+                targetMeter.row();
+                hasSource = sourceRs.next();
+                hasTarget = targetRs.next();
+            }
+        }
+        
+        sourceMeter.flush();
+        targetMeter.flush();
+        counter.add(sourceRows, targetRows);
+    }
+
+    private static boolean allStopped(List<MergeColumn> columns) {
+        for (MergeColumn column : columns) {
+            if (!column.collector.isStopped()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 主键范围并行比较：按主键上下界切分范围，每个范围独立直接比较
+     */
+    private void performRangeParallelComparison(JdbcTemplate sourceJdbcTemplate,
+                                                JdbcTemplate targetJdbcTemplate,
+                                                ComparisonProperties.ComparisonRule rule,
+                                                ComparisonPlan plan,
+                                                RuleQueryPlan queryPlan,
+                                                ScanCounter counter,
+                                                DifferenceCollector collector) {
+        logger.debug("执行主键范围并行比较策略");
+        
+        long[] sourceBounds = queryKeyBounds(sourceJdbcTemplate, queryPlan.getSource());
+        long[] targetBounds = queryKeyBounds(targetJdbcTemplate, queryPlan.getTarget());
+        if (sourceBounds == null && targetBounds == null) {
+            return;
+        }
+        long lower = Math.min(sourceBounds != null ? sourceBounds[0] : Long.MAX_VALUE, 
+                targetBounds != null ? targetBounds[0] : Long.MAX_VALUE);
+        long upper = Math.max(sourceBounds != null ? sourceBounds[1] : Long.MIN_VALUE, 
+                targetBounds != null ? targetBounds[1] : Long.MIN_VALUE);
+        
+        long rangeRows = comparisonProperties.getPlanner().getRangeRows();
+        long rangeCount = Math.max(plan.getParallelism(), (plan.getEstimatedRows() + rangeRows - 1) / rangeRows);
+        long step = Math.max(1, (upper - lower) / rangeCount + 1);
+        
+        String sourceQuery = queryPlan.getSource().getRangeSelectSql();
+        String targetQuery = queryPlan.getTarget().getRangeSelectSql();
+        
+        // 每个范围任务同时占用两端各一个连接，执行期间向连接池登记并行需求；配置了副本时按读取端点分摊
+        int connections = Math.min(plan.getParallelism(), Math.max(1, comparisonProperties.getThreadPoolSize()));
+        String sourceDataSource = queryPlan.getSource().getDataSourceName();
+        String targetDataSource = queryPlan.getTarget().getDataSourceName();
+        Map<String, Integer> reservations = new HashMap<>();
+        reserveReadEndpoints(sourceDataSource, connections, reservations);
+        reserveReadEndpoints(targetDataSource, connections, reservations);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            // 半开区间[start, end)，最后一个范围的上界为upper + 1，小数主键也不会遗漏
+            for (long start = lower; ; start += step) {
+                long end = upper - start < step ? upper + 1 : start + step;
+                Object[] range = {start, end};
+                long rangeIndex = futures.size();
+                DifferenceCollector rangeCollector = collector.segment("RANGE", "[" + start + ", " + end + ")");
+                futures.add(CompletableFuture.runAsync(() -> {
+                    // 已达到差异阈值时，尚未开始的范围不再查询
+                    if (collector.isStopped()) {
+                        return;
+                    }
+                    Map<Object, Object> sourceData = queryData(
+                            dataSourceConfig.getReadJdbcTemplate(sourceDataSource, rangeIndex), queryPlan, 
+                            queryPlan.getSource(), sourceQuery, queryPlan.getSource().rangeParameters(range));
+                    Map<Object, Object> targetData = queryData(
+                            dataSourceConfig.getReadJdbcTemplate(targetDataSource, rangeIndex), queryPlan, 
+                            queryPlan.getTarget(), targetQuery, queryPlan.getTarget().rangeParameters(range));
+                    counter.add(sourceData.size(), targetData.size());
+                    compareData(sourceData, targetData, rule.getCompareField(), queryPlan.getValueComparator(), rangeCollector);
+                }, rangeExecutor));
+                if (end == upper + 1) {
+                    break;
+                }
+            }
+            logger.debug("规则 {} 切分为 {} 个主键范围，并行度 {}", rule.getName(), futures.size(), plan.getParallelism());
+            
+            awaitAll(futures);
+        } finally {
+            reservations.forEach(adaptivePoolSizer::release);
+        }
+    }
+
+    /**
+     * 原生分区并行比较：两端分区按顺序一一对应，每个分区对独立比较，每条查询只读取一个分区；
+     * 启用校验和且两端为同类型数据库时先比较分区校验和，一致则跳过该分区
+     */
+    private void performPartitionParallelComparison(ComparisonProperties.ComparisonRule rule,
+                                                    ComparisonPlan plan,
+                                                    RuleQueryPlan queryPlan,
+                                                    ScanCounter counter,
+                                                    DifferenceCollector collector) {
+        logger.debug("执行原生分区并行比较策略");
+        
+        List<TablePartition> sourcePartitions = plan.getSourceStatistics().getPartitions();
+        List<TablePartition> targetPartitions = plan.getTargetStatistics().getPartitions();
+        RuleQueryPlan.TableQueries sourceQueries = queryPlan.getSource();
+        RuleQueryPlan.TableQueries targetQueries = queryPlan.getTarget();
+        boolean ordered = plan.getFallbackStrategy() == ComparisonPlan.Strategy.MERGE;
+        boolean checksum = comparisonProperties.getPlanner().isChecksumEnabled()
+                && sourceQueries.getDialect().getDatabaseType() == targetQueries.getDialect().getDatabaseType();
+        
+        int connections = Math.min(plan.getParallelism(), Math.max(1, comparisonProperties.getThreadPoolSize()));
+        String sourceDataSource = sourceQueries.getDataSourceName();
+        String targetDataSource = targetQueries.getDataSourceName();
+        Map<String, Integer> reservations = new HashMap<>();
+        reserveReadEndpoints(sourceDataSource, connections, reservations);
+        reserveReadEndpoints(targetDataSource, connections, reservations);
+        try {
+            AtomicInteger skipped = new AtomicInteger();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < plan.getPartitions().size(); i++) {
+                TablePartition sourcePartition = sourcePartitions.get(i);
+                TablePartition targetPartition = targetPartitions.get(i);
+                String sourceTable = sourcePartition.getTableReference();
+                String targetTable = targetPartition.getTableReference();
+                long partitionIndex = i;
+                DifferenceCollector partitionCollector = collector.segment("PARTITION", plan.getPartitions().get(i));
+                futures.add(CompletableFuture.runAsync(() -> {
+                    // 已达到差异阈值时，尚未开始的分区不再查询
+                    if (collector.isStopped()) {
+                        return;
+                    }
+                    JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(sourceDataSource, partitionIndex);
+                    JdbcTemplate targetJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(targetDataSource, partitionIndex);
+                    String sourceChecksumSql = checksum ? sourceQueries.getPartitionChecksumSql(sourceTable) : null;
+                    if (sourceChecksumSql != null) {
+                        Object[] sourceChecksum = queryChecksum(sourceJdbcTemplate, sourceQueries, sourceChecksumSql);
+                        Object[] targetChecksum = queryChecksum(targetJdbcTemplate, targetQueries,
+                                targetQueries.getPartitionChecksumSql(targetTable));
+                        if (Arrays.equals(sourceChecksum, targetChecksum)) {
+                            long rows = ((Number) sourceChecksum[0]).longValue();
+                            counter.add(rows, rows);
+                            skipped.incrementAndGet();
+                            return;
+                        }
+                    }
+                    if (ordered) {
+                        MergeColumn column = new MergeColumn(2, rule.getCompareField(), queryPlan.getValueComparator(),
+                                partitionCollector);
+                        streamQuery(sourceJdbcTemplate, sourceQueries, sourceQueries.getPartitionSelectSql(sourceTable, true),
+                                sourceRs -> streamQuery(targetJdbcTemplate, targetQueries,
+                                        targetQueries.getPartitionSelectSql(targetTable, true), targetRs -> {
+                                            mergeOrdered(sourceRs, targetRs, queryPlan, queryPlan.getKeyComparator(),
+                                                    Collections.singletonList(column), counter);
+                                            return null;
+                                        }));
+                    } else if (ComparisonPlanner.fitsInMemory(sourcePartition, targetPartition,
+                            comparisonProperties.getBatchSize())) {
+                        Map<Object, Object> sourceData = queryData(sourceJdbcTemplate, queryPlan, sourceQueries,
+                                sourceQueries.getPartitionSelectSql(sourceTable, false), sourceQueries.getWhereParameters());
+                        Map<Object, Object> targetData = queryData(targetJdbcTemplate, queryPlan, targetQueries,
+                                targetQueries.getPartitionSelectSql(targetTable, false), targetQueries.getWhereParameters());
+                        counter.add(sourceData.size(), targetData.size());
+                        compareData(sourceData, targetData, rule.getCompareField(), queryPlan.getValueComparator(),
+                                partitionCollector);
+                    } else {
+                        // 未收集统计信息的分区按整表行数平均估算
+                        long partitionRows = Math.max(sourcePartition.getEstimatedRows(), targetPartition.getEstimatedRows());
+                        comparePartitionByHash(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan,
+                                sourceQueries.getPartitionSelectSql(sourceTable, false),
+                                targetQueries.getPartitionSelectSql(targetTable, false),
+                                partitionRows > 0 ? partitionRows : plan.getEstimatedRows() / plan.getPartitions().size(),
+                                counter, partitionCollector);
+                    }
+                }, rangeExecutor));
+            }
+            awaitAll(futures);
+            logger.debug("规则 {} 按 {} 个分区比较，并行度 {}，校验和一致跳过 {} 个分区", rule.getName(),
+                    futures.size(), plan.getParallelism(), skipped.get());
+        } finally {
+            reservations.forEach(adaptivePoolSizer::release);
+        }
+    }
+
+    /**
+     * 单个分区对超过批处理大小时不整体读入内存：两端分区无序读取后按主键哈希写入本机临时文件，
+     * 每个子分区不超过批处理大小，在当前分区的任务中逐个读入内存比较
+     */
+    private void comparePartitionByHash(JdbcTemplate sourceJdbcTemplate,
+                                        JdbcTemplate targetJdbcTemplate,
+                                        ComparisonProperties.ComparisonRule rule,
+                                        RuleQueryPlan queryPlan,
+                                        String sourceSql,
+                                        String targetSql,
+                                        long estimatedRows,
+                                        ScanCounter counter,
+                                        DifferenceCollector collector) {
+        long batchSize = Math.max(1, comparisonProperties.getBatchSize());
+        int partitions = (int) Math.max(1, Math.min(MAX_HASH_PARTITIONS, (estimatedRows + batchSize - 1) / batchSize));
+        Path directory = null;
+        try {
+            directory = createSpillDirectory("comparator-partition-");
+            try (HashPartitioner source = new HashPartitioner(directory, "source", partitions);
+                 HashPartitioner target = new HashPartitioner(directory, "target", partitions)) {
+                spillUnordered(sourceJdbcTemplate, queryPlan, queryPlan.getSource(), sourceSql, source::add);
+                source.finish();
+                spillUnordered(targetJdbcTemplate, queryPlan, queryPlan.getTarget(), targetSql, target::add);
+                target.finish();
+                counter.add(source.getRowCount(), target.getRowCount());
+                for (int i = 0; i < partitions && !collector.isStopped(); i++) {
+                    if (source.getRowCount(i) == 0 && target.getRowCount(i) == 0) {
+                        continue;
+                    }
+                    compareData(source.load(i), target.load(i), rule.getCompareField(),
+                            queryPlan.getValueComparator(), collector);
+                    source.delete(i);
+                    target.delete(i);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("分区哈希落盘失败: " + e.getMessage(), e);
+        } finally {
+            deleteSpillDirectory(directory);
+        }
+    }
+
+    /**
+     * 向逻辑数据源的各读取端点登记并行连接需求，登记结果累加到reservations
+     */
+    private void reserveReadEndpoints(String dataSourceName, int connections, Map<String, Integer> reservations) {
+        List<String> endpoints = dataSourceConfig.getReadEndpoints(dataSourceName);
+        if (endpoints == null || endpoints.isEmpty()) {
+            endpoints = Collections.singletonList(dataSourceName);
+        }
+        int perEndpoint = (connections + endpoints.size() - 1) / endpoints.size();
+        for (String endpoint : endpoints) {
+            adaptivePoolSizer.reserve(endpoint, perEndpoint);
+            reservations.merge(endpoint, perEndpoint, Integer::sum);
+        }
+    }
+
+    /**
+     * 查询主键上下界（向下取整），空表返回null
+     */
+    private long[] queryKeyBounds(JdbcTemplate jdbcTemplate, RuleQueryPlan.TableQueries queries) {
+        return dataSourceGovernor.execute(queries.getDataSourceName(), () ->
+                jdbcTemplate.query(queries.getKeyBoundsSql(), (ResultSetExtractor<long[]>) rs -> {
+                    if (!rs.next() || rs.getObject(1) == null) {
+                        return null;
+                    }
+                    return new long[]{floorToLong(rs.getObject(1)), floorToLong(rs.getObject(2))};
+                }, queries.getWhereParameters()));
+    }
+
+    private static long floorToLong(Object value) {
+        return new BigDecimal(value.toString()).setScale(0, RoundingMode.FLOOR).longValue();
+    }
+
+    /**
+     * 比较两端的记录数和哈希校验和
+     */
+    private boolean checksumMatches(JdbcTemplate sourceJdbcTemplate,
+                                    JdbcTemplate targetJdbcTemplate,
+                                    RuleQueryPlan queryPlan,
+                                    ScanCounter counter) {
+        Object[] sourceChecksum = queryChecksum(sourceJdbcTemplate, queryPlan.getSource(),
+                queryPlan.getSource().getChecksumSql());
+        Object[] targetChecksum = queryChecksum(targetJdbcTemplate, queryPlan.getTarget(),
+                queryPlan.getTarget().getChecksumSql());
+        boolean matches = Arrays.equals(sourceChecksum, targetChecksum);
+        if (matches) {
+            long rows = ((Number) sourceChecksum[0]).longValue();
+            counter.add(rows, rows);
+        }
+        return matches;
+    }
+
+    private Object[] queryChecksum(JdbcTemplate jdbcTemplate, RuleQueryPlan.TableQueries queries, String checksumSql) {
+        // 校验和聚合需要扫描整表，耗时不计入自动降速
+        return dataSourceGovernor.executeStream(queries.getDataSourceName(), () ->
+                jdbcTemplate.query(checksumSql, (ResultSetExtractor<Object[]>) rs -> {
+                    rs.next();
+                    Object count = rs.getObject(1);
+                    Object sum = rs.getObject(2);
+                    // 统一数值类型，避免Long与BigDecimal比较不等
+                    return new Object[]{
+                            count != null ? new BigDecimal(count.toString()).stripTrailingZeros() : BigDecimal.ZERO,
+                            sum != null ? new BigDecimal(sum.toString()).stripTrailingZeros() : BigDecimal.ZERO};
+                }, queries.getWhereParameters()));
+    }
+
+    /**
+     * 以只进游标流式执行查询，fetchSize和是否需要事务由方言决定；游标打开期间占用数据源的一个执行名额。
+     * 流式查询的SQL只包含WHERE条件中的占位符，绑定计划的WHERE条件参数
+     */
+    private <T> T streamQuery(JdbcTemplate jdbcTemplate, RuleQueryPlan.TableQueries queries, 
+                              String sql, ResultSetExtractor<T> extractor) {
+        SqlDialect dialect = queries.getDialect();
+        return dataSourceGovernor.executeStream(queries.getDataSourceName(), () ->
+                jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+                    boolean restoreAutoCommit = dialect.cursorRequiresTransaction() && connection.getAutoCommit();
+                    if (restoreAutoCommit) {
+                        connection.setAutoCommit(false);
+                    }
+                    try (PreparedStatement statement = connection.prepareStatement(sql, 
+                            ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                        statement.setFetchSize(dialect.streamingFetchSize(comparisonProperties.getBatchSize()));
+                        new ArgumentPreparedStatementSetter(queries.getWhereParameters()).setValues(statement);
+                        try (ResultSet rs = statement.executeQuery()) {
+                            return extractor.extractData(rs);
+                        }
+                    } finally {
+                        if (restoreAutoCommit) {
+                            connection.commit();
+                            connection.setAutoCommit(true);
+                        }
+                    }
+                }));
+    }
+
+    /**
+     * 比较主键顺序，数值主键按数值比较
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compareKeys(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+            }
+            return new BigDecimal(left.toString()).compareTo(new BigDecimal(right.toString()));
+        }
+        if (left instanceof Comparable && left.getClass().equals(right.getClass())) {
+            return ((Comparable) left).compareTo(right);
+        }
+        return String.valueOf(left).compareTo(String.valueOf(right));
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * 估算批次数据的内存占用
+     */
+    private long estimateBatchBytes(Map<Object, Object> batch) {
+        long bytes = 0;
+        for (Map.Entry<Object, Object> entry : batch.entrySet()) {
+            bytes += AdaptiveBatchSizer.estimateRowBytes(entry.getKey(), entry.getValue());
+        }
+        return bytes;
+    }
+
+    /**
+     * 使用绑定参数查询数据，比较字段允许为NULL，使用HashMap
+     */
+    private Map<Object, Object> queryData(JdbcTemplate jdbcTemplate, RuleQueryPlan queryPlan,
+                                          RuleQueryPlan.TableQueries queries, String query, Object[] args) {
+        Map<Object, Object> dataMap = new HashMap<>();
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        ValueComparator valueComparator = queryPlan.getValueComparator();
+        
+        dataSourceGovernor.run(queries.getDataSourceName(), () ->
+                jdbcTemplate.query(query, args, rs -> {
+                    dataMap.put(keyComparator.readKey(rs, 1), valueComparator.read(rs, 2));
+                }));
+        dataSourceGovernor.consumeRows(queries.getDataSourceName(), dataMap.size());
+        
+        return dataMap;
+    }
+
+    /**
+     * 比较数据，按主键是否存在区分缺失记录，比较字段为NULL不视为缺失
+     */
+    private void compareData(Map<Object, Object> sourceData, 
+                             Map<Object, Object> targetData, 
+                             String compareField,
+                             ValueComparator valueComparator,
+                             DifferenceCollector collector) {
         // 找出所有唯一的键
         Set<Object> allKeys = new HashSet<>();
         allKeys.addAll(sourceData.keySet());
         allKeys.addAll(targetData.keySet());
         
         for (Object key : allKeys) {
+            if (collector.isStopped()) {
+                return;
+            }
+            collector.addScanned(1);
             Object sourceValue = sourceData.get(key);
             Object targetValue = targetData.get(key);
             
-            if (sourceValue == null && targetValue != null) {
+            if (!sourceData.containsKey(key)) {
                 // 仅在目标表存在
-                differences.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.TARGET_ONLY, 
-                        null, targetValue, compareField));
-            } else if (sourceValue != null && targetValue == null) {
+                collector.add(key, DifferenceDetail.DifferenceType.TARGET_ONLY, null, targetValue, compareField);
+            } else if (!targetData.containsKey(key)) {
                 // 仅在源表存在
-                differences.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.SOURCE_ONLY, 
-                        sourceValue, null, compareField));
-            } else if (sourceValue != null && targetValue != null) {
+                collector.add(key, DifferenceDetail.DifferenceType.SOURCE_ONLY, sourceValue, null, compareField);
+            } else if (!valueComparator.matches(sourceValue, targetValue)) {
                 // 都存在，比较值
-                if (!Objects.equals(sourceValue, targetValue)) {
-                    differences.add(new DifferenceDetail(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, 
-                            sourceValue, targetValue, compareField));
-                }
+                collector.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, sourceValue, targetValue, compareField);
             }
         }
-        
-        return differences;
     }
 
     /**
@@ -365,4 +1341,62 @@ public class OptimizedComparisonService {
         
         return stats;
     }
+
+    /**
+     * 扫描行数计数器，范围并行时由多个线程共同累加
+     */
+    private static class ScanCounter {
+        private final AtomicLong sourceRows = new AtomicLong();
+        private final AtomicLong targetRows = new AtomicLong();
+
+        void add(long source, long target) {
+            sourceRows.addAndGet(source);
+            targetRows.addAndGet(target);
+        }
+
+        long getTotalRecords() {
+            return Math.max(sourceRows.get(), targetRows.get());
+        }
+    }
+
+    /**
+     * 无序读取的行的落盘目标
+     */
+    @FunctionalInterface
+    private interface RowSink {
+        void add(Object key, Object value) throws IOException;
+    }
+
+    /**
+     * 归并扫描中的一个比较列及其差异收集器
+     */
+    private static class MergeColumn {
+        private final int index;
+        private final String compareField;
+        private final ValueComparator comparator;
+        private final DifferenceCollector collector;
+
+        MergeColumn(int index, String compareField, ValueComparator comparator, DifferenceCollector collector) {
+            this.index = index;
+            this.compareField = compareField;
+            this.comparator = comparator;
+            this.collector = collector;
+        }
+    }
+
+    /**
+     * 键集分页的一页数据，保持主键顺序
+     */
+    private static class KeysetPage {
+        private final Map<Object, Object> rows = new LinkedHashMap<>();
+        private Object lastKey;
+        private int rowCount;
+
+        /**
+         * 不足一页，或最后一个主键为NULL（无法作为下一页起点）时结束
+         */
+        boolean isLastPage(int batchSize) {
+            return rowCount < batchSize || lastKey == null;
+        }
+    }
 }
@@ -0,0 +1,361 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import com.minimax.comparator.util.ValueComparator;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 规则查询计划
+ * 规则编译后的不可变SQL集合，所有语句均使用绑定参数，同一规则的每次执行、每个分页使用相同的SQL文本，
+ * 可以命中数据库的执行计划缓存和驱动的预编译语句缓存。
+ * WHERE条件中的?占位符（如时间窗口的起止时间）在执行时通过 {@link #bind(Object[])} 绑定，不改变SQL文本和规则指纹
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class RuleQueryPlan {
+
+    private final String ruleName;
+
+    /**
+     * 规则指纹，规则配置变化后计划失效
+     */
+    private final String fingerprint;
+
+    private final TableQueries source;
+
+    private final TableQueries target;
+
+    /**
+     * 主键读取方式，按两端主键列元数据编译
+     */
+    private final ValueComparator keyComparator;
+
+    /**
+     * 比较字段读取和比较方式，按两端比较字段列元数据编译
+     */
+    private final ValueComparator valueComparator;
+
+    private final LocalDateTime compiledAt;
+
+    RuleQueryPlan(String ruleName, String fingerprint, TableQueries source, TableQueries target,
+                  ValueComparator keyComparator, ValueComparator valueComparator) {
+        this(ruleName, fingerprint, source, target, keyComparator, valueComparator, LocalDateTime.now());
+    }
+
+    private RuleQueryPlan(String ruleName, String fingerprint, TableQueries source, TableQueries target,
+                          ValueComparator keyComparator, ValueComparator valueComparator, LocalDateTime compiledAt) {
+        this.ruleName = ruleName;
+        this.fingerprint = fingerprint;
+        this.source = source;
+        this.target = target;
+        this.keyComparator = keyComparator;
+        this.valueComparator = valueComparator;
+        this.compiledAt = compiledAt;
+    }
+
+    /**
+     * 为一次执行绑定WHERE条件中?占位符的参数，返回共享已编译SQL和比较器的计划
+     *
+     * @param whereParameters WHERE条件的绑定参数，按占位符出现顺序
+     * @return 绑定参数后的计划，没有参数时返回当前计划
+     */
+    public RuleQueryPlan bind(Object[] whereParameters) {
+        if (whereParameters == null || whereParameters.length == 0) {
+            return this;
+        }
+        return new RuleQueryPlan(ruleName, fingerprint, new TableQueries(source, whereParameters),
+                new TableQueries(target, whereParameters), keyComparator, valueComparator, compiledAt);
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public TableQueries getSource() {
+        return source;
+    }
+
+    public TableQueries getTarget() {
+        return target;
+    }
+
+    public ValueComparator getKeyComparator() {
+        return keyComparator;
+    }
+
+    public ValueComparator getValueComparator() {
+        return valueComparator;
+    }
+
+    public LocalDateTime getCompiledAt() {
+        return compiledAt;
+    }
+
+    /**
+     * 计算规则指纹
+     *
+     * @param rule 比较规则
+     * @return 指纹字符串
+     */
+    static String fingerprint(ComparisonProperties.ComparisonRule rule) {
+        return String.join("|",
+                rule.getSourceTable().getDataSource(), rule.getSourceTable().getFullTableName(),
+                rule.getTargetTable().getDataSource(), rule.getTargetTable().getFullTableName(),
+                rule.getKeyField(), rule.getCompareField(), String.valueOf(rule.getWhereCondition()));
+    }
+
+    /**
+     * 选择不小于keyCount的主键查询分档，分档固定为2的幂和上限，使不同大小的批次复用少量SQL文本
+     *
+     * @param keyCount 主键个数
+     * @param maxKeys 分档上限
+     * @return 分档大小
+     */
+    static int lookupBucket(int keyCount, int maxKeys) {
+        int bucket = 1;
+        while (bucket < keyCount && bucket < maxKeys) {
+            bucket <<= 1;
+        }
+        return Math.min(bucket, maxKeys);
+    }
+
+    /**
+     * 单个表（数据源）一侧的查询语句
+     */
+    public static final class TableQueries {
+
+        private final String dataSourceName;
+        private final SqlDialect dialect;
+        private final String keyField;
+        private final String compareField;
+        private final String selectFields;
+        private final String whereCondition;
+        private final String selectSql;
+        private final String orderedSelectSql;
+        private final String keySelectSql;
+        private final String firstPageSql;
+        private final String nextPageSql;
+        private final String rangeSelectSql;
+        private final String keyBoundsSql;
+        private final String checksumSql;
+        private final int maxLookupKeys;
+        private final Map<Integer, String> keyLookupSqls;
+        private final Object[] whereParameters;
+
+        TableQueries(ComparisonProperties.TableConfig tableConfig,
+                     ComparisonProperties.ComparisonRule rule,
+                     SqlDialect dialect) {
+            String keyField = rule.getKeyField();
+            String whereCondition = rule.getWhereCondition();
+            String selectFields = keyField + ", " + rule.getCompareField();
+
+            this.dataSourceName = tableConfig.getDataSource();
+            this.dialect = dialect;
+            this.keyField = keyField;
+            this.compareField = rule.getCompareField();
+            this.selectFields = selectFields;
+            this.whereCondition = whereCondition;
+            this.selectSql = SqlBuilder.buildSelectSql(tableConfig, selectFields, whereCondition);
+            this.orderedSelectSql = SqlBuilder.buildOrderedSelectSql(tableConfig, selectFields, whereCondition, keyField);
+            this.keySelectSql = SqlBuilder.buildSelectSql(tableConfig, keyField, whereCondition);
+            this.firstPageSql = SqlBuilder.buildKeysetSelectSql(tableConfig, selectFields, whereCondition,
+                    keyField, false, dialect);
+            this.nextPageSql = SqlBuilder.buildKeysetSelectSql(tableConfig, selectFields, whereCondition,
+                    keyField, true, dialect);
+            this.rangeSelectSql = SqlBuilder.buildRangeSelectSql(tableConfig, selectFields, whereCondition, keyField);
+            this.keyBoundsSql = SqlBuilder.buildKeyBoundsSql(tableConfig, keyField, whereCondition);
+            this.checksumSql = SqlBuilder.buildChecksumSql(tableConfig, keyField, rule.getCompareField(),
+                    whereCondition, dialect);
+
+            this.maxLookupKeys = dialect.maxInListSize();
+            Map<Integer, String> lookups = new TreeMap<>();
+            for (int bucket = 1; ; bucket = lookupBucket(bucket + 1, maxLookupKeys)) {
+                lookups.put(bucket, SqlBuilder.buildKeyLookupSql(tableConfig, selectFields, keyField,
+                        whereCondition, bucket, dialect));
+                if (bucket == maxLookupKeys) {
+                    break;
+                }
+            }
+            this.keyLookupSqls = Collections.unmodifiableMap(lookups);
+            this.whereParameters = new Object[0];
+        }
+
+        private TableQueries(TableQueries compiled, Object[] whereParameters) {
+            this.dataSourceName = compiled.dataSourceName;
+            this.dialect = compiled.dialect;
+            this.keyField = compiled.keyField;
+            this.compareField = compiled.compareField;
+            this.selectFields = compiled.selectFields;
+            this.whereCondition = compiled.whereCondition;
+            this.selectSql = compiled.selectSql;
+            this.orderedSelectSql = compiled.orderedSelectSql;
+            this.keySelectSql = compiled.keySelectSql;
+            this.firstPageSql = compiled.firstPageSql;
+            this.nextPageSql = compiled.nextPageSql;
+            this.rangeSelectSql = compiled.rangeSelectSql;
+            this.keyBoundsSql = compiled.keyBoundsSql;
+            this.checksumSql = compiled.checksumSql;
+            this.maxLookupKeys = compiled.maxLookupKeys;
+            this.keyLookupSqls = compiled.keyLookupSqls;
+            this.whereParameters = whereParameters.clone();
+        }
+
+        public String getDataSourceName() {
+            return dataSourceName;
+        }
+
+        public SqlDialect getDialect() {
+            return dialect;
+        }
+
+        public String getSelectSql() {
+            return selectSql;
+        }
+
+        public String getOrderedSelectSql() {
+            return orderedSelectSql;
+        }
+
+        public String getKeySelectSql() {
+            return keySelectSql;
+        }
+
+        /**
+         * 键集分页查询SQL
+         *
+         * @param afterKey 是否从上一页最后一个主键之后读取
+         * @return SQL语句
+         */
+        public String getKeysetPageSql(boolean afterKey) {
+            return afterKey ? nextPageSql : firstPageSql;
+        }
+
+        public String getRangeSelectSql() {
+            return rangeSelectSql;
+        }
+
+        public String getKeyBoundsSql() {
+            return keyBoundsSql;
+        }
+
+        /**
+         * @return 校验和SQL，数据库不支持时为null
+         */
+        public String getChecksumSql() {
+            return checksumSql;
+        }
+
+        /**
+         * 只读取一个分区的查询SQL，同一分区每次执行的SQL文本相同
+         *
+         * @param tableReference 分区表引用，见 {@link com.minimax.comparator.model.TablePartition#getTableReference()}
+         * @param ordered 是否按主键排序
+         * @return SQL语句
+         */
+        public String getPartitionSelectSql(String tableReference, boolean ordered) {
+            String sql = SqlBuilder.buildSelectSql(tableReference, selectFields, whereCondition);
+            return ordered ? sql + " ORDER BY " + keyField : sql;
+        }
+
+        /**
+         * 只统计一个分区的校验和SQL
+         *
+         * @param tableReference 分区表引用
+         * @return SQL语句，数据库不支持时为null
+         */
+        public String getPartitionChecksumSql(String tableReference) {
+            String aggregate = dialect.checksumAggregate(keyField, compareField);
+            return aggregate != null ? SqlBuilder.buildSelectSql(tableReference, aggregate, whereCondition) : null;
+        }
+
+        /**
+         * 键集分页查询的绑定参数
+         *
+         * @param lastKey 上一页最后一个主键，第一页为null
+         * @param limit 限制数量
+         * @return 参数数组
+         */
+        public Object[] keysetPageParameters(Object lastKey, int limit) {
+            return lastKey != null ? parameters(new Object[]{lastKey}, new Object[]{limit})
+                    : parameters(new Object[0], new Object[]{limit});
+        }
+
+        /**
+         * 只包含WHERE条件的查询（全表、有序、主键、上下界、校验和、分区查询）的绑定参数
+         *
+         * @return 参数数组，WHERE条件没有占位符时为空数组
+         */
+        public Object[] getWhereParameters() {
+            return whereParameters.clone();
+        }
+
+        /**
+         * 主键范围查询的绑定参数，范围参数在WHERE条件参数之前
+         *
+         * @param range 下界（含）和上界（不含）
+         * @return 参数数组
+         */
+        public Object[] rangeParameters(Object[] range) {
+            return parameters(range, new Object[0]);
+        }
+
+        /**
+         * 单条主键查询允许的最大主键个数
+         *
+         * @return 主键个数
+         */
+        public int getMaxLookupKeys() {
+            return maxLookupKeys;
+        }
+
+        /**
+         * 主键查询SQL，参数个数为不小于keyCount的分档大小
+         *
+         * @param keyCount 主键个数，不超过 {@link #getMaxLookupKeys()}
+         * @return SQL语句
+         */
+        public String getKeyLookupSql(int keyCount) {
+            return keyLookupSqls.get(lookupBucket(keyCount, maxLookupKeys));
+        }
+
+        /**
+         * 主键查询的绑定参数，不足分档大小时重复最后一个主键补齐
+         *
+         * @param keys 主键列表，不超过 {@link #getMaxLookupKeys()}
+         * @return 参数数组
+         */
+        public Object[] keyLookupParameters(List<Object> keys) {
+            Object[] parameters = new Object[lookupBucket(keys.size(), maxLookupKeys)];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = keys.get(Math.min(i, keys.size() - 1));
+            }
+            return parameters(parameters, new Object[0]);
+        }
+
+        /**
+         * 按SQL中占位符的顺序拼接参数：WHERE条件之前的参数、WHERE条件参数、WHERE条件之后的参数
+         */
+        private Object[] parameters(Object[] before, Object[] after) {
+            if (whereParameters.length == 0 && after.length == 0) {
+                return before;
+            }
+            Object[] parameters = new Object[before.length + whereParameters.length + after.length];
+            System.arraycopy(before, 0, parameters, 0, before.length);
+            System.arraycopy(whereParameters, 0, parameters, before.length, whereParameters.length);
+            System.arraycopy(after, 0, parameters, before.length + whereParameters.length, after.length);
+            return parameters;
+        }
+    }
+}
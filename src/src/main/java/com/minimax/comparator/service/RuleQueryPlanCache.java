@@ -0,0 +1,105 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ColumnMetadata;
+import com.minimax.comparator.model.TableMetadata;
+import com.minimax.comparator.util.ValueComparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 规则查询计划缓存
+ * 每条规则只编译一次查询计划，规则配置变化（指纹不一致）或数据源元数据刷新时重新编译
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class RuleQueryPlanCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleQueryPlanCache.class);
+
+    @Autowired
+    private DialectRegistry dialectRegistry;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    /**
+     * 规则名称 -> 查询计划
+     */
+    private final Map<String, RuleQueryPlan> planCache = new ConcurrentHashMap<>();
+
+    /**
+     * 获取规则的查询计划，不存在或规则已变化时编译
+     *
+     * @param rule 比较规则
+     * @return RuleQueryPlan
+     */
+    public RuleQueryPlan getPlan(ComparisonProperties.ComparisonRule rule) {
+        String fingerprint = RuleQueryPlan.fingerprint(rule);
+        RuleQueryPlan cached = planCache.get(rule.getName());
+        if (cached != null && cached.getFingerprint().equals(fingerprint)) {
+            return cached;
+        }
+        // 编译需要查询方言和列元数据，在锁外执行，慢数据源不阻塞其他规则；并发编译时保留已安装的同指纹计划
+        RuleQueryPlan compiled = compile(rule, fingerprint);
+        return planCache.merge(rule.getName(), compiled,
+                (current, candidate) -> current.getFingerprint().equals(fingerprint) ? current : candidate);
+    }
+
+    /**
+     * 清空全部查询计划
+     */
+    public void invalidate() {
+        planCache.clear();
+        logger.info("已清空全部规则查询计划");
+    }
+
+    /**
+     * 清空涉及指定数据源的查询计划
+     *
+     * @param dataSourceName 数据源名称
+     */
+    public void invalidateDataSource(String dataSourceName) {
+        planCache.values().removeIf(plan -> dataSourceName.equals(plan.getSource().getDataSourceName())
+                || dataSourceName.equals(plan.getTarget().getDataSourceName()));
+        logger.info("已清空数据源 {} 相关的规则查询计划", dataSourceName);
+    }
+
+    private RuleQueryPlan compile(ComparisonProperties.ComparisonRule rule, String fingerprint) {
+        ComparisonProperties.TableConfig sourceTable = rule.getSourceTable();
+        ComparisonProperties.TableConfig targetTable = rule.getTargetTable();
+        RuleQueryPlan plan = new RuleQueryPlan(rule.getName(), fingerprint,
+                new RuleQueryPlan.TableQueries(sourceTable, rule, dialectRegistry.getDialect(sourceTable.getDataSource())),
+                new RuleQueryPlan.TableQueries(targetTable, rule, dialectRegistry.getDialect(targetTable.getDataSource())),
+                compileComparator(rule, rule.getKeyField()),
+                compileComparator(rule, rule.getCompareField()));
+        logger.debug("编译规则 {} 的查询计划，主键: {}，比较字段: {}",
+                rule.getName(), plan.getKeyComparator(), plan.getValueComparator());
+        return plan;
+    }
+
+    /**
+     * 按两端列元数据编译字段比较器，元数据不可用时退化为通用比较
+     */
+    private ValueComparator compileComparator(ComparisonProperties.ComparisonRule rule, String columnName) {
+        try {
+            return ValueComparator.forColumns(findColumn(rule.getSourceTable(), columnName),
+                    findColumn(rule.getTargetTable(), columnName));
+        } catch (Exception e) {
+            logger.warn("读取规则 {} 字段 {} 的列元数据失败，使用通用比较: {}", rule.getName(), columnName, e.getMessage());
+            return ValueComparator.GENERIC;
+        }
+    }
+
+    private ColumnMetadata findColumn(ComparisonProperties.TableConfig tableConfig, String columnName) {
+        TableMetadata metadata = metadataCache.getTableMetadata(tableConfig);
+        return metadata != null ? metadata.getColumn(columnName) : null;
+    }
+}
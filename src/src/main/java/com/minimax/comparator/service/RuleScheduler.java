@@ -0,0 +1,303 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 规则调度器
+ * 并行执行一批规则时控制执行顺序和并发：优先级高的先执行，同一优先级按预计耗时除以权重从小到大执行，
+ * 使小而重要的规则尽快完成、大规则使用剩余的执行名额；每个数据源同时执行的规则数不超过上限，
+ * 名额被占满的数据源的规则让位于其他数据源的规则
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Component
+public class RuleScheduler implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleScheduler.class);
+
+    /**
+     * 执行耗时指数移动平均的平滑系数
+     */
+    private static final double DURATION_ALPHA = 0.3;
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    /**
+     * 规则名称 -> 执行耗时的移动平均（毫秒）
+     */
+    private final Map<String, Double> expectedMillis = new ConcurrentHashMap<>();
+
+    /**
+     * 规则执行线程池
+     */
+    private ExecutorService ruleExecutor;
+
+    @Override
+    public void afterPropertiesSet() {
+        ruleExecutor = Executors.newFixedThreadPool(getMaxConcurrentRules(), runnable -> {
+            Thread thread = new Thread(runnable, "rule-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        ruleExecutor.shutdownNow();
+    }
+
+    /**
+     * 并行执行一批任务，全部完成后返回。任务抛出的异常在全部任务结束后重新抛出
+     *
+     * @param tasks 任务列表
+     */
+    public void executeAll(List<ScheduledTask> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Batch batch = new Batch(tasks, getMaxConcurrentRules(),
+                comparisonProperties.getScheduler().getMaxRulesPerDataSource());
+        batch.run();
+        if (batch.failure != null) {
+            throw batch.failure;
+        }
+    }
+
+    /**
+     * 在规则线程池中异步执行单个任务，用于定时触发的规则
+     *
+     * @param task 任务
+     * @return 任务完成时完成的CompletableFuture
+     */
+    public CompletableFuture<Void> submit(ScheduledTask task) {
+        return CompletableFuture.runAsync(() -> runTimed(task), ruleExecutor);
+    }
+
+    /**
+     * 在当前线程按调度顺序逐个执行任务
+     *
+     * @param tasks 任务列表
+     */
+    public void executeSequentially(List<ScheduledTask> tasks) {
+        Map<ScheduledTask, Double> costs = estimateCosts(tasks);
+        List<ScheduledTask> ordered = new ArrayList<>(tasks);
+        ordered.sort(schedulingOrder(costs));
+        for (ScheduledTask task : ordered) {
+            runTimed(task);
+        }
+    }
+
+    /**
+     * 记录规则的执行耗时
+     *
+     * @param ruleName 规则名称
+     * @param millis 耗时（毫秒）
+     */
+    public void recordDuration(String ruleName, long millis) {
+        expectedMillis.merge(ruleName, (double) millis,
+                (previous, latest) -> DURATION_ALPHA * latest + (1 - DURATION_ALPHA) * previous);
+    }
+
+    /**
+     * 规则的预计耗时，没有执行记录时返回-1
+     *
+     * @param ruleName 规则名称
+     * @return 预计耗时（毫秒）
+     */
+    public long getExpectedMillis(String ruleName) {
+        Double millis = expectedMillis.get(ruleName);
+        return millis != null ? Math.round(millis) : -1;
+    }
+
+    /**
+     * 执行任务并记录组内每个规则的耗时
+     */
+    private void runTimed(ScheduledTask task) {
+        long start = System.nanoTime();
+        try {
+            task.action.run();
+        } finally {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            task.ruleNames.forEach(ruleName -> recordDuration(ruleName, millis));
+        }
+    }
+
+    private int getMaxConcurrentRules() {
+        int configured = comparisonProperties.getScheduler().getMaxConcurrentRules();
+        return Math.max(1, configured > 0 ? configured : comparisonProperties.getThreadPoolSize());
+    }
+
+    /**
+     * 每个任务的调度代价：预计耗时除以权重。共享扫描的任务取组内最长的预计耗时
+     */
+    private Map<ScheduledTask, Double> estimateCosts(List<ScheduledTask> tasks) {
+        double fallback = comparisonProperties.getScheduler().getDefaultExpectedMillis();
+        if (fallback <= 0) {
+            fallback = expectedMillis.values().stream().mapToDouble(Double::doubleValue).average().orElse(0);
+        }
+        Map<ScheduledTask, Double> costs = new HashMap<>();
+        for (ScheduledTask task : tasks) {
+            double expected = 0;
+            for (String ruleName : task.ruleNames) {
+                expected = Math.max(expected, expectedMillis.getOrDefault(ruleName, fallback));
+            }
+            costs.put(task, expected / task.weight);
+        }
+        return costs;
+    }
+
+    private static Comparator<ScheduledTask> schedulingOrder(Map<ScheduledTask, Double> costs) {
+        return Comparator.comparingInt((ScheduledTask task) -> -task.priority)
+                .thenComparingDouble(costs::get);
+    }
+
+    /**
+     * 一批任务的执行状态，调用线程负责分派，任务在规则线程池中执行
+     */
+    private final class Batch {
+        private final List<ScheduledTask> pending;
+        private final Map<ScheduledTask, Double> costs;
+        private final int maxConcurrent;
+        private final int maxPerDataSource;
+        private final Map<String, Integer> runningPerDataSource = new HashMap<>();
+        private int running;
+        private RuntimeException failure;
+
+        Batch(List<ScheduledTask> tasks, int maxConcurrent, int maxPerDataSource) {
+            this.costs = estimateCosts(tasks);
+            this.pending = new ArrayList<>(tasks);
+            this.pending.sort(schedulingOrder(costs));
+            this.maxConcurrent = maxConcurrent;
+            this.maxPerDataSource = maxPerDataSource;
+        }
+
+        synchronized void run() {
+            while (!pending.isEmpty() || running > 0) {
+                ScheduledTask next = running < maxConcurrent ? pollEligible() : null;
+                if (next == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("等待规则执行完成时被中断", e);
+                    }
+                    continue;
+                }
+                start(next);
+            }
+        }
+
+        /**
+         * 取出第一个数据源名额未占满的任务；同一优先级和代价下，优先选择正在执行的规则较少的数据源
+         */
+        private ScheduledTask pollEligible() {
+            ScheduledTask selected = null;
+            int selectedLoad = Integer.MAX_VALUE;
+            for (ScheduledTask task : pending) {
+                if (selected != null && (task.priority != selected.priority
+                        || Double.compare(costs.get(task), costs.get(selected)) != 0)) {
+                    break;
+                }
+                int load = 0;
+                boolean eligible = true;
+                for (String dataSource : task.dataSources) {
+                    int active = runningPerDataSource.getOrDefault(dataSource, 0);
+                    eligible &= maxPerDataSource <= 0 || active < maxPerDataSource;
+                    load += active;
+                }
+                if (eligible && load < selectedLoad) {
+                    selected = task;
+                    selectedLoad = load;
+                }
+            }
+            if (selected != null) {
+                pending.remove(selected);
+            }
+            return selected;
+        }
+
+        private void start(ScheduledTask task) {
+            running++;
+            task.dataSources.forEach(dataSource -> runningPerDataSource.merge(dataSource, 1, Integer::sum));
+            logger.debug("调度规则 {}，优先级 {}，预计代价 {} 毫秒", task.ruleNames, task.priority,
+                    Math.round(costs.get(task)));
+            ruleExecutor.execute(() -> {
+                RuntimeException error = null;
+                try {
+                    runTimed(task);
+                } catch (RuntimeException e) {
+                    error = e;
+                } finally {
+                    finish(task, error);
+                }
+            });
+        }
+
+        private synchronized void finish(ScheduledTask task, RuntimeException error) {
+            running--;
+            task.dataSources.forEach(dataSource -> runningPerDataSource.computeIfPresent(dataSource,
+                    (name, active) -> active > 1 ? active - 1 : null));
+            if (error != null && failure == null) {
+                failure = error;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * 调度任务：一个规则或共享扫描的一组规则
+     */
+    public static final class ScheduledTask {
+        private final List<String> ruleNames;
+        private final Set<String> dataSources;
+        private final int priority;
+        private final int weight;
+        private final Runnable action;
+
+        /**
+         * @param rules 任务包含的规则，优先级和权重取组内最大值
+         * @param action 执行任务
+         */
+        public ScheduledTask(Collection<ComparisonProperties.ComparisonRule> rules, Runnable action) {
+            this.ruleNames = rules.stream()
+                    .map(ComparisonProperties.ComparisonRule::getName)
+                    .collect(Collectors.toList());
+            this.dataSources = new LinkedHashSet<>();
+            for (ComparisonProperties.ComparisonRule rule : rules) {
+                dataSources.add(rule.getSourceTable().getDataSource());
+                dataSources.add(rule.getTargetTable().getDataSource());
+            }
+            this.priority = rules.stream().mapToInt(ComparisonProperties.ComparisonRule::getPriority).max().orElse(0);
+            this.weight = Math.max(1,
+                    rules.stream().mapToInt(ComparisonProperties.ComparisonRule::getWeight).max().orElse(1));
+            this.action = action;
+        }
+
+        public List<String> getRuleNames() {
+            return ruleNames;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonPlan;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.SamplingEstimate;
+import com.minimax.comparator.model.SamplingOptions;
+import com.minimax.comparator.model.TableStatistics;
+import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import com.minimax.comparator.util.ValueComparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 抽样比较服务
+ * 超大表只比较随机抽取的行：从一端抽样后按主键到另一端查询，两端各抽样一次分别估计
+ * 源表独有/值不同和目标表独有的比例，给出整表差异比例的点估计和置信区间。
+ * 方言支持时使用数据块抽样（TABLESAMPLE / SAMPLE BLOCK），只读取被抽中的数据块，但同一数据块内的行相关，
+ * 区间偏窄；否则按主键哈希取模抽样，抽样均匀但数据库仍需扫描整表（或主键索引）计算哈希。
+ * 估计差异比例达到升级阈值时改为执行完整比较
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Service
+public class SamplingComparisonService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SamplingComparisonService.class);
+
+    /**
+     * 单次抽样查询的行数上限相对目标样本量的倍数，防止统计信息过旧时读取过多行
+     */
+    private static final int SAMPLE_CAP_FACTOR = 2;
+
+    @Autowired
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @Autowired
+    private ComparisonPlanner comparisonPlanner;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @Autowired
+    private RuleQueryPlanCache ruleQueryPlanCache;
+
+    @Autowired
+    private OptimizedComparisonService optimizedComparisonService;
+
+    /**
+     * 抽样比较
+     *
+     * @param rule 比较规则
+     * @param options 抽样选项
+     * @return ComparisonResult，差异详情只包含样本中发现的差异，估计结果见 {@link ComparisonResult#getSampling()}
+     */
+    public ComparisonResult performSampledComparison(ComparisonProperties.ComparisonRule rule, SamplingOptions options) {
+        ComparisonResult result = new ComparisonResult(rule.getName());
+        result.setRuleDescription(rule.getDescription());
+
+        try {
+            logger.info("开始执行抽样比较规则: {}, {}", rule.getName(), options);
+            options.validate();
+
+            List<String> errors = metadataCache.validateRule(rule);
+            if (!errors.isEmpty()) {
+                throw new IllegalArgumentException("规则 " + rule.getName() + " 校验失败: " + String.join("; ", errors));
+            }
+
+            JdbcTemplate sourceJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(rule.getSourceTable().getDataSource());
+            JdbcTemplate targetJdbcTemplate = dataSourceConfig.getReadJdbcTemplate(rule.getTargetTable().getDataSource());
+
+            // 只使用规划器的目录统计信息确定抽样比例
+            ComparisonPlan statisticsPlan = comparisonPlanner.plan(rule);
+            RuleQueryPlan queryPlan = ruleQueryPlanCache.getPlan(rule);
+            DifferenceCollector collector = new DifferenceCollector(ComparisonOptions.defaults());
+
+            SideSample source = sampleSide(sourceJdbcTemplate, targetJdbcTemplate, rule, queryPlan, true,
+                    statisticsPlan.getSourceStatistics(), options, collector);
+            SideSample target = sampleSide(targetJdbcTemplate, sourceJdbcTemplate, rule, queryPlan, false,
+                    statisticsPlan.getTargetStatistics(), options, collector);
+            SamplingEstimate estimate = combine(source, target, options);
+
+            if (options.getEscalateThreshold() > 0 && estimate.getEstimatedMismatchRate() >= options.getEscalateThreshold()) {
+                logger.info("抽样比较规则 {} 估计差异比例 {} 达到升级阈值 {}，改为完整比较",
+                        rule.getName(), estimate.getEstimatedMismatchRate(), options.getEscalateThreshold());
+                ComparisonResult fullResult = optimizedComparisonService.performOptimizedComparison(rule);
+                estimate.setEscalated(true);
+                fullResult.setSampling(estimate);
+                return fullResult;
+            }
+
+            ComparisonPlan plan = new ComparisonPlan(ComparisonPlan.Strategy.SAMPLED,
+                    "抽样比较（" + estimate.getMethod() + (estimate.isStratified() ? "，按主键范围分层" : "") + "）");
+            plan.setSourceStatistics(statisticsPlan.getSourceStatistics());
+            plan.setTargetStatistics(statisticsPlan.getTargetStatistics());
+            result.setPlan(plan);
+            result.setTotalRecords(source.sampled + target.sampled);
+            result.setSampling(estimate);
+
+            result.setStatus(ComparisonResult.ExecutionStatus.SUCCESS);
+            collector.applyTo(result);
+            result.setEndTime(LocalDateTime.now());
+
+            logger.info("抽样比较规则 {} 执行完成: {}", rule.getName(), estimate);
+
+        } catch (Exception e) {
+            logger.error("执行抽样比较规则 {} 时发生错误", rule.getName(), e);
+            result.setStatus(ComparisonResult.ExecutionStatus.FAILED);
+            result.setErrorMessage(e.getMessage());
+            result.setEndTime(LocalDateTime.now());
+        }
+
+        return result;
+    }
+
+    /**
+     * 从一端抽样，按样本主键到另一端查询并记录差异。
+     * 源表一侧记录源表独有和值不同，目标表一侧只记录目标表独有，避免值不同重复计数
+     */
+    private SideSample sampleSide(JdbcTemplate sampledJdbcTemplate,
+                                  JdbcTemplate otherJdbcTemplate,
+                                  ComparisonProperties.ComparisonRule rule,
+                                  RuleQueryPlan queryPlan,
+                                  boolean sourceSide,
+                                  TableStatistics statistics,
+                                  SamplingOptions options,
+                                  DifferenceCollector collector) {
+        ComparisonProperties.TableConfig tableConfig = sourceSide ? rule.getSourceTable() : rule.getTargetTable();
+        RuleQueryPlan.TableQueries sampledQueries = sourceSide ? queryPlan.getSource() : queryPlan.getTarget();
+        RuleQueryPlan.TableQueries otherQueries = sourceSide ? queryPlan.getTarget() : queryPlan.getSource();
+        SqlDialect dialect = sampledQueries.getDialect();
+
+        long estimatedRows = statistics != null ? statistics.getEstimatedRows() : 0;
+        double fraction = estimatedRows > 0 ? Math.min(1.0, (double) options.getSampleSize() / estimatedRows) : 1.0;
+        double percent = fraction * 100;
+        boolean blockSampling = dialect.usesBlockSampling(percent);
+
+        // 分层只适用于数值主键，按主键上下界等宽切分，层权重为区间宽度占比
+        List<long[]> strata = null;
+        if (options.isStratified() && statistics != null && statistics.isKeyNumeric()) {
+            long[] bounds = queryKeyBounds(sampledJdbcTemplate, sampledQueries);
+            if (bounds == null) {
+                return new SideSample(blockSampling, false, estimatedRows);
+            }
+            strata = splitStrata(bounds[0], bounds[1], options.getStrata());
+        }
+        boolean stratified = strata != null;
+        if (!stratified) {
+            strata = new ArrayList<>();
+            strata.add(null);
+        }
+
+        String sampleSql = SqlBuilder.buildSampleSql(tableConfig, rule.getKeyField() + ", " + rule.getCompareField(),
+                rule.getWhereCondition(), rule.getKeyField(), percent, stratified, dialect);
+        if (sampleSql == null) {
+            throw new IllegalArgumentException("数据源 " + tableConfig.getDataSource() + " 的数据库（" + dialect
+                    + "）不支持抽样");
+        }
+
+        int stratumCap = (int) Math.min(Integer.MAX_VALUE,
+                (long) SAMPLE_CAP_FACTOR * ((options.getSampleSize() + strata.size() - 1) / strata.size()));
+        long modulus = Math.max(1, Math.round(1 / fraction));
+        long width = stratified ? strata.get(strata.size() - 1)[1] - strata.get(0)[0] : 1;
+
+        SideSample side = new SideSample(blockSampling, stratified, estimatedRows);
+        for (long[] range : strata) {
+            List<Object> parameters = new ArrayList<>();
+            if (!blockSampling) {
+                parameters.add(modulus);
+                parameters.add(ThreadLocalRandom.current().nextLong(modulus));
+            }
+            if (range != null) {
+                parameters.add(range[0]);
+                parameters.add(range[1]);
+            }
+            parameters.add(stratumCap);
+
+            Map<Object, Object> sample = querySample(sampledJdbcTemplate, queryPlan, sampleSql, parameters.toArray());
+            if (sample.size() >= stratumCap) {
+                logger.warn("规则 {} 的抽样达到行数上限 {}，表的统计信息可能已过期", rule.getName(), stratumCap);
+            }
+            Map<Object, Object> matched = queryDataByKeys(otherJdbcTemplate, queryPlan, otherQueries, sample.keySet());
+
+            long mismatches = 0;
+            ValueComparator valueComparator = queryPlan.getValueComparator();
+            for (Map.Entry<Object, Object> entry : sample.entrySet()) {
+                Object key = entry.getKey();
+                if (!matched.containsKey(key)) {
+                    mismatches++;
+                    if (sourceSide) {
+                        collector.add(key, DifferenceDetail.DifferenceType.SOURCE_ONLY, entry.getValue(), null, rule.getCompareField());
+                    } else {
+                        collector.add(key, DifferenceDetail.DifferenceType.TARGET_ONLY, null, entry.getValue(), rule.getCompareField());
+                    }
+                } else if (sourceSide && !valueComparator.matches(entry.getValue(), matched.get(key))) {
+                    mismatches++;
+                    collector.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT,
+                            entry.getValue(), matched.get(key), rule.getCompareField());
+                }
+            }
+
+            double weight = range != null ? (double) (range[1] - range[0]) / width : 1.0;
+            side.addStratum(sample.size(), mismatches, weight);
+        }
+        return side;
+    }
+
+    private Map<Object, Object> querySample(JdbcTemplate jdbcTemplate, RuleQueryPlan queryPlan,
+                                            String sampleSql, Object[] parameters) {
+        Map<Object, Object> sample = new LinkedHashMap<>();
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        ValueComparator valueComparator = queryPlan.getValueComparator();
+        jdbcTemplate.query(sampleSql, parameters, rs -> {
+            sample.put(keyComparator.readKey(rs, 1), valueComparator.read(rs, 2));
+        });
+        return sample;
+    }
+
+    /**
+     * 按主键批量查询另一端，块大小按分档补齐以复用SQL
+     */
+    private Map<Object, Object> queryDataByKeys(JdbcTemplate jdbcTemplate, RuleQueryPlan queryPlan,
+                                                RuleQueryPlan.TableQueries queries, Set<Object> keys) {
+        Map<Object, Object> dataMap = new HashMap<>();
+        if (keys.isEmpty()) {
+            return dataMap;
+        }
+        List<Object> keyList = new ArrayList<>(keys);
+        ValueComparator keyComparator = queryPlan.getKeyComparator();
+        ValueComparator valueComparator = queryPlan.getValueComparator();
+        int chunkSize = queries.getMaxLookupKeys();
+        for (int from = 0; from < keyList.size(); from += chunkSize) {
+            List<Object> chunk = keyList.subList(from, Math.min(from + chunkSize, keyList.size()));
+            jdbcTemplate.query(queries.getKeyLookupSql(chunk.size()), queries.keyLookupParameters(chunk), rs -> {
+                dataMap.put(keyComparator.readKey(rs, 1), valueComparator.read(rs, 2));
+            });
+        }
+        return dataMap;
+    }
+
+    private long[] queryKeyBounds(JdbcTemplate jdbcTemplate, RuleQueryPlan.TableQueries queries) {
+        return jdbcTemplate.query(queries.getKeyBoundsSql(), (ResultSetExtractor<long[]>) rs -> {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return null;
+            }
+            return new long[]{
+                    new BigDecimal(rs.getObject(1).toString()).setScale(0, RoundingMode.FLOOR).longValue(),
+                    new BigDecimal(rs.getObject(2).toString()).setScale(0, RoundingMode.FLOOR).longValue()
+            };
+        });
+    }
+
+    /**
+     * 将主键区间 [min, max] 等宽切分为不超过strata个下界闭、上界开的区间
+     */
+    static List<long[]> splitStrata(long min, long max, int strata) {
+        long width = max - min + 1;
+        long step = Math.max(1, (width + strata - 1) / strata);
+        List<long[]> ranges = new ArrayList<>();
+        long start = min;
+        while (start <= max) {
+            long end = start > max - step ? max + 1 : start + step;
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * 合并两端的估计：差异行数为两端估计之和，比例以两端较大的行数为分母；
+     * 区间为两端区间端点相加，比两端各自的置信水平更保守
+     */
+    static SamplingEstimate combine(SideSample source, SideSample target, SamplingOptions options) {
+        double z = zScore(options.getConfidenceLevel());
+        double[] sourceRate = source.estimate(z);
+        double[] targetRate = target.estimate(z);
+        long sourceRows = Math.max(source.estimatedRows, source.sampled);
+        long targetRows = Math.max(target.estimatedRows, target.sampled);
+        double denominator = Math.max(1, Math.max(sourceRows, targetRows));
+
+        double differenceRows = sourceRate[0] * sourceRows + targetRate[0] * targetRows;
+        SamplingEstimate estimate = new SamplingEstimate();
+        String sourceMethod = source.blockSampling ? "BLOCK" : "HASH";
+        String targetMethod = target.blockSampling ? "BLOCK" : "HASH";
+        estimate.setMethod(sourceMethod.equals(targetMethod) ? sourceMethod : sourceMethod + "/" + targetMethod);
+        estimate.setStratified(source.stratified || target.stratified);
+        estimate.setSourceSampleSize(source.sampled);
+        estimate.setTargetSampleSize(target.sampled);
+        estimate.setSourceRows(sourceRows);
+        estimate.setTargetRows(targetRows);
+        estimate.setConfidenceLevel(options.getConfidenceLevel());
+        estimate.setEstimatedDifferenceRows(Math.round(differenceRows));
+        estimate.setEstimatedMismatchRate(Math.min(1.0, differenceRows / denominator));
+        estimate.setLowerBound(Math.min(1.0, (sourceRate[1] * sourceRows + targetRate[1] * targetRows) / denominator));
+        estimate.setUpperBound(Math.min(1.0, (sourceRate[2] * sourceRows + targetRate[2] * targetRows) / denominator));
+        return estimate;
+    }
+
+    /**
+     * Wilson得分区间
+     *
+     * @param rate 样本比例
+     * @param samples 样本量（可为有效样本量）
+     * @param z 标准正态分位数
+     * @return {下界, 上界}
+     */
+    static double[] wilsonInterval(double rate, double samples, double z) {
+        if (samples <= 0) {
+            return new double[]{0, 1};
+        }
+        double z2 = z * z;
+        double denominator = 1 + z2 / samples;
+        double center = (rate + z2 / (2 * samples)) / denominator;
+        double margin = z * Math.sqrt(rate * (1 - rate) / samples + z2 / (4 * samples * samples)) / denominator;
+        return new double[]{Math.max(0, center - margin), Math.min(1, center + margin)};
+    }
+
+    /**
+     * 双侧置信水平对应的标准正态分位数（Abramowitz-Stegun 26.2.23，误差小于4.5e-4）
+     *
+     * @param confidenceLevel 置信水平
+     * @return z值
+     */
+    static double zScore(double confidenceLevel) {
+        double tail = (1 - confidenceLevel) / 2;
+        double t = Math.sqrt(-2 * Math.log(tail));
+        return t - (2.515517 + 0.802853 * t + 0.010328 * t * t)
+                / (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+    }
+
+    /**
+     * 一端的抽样结果，按层累计样本量和差异数
+     */
+    static final class SideSample {
+        private final boolean blockSampling;
+        private final boolean stratified;
+        private final long estimatedRows;
+        private final List<long[]> counts = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+        private long sampled;
+
+        SideSample(boolean blockSampling, boolean stratified, long estimatedRows) {
+            this.blockSampling = blockSampling;
+            this.stratified = stratified;
+            this.estimatedRows = estimatedRows;
+        }
+
+        void addStratum(long samples, long mismatches, double weight) {
+            counts.add(new long[]{samples, mismatches});
+            weights.add(weight);
+            sampled += samples;
+        }
+
+        /**
+         * 差异比例估计。分层时为各层比例按权重加权（忽略无样本的层），
+         * 区间按分层方差换算的有效样本量计算Wilson区间，样本差异为0时也能给出非零上界
+         *
+         * @param z 标准正态分位数
+         * @return {点估计, 下界, 上界}
+         */
+        double[] estimate(double z) {
+            double totalWeight = 0;
+            long totalSamples = 0;
+            for (int i = 0; i < counts.size(); i++) {
+                if (counts.get(i)[0] > 0) {
+                    totalWeight += weights.get(i);
+                    totalSamples += counts.get(i)[0];
+                }
+            }
+            if (totalSamples == 0 || totalWeight <= 0) {
+                return new double[]{0, 0, estimatedRows > 0 ? 1 : 0};
+            }
+
+            double rate = 0;
+            double variance = 0;
+            for (int i = 0; i < counts.size(); i++) {
+                long samples = counts.get(i)[0];
+                if (samples == 0) {
+                    continue;
+                }
+                double weight = weights.get(i) / totalWeight;
+                double stratumRate = (double) counts.get(i)[1] / samples;
+                rate += weight * stratumRate;
+                variance += weight * weight * stratumRate * (1 - stratumRate) / samples;
+            }
+            double effectiveSamples = variance > 0 ? rate * (1 - rate) / variance : totalSamples;
+            double[] interval = wilsonInterval(rate, effectiveSamples, z);
+            return new double[]{rate, interval[0], interval[1]};
+        }
+    }
+}
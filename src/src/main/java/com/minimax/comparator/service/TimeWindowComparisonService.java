@@ -0,0 +1,250 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.HistoryPage;
+import com.minimax.comparator.model.TimeWindowRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按时间窗口滚动比较
+ * 适用于只追加的大表：按时间列把数据切成对齐的固定长度窗口，每次执行只比较最近结束的窗口，
+ * 已比较过的窗口在结束后第1、2、4、8…个窗口长度时复查一次，以发现迟到的数据；
+ * 存在差异或执行失败的窗口每次执行都复查，直到一致或超出回看范围。
+ * 每个窗口的最近一次结果保存在比较历史中，重启后据此恢复复查进度。
+ * 窗口起止时间作为绑定参数传入，各窗口共用同一查询计划和SQL文本，执行计划按窗口内的行数选择
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@Service
+public class TimeWindowComparisonService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeWindowComparisonService.class);
+
+    private static final int HISTORY_PAGE_SIZE = 1000;
+
+    @Autowired
+    private ComparisonProperties comparisonProperties;
+
+    @Autowired
+    private OptimizedComparisonService optimizedComparisonService;
+
+    @Autowired
+    private ComparisonHistoryStore comparisonHistoryStore;
+
+    /**
+     * 规则名称 -> 窗口开始时间 -> 窗口最近一次比较状态
+     */
+    private final Map<String, NavigableMap<LocalDateTime, WindowState>> windowStates = new ConcurrentHashMap<>();
+
+    /**
+     * 按时间窗口比较单个规则
+     *
+     * @param ruleName 规则名称
+     * @param options 执行选项
+     * @return 本次比较的各窗口结果，窗口开始时间倒序
+     */
+    public List<ComparisonResult> compareWindows(String ruleName, ComparisonOptions options) {
+        return compareWindows(findRule(ruleName), options);
+    }
+
+    /**
+     * 按时间窗口比较单个规则
+     *
+     * @param rule 比较规则
+     * @param options 执行选项
+     * @return 本次比较的各窗口结果，窗口开始时间倒序
+     */
+    public List<ComparisonResult> compareWindows(ComparisonProperties.ComparisonRule rule, ComparisonOptions options) {
+        ComparisonProperties.TimeWindowConfig config = requireConfig(rule);
+        return compareWindows(rule, options, LocalDateTime.now(resolveZone(config)));
+    }
+
+    List<ComparisonResult> compareWindows(ComparisonProperties.ComparisonRule rule, ComparisonOptions options,
+                                          LocalDateTime now) {
+        ComparisonProperties.TimeWindowConfig config = requireConfig(rule);
+        long size = config.getWindowSeconds();
+        int lookback = Math.max(1, config.getLookbackWindows());
+        LocalDateTime currentStart = alignWindowStart(now, size);
+        LocalDateTime earliestStart = currentStart.minusSeconds(size * lookback);
+
+        NavigableMap<LocalDateTime, WindowState> states = windowStates.computeIfAbsent(rule.getName(),
+                name -> loadStates(name, earliestStart));
+        ComparisonProperties.ComparisonRule windowRule = windowRule(rule, config.getTimeColumn());
+        List<ComparisonResult> results = new ArrayList<>();
+        // 同一规则的窗口比较串行执行，避免重复比较同一窗口
+        synchronized (states) {
+            states.headMap(earliestStart, false).clear();
+            for (int i = 1; i <= lookback; i++) {
+                if (config.getMaxWindowsPerRun() > 0 && results.size() >= config.getMaxWindowsPerRun()) {
+                    break;
+                }
+                LocalDateTime windowStart = currentStart.minusSeconds(size * i);
+                LocalDateTime windowEnd = windowStart.plusSeconds(size);
+                WindowState state = states.get(windowStart);
+                if (!isDue(state, windowEnd, now, size)) {
+                    continue;
+                }
+                ComparisonResult result = optimizedComparisonService.performOptimizedComparison(windowRule,
+                        new Object[]{Timestamp.valueOf(windowStart), Timestamp.valueOf(windowEnd)}, options);
+                result.setWindowStart(windowStart);
+                result.setWindowEnd(windowEnd);
+                comparisonHistoryStore.record(result);
+                states.put(windowStart, new WindowState(result.getStatus(), result.getDifferenceCount(), now));
+                results.add(result);
+            }
+        }
+        logger.info("规则 {} 按时间窗口比较完成，本次比较 {} 个窗口", rule.getName(), results.size());
+        return results;
+    }
+
+    /**
+     * 查找规则
+     *
+     * @param ruleName 规则名称
+     * @return 比较规则
+     */
+    public ComparisonProperties.ComparisonRule findRule(String ruleName) {
+        if (comparisonProperties.getRules() != null) {
+            for (ComparisonProperties.ComparisonRule rule : comparisonProperties.getRules()) {
+                if (rule.getName().equals(ruleName)) {
+                    return rule;
+                }
+            }
+        }
+        throw new IllegalArgumentException("未找到规则: " + ruleName);
+    }
+
+    /**
+     * 窗口是否需要比较：从未比较、上次不一致或失败，或距窗口结束的时长跨过了新的2的幂个窗口长度
+     *
+     * @param state 窗口最近一次比较状态，为空表示从未比较
+     * @param windowEnd 窗口结束时间
+     * @param now 当前时间
+     * @param windowSeconds 窗口长度（秒）
+     * @return 是否需要比较
+     */
+    static boolean isDue(WindowState state, LocalDateTime windowEnd, LocalDateTime now, long windowSeconds) {
+        if (state == null || state.status != ComparisonResult.ExecutionStatus.SUCCESS || state.differenceCount > 0) {
+            return true;
+        }
+        return decayLevel(windowsSince(windowEnd, now, windowSeconds))
+                > decayLevel(windowsSince(windowEnd, state.checkedAt, windowSeconds));
+    }
+
+    /**
+     * 把时间对齐到所在窗口的开始时间，窗口从1970-01-01 00:00按窗口长度划分
+     *
+     * @param time 时间
+     * @param windowSeconds 窗口长度（秒）
+     * @return 窗口开始时间
+     */
+    static LocalDateTime alignWindowStart(LocalDateTime time, long windowSeconds) {
+        long epochSecond = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochSecond, windowSeconds) * windowSeconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 复查级别：0个窗口为0，1个为1，2~3个为2，4~7个为3，依此类推
+     */
+    private static int decayLevel(long windows) {
+        return windows <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(windows);
+    }
+
+    private static long windowsSince(LocalDateTime windowEnd, LocalDateTime time, long windowSeconds) {
+        return Math.floorDiv(Duration.between(windowEnd, time).getSeconds(), windowSeconds);
+    }
+
+    /**
+     * 生成按窗口比较的规则副本，时间条件以窗口开始（含）和结束（不含）两个绑定参数追加在原WHERE条件之后
+     */
+    static ComparisonProperties.ComparisonRule windowRule(ComparisonProperties.ComparisonRule rule, String timeColumn) {
+        ComparisonProperties.ComparisonRule copy = new ComparisonProperties.ComparisonRule();
+        copy.setName(rule.getName());
+        copy.setDescription(rule.getDescription());
+        copy.setSourceTable(rule.getSourceTable());
+        copy.setTargetTable(rule.getTargetTable());
+        copy.setCompareField(rule.getCompareField());
+        copy.setKeyField(rule.getKeyField());
+        copy.setEnabled(rule.isEnabled());
+        copy.setPriority(rule.getPriority());
+        copy.setWeight(rule.getWeight());
+        String condition = timeColumn + " >= ? AND " + timeColumn + " < ?";
+        String where = rule.getWhereCondition();
+        copy.setWhereCondition(where == null || where.trim().isEmpty() ? condition : "(" + where + ") AND " + condition);
+        return copy;
+    }
+
+    /**
+     * 从比较历史恢复回看范围内各窗口的最近一次比较状态，历史不可用时从空状态开始
+     */
+    private NavigableMap<LocalDateTime, WindowState> loadStates(String ruleName, LocalDateTime earliestStart) {
+        NavigableMap<LocalDateTime, WindowState> states = new TreeMap<>();
+        if (!comparisonHistoryStore.isEnabled()) {
+            return states;
+        }
+        try {
+            HistoryPage<TimeWindowRecord> page;
+            int index = 0;
+            do {
+                page = comparisonHistoryStore.findWindows(ruleName, earliestStart, null, index++, HISTORY_PAGE_SIZE);
+                for (TimeWindowRecord record : page.getContent()) {
+                    states.put(record.getWindowStart(),
+                            new WindowState(record.getStatus(), record.getDifferenceCount(), record.getCheckedAt()));
+                }
+            } while ((long) index * HISTORY_PAGE_SIZE < page.getTotal());
+            logger.info("已从比较历史恢复规则 {} 的 {} 个时间窗口状态", ruleName, states.size());
+        } catch (Exception e) {
+            logger.warn("读取规则 {} 的时间窗口历史失败，所有窗口将重新比较: {}", ruleName, e.getMessage());
+        }
+        return states;
+    }
+
+    private static ComparisonProperties.TimeWindowConfig requireConfig(ComparisonProperties.ComparisonRule rule) {
+        ComparisonProperties.TimeWindowConfig config = rule.getTimeWindow();
+        if (config == null || config.getTimeColumn() == null || config.getTimeColumn().trim().isEmpty()) {
+            throw new IllegalStateException("规则 " + rule.getName() + " 未配置时间窗口的时间列");
+        }
+        if (config.getWindowSeconds() <= 0) {
+            throw new IllegalStateException("规则 " + rule.getName() + " 的时间窗口长度必须大于0");
+        }
+        return config;
+    }
+
+    private static ZoneId resolveZone(ComparisonProperties.TimeWindowConfig config) {
+        String zone = config.getZone();
+        return zone == null || zone.trim().isEmpty() ? ZoneId.systemDefault() : ZoneId.of(zone.trim());
+    }
+
+    /**
+     * 窗口最近一次比较状态
+     */
+    static final class WindowState {
+        private final ComparisonResult.ExecutionStatus status;
+        private final long differenceCount;
+        private final LocalDateTime checkedAt;
+
+        WindowState(ComparisonResult.ExecutionStatus status, long differenceCount, LocalDateTime checkedAt) {
+            this.status = status;
+            this.differenceCount = differenceCount;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.minimax.comparator.util;
+
+import com.minimax.comparator.model.DifferenceDetail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 差异文件读取器
+ * 以只读方式内存映射差异文件，打开时只解析尾部、字段名字典和块索引。
+ * 分页和按差异类型过滤先用索引中的各块行数跳过无关块，按主键查询用块内最小和最大主键二分定位，
+ * 只解压命中的块。映射在对象被回收后释放，单个文件不超过2GB
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class DifferenceFileReader {
+
+    private static final DifferenceDetail.DifferenceType[] TYPES = DifferenceDetail.DifferenceType.values();
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long rowCount;
+    private final String[] dictionary;
+    private final Block[] blocks;
+
+    private DifferenceFileReader(Path path, MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        if (buffer.capacity() < DifferenceFileWriter.FOOTER_BYTES) {
+            throw new IllegalStateException("差异文件不完整: " + path);
+        }
+        ByteBuffer footer = buffer.duplicate();
+        footer.position(buffer.capacity() - DifferenceFileWriter.FOOTER_BYTES);
+        long dictionaryOffset = footer.getLong();
+        long indexOffset = footer.getLong();
+        this.rowCount = footer.getLong();
+        int blockCount = footer.getInt();
+        int version = footer.getInt();
+        if (footer.getInt() != DifferenceFileWriter.MAGIC || version != DifferenceFileWriter.VERSION) {
+            throw new IllegalStateException("不是可识别的差异文件: " + path);
+        }
+
+        ByteBuffer meta = buffer.duplicate();
+        meta.position((int) dictionaryOffset);
+        this.dictionary = new String[readVarInt(meta)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(meta);
+        }
+        meta.position((int) indexOffset);
+        this.blocks = new Block[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            Block block = new Block();
+            block.offset = meta.getLong();
+            block.length = meta.getInt();
+            block.rows = meta.getInt();
+            block.typeCounts = new int[TYPES.length];
+            for (int t = 0; t < TYPES.length; t++) {
+                block.typeCounts[t] = meta.getInt();
+            }
+            block.minKey = readKey(meta);
+            block.maxKey = readKey(meta);
+            blocks[i] = block;
+        }
+    }
+
+    /**
+     * 打开差异文件
+     *
+     * @param path 文件路径
+     * @return DifferenceFileReader
+     * @throws IOException 读取失败
+     */
+    public static DifferenceFileReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("差异文件超过2GB: " + path);
+            }
+            return new DifferenceFileReader(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 总行数
+     *
+     * @return 行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 某种差异类型的行数，只读取索引
+     *
+     * @param type 差异类型，为null时返回总行数
+     * @return 行数
+     */
+    public long count(DifferenceDetail.DifferenceType type) {
+        if (type == null) {
+            return rowCount;
+        }
+        long count = 0;
+        for (Block block : blocks) {
+            count += block.typeCounts[type.ordinal()];
+        }
+        return count;
+    }
+
+    /**
+     * 按主键顺序分页读取差异
+     *
+     * @param type 差异类型，为null时不过滤
+     * @param offset 跳过的行数（过滤后）
+     * @param limit 最多返回的行数
+     * @return List<DifferenceDetail>
+     */
+    public List<DifferenceDetail> read(DifferenceDetail.DifferenceType type, long offset, int limit) {
+        List<DifferenceDetail> page = new ArrayList<>(Math.min(limit, 1024));
+        long skip = offset;
+        for (Block block : blocks) {
+            if (page.size() >= limit) {
+                break;
+            }
+            int matching = type == null ? block.rows : block.typeCounts[type.ordinal()];
+            if (skip >= matching) {
+                skip -= matching;
+                continue;
+            }
+            for (DifferenceDetail detail : decode(block)) {
+                if (type != null && detail.getType() != type) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else if (page.size() < limit) {
+                    page.add(detail);
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 读取主键在[fromKey, toKey]范围内的差异，只解压最小和最大主键与范围相交的块
+     *
+     * @param fromKey 主键下限（含），为null时不限
+     * @param toKey 主键上限（含），为null时不限
+     * @param limit 最多返回的行数
+     * @return List<DifferenceDetail>
+     */
+    public List<DifferenceDetail> findRange(Object fromKey, Object toKey, int limit) {
+        Object from = fromKey != null ? DifferenceFileWriter.normalizeKey(fromKey) : null;
+        Object to = toKey != null ? DifferenceFileWriter.normalizeKey(toKey) : null;
+        List<DifferenceDetail> matches = new ArrayList<>();
+        for (int i = fromKey != null ? firstBlockEndingAtOrAfter(from) : 0; i < blocks.length; i++) {
+            Block block = blocks[i];
+            if (to != null && DifferenceFileWriter.compareKeys(block.minKey, to) > 0) {
+                break;
+            }
+            for (DifferenceDetail detail : decode(block)) {
+                Object key = detail.getKeyValue();
+                if ((from == null || DifferenceFileWriter.compareKeys(key, from) >= 0)
+                        && (to == null || DifferenceFileWriter.compareKeys(key, to) <= 0)) {
+                    matches.add(detail);
+                    if (matches.size() >= limit) {
+                        return matches;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 按文本形式的主键查询差异：可解析为整数时同时按整数和字符串匹配
+     *
+     * @param key 主键文本
+     * @return List<DifferenceDetail>
+     */
+    public List<DifferenceDetail> findKey(String key) {
+        List<DifferenceDetail> matches = new ArrayList<>(findRange(key, key, Integer.MAX_VALUE));
+        try {
+            Long numericKey = Long.valueOf(key);
+            matches.addAll(findRange(numericKey, numericKey, Integer.MAX_VALUE));
+        } catch (NumberFormatException e) {
+            // 非整数主键只按字符串匹配
+        }
+        return matches;
+    }
+
+    /**
+     * 第一个最大主键不小于key的块，块按主键有序
+     */
+    private int firstBlockEndingAtOrAfter(Object key) {
+        int low = 0;
+        int high = blocks.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (DifferenceFileWriter.compareKeys(blocks[middle].maxKey, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private List<DifferenceDetail> decode(Block block) {
+        ByteBuffer data = ByteBuffer.wrap(inflate(block));
+        Object[] keys = new Object[block.rows];
+        for (int i = 0; i < block.rows; i++) {
+            keys[i] = readKey(data);
+        }
+        byte[] types = new byte[block.rows];
+        data.get(types);
+        int[] fields = new int[block.rows];
+        for (int i = 0; i < block.rows; i++) {
+            fields[i] = readVarInt(data);
+        }
+        String[] sourceValues = new String[block.rows];
+        for (int i = 0; i < block.rows; i++) {
+            sourceValues[i] = readNullableString(data);
+        }
+        List<DifferenceDetail> details = new ArrayList<>(block.rows);
+        for (int i = 0; i < block.rows; i++) {
+            String fieldName = dictionary[fields[i]];
+            details.add(new DifferenceDetail(keys[i], TYPES[types[i]], sourceValues[i], readNullableString(data),
+                    fieldName.isEmpty() ? null : fieldName));
+        }
+        return details;
+    }
+
+    private byte[] inflate(Block block) {
+        byte[] compressed = new byte[block.length];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) block.offset);
+        slice.get(compressed);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] chunk = new byte[Math.max(1024, block.length * 4)];
+            ByteArrayOutputStream data = new ByteArrayOutputStream(chunk.length);
+            while (!inflater.finished()) {
+                int length = inflater.inflate(chunk);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("差异文件数据块损坏: " + path);
+                }
+                data.write(chunk, 0, length);
+            }
+            return data.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("差异文件数据块损坏: " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static Object readKey(ByteBuffer data) {
+        byte tag = data.get();
+        if (tag == DifferenceFileWriter.KEY_LONG) {
+            return data.getLong();
+        }
+        return tag == DifferenceFileWriter.KEY_STRING ? readString(data) : null;
+    }
+
+    private static String readNullableString(ByteBuffer data) {
+        int length = readVarInt(data);
+        if (length == 0) {
+            return null;
+        }
+        return readBytes(data, length - 1);
+    }
+
+    private static String readString(ByteBuffer data) {
+        return readBytes(data, readVarInt(data));
+    }
+
+    private static String readBytes(ByteBuffer data, int length) {
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readVarInt(ByteBuffer data) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 块索引项
+     */
+    private static final class Block {
+        private long offset;
+        private int length;
+        private int rows;
+        private int[] typeCounts;
+        private Object minKey;
+        private Object maxKey;
+    }
+}
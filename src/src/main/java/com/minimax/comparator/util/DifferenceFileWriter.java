@@ -0,0 +1,270 @@
+package com.minimax.comparator.util;
+
+import com.minimax.comparator.model.DifferenceDetail;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * 差异文件写入器
+ * 差异按主键排序后分块按列存储，每块依次为主键列、差异类型列、字段名字典编号列、源值列和目标值列，整块Deflate压缩。
+ * 文件末尾依次为字段名字典、块索引（偏移、长度、行数、各差异类型行数、块内最小和最大主键）和定长尾部，
+ * 读取时只需解析尾部和索引即可按行号、差异类型或主键范围定位到块
+ *
+ * <pre>
+ * 块 * N | 字典 | 索引 | 尾部：字典偏移(8) 索引偏移(8) 总行数(8) 块数(4) 版本(4) 魔数(4)
+ * </pre>
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class DifferenceFileWriter {
+
+    static final int MAGIC = 0x43444631;
+
+    static final int VERSION = 1;
+
+    static final int FOOTER_BYTES = 8 + 8 + 8 + 4 + 4 + 4;
+
+    static final byte KEY_NULL = 0;
+
+    static final byte KEY_LONG = 1;
+
+    static final byte KEY_STRING = 2;
+
+    private DifferenceFileWriter() {
+    }
+
+    /**
+     * 写入差异文件。先写临时文件再改名，读取方不会看到写了一半的文件
+     *
+     * @param path 文件路径
+     * @param differences 差异列表，不修改
+     * @param blockRows 每块行数
+     * @throws IOException 写入失败
+     */
+    public static void write(Path path, List<DifferenceDetail> differences, int blockRows) throws IOException {
+        List<Row> rows = new ArrayList<>(differences.size());
+        for (DifferenceDetail detail : differences) {
+            rows.add(new Row(normalizeKey(detail.getKeyValue()), detail));
+        }
+        rows.sort((left, right) -> compareKeys(left.key, right.key));
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        ByteArrayOutputStream index = new ByteArrayOutputStream();
+        DataOutputStream indexOut = new DataOutputStream(index);
+        int rowsPerBlock = Math.max(1, blockRows);
+        int blockCount = 0;
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (CountingOutputStream file = new CountingOutputStream(Files.newOutputStream(temp))) {
+            for (int start = 0; start < rows.size(); start += rowsPerBlock) {
+                List<Row> block = rows.subList(start, Math.min(rows.size(), start + rowsPerBlock));
+                long offset = file.count;
+                int[] typeCounts = new int[DifferenceDetail.DifferenceType.values().length];
+                byte[] compressed = compress(deflater, encodeBlock(block, dictionary, typeCounts));
+                file.write(compressed);
+
+                indexOut.writeLong(offset);
+                indexOut.writeInt(compressed.length);
+                indexOut.writeInt(block.size());
+                for (int count : typeCounts) {
+                    indexOut.writeInt(count);
+                }
+                writeKey(indexOut, block.get(0).key);
+                writeKey(indexOut, block.get(block.size() - 1).key);
+                blockCount++;
+            }
+
+            long dictionaryOffset = file.count;
+            DataOutputStream out = new DataOutputStream(file);
+            writeVarInt(out, dictionary.size());
+            for (String fieldName : dictionary.keySet()) {
+                writeString(out, fieldName);
+            }
+            out.flush();
+            long indexOffset = file.count;
+            index.writeTo(file);
+
+            out.writeLong(dictionaryOffset);
+            out.writeLong(indexOffset);
+            out.writeLong(rows.size());
+            out.writeInt(blockCount);
+            out.writeInt(VERSION);
+            out.writeInt(MAGIC);
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 将主键统一为Long或String：可无损表示为long的整数值存为Long，其余按字符串存储
+     *
+     * @param key 主键值
+     * @return Long、String或null
+     */
+    static Object normalizeKey(Object key) {
+        if (key == null || key instanceof Long || key instanceof String) {
+            return key;
+        }
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        if (key instanceof BigInteger && ((BigInteger) key).bitLength() < 64) {
+            return ((BigInteger) key).longValue();
+        }
+        if (key instanceof BigDecimal) {
+            try {
+                return ((BigDecimal) key).longValueExact();
+            } catch (ArithmeticException e) {
+                return ((BigDecimal) key).toPlainString();
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * 主键排序：null在前，整数按数值，整数在字符串之前，字符串按字典序
+     */
+    static int compareKeys(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        if (left instanceof Long && right instanceof Long) {
+            return Long.compare((Long) left, (Long) right);
+        }
+        if (left instanceof Long || right instanceof Long) {
+            return left instanceof Long ? -1 : 1;
+        }
+        return ((String) left).compareTo((String) right);
+    }
+
+    private static byte[] encodeBlock(List<Row> block, Map<String, Integer> dictionary, int[] typeCounts)
+            throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(block.size() * 32);
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (Row row : block) {
+            writeKey(out, row.key);
+        }
+        for (Row row : block) {
+            int ordinal = row.detail.getType().ordinal();
+            out.writeByte(ordinal);
+            typeCounts[ordinal]++;
+        }
+        for (Row row : block) {
+            String fieldName = row.detail.getFieldName() != null ? row.detail.getFieldName() : "";
+            writeVarInt(out, dictionary.computeIfAbsent(fieldName, name -> dictionary.size()));
+        }
+        for (Row row : block) {
+            writeNullableString(out, row.detail.getSourceValue());
+        }
+        for (Row row : block) {
+            writeNullableString(out, row.detail.getTargetValue());
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] data) {
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(chunk);
+            compressed.write(chunk, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    static void writeKey(DataOutputStream out, Object key) throws IOException {
+        if (key == null) {
+            out.writeByte(KEY_NULL);
+        } else if (key instanceof Long) {
+            out.writeByte(KEY_LONG);
+            out.writeLong((Long) key);
+        } else {
+            out.writeByte(KEY_STRING);
+            writeString(out, (String) key);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * 排序用的差异行
+     */
+    private static final class Row {
+        private final Object key;
+        private final DifferenceDetail detail;
+
+        Row(Object key, DifferenceDetail detail) {
+            this.key = key;
+            this.detail = detail;
+        }
+    }
+
+    /**
+     * 记录已写入字节数的输出流，用于计算块偏移
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(new BufferedOutputStream(out, 64 * 1024));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
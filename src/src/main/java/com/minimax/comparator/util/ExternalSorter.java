@@ -0,0 +1,495 @@
+package com.minimax.comparator.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * 外部排序器
+ * 按任意顺序写入主键和值，内存中累计到指定行数后排序写出一个有序段文件，读取时多路归并各段按主键升序返回。
+ * 段文件使用带类型标记的二进制编码，只在本机临时目录中保存，关闭时删除。全部数据不超过一段时不写磁盘。
+ * 写入时先把值转换为可无损编码的规范类型，内存中的最后一段与磁盘段的值类型一致，归并顺序和值比较不受是否落盘影响
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class ExternalSorter implements Closeable {
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INTEGER = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte DECIMAL = 4;
+    private static final byte BIG_INTEGER = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte STRING = 7;
+    private static final byte BYTES = 8;
+    private static final byte DATE = 9;
+    private static final byte TIME = 10;
+    private static final byte DATE_TIME = 11;
+    private static final byte TIMESTAMP = 12;
+    private static final byte ROW = 13;
+    private static final byte SQL_DATE = 14;
+    private static final byte SQL_TIME = 15;
+    private static final byte UUID_VALUE = 16;
+    private static final byte OFFSET_DATE_TIME = 17;
+
+    private final Path directory;
+    private final int runRows;
+    private final Comparator<Object> keyComparator;
+    private final Comparator<Object[]> rowComparator;
+    private final List<Path> runs = new ArrayList<>();
+    private Object[][] buffer;
+    private int buffered;
+    private long rowCount;
+    private final List<FileRows> openFiles = new ArrayList<>();
+
+    /**
+     * @param directory 段文件目录，须已存在
+     * @param runRows 每段最多在内存中排序的行数
+     * @param keyComparator 主键排序规则
+     */
+    public ExternalSorter(Path directory, int runRows, Comparator<Object> keyComparator) {
+        this.directory = directory;
+        this.runRows = Math.max(1, runRows);
+        this.keyComparator = keyComparator;
+        this.rowComparator = (left, right) -> keyComparator.compare(left[0], right[0]);
+        this.buffer = new Object[Math.min(this.runRows, 1024)][];
+    }
+
+    /**
+     * 写入一行
+     *
+     * @param key 主键值
+     * @param value 比较字段值
+     * @throws IOException 写出有序段失败
+     */
+    public void add(Object key, Object value) throws IOException {
+        if (buffered == buffer.length) {
+            if (buffered >= runRows) {
+                spill();
+            } else {
+                buffer = Arrays.copyOf(buffer, Math.min(runRows, buffer.length * 2));
+            }
+        }
+        buffer[buffered++] = new Object[]{canonical(key), canonical(value)};
+        rowCount++;
+    }
+
+    /**
+     * 转换为段文件可无损往返的类型：Short、Byte转为Integer，Float转为Double，java.util.Date转为Timestamp，
+     * Character及其他没有类型标记的值转为字符串
+     *
+     * @param value 原始值
+     * @return 规范类型的值
+     */
+    static Object canonical(Object value) {
+        if (value == null || value instanceof Long || value instanceof Integer || value instanceof Double
+                || value instanceof BigDecimal || value instanceof BigInteger || value instanceof Boolean
+                || value instanceof String || value instanceof byte[] || value instanceof LocalDate
+                || value instanceof LocalTime || value instanceof LocalDateTime || value instanceof OffsetDateTime
+                || value instanceof java.sql.Timestamp || value instanceof java.sql.Date
+                || value instanceof java.sql.Time || value instanceof UUID) {
+            return value;
+        }
+        if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof java.util.Date) {
+            return new java.sql.Timestamp(((java.util.Date) value).getTime());
+        }
+        if (value instanceof Object[]) {
+            Object[] row = (Object[]) value;
+            Object[] converted = new Object[row.length];
+            for (int i = 0; i < row.length; i++) {
+                converted[i] = canonical(row[i]);
+            }
+            return converted;
+        }
+        return value.toString();
+    }
+
+    /**
+     * 已写入的行数
+     *
+     * @return 行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 写出到磁盘的有序段数
+     *
+     * @return 段数
+     */
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    /**
+     * 结束写入，按主键升序读取全部行
+     *
+     * @return 有序读取游标
+     * @throws IOException 读取有序段失败
+     */
+    public SortedRows finish() throws IOException {
+        Arrays.sort(buffer, 0, buffered, rowComparator);
+        if (runs.isEmpty()) {
+            return new MemoryRows(buffer, buffered);
+        }
+        PriorityQueue<RunReader> heads = new PriorityQueue<>((left, right) -> {
+            int order = keyComparator.compare(left.key, right.key);
+            return order != 0 ? order : Integer.compare(left.index, right.index);
+        });
+        RunReader memory = new RunReader(runs.size(), new MemoryRows(buffer, buffered));
+        if (memory.advance()) {
+            heads.add(memory);
+        }
+        for (int i = 0; i < runs.size(); i++) {
+            FileRows file = new FileRows(runs.get(i));
+            openFiles.add(file);
+            RunReader reader = new RunReader(i, file);
+            if (reader.advance()) {
+                heads.add(reader);
+            }
+        }
+        return new MergedRows(heads);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (FileRows file : openFiles) {
+            file.close();
+        }
+        openFiles.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        buffer = null;
+    }
+
+    private void spill() throws IOException {
+        Arrays.sort(buffer, 0, buffered, rowComparator);
+        Path run = Files.createTempFile(directory, "run-", ".bin");
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 64 * 1024))) {
+            for (int i = 0; i < buffered; i++) {
+                writeValue(out, buffer[i][0]);
+                writeValue(out, buffer[i][1]);
+                buffer[i] = null;
+            }
+        }
+        buffered = 0;
+    }
+
+    static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INTEGER);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else if (value instanceof LocalDate) {
+            out.writeByte(DATE);
+            out.writeLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalTime) {
+            out.writeByte(TIME);
+            out.writeLong(((LocalTime) value).toNanoOfDay());
+        } else if (value instanceof LocalDateTime) {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            out.writeByte(DATE_TIME);
+            out.writeLong(dateTime.toLocalDate().toEpochDay());
+            out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+        } else if (value instanceof java.sql.Timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((java.sql.Timestamp) value).getTime());
+            out.writeInt(((java.sql.Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte(SQL_DATE);
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof java.sql.Time) {
+            out.writeByte(SQL_TIME);
+            out.writeLong(((java.sql.Time) value).getTime());
+        } else if (value instanceof OffsetDateTime) {
+            OffsetDateTime dateTime = (OffsetDateTime) value;
+            out.writeByte(OFFSET_DATE_TIME);
+            out.writeLong(dateTime.toLocalDate().toEpochDay());
+            out.writeLong(dateTime.toLocalTime().toNanoOfDay());
+            out.writeInt(dateTime.getOffset().getTotalSeconds());
+        } else if (value instanceof UUID) {
+            out.writeByte(UUID_VALUE);
+            out.writeLong(((UUID) value).getMostSignificantBits());
+            out.writeLong(((UUID) value).getLeastSignificantBits());
+        } else if (value instanceof Object[]) {
+            // 多列值（共享扫描时一行的各比较字段）
+            Object[] row = (Object[]) value;
+            out.writeByte(ROW);
+            out.writeInt(row.length);
+            for (Object column : row) {
+                writeValue(out, column);
+            }
+        } else {
+            // 字符串；其他类型应先经过canonical转换为字符串
+            out.writeByte(STRING);
+            writeBytes(out, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case LONG:
+                return in.readLong();
+            case INTEGER:
+                return in.readInt();
+            case DOUBLE:
+                return in.readDouble();
+            case DECIMAL: {
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            }
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case BOOLEAN:
+                return in.readBoolean();
+            case BYTES:
+                return readBytes(in);
+            case DATE:
+                return LocalDate.ofEpochDay(in.readLong());
+            case TIME:
+                return LocalTime.ofNanoOfDay(in.readLong());
+            case DATE_TIME:
+                return LocalDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()));
+            case TIMESTAMP: {
+                java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            }
+            case SQL_DATE:
+                return new java.sql.Date(in.readLong());
+            case SQL_TIME:
+                return new java.sql.Time(in.readLong());
+            case OFFSET_DATE_TIME:
+                return OffsetDateTime.of(LocalDate.ofEpochDay(in.readLong()), LocalTime.ofNanoOfDay(in.readLong()),
+                        ZoneOffset.ofTotalSeconds(in.readInt()));
+            case UUID_VALUE:
+                return new UUID(in.readLong(), in.readLong());
+            case STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case ROW: {
+                Object[] row = new Object[in.readInt()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = readValue(in);
+                }
+                return row;
+            }
+            default:
+                throw new IOException("外部排序段文件损坏，未知类型标记: " + tag);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * 按主键升序读取的游标
+     */
+    public interface SortedRows {
+
+        /**
+         * 移动到下一行
+         *
+         * @return 是否还有数据
+         * @throws IOException 读取失败
+         */
+        boolean next() throws IOException;
+
+        Object key();
+
+        Object value();
+    }
+
+    /**
+     * 内存中已排序的最后一段
+     */
+    private static final class MemoryRows implements SortedRows {
+        private final Object[][] rows;
+        private final int size;
+        private int position = -1;
+
+        MemoryRows(Object[][] rows, int size) {
+            this.rows = rows;
+            this.size = size;
+        }
+
+        @Override
+        public boolean next() {
+            return ++position < size;
+        }
+
+        @Override
+        public Object key() {
+            return rows[position][0];
+        }
+
+        @Override
+        public Object value() {
+            return rows[position][1];
+        }
+    }
+
+    /**
+     * 磁盘上的一个有序段
+     */
+    private static final class FileRows implements SortedRows, Closeable {
+        private final DataInputStream in;
+        private Object key;
+        private Object value;
+
+        FileRows(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 64 * 1024));
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            try {
+                key = readValue(in);
+            } catch (EOFException e) {
+                return false;
+            }
+            value = readValue(in);
+            return true;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+        @Override
+        public Object value() {
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * 归并堆中的一段及其当前行
+     */
+    private static final class RunReader {
+        private final int index;
+        private final SortedRows rows;
+        private Object key;
+        private Object value;
+
+        RunReader(int index, SortedRows rows) {
+            this.index = index;
+            this.rows = rows;
+        }
+
+        boolean advance() throws IOException {
+            if (!rows.next()) {
+                return false;
+            }
+            key = rows.key();
+            value = rows.value();
+            return true;
+        }
+    }
+
+    /**
+     * 多路归并游标，每次取出主键最小的一段的当前行
+     */
+    private static final class MergedRows implements SortedRows {
+        private final PriorityQueue<RunReader> heads;
+        private RunReader current;
+        private Object key;
+        private Object value;
+
+        MergedRows(PriorityQueue<RunReader> heads) {
+            this.heads = heads;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (current != null && current.advance()) {
+                heads.add(current);
+            }
+            current = heads.poll();
+            if (current == null) {
+                return false;
+            }
+            key = current.key;
+            value = current.value;
+            return true;
+        }
+
+        @Override
+        public Object key() {
+            return key;
+        }
+
+        @Override
+        public Object value() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.minimax.comparator.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 哈希分区器
+ * 按主键哈希把任意顺序写入的主键和值分散到固定数量的分区文件，之后可逐个分区读回内存。
+ * 源表和目标表使用相同分区数时，同一主键必定落在编号相同的分区，各分区对可以独立比较。
+ * 分区文件使用与 {@link ExternalSorter} 相同的带类型标记二进制编码，经带缓冲的文件通道顺序写入，关闭时删除
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class HashPartitioner implements Closeable {
+
+    private static final int WRITE_BUFFER_BYTES = 32 * 1024;
+
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final String name;
+    private final Path[] files;
+    private final DataOutputStream[] writers;
+    private final long[] rowCounts;
+    private long rowCount;
+
+    /**
+     * @param directory 分区文件目录，须已存在
+     * @param name 分区文件名前缀，同一目录中的多个分区器须不同
+     * @param partitions 分区数
+     */
+    public HashPartitioner(Path directory, String name, int partitions) {
+        this.directory = directory;
+        this.name = name;
+        int count = Math.max(1, partitions);
+        this.files = new Path[count];
+        this.writers = new DataOutputStream[count];
+        this.rowCounts = new long[count];
+    }
+
+    /**
+     * 计算主键所在分区，主键须已规范化（见 {@link ValueComparator#canonicalKey}）
+     *
+     * @param key 主键值
+     * @param partitions 分区数
+     * @return 分区编号
+     */
+    public static int partitionOf(Object key, int partitions) {
+        int hash = key == null ? 0 : key instanceof byte[] ? Arrays.hashCode((byte[]) key) : key.hashCode();
+        // 混合高位，避免连续整数主键只用到低位
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return Math.floorMod(hash, partitions);
+    }
+
+    /**
+     * 写入一行
+     *
+     * @param key 主键值
+     * @param value 比较字段值
+     * @throws IOException 写入分区文件失败
+     */
+    public void add(Object key, Object value) throws IOException {
+        int partition = partitionOf(key, files.length);
+        DataOutputStream writer = writers[partition];
+        if (writer == null) {
+            // 分区文件在首次写入时创建，空分区不占用文件
+            files[partition] = directory.resolve(name + "-" + partition + ".bin");
+            FileChannel channel = FileChannel.open(files[partition], StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            writer = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), WRITE_BUFFER_BYTES));
+            writers[partition] = writer;
+        }
+        ExternalSorter.writeValue(writer, key);
+        ExternalSorter.writeValue(writer, value);
+        rowCounts[partition]++;
+        rowCount++;
+    }
+
+    /**
+     * 结束写入，刷出并关闭全部分区文件
+     *
+     * @throws IOException 写入分区文件失败
+     */
+    public void finish() throws IOException {
+        for (int i = 0; i < writers.length; i++) {
+            if (writers[i] != null) {
+                writers[i].close();
+                writers[i] = null;
+            }
+        }
+    }
+
+    public int getPartitionCount() {
+        return files.length;
+    }
+
+    /**
+     * 已写入的行数
+     *
+     * @return 行数
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 分区的行数
+     *
+     * @param partition 分区编号
+     * @return 行数
+     */
+    public long getRowCount(int partition) {
+        return rowCounts[partition];
+    }
+
+    /**
+     * 把一个分区读入内存，主键重复时保留后写入的值。须在 {@link #finish()} 之后调用，不同分区可并发读取
+     *
+     * @param partition 分区编号
+     * @return 主键到比较字段值的映射
+     * @throws IOException 读取分区文件失败
+     */
+    public Map<Object, Object> load(int partition) throws IOException {
+        Map<Object, Object> rows = new HashMap<>((int) Math.min(Integer.MAX_VALUE / 2, rowCounts[partition] * 4 / 3 + 1));
+        Path file = files[partition];
+        if (file == null) {
+            return rows;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)), READ_BUFFER_BYTES))) {
+            while (true) {
+                Object key;
+                try {
+                    key = ExternalSorter.readValue(in);
+                } catch (EOFException e) {
+                    break;
+                }
+                rows.put(key, ExternalSorter.readValue(in));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 删除一个已比较完的分区文件，尽早释放磁盘空间
+     *
+     * @param partition 分区编号
+     * @throws IOException 删除失败
+     */
+    public void delete(int partition) throws IOException {
+        if (files[partition] != null) {
+            Files.deleteIfExists(files[partition]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < files.length; i++) {
+            try {
+                if (writers[i] != null) {
+                    writers[i].close();
+                    writers[i] = null;
+                }
+                if (files[i] != null) {
+                    Files.deleteIfExists(files[i]);
+                    files[i] = null;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
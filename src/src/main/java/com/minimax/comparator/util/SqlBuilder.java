@@ -3,6 +3,9 @@ package com.minimax.comparator.util;
 import com.minimax.comparator.config.ComparisonProperties;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * SQL构建工具类
  * 提供灵活的SQL构建功能
@@ -23,9 +26,23 @@ public class SqlBuilder {
     public static String buildSelectSql(ComparisonProperties.TableConfig tableConfig, 
                                        String selectFields, 
                                        String whereCondition) {
+        return buildSelectSql(tableConfig.getFullTableName(), selectFields, whereCondition);
+    }
+
+    /**
+     * 构建基础查询SQL
+     * 
+     * @param tableReference FROM子句中的表引用，如表名或只读取一个分区的表引用
+     * @param selectFields 选择字段
+     * @param whereCondition WHERE条件
+     * @return SQL语句
+     */
+    public static String buildSelectSql(String tableReference,
+                                       String selectFields,
+                                       String whereCondition) {
         StringBuilder sql = new StringBuilder();
         sql.append("SELECT ").append(selectFields);
-        sql.append(" FROM ").append(tableConfig.getFullTableName());
+        sql.append(" FROM ").append(tableReference);
         
         if (StringUtils.isNotBlank(whereCondition)) {
             sql.append(" WHERE ").append(whereCondition);
@@ -37,6 +54,9 @@ public class SqlBuilder {
     /**
      * 构建分页查询SQL
      * 
+     * @deprecated 偏移量和数量直接拼接在SQL中，每页SQL文本不同，数据库需重复硬解析且无法命中语句缓存；
+     *             按主键顺序读取时使用 {@link #buildKeysetSelectSql}
+     * 
      * @param tableConfig 表配置
      * @param selectFields 选择字段
      * @param whereCondition WHERE条件
@@ -46,6 +66,7 @@ public class SqlBuilder {
      * @param databaseType 数据库类型
      * @return SQL语句
      */
+    @Deprecated
     public static String buildPagedSelectSql(ComparisonProperties.TableConfig tableConfig,
                                            String selectFields,
                                            String whereCondition,
@@ -86,6 +107,70 @@ public class SqlBuilder {
         return sql.toString();
     }
 
+    /**
+     * 构建键集分页查询SQL：按主键排序，从上一页最后一个主键之后开始读取，避免偏移分页逐页扫描被跳过的行
+     * 参数依次为上一页最后一个主键（afterKey为true时）和行数
+     * 
+     * @param tableConfig 表配置
+     * @param selectFields 选择字段
+     * @param whereCondition WHERE条件
+     * @param keyField 主键字段
+     * @param afterKey 是否带起始主键条件（第一页为false）
+     * @param dialect SQL方言
+     * @return SQL语句
+     */
+    public static String buildKeysetSelectSql(ComparisonProperties.TableConfig tableConfig,
+                                            String selectFields,
+                                            String whereCondition,
+                                            String keyField,
+                                            boolean afterKey,
+                                            SqlDialect dialect) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT ").append(selectFields);
+        sql.append(" FROM ").append(tableConfig.getFullTableName());
+        
+        if (afterKey) {
+            sql.append(" WHERE ").append(keyField).append(" > ?");
+            if (StringUtils.isNotBlank(whereCondition)) {
+                sql.append(" AND (").append(whereCondition).append(")");
+            }
+        } else if (StringUtils.isNotBlank(whereCondition)) {
+            sql.append(" WHERE ").append(whereCondition);
+        }
+        
+        sql.append(" ORDER BY ").append(keyField);
+        return dialect.limit(sql.toString());
+    }
+
+    /**
+     * 构建按主键列表查询的SQL，使用keyCount个绑定参数
+     * 
+     * @param tableConfig 表配置
+     * @param selectFields 选择字段
+     * @param keyField 主键字段
+     * @param whereCondition WHERE条件
+     * @param keyCount 主键个数
+     * @param dialect SQL方言
+     * @return SQL语句
+     */
+    public static String buildKeyLookupSql(ComparisonProperties.TableConfig tableConfig,
+                                         String selectFields,
+                                         String keyField,
+                                         String whereCondition,
+                                         int keyCount,
+                                         SqlDialect dialect) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT ").append(selectFields);
+        sql.append(" FROM ").append(tableConfig.getFullTableName());
+        sql.append(" WHERE ").append(dialect.keyLookupCondition(keyField, keyCount));
+        
+        if (StringUtils.isNotBlank(whereCondition)) {
+            sql.append(" AND (").append(whereCondition).append(")");
+        }
+        
+        return sql.toString();
+    }
+
     /**
      * 构建计数SQL
      * 
@@ -105,14 +190,277 @@ public class SqlBuilder {
         return sql.toString();
     }
 
+    /**
+     * 构建按主键排序的查询SQL
+     * 
+     * @param tableConfig 表配置
+     * @param selectFields 选择字段
+     * @param whereCondition WHERE条件
+     * @param keyField 排序主键字段
+     * @return SQL语句
+     */
+    public static String buildOrderedSelectSql(ComparisonProperties.TableConfig tableConfig,
+                                             String selectFields,
+                                             String whereCondition,
+                                             String keyField) {
+        return buildSelectSql(tableConfig, selectFields, whereCondition) + " ORDER BY " + keyField;
+    }
+
+    /**
+     * 构建主键范围查询SQL，范围为下界闭、上界开的区间，使用两个绑定参数
+     * 
+     * @param tableConfig 表配置
+     * @param selectFields 选择字段
+     * @param whereCondition WHERE条件
+     * @param keyField 主键字段
+     * @return SQL语句
+     */
+    public static String buildRangeSelectSql(ComparisonProperties.TableConfig tableConfig,
+                                           String selectFields,
+                                           String whereCondition,
+                                           String keyField) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT ").append(selectFields);
+        sql.append(" FROM ").append(tableConfig.getFullTableName());
+        sql.append(" WHERE ").append(keyField).append(" >= ? AND ").append(keyField).append(" < ?");
+        
+        if (StringUtils.isNotBlank(whereCondition)) {
+            sql.append(" AND (").append(whereCondition).append(")");
+        }
+        
+        return sql.toString();
+    }
+
+    /**
+     * 构建主键上下界查询SQL
+     * 
+     * @param tableConfig 表配置
+     * @param keyField 主键字段
+     * @param whereCondition WHERE条件
+     * @return SQL语句
+     */
+    public static String buildKeyBoundsSql(ComparisonProperties.TableConfig tableConfig,
+                                         String keyField,
+                                         String whereCondition) {
+        return buildSelectSql(tableConfig, "MIN(" + keyField + "), MAX(" + keyField + ")", whereCondition);
+    }
+
+    /**
+     * 构建抽样查询SQL
+     * 方言支持数据块抽样时追加抽样子句，否则按主键哈希取模抽样（参数为模数和余数）；
+     * 分层抽样时追加主键范围条件（参数为下界和上界），最后一个参数为行数上限
+     *
+     * @param tableConfig 表配置
+     * @param selectFields 选择字段
+     * @param whereCondition WHERE条件
+     * @param keyField 主键字段
+     * @param percent 抽样百分比
+     * @param keyRange 是否限定主键范围
+     * @param dialect SQL方言
+     * @return SQL语句，方言既不支持数据块抽样也不支持主键哈希时返回null
+     */
+    public static String buildSampleSql(ComparisonProperties.TableConfig tableConfig,
+                                      String selectFields,
+                                      String whereCondition,
+                                      String keyField,
+                                      double percent,
+                                      boolean keyRange,
+                                      SqlDialect dialect) {
+        boolean blockSampling = dialect.usesBlockSampling(percent);
+        String keyHash = dialect.keyHash(keyField);
+        if (!blockSampling && keyHash == null) {
+            return null;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT ").append(selectFields);
+        sql.append(" FROM ").append(tableConfig.getFullTableName());
+        if (blockSampling) {
+            sql.append(" ").append(dialect.tableSampleClause(percent));
+        }
+
+        List<String> conditions = new ArrayList<>();
+        if (!blockSampling) {
+            conditions.add("MOD(" + keyHash + ", ?) = ?");
+        }
+        if (keyRange) {
+            conditions.add(keyField + " >= ? AND " + keyField + " < ?");
+        }
+        if (StringUtils.isNotBlank(whereCondition)) {
+            conditions.add("(" + whereCondition + ")");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+
+        // SQL Server的OFFSET/FETCH要求ORDER BY
+        sql.append(" ORDER BY ").append(keyField);
+        return dialect.limit(sql.toString());
+    }
+
+    /**
+     * 构建校验和SQL，返回记录数和主键、比较字段的哈希之和
+     * 不同数据库的哈希函数不同，只有同类型数据库之间的结果可比
+     * 
+     * @param tableConfig 表配置
+     * @param keyField 主键字段
+     * @param compareField 比较字段
+     * @param whereCondition WHERE条件
+     * @param dialect SQL方言
+     * @return SQL语句，不支持的数据库返回null
+     */
+    public static String buildChecksumSql(ComparisonProperties.TableConfig tableConfig,
+                                        String keyField,
+                                        String compareField,
+                                        String whereCondition,
+                                        SqlDialect dialect) {
+        String aggregate = dialect.checksumAggregate(keyField, compareField);
+        return aggregate != null ? buildSelectSql(tableConfig, aggregate, whereCondition) : null;
+    }
+
+    /**
+     * 构建表统计信息SQL，从数据库目录读取近似行数和平均行长度，避免COUNT(*)全表扫描
+     * 参数顺序见 {@link #buildCatalogParameters}
+     * 
+     * @param tableConfig 表配置
+     * @param databaseType 数据库类型
+     * @return SQL语句，不支持的数据库返回null
+     */
+    public static String buildTableStatisticsSql(ComparisonProperties.TableConfig tableConfig,
+                                               DatabaseType databaseType) {
+        switch (databaseType) {
+            case MYSQL:
+                return "SELECT TABLE_ROWS, AVG_ROW_LENGTH FROM information_schema.TABLES " +
+                        "WHERE " + schemaPredicate("TABLE_SCHEMA", tableConfig, "DATABASE()") + " AND TABLE_NAME = ?";
+            case POSTGRESQL:
+                return "SELECT c.reltuples::bigint, " +
+                        "CASE WHEN c.reltuples > 0 THEN (pg_relation_size(c.oid) / c.reltuples)::bigint ELSE 0 END " +
+                        "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                        "WHERE " + schemaPredicate("n.nspname", tableConfig, "current_schema()") + " AND c.relname = ?";
+            case ORACLE:
+                return "SELECT NUM_ROWS, AVG_ROW_LEN FROM ALL_TABLES " +
+                        "WHERE " + schemaPredicate("OWNER", tableConfig, "USER") + " AND TABLE_NAME = ?";
+            case SQL_SERVER:
+                return "SELECT SUM(row_count), " +
+                        "CASE WHEN SUM(row_count) > 0 THEN SUM(used_page_count) * 8192 / SUM(row_count) ELSE 0 END " +
+                        "FROM sys.dm_db_partition_stats WHERE object_id = OBJECT_ID(?) AND index_id IN (0, 1)";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 构建原生分区列表SQL，按分区顺序返回分区名、近似行数、边界定义和表引用（后两列可能为NULL）
+     * 参数顺序见 {@link #buildCatalogParameters}
+     * 
+     * @param tableConfig 表配置
+     * @param databaseType 数据库类型
+     * @return SQL语句，不支持按分区读取的数据库返回null
+     */
+    public static String buildPartitionListSql(ComparisonProperties.TableConfig tableConfig,
+                                             DatabaseType databaseType) {
+        switch (databaseType) {
+            case MYSQL:
+                // 有子分区时每个子分区一行，按分区汇总
+                return "SELECT PARTITION_NAME, SUM(TABLE_ROWS), MIN(PARTITION_DESCRIPTION), NULL " +
+                        "FROM information_schema.PARTITIONS " +
+                        "WHERE " + schemaPredicate("TABLE_SCHEMA", tableConfig, "DATABASE()") + " AND TABLE_NAME = ? " +
+                        "AND PARTITION_NAME IS NOT NULL " +
+                        "GROUP BY PARTITION_NAME, PARTITION_ORDINAL_POSITION ORDER BY PARTITION_ORDINAL_POSITION";
+            case POSTGRESQL:
+                // 声明式分区的每个分区是独立的子表，可以直接查询
+                return "SELECT c.relname, GREATEST(c.reltuples, 0)::bigint, pg_get_expr(c.relpartbound, c.oid), " +
+                        "cn.nspname || '.' || c.relname " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_namespace cn ON cn.oid = c.relnamespace " +
+                        "JOIN pg_class p ON p.oid = i.inhparent JOIN pg_namespace n ON n.oid = p.relnamespace " +
+                        "WHERE " + schemaPredicate("n.nspname", tableConfig, "current_schema()") + " AND p.relname = ? " +
+                        "ORDER BY c.relname";
+            case ORACLE:
+                // HIGH_VALUE为LONG类型，不读取边界
+                return "SELECT PARTITION_NAME, NUM_ROWS, NULL, NULL FROM ALL_TAB_PARTITIONS " +
+                        "WHERE " + schemaPredicate("TABLE_OWNER", tableConfig, "USER") + " AND TABLE_NAME = ? " +
+                        "ORDER BY PARTITION_POSITION";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 构建只读取一个分区的表引用
+     * 
+     * @param tableConfig 表配置
+     * @param partitionName 分区名称
+     * @param databaseType 数据库类型
+     * @return 表引用，不支持的数据库返回null
+     */
+    public static String buildPartitionTableReference(ComparisonProperties.TableConfig tableConfig,
+                                                    String partitionName,
+                                                    DatabaseType databaseType) {
+        switch (databaseType) {
+            case MYSQL:
+            case ORACLE:
+                return tableConfig.getFullTableName() + " PARTITION (" + partitionName + ")";
+            case POSTGRESQL:
+                return StringUtils.isNotBlank(tableConfig.getSchema())
+                        ? tableConfig.getSchema() + "." + partitionName : partitionName;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 构建目录查询的绑定参数
+     * SQL Server使用完整表名，其他数据库依次为模式名（已配置时）、表名和附加参数
+     * 
+     * @param tableConfig 表配置
+     * @param databaseType 数据库类型
+     * @param extraParameters 附加参数
+     * @return 参数数组
+     */
+    public static Object[] buildCatalogParameters(ComparisonProperties.TableConfig tableConfig,
+                                                DatabaseType databaseType,
+                                                String... extraParameters) {
+        java.util.List<Object> parameters = new java.util.ArrayList<>();
+        if (databaseType == DatabaseType.SQL_SERVER) {
+            parameters.add(tableConfig.getFullTableName());
+        } else {
+            if (StringUtils.isNotBlank(tableConfig.getSchema())) {
+                parameters.add(catalogName(tableConfig.getSchema(), databaseType));
+            }
+            parameters.add(catalogName(tableConfig.getTableName(), databaseType));
+        }
+        for (String extra : extraParameters) {
+            parameters.add(catalogName(extra, databaseType));
+        }
+        return parameters.toArray();
+    }
+
+    /**
+     * 目录中的对象名：Oracle默认大写存储
+     */
+    private static String catalogName(String name, DatabaseType databaseType) {
+        return databaseType == DatabaseType.ORACLE ? name.toUpperCase() : name;
+    }
+
+    /**
+     * 模式过滤条件：配置了模式时使用绑定参数，否则使用当前模式
+     */
+    private static String schemaPredicate(String column, ComparisonProperties.TableConfig tableConfig, String currentSchema) {
+        return column + " = " + (StringUtils.isNotBlank(tableConfig.getSchema()) ? "?" : currentSchema);
+    }
+
     /**
      * 构建字段存在性检查SQL
      * 
+     * @deprecated 使用 {@code MetadataCache} 基于JDBC元数据校验字段，避免每次执行查询数据库目录
+     * 
      * @param tableConfig 表配置
      * @param fieldName 字段名
      * @param databaseType 数据库类型
      * @return SQL语句
      */
+    @Deprecated
     public static String buildFieldExistsSql(ComparisonProperties.TableConfig tableConfig, 
                                            String fieldName, 
                                            DatabaseType databaseType) {
@@ -139,10 +487,13 @@ public class SqlBuilder {
     /**
      * 构建表存在性检查SQL
      * 
+     * @deprecated 使用 {@code MetadataCache} 基于JDBC元数据校验表
+     * 
      * @param tableConfig 表配置
      * @param databaseType 数据库类型
      * @return SQL语句
      */
+    @Deprecated
     public static String buildTableExistsSql(ComparisonProperties.TableConfig tableConfig, 
                                            DatabaseType databaseType) {
         switch (databaseType) {
@@ -0,0 +1,434 @@
+package com.minimax.comparator.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * SQL方言
+ * 封装各数据库键集分页、行哈希、校验和聚合、批量主键查询、抽样和流式读取的差异，
+ * 默认实现为ANSI SQL:2008语法，各数据库按原生语法覆盖
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public abstract class SqlDialect {
+
+    /**
+     * 数据库主版本号，0表示未知（按当前主流版本处理）
+     */
+    private final int majorVersion;
+
+    protected SqlDialect(int majorVersion) {
+        this.majorVersion = majorVersion;
+    }
+
+    /**
+     * 按数据库类型创建方言，版本未知
+     *
+     * @param databaseType 数据库类型
+     * @return SqlDialect
+     */
+    public static SqlDialect of(SqlBuilder.DatabaseType databaseType) {
+        return of(databaseType, 0);
+    }
+
+    /**
+     * 按数据库类型和主版本号创建方言
+     *
+     * @param databaseType 数据库类型
+     * @param majorVersion 主版本号
+     * @return SqlDialect
+     */
+    public static SqlDialect of(SqlBuilder.DatabaseType databaseType, int majorVersion) {
+        switch (databaseType) {
+            case MYSQL:
+                return new MySql(majorVersion);
+            case POSTGRESQL:
+                return new PostgreSql(majorVersion);
+            case ORACLE:
+                return new Oracle(majorVersion);
+            case SQL_SERVER:
+                return new SqlServer(majorVersion);
+            case H2:
+                return new H2(majorVersion);
+            default:
+                return new Generic(majorVersion);
+        }
+    }
+
+    /**
+     * 按JDBC元数据中的数据库产品名称推断数据库类型
+     *
+     * @param productName DatabaseMetaData.getDatabaseProductName()
+     * @return DatabaseType
+     */
+    public static SqlBuilder.DatabaseType inferFromProductName(String productName) {
+        if (productName == null) {
+            return SqlBuilder.DatabaseType.UNKNOWN;
+        }
+        String name = productName.toLowerCase();
+        if (name.contains("mysql") || name.contains("mariadb")) {
+            return SqlBuilder.DatabaseType.MYSQL;
+        } else if (name.contains("postgresql")) {
+            return SqlBuilder.DatabaseType.POSTGRESQL;
+        } else if (name.contains("oracle")) {
+            return SqlBuilder.DatabaseType.ORACLE;
+        } else if (name.contains("sql server")) {
+            return SqlBuilder.DatabaseType.SQL_SERVER;
+        } else if (name.contains("h2")) {
+            return SqlBuilder.DatabaseType.H2;
+        }
+        return SqlBuilder.DatabaseType.UNKNOWN;
+    }
+
+    /**
+     * 数据库类型
+     *
+     * @return DatabaseType
+     */
+    public abstract SqlBuilder.DatabaseType getDatabaseType();
+
+    public int getMajorVersion() {
+        return majorVersion;
+    }
+
+    /**
+     * 为已排序的查询追加行数限制（键集分页使用），行数为最后一个绑定参数
+     *
+     * @param orderedSql 带ORDER BY的查询
+     * @return SQL语句
+     */
+    public String limit(String orderedSql) {
+        return orderedSql + " FETCH FIRST ? ROWS ONLY";
+    }
+
+    /**
+     * 行哈希表达式
+     *
+     * @param columns 参与哈希的列
+     * @return 整数哈希表达式，不支持时返回null
+     */
+    public String rowHash(String... columns) {
+        return null;
+    }
+
+    /**
+     * 校验和聚合：记录数和行哈希之和
+     *
+     * @param columns 参与哈希的列
+     * @return SELECT列表片段，不支持时返回null
+     */
+    public String checksumAggregate(String... columns) {
+        String hash = rowHash(columns);
+        return hash != null ? "COUNT(*), SUM(" + hash + ")" : null;
+    }
+
+    /**
+     * 是否支持校验和比较
+     *
+     * @return boolean
+     */
+    public boolean supportsChecksum() {
+        return rowHash("k", "v") != null;
+    }
+
+    /**
+     * 按数据块抽样的子句，紧跟在表名之后
+     *
+     * @param percent 抽样百分比，(0, 100)
+     * @return 抽样子句，不支持时返回null
+     */
+    public String tableSampleClause(double percent) {
+        return null;
+    }
+
+    /**
+     * 给定比例下是否使用数据块抽样，否则按主键哈希取模抽样
+     *
+     * @param percent 抽样百分比
+     * @return boolean
+     */
+    public boolean usesBlockSampling(double percent) {
+        return percent < 100 && tableSampleClause(percent) != null;
+    }
+
+    /**
+     * 主键哈希表达式，用于哈希取模抽样，结果为非负整数
+     *
+     * @param keyField 主键字段
+     * @return 哈希表达式，不支持时返回null
+     */
+    public String keyHash(String keyField) {
+        return rowHash(keyField);
+    }
+
+    /**
+     * 单条IN条件允许的最大参数个数
+     *
+     * @return 参数个数
+     */
+    public int maxInListSize() {
+        return 1000;
+    }
+
+    /**
+     * 批量主键查询条件
+     *
+     * @param keyField 主键字段
+     * @param keyCount 主键个数
+     * @return 条件片段
+     */
+    public String keyLookupCondition(String keyField, int keyCount) {
+        return SqlBuilder.buildInCondition(keyField, keyCount);
+    }
+
+    /**
+     * 流式读取时的fetchSize
+     *
+     * @param batchSize 配置的批次大小
+     * @return fetchSize
+     */
+    public int streamingFetchSize(int batchSize) {
+        return batchSize;
+    }
+
+    /**
+     * 流式读取是否需要关闭自动提交才会使用服务端游标
+     *
+     * @return boolean
+     */
+    public boolean cursorRequiresTransaction() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return getDatabaseType().getDisplayName() + (majorVersion > 0 ? " " + majorVersion : "");
+    }
+
+    private static String join(String separator, String... columns) {
+        return Arrays.stream(columns).collect(Collectors.joining(separator));
+    }
+
+    private static String formatPercent(double percent) {
+        return BigDecimal.valueOf(percent).setScale(6, RoundingMode.UP).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * MySQL / MariaDB
+     */
+    public static class MySql extends SqlDialect {
+
+        public MySql(int majorVersion) {
+            super(majorVersion);
+        }
+
+        @Override
+        public SqlBuilder.DatabaseType getDatabaseType() {
+            return SqlBuilder.DatabaseType.MYSQL;
+        }
+
+        @Override
+        public String limit(String orderedSql) {
+            return orderedSql + " LIMIT ?";
+        }
+
+        @Override
+        public String rowHash(String... columns) {
+            return "CRC32(CONCAT_WS('|', " + join(", ", columns) + "))";
+        }
+
+        @Override
+        public int maxInListSize() {
+            return 5000;
+        }
+
+        @Override
+        public int streamingFetchSize(int batchSize) {
+            // Connector/J只有Integer.MIN_VALUE才会逐行返回
+            return Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * PostgreSQL
+     */
+    public static class PostgreSql extends SqlDialect {
+
+        public PostgreSql(int majorVersion) {
+            super(majorVersion);
+        }
+
+        @Override
+        public SqlBuilder.DatabaseType getDatabaseType() {
+            return SqlBuilder.DatabaseType.POSTGRESQL;
+        }
+
+        @Override
+        public String limit(String orderedSql) {
+            return orderedSql + " LIMIT ?";
+        }
+
+        @Override
+        public String rowHash(String... columns) {
+            return "hashtext(CONCAT_WS('|', " + join("::text, ", columns) + "::text))";
+        }
+
+        @Override
+        public String checksumAggregate(String... columns) {
+            return "COUNT(*), SUM(" + rowHash(columns) + "::bigint)";
+        }
+
+        @Override
+        public String tableSampleClause(double percent) {
+            return "TABLESAMPLE SYSTEM (" + formatPercent(percent) + ")";
+        }
+
+        @Override
+        public String keyHash(String keyField) {
+            return "(hashtext(" + keyField + "::text) & 2147483647)";
+        }
+
+        @Override
+        public int maxInListSize() {
+            return 5000;
+        }
+
+        @Override
+        public boolean cursorRequiresTransaction() {
+            return true;
+        }
+    }
+
+    /**
+     * Oracle，12c之前不支持OFFSET/FETCH，使用ROWNUM
+     */
+    public static class Oracle extends SqlDialect {
+
+        public Oracle(int majorVersion) {
+            super(majorVersion);
+        }
+
+        @Override
+        public SqlBuilder.DatabaseType getDatabaseType() {
+            return SqlBuilder.DatabaseType.ORACLE;
+        }
+
+        private boolean supportsOffsetFetch() {
+            return getMajorVersion() == 0 || getMajorVersion() >= 12;
+        }
+
+        @Override
+        public String limit(String orderedSql) {
+            if (supportsOffsetFetch()) {
+                return super.limit(orderedSql);
+            }
+            return "SELECT * FROM (" + orderedSql + ") WHERE ROWNUM <= ?";
+        }
+
+        @Override
+        public String rowHash(String... columns) {
+            return "ORA_HASH(" + join(" || '|' || ", columns) + ")";
+        }
+
+        @Override
+        public String tableSampleClause(double percent) {
+            // SAMPLE BLOCK要求比例不小于0.000001
+            return "SAMPLE BLOCK (" + formatPercent(Math.max(percent, 0.000001)) + ")";
+        }
+    }
+
+    /**
+     * SQL Server 2012及以上
+     */
+    public static class SqlServer extends SqlDialect {
+
+        public SqlServer(int majorVersion) {
+            super(majorVersion);
+        }
+
+        @Override
+        public SqlBuilder.DatabaseType getDatabaseType() {
+            return SqlBuilder.DatabaseType.SQL_SERVER;
+        }
+
+        @Override
+        public String limit(String orderedSql) {
+            return orderedSql + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+        }
+
+        @Override
+        public String rowHash(String... columns) {
+            return "CHECKSUM(" + join(", ", columns) + ")";
+        }
+
+        @Override
+        public String checksumAggregate(String... columns) {
+            return "COUNT_BIG(*), SUM(CAST(" + rowHash(columns) + " AS BIGINT))";
+        }
+
+        @Override
+        public String tableSampleClause(double percent) {
+            return "TABLESAMPLE (" + formatPercent(percent) + " PERCENT)";
+        }
+
+        @Override
+        public String keyHash(String keyField) {
+            return "(CHECKSUM(" + keyField + ") & 2147483647)";
+        }
+
+        @Override
+        public int maxInListSize() {
+            // 单条语句最多2100个参数
+            return 2000;
+        }
+    }
+
+    /**
+     * H2
+     */
+    public static class H2 extends SqlDialect {
+
+        public H2(int majorVersion) {
+            super(majorVersion);
+        }
+
+        @Override
+        public SqlBuilder.DatabaseType getDatabaseType() {
+            return SqlBuilder.DatabaseType.H2;
+        }
+
+        @Override
+        public String limit(String orderedSql) {
+            return orderedSql + " LIMIT ?";
+        }
+
+        @Override
+        public String rowHash(String... columns) {
+            return "ORA_HASH(CONCAT_WS('|', " + join(", ", columns) + "))";
+        }
+
+        @Override
+        public String keyHash(String keyField) {
+            // CONCAT_WS至少需要两个参数，ORA_HASH不接受数值
+            return "ORA_HASH(CAST(" + keyField + " AS VARCHAR))";
+        }
+    }
+
+    /**
+     * 未知数据库，使用ANSI语法，不支持校验和
+     */
+    public static class Generic extends SqlDialect {
+
+        public Generic(int majorVersion) {
+            super(majorVersion);
+        }
+
+        @Override
+        public SqlBuilder.DatabaseType getDatabaseType() {
+            return SqlBuilder.DatabaseType.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.minimax.comparator.util;
+
+import com.minimax.comparator.model.ColumnMetadata;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 字段值比较器
+ * 按两端列元数据预先确定读取方式和比较方式：用类型化的getter读取并统一为规范类型，
+ * 比较时不再依赖驱动返回的具体类型，避免BigDecimal精度、Long与BigDecimal、Timestamp与LocalDateTime等误报差异
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+public final class ValueComparator {
+
+    /**
+     * 未知类型时使用的比较器：getObject读取，比较时做数值、时间和字节数组的归一化
+     */
+    public static final ValueComparator GENERIC = new ValueComparator(Kind.GENERIC);
+
+    /**
+     * 比较方式
+     */
+    public enum Kind {
+        INTEGRAL,
+        DECIMAL,
+        DOUBLE,
+        BOOLEAN,
+        DATE,
+        TIME,
+        TIMESTAMP,
+        STRING,
+        PADDED_STRING,
+        BYTES,
+        GENERIC
+    }
+
+    private final Kind kind;
+
+    private ValueComparator(Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * 按两端列元数据编译比较器
+     *
+     * @param source 源列元数据，可为null
+     * @param target 目标列元数据，可为null
+     * @return ValueComparator
+     */
+    public static ValueComparator forColumns(ColumnMetadata source, ColumnMetadata target) {
+        if (source == null || target == null) {
+            return GENERIC;
+        }
+        return new ValueComparator(resolveKind(source, target));
+    }
+
+    private static Kind resolveKind(ColumnMetadata source, ColumnMetadata target) {
+        int sourceType = source.getJdbcType();
+        int targetType = target.getJdbcType();
+
+        if (isBoolean(sourceType) || isBoolean(targetType)) {
+            return (isBoolean(sourceType) || source.isNumeric()) && (isBoolean(targetType) || target.isNumeric())
+                    ? Kind.BOOLEAN : Kind.GENERIC;
+        }
+        if (source.isNumeric() && target.isNumeric()) {
+            if (isFloating(sourceType) && isFloating(targetType)) {
+                return Kind.DOUBLE;
+            }
+            // 精度超过18位的整数可能超出long范围
+            if (source.isIntegral() && target.isIntegral()
+                    && fitsLong(source) && fitsLong(target)) {
+                return Kind.INTEGRAL;
+            }
+            return Kind.DECIMAL;
+        }
+        if (isTemporal(sourceType) && isTemporal(targetType)) {
+            if (sourceType == Types.DATE && targetType == Types.DATE) {
+                return Kind.DATE;
+            }
+            if (sourceType == Types.TIME && targetType == Types.TIME) {
+                return Kind.TIME;
+            }
+            return Kind.TIMESTAMP;
+        }
+        if (isCharacter(sourceType) && isCharacter(targetType)) {
+            return isFixedCharacter(sourceType) || isFixedCharacter(targetType) ? Kind.PADDED_STRING : Kind.STRING;
+        }
+        if (isBinary(sourceType) && isBinary(targetType)) {
+            return Kind.BYTES;
+        }
+        return Kind.GENERIC;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * 读取字段值并转换为规范类型
+     *
+     * @param rs 结果集
+     * @param column 列序号
+     * @return 规范类型的值，SQL NULL返回null
+     * @throws SQLException 读取失败
+     */
+    public Object read(ResultSet rs, int column) throws SQLException {
+        switch (kind) {
+            case INTEGRAL: {
+                long value = rs.getLong(column);
+                return rs.wasNull() ? null : value;
+            }
+            case DECIMAL:
+                return rs.getBigDecimal(column);
+            case DOUBLE: {
+                double value = rs.getDouble(column);
+                return rs.wasNull() ? null : value;
+            }
+            case BOOLEAN: {
+                boolean value = rs.getBoolean(column);
+                return rs.wasNull() ? null : value;
+            }
+            case DATE: {
+                java.sql.Date value = rs.getDate(column);
+                return value != null ? value.toLocalDate() : null;
+            }
+            case TIME: {
+                java.sql.Time value = rs.getTime(column);
+                return value != null ? value.toLocalTime() : null;
+            }
+            case TIMESTAMP: {
+                java.sql.Timestamp value = rs.getTimestamp(column);
+                return value != null ? value.toLocalDateTime() : null;
+            }
+            case STRING:
+                return rs.getString(column);
+            case PADDED_STRING:
+                return stripTrailingSpaces(rs.getString(column));
+            case BYTES:
+                return rs.getBytes(column);
+            default:
+                return rs.getObject(column);
+        }
+    }
+
+    /**
+     * 读取主键值，并统一为可作为Map键的形式（无小数部分的数值统一为Long）
+     *
+     * @param rs 结果集
+     * @param column 列序号
+     * @return 主键值
+     * @throws SQLException 读取失败
+     */
+    public Object readKey(ResultSet rs, int column) throws SQLException {
+        return canonicalKey(read(rs, column));
+    }
+
+    /**
+     * 比较两个由 {@link #read} 读取的值
+     *
+     * @param source 源值
+     * @param target 目标值
+     * @return 是否相等，两端都为NULL视为相等
+     */
+    public boolean matches(Object source, Object target) {
+        if (source == null || target == null) {
+            return source == target;
+        }
+        switch (kind) {
+            case INTEGRAL:
+                return ((Long) source).longValue() == ((Long) target).longValue();
+            case DECIMAL:
+                return ((BigDecimal) source).compareTo((BigDecimal) target) == 0;
+            case DOUBLE:
+                return Double.compare((Double) source, (Double) target) == 0;
+            case BYTES:
+                return Arrays.equals((byte[]) source, (byte[]) target);
+            case GENERIC:
+                return genericEquals(source, target);
+            default:
+                return source.equals(target);
+        }
+    }
+
+    /**
+     * 不依赖元数据的值比较：数值按大小、JDBC时间类型按java.time、字节数组按内容比较
+     *
+     * @param source 源值
+     * @param target 目标值
+     * @return 是否相等
+     */
+    public static boolean genericEquals(Object source, Object target) {
+        if (Objects.equals(source, target)) {
+            return true;
+        }
+        if (source == null || target == null) {
+            return false;
+        }
+        if (source instanceof Number && target instanceof Number) {
+            return toBigDecimal((Number) source).compareTo(toBigDecimal((Number) target)) == 0;
+        }
+        if (source instanceof byte[] && target instanceof byte[]) {
+            return Arrays.equals((byte[]) source, (byte[]) target);
+        }
+        Object normalizedSource = normalizeTemporal(source);
+        Object normalizedTarget = normalizeTemporal(target);
+        if (normalizedSource != source || normalizedTarget != target) {
+            return Objects.equals(normalizedSource, normalizedTarget);
+        }
+        return false;
+    }
+
+    /**
+     * 主键规范化：无小数部分且在long范围内的数值统一为Long，其他数值去掉末尾的0
+     *
+     * @param key 主键值
+     * @return 规范化后的主键
+     */
+    public static Object canonicalKey(Object key) {
+        if (key instanceof Long || !(key instanceof Number)) {
+            return key;
+        }
+        if (key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            return ((Number) key).longValue();
+        }
+        BigDecimal decimal = toBigDecimal((Number) key).stripTrailingZeros();
+        if (decimal.scale() <= 0 && decimal.precision() - decimal.scale() <= 18) {
+            return decimal.longValue();
+        }
+        return decimal;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        return new BigDecimal(number.toString());
+    }
+
+    private static Object normalizeTemporal(Object value) {
+        if (value instanceof java.sql.Timestamp) {
+            return ((java.sql.Timestamp) value).toLocalDateTime();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().atStartOfDay();
+        }
+        if (value instanceof java.sql.Time) {
+            return ((java.sql.Time) value).toLocalTime();
+        }
+        if (value instanceof LocalDate) {
+            return ((LocalDate) value).atStartOfDay();
+        }
+        return value;
+    }
+
+    private static String stripTrailingSpaces(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return end == value.length() ? value : value.substring(0, end);
+    }
+
+    private static boolean fitsLong(ColumnMetadata column) {
+        int jdbcType = column.getJdbcType();
+        return (jdbcType != Types.NUMERIC && jdbcType != Types.DECIMAL)
+                || (column.getSize() > 0 && column.getSize() <= 18);
+    }
+
+    private static boolean isBoolean(int jdbcType) {
+        return jdbcType == Types.BOOLEAN || jdbcType == Types.BIT;
+    }
+
+    private static boolean isFloating(int jdbcType) {
+        return jdbcType == Types.REAL || jdbcType == Types.FLOAT || jdbcType == Types.DOUBLE;
+    }
+
+    private static boolean isTemporal(int jdbcType) {
+        return jdbcType == Types.DATE || jdbcType == Types.TIME || jdbcType == Types.TIMESTAMP
+                || jdbcType == Types.TIMESTAMP_WITH_TIMEZONE;
+    }
+
+    private static boolean isCharacter(int jdbcType) {
+        switch (jdbcType) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isFixedCharacter(int jdbcType) {
+        return jdbcType == Types.CHAR || jdbcType == Types.NCHAR;
+    }
+
+    private static boolean isBinary(int jdbcType) {
+        return jdbcType == Types.BINARY || jdbcType == Types.VARBINARY
+                || jdbcType == Types.LONGVARBINARY || jdbcType == Types.BLOB;
+    }
+
+    @Override
+    public String toString() {
+        return "ValueComparator{" + kind + "}";
+    }
+}
@@ -0,0 +1,76 @@
+package com.minimax.comparator.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 连接池自动调整测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class AdaptivePoolSizerTest {
+
+    private static final long THRESHOLD = 50;
+
+    private ComparisonProperties.PoolConfig poolConfig;
+
+    @BeforeEach
+    void setUp() {
+        poolConfig = new ComparisonProperties.PoolConfig();
+        poolConfig.setAdaptive(true);
+        poolConfig.setMaximumPoolSize(10);
+        poolConfig.setAdaptiveMaxPoolSize(30);
+    }
+
+    @Test
+    void testFloorIsConfiguredSizeOrDemand() {
+        assertEquals(10, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 0, 0, 0, THRESHOLD));
+        assertEquals(10, AdaptivePoolSizer.computeTargetSize(poolConfig, 4, 6, 0, 0, THRESHOLD));
+        // 登记的并行需求超过配置值时立即扩到需求
+        assertEquals(16, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 16, 0, 0, THRESHOLD));
+    }
+
+    @Test
+    void testGrowsWhenThreadsWaitOrWaitExceedsThreshold() {
+        // 按等待线程数扩容
+        assertEquals(14, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 0, 4, 0, THRESHOLD));
+        // 没有线程在等待但平均等待超过阈值时至少扩容一个
+        assertEquals(11, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 0, 0, THRESHOLD + 1, THRESHOLD));
+        // 等于阈值不扩容
+        assertEquals(10, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 0, 0, THRESHOLD, THRESHOLD));
+        // 扩容后仍不低于登记需求
+        assertEquals(20, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 20, 1, 0, THRESHOLD));
+    }
+
+    @Test
+    void testShrinksGraduallyToFloor() {
+        int size = 30;
+        size = AdaptivePoolSizer.computeTargetSize(poolConfig, size, 0, 0, 0, THRESHOLD);
+        assertEquals(20, size);
+        size = AdaptivePoolSizer.computeTargetSize(poolConfig, size, 0, 0, 0, THRESHOLD);
+        assertEquals(15, size);
+        size = AdaptivePoolSizer.computeTargetSize(poolConfig, size, 0, 0, 0, THRESHOLD);
+        assertEquals(13, size);
+        size = AdaptivePoolSizer.computeTargetSize(poolConfig, size, 0, 0, 0, THRESHOLD);
+        assertEquals(12, size);
+        size = AdaptivePoolSizer.computeTargetSize(poolConfig, size, 0, 0, 0, THRESHOLD);
+        assertEquals(11, size);
+        size = AdaptivePoolSizer.computeTargetSize(poolConfig, size, 0, 0, 0, THRESHOLD);
+        assertEquals(10, size);
+        // 仍有登记需求时向需求缩回一半差值
+        assertEquals(17, AdaptivePoolSizer.computeTargetSize(poolConfig, 20, 14, 0, 0, THRESHOLD));
+    }
+
+    @Test
+    void testNeverExceedsAdaptiveMaxPoolSize() {
+        assertEquals(30, AdaptivePoolSizer.computeTargetSize(poolConfig, 28, 0, 10, 0, THRESHOLD));
+        assertEquals(30, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 100, 0, 0, THRESHOLD));
+
+        // 上限小于配置值时以配置值为上限
+        poolConfig.setAdaptiveMaxPoolSize(5);
+        assertEquals(10, AdaptivePoolSizer.computeTargetSize(poolConfig, 10, 0, 3, 0, THRESHOLD));
+    }
+}
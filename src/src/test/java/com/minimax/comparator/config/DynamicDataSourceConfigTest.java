@@ -0,0 +1,158 @@
+package com.minimax.comparator.config;
+
+import com.minimax.comparator.model.DataSourceStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 动态数据源配置测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class DynamicDataSourceConfigTest {
+
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    private ComparisonProperties.DataSourceConfig source;
+
+    @BeforeEach
+    void setUp() {
+        source = new ComparisonProperties.DataSourceConfig();
+        source.setName("source");
+        source.setUrl("jdbc:h2:mem:primary");
+        source.setUsername("reader");
+        source.setDriverClassName("org.h2.Driver");
+        source.setProperties(Collections.singletonMap("characterEncoding", "utf8"));
+        source.setReplicas(Arrays.asList(replica("r1", "jdbc:h2:mem:r1"), replica(null, "jdbc:h2:mem:r2")));
+
+        ComparisonProperties properties = new ComparisonProperties();
+        properties.setDataSources(Collections.singletonList(source));
+        dataSourceConfig = new DynamicDataSourceConfig();
+        ReflectionTestUtils.setField(dataSourceConfig, "comparisonProperties", properties);
+    }
+
+    @Test
+    void testRouteRead() {
+        assertEquals("source", dataSourceConfig.routeRead("source", 0));
+        assertEquals(Collections.singletonList("source"), dataSourceConfig.getReadEndpoints("source"));
+
+        source.setRouting(ComparisonProperties.ReadRouting.REPLICA_PREFERRED);
+        assertEquals("source#r1", dataSourceConfig.routeRead("source", 1));
+
+        source.setRouting(ComparisonProperties.ReadRouting.ROUND_ROBIN);
+        assertEquals("source#r1", dataSourceConfig.routeRead("source", 0));
+        assertEquals("source#replica2", dataSourceConfig.routeRead("source", 1));
+        assertEquals("source#r1", dataSourceConfig.routeRead("source", 2));
+        assertEquals(Arrays.asList("source#r1", "source#replica2"), dataSourceConfig.getReadEndpoints("source"));
+        assertTrue(dataSourceConfig.getAllDataSourceNames().contains("source#replica2"));
+
+        // 校验失败的副本不再参与路由，全部失败时回到主库
+        @SuppressWarnings("unchecked")
+        Map<String, DataSourceStatus> statusCache =
+                (Map<String, DataSourceStatus>) ReflectionTestUtils.getField(dataSourceConfig, "statusCache");
+        statusCache.put("source#r1", new DataSourceStatus("source#r1", DataSourceStatus.State.FAILED, "down"));
+        assertEquals("source#replica2", dataSourceConfig.routeRead("source", 0));
+        statusCache.put("source#replica2", new DataSourceStatus("source#replica2", DataSourceStatus.State.TIMEOUT, null));
+        assertEquals("source", dataSourceConfig.routeRead("source", 0));
+    }
+
+    @Test
+    void testReplicaInheritsPrimarySettings() {
+        ComparisonProperties.ThrottleConfig throttle = new ComparisonProperties.ThrottleConfig();
+        source.setThrottle(throttle);
+
+        assertSame(throttle, dataSourceConfig.getThrottleConfig("source#r1"));
+        assertEquals(dataSourceConfig.getDatabaseType("source"), dataSourceConfig.getDatabaseType("source#r1"));
+        assertNull(dataSourceConfig.getThrottleConfig("source#missing"));
+    }
+
+    @Test
+    void testValidationMarksHangingDataSourceAsTimeout() throws Exception {
+        ComparisonProperties properties =
+                (ComparisonProperties) ReflectionTestUtils.getField(dataSourceConfig, "comparisonProperties");
+        properties.getConnectionCheck().setValidationTimeoutSeconds(1);
+        source.setUrl("jdbc:h2:mem:validate-primary");
+        source.getReplicas().get(1).setUrl("jdbc:h2:mem:validate-r2");
+
+        // 副本r1获取连接时一直阻塞，直到测试结束
+        CountDownLatch release = new CountDownLatch(1);
+        DataSource hanging = mock(DataSource.class);
+        when(hanging.getConnection()).thenAnswer(invocation -> {
+            release.await();
+            throw new SQLException("released");
+        });
+        @SuppressWarnings("unchecked")
+        Map<String, DataSource> dataSourceCache =
+                (Map<String, DataSource>) ReflectionTestUtils.getField(dataSourceConfig, "dataSourceCache");
+        dataSourceCache.put("source#r1", hanging);
+
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, DataSourceStatus> results = dataSourceConfig.validateConnections();
+            assertTrue(System.currentTimeMillis() - start < 5000);
+
+            assertEquals(DataSourceStatus.State.READY, results.get("source").getState());
+            assertEquals(DataSourceStatus.State.READY, results.get("source#replica2").getState());
+            assertEquals(DataSourceStatus.State.TIMEOUT, results.get("source#r1").getState());
+            assertEquals(DataSourceStatus.State.TIMEOUT, dataSourceConfig.getReadiness().get("source#r1").getState());
+        } finally {
+            release.countDown();
+            dataSourceConfig.closeAllDataSources();
+        }
+    }
+
+    @Test
+    void testReplicaExcludedOnAcquireTimeoutAndRechecked() throws Exception {
+        ComparisonProperties.PoolConfig pool = new ComparisonProperties.PoolConfig();
+        pool.setMaximumPoolSize(1);
+        pool.setMinimumIdle(0);
+        pool.setConnectionTimeout(250);
+        source.setPool(pool);
+        source.setRouting(ComparisonProperties.ReadRouting.REPLICA_PREFERRED);
+        source.getReplicas().get(0).setUrl("jdbc:h2:mem:recheck-r1");
+
+        try {
+            // 连接池耗尽时获取连接超时，副本立即不再参与路由
+            DataSource replica = dataSourceConfig.getDataSource("source#r1");
+            try (Connection held = replica.getConnection()) {
+                assertThrows(SQLException.class, replica::getConnection);
+            }
+            DataSourceStatus status = dataSourceConfig.getReadiness().get("source#r1");
+            assertEquals(DataSourceStatus.State.FAILED, status.getState());
+            assertEquals("source#replica2", dataSourceConfig.routeRead("source", 0));
+
+            // 超过重新校验间隔后路由时异步校验，恢复后重新参与路由
+            status.setCheckedAt(LocalDateTime.now().minusMinutes(1));
+            assertEquals("source#replica2", dataSourceConfig.routeRead("source", 0));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!"source#r1".equals(dataSourceConfig.routeRead("source", 0)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals("source#r1", dataSourceConfig.routeRead("source", 0));
+        } finally {
+            dataSourceConfig.closeAllDataSources();
+        }
+    }
+
+    private static ComparisonProperties.ReplicaConfig replica(String name, String url) {
+        ComparisonProperties.ReplicaConfig replica = new ComparisonProperties.ReplicaConfig();
+        replica.setName(name);
+        replica.setUrl(url);
+        return replica;
+    }
+}
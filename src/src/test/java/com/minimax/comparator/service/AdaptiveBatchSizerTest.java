@@ -0,0 +1,84 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应批次大小控制器测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class AdaptiveBatchSizerTest {
+
+    @Spy
+    private ComparisonProperties comparisonProperties = new ComparisonProperties();
+
+    @InjectMocks
+    private AdaptiveBatchSizer adaptiveBatchSizer;
+
+    @BeforeEach
+    void setUp() {
+        comparisonProperties.setBatchSize(1000);
+        ComparisonProperties.AdaptiveBatchConfig config = comparisonProperties.getAdaptiveBatch();
+        config.setMinBatchSize(100);
+        config.setMaxBatchSize(50000);
+        config.setTargetBatchMillis(500);
+        config.setMaxBatchBytes(1024 * 1024);
+        // 测试中不受JVM堆内存状态影响
+        config.setMinFreeHeapRatio(0);
+    }
+
+    @Test
+    void testGrowsForFastNarrowRows() {
+        assertEquals(1000, adaptiveBatchSizer.nextBatchSize("rule", "ds"));
+
+        adaptiveBatchSizer.recordBatch("rule", "ds", 1000, 32 * 1000, 10);
+        assertEquals(2000, adaptiveBatchSizer.nextBatchSize("rule", "ds"));
+
+        for (int i = 0; i < 10; i++) {
+            int size = adaptiveBatchSizer.nextBatchSize("rule", "ds");
+            adaptiveBatchSizer.recordBatch("rule", "ds", size, 32L * size, 1);
+        }
+        assertEquals(32768, adaptiveBatchSizer.nextBatchSize("rule", "ds"));
+    }
+
+    @Test
+    void testShrinksForWideRows() {
+        // 每行约10KB，1MB上限约可容纳100行
+        adaptiveBatchSizer.recordBatch("rule", "ds", 1000, 10L * 1024 * 1000, 10);
+        assertEquals(102, adaptiveBatchSizer.nextBatchSize("rule", "ds"));
+    }
+
+    @Test
+    void testShrinksForSlowBatches() {
+        // 每行5毫秒，500毫秒目标对应100行
+        adaptiveBatchSizer.recordBatch("rule", "ds", 1000, 32 * 1000, 5000);
+        assertEquals(100, adaptiveBatchSizer.nextBatchSize("rule", "ds"));
+    }
+
+    @Test
+    void testStateIsPerRuleAndDataSource() {
+        adaptiveBatchSizer.recordBatch("rule", "source", 1000, 32 * 1000, 5000);
+
+        assertEquals(100, adaptiveBatchSizer.nextBatchSize("rule", "source"));
+        assertEquals(1000, adaptiveBatchSizer.nextBatchSize("rule", "target"));
+        assertEquals(1000, adaptiveBatchSizer.nextBatchSize("other-rule", "source"));
+    }
+
+    @Test
+    void testDisabledUsesFixedBatchSize() {
+        comparisonProperties.getAdaptiveBatch().setEnabled(false);
+
+        adaptiveBatchSizer.recordBatch("rule", "ds", 1000, 32 * 1000, 5000);
+        assertEquals(1000, adaptiveBatchSizer.nextBatchSize("rule", "ds"));
+    }
+}
@@ -0,0 +1,194 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.ComparisonRunRecord;
+import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.DifferenceRecord;
+import com.minimax.comparator.model.HistoryPage;
+import com.minimax.comparator.model.TimeWindowRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 比较历史存储测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class ComparisonHistoryStoreTest {
+
+    private ComparisonHistoryStore historyStore;
+
+    private RuleScheduler ruleScheduler;
+
+    @BeforeEach
+    void setUp() {
+        ComparisonProperties properties = new ComparisonProperties();
+        properties.getHistory().setEnabled(true);
+        properties.getHistory().setUrl("jdbc:h2:mem:history-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        properties.getHistory().setBatchSize(2);
+        ruleScheduler = new RuleScheduler();
+        historyStore = new ComparisonHistoryStore();
+        ReflectionTestUtils.setField(historyStore, "comparisonProperties", properties);
+        ReflectionTestUtils.setField(historyStore, "ruleScheduler", ruleScheduler);
+        historyStore.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        historyStore.destroy();
+    }
+
+    @Test
+    void testRecordAndQuery() {
+        ComparisonResult first = result("orders", LocalDateTime.now().minusDays(2),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "10.00", "10.50", "amount"),
+                new DifferenceDetail(1002L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "amount"),
+                new DifferenceDetail(1003L, DifferenceDetail.DifferenceType.TARGET_ONLY, "amount"));
+        ComparisonResult second = result("orders", LocalDateTime.now(),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "10.00", "10.60", "amount"));
+        ComparisonResult other = result("users", LocalDateTime.now());
+
+        assertSame(first, historyStore.record(first));
+        historyStore.record(second);
+        historyStore.record(other);
+        assertNotNull(first.getRunId());
+        historyStore.flush();
+
+        HistoryPage<ComparisonRunRecord> runs = historyStore.findRuns("orders", null, null, null, 0, 1);
+        assertEquals(2, runs.getTotal());
+        assertEquals(second.getRunId(), runs.getContent().get(0).getRunId());
+        assertEquals(3, historyStore.findRun(first.getRunId()).getStoredDifferences());
+
+        HistoryPage<DifferenceRecord> sourceOnly = historyStore.findDifferences(first.getRunId(),
+                DifferenceDetail.DifferenceType.SOURCE_ONLY, 0, 10);
+        assertEquals(1, sourceOnly.getTotal());
+        assertEquals("1002", sourceOnly.getContent().get(0).getKeyValue());
+
+        // 同一主键在两次执行中都有差异，按执行时间倒序
+        HistoryPage<DifferenceRecord> keyHistory = historyStore.findKeyHistory("orders", "1001",
+                LocalDateTime.now().minusDays(7), null, 0, 10);
+        assertEquals(2, keyHistory.getTotal());
+        assertEquals("10.60", keyHistory.getContent().get(0).getTargetValue());
+        assertEquals("10.50", keyHistory.getContent().get(1).getTargetValue());
+
+        assertThrows(IllegalArgumentException.class, () -> historyStore.findRuns(null, null, null, null, -1, 10));
+    }
+
+    @Test
+    void testFileDifferenceStorage(@TempDir Path directory) {
+        ComparisonProperties properties = (ComparisonProperties) ReflectionTestUtils.getField(historyStore, "comparisonProperties");
+        properties.getHistory().setDifferenceStorage(ComparisonProperties.DifferenceStorage.FILE);
+        properties.getHistory().setDifferenceDirectory(directory.toString());
+        properties.getHistory().setDifferenceBlockRows(2);
+        ComparisonResult first = result("orders", LocalDateTime.now().minusDays(1),
+                new DifferenceDetail(1003L, DifferenceDetail.DifferenceType.TARGET_ONLY, "amount"),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "10.00", "10.50", "amount"),
+                new DifferenceDetail(1002L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "amount"),
+                new DifferenceDetail(1004L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "amount"));
+        ComparisonResult second = result("orders", LocalDateTime.now(),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "10.00", "10.60", "amount"));
+        historyStore.record(first);
+        historyStore.record(second);
+        historyStore.flush();
+
+        assertTrue(Files.exists(directory.resolve(first.getRunId() + ".cdf")));
+        HistoryPage<DifferenceRecord> sourceOnly = historyStore.findDifferences(first.getRunId(),
+                DifferenceDetail.DifferenceType.SOURCE_ONLY, 1, 1);
+        assertEquals(2, sourceOnly.getTotal());
+        assertEquals("1004", sourceOnly.getContent().get(0).getKeyValue());
+        assertEquals("1001", historyStore.findDifferences(first.getRunId(), null, 0, 10).getContent().get(0).getKeyValue());
+
+        HistoryPage<DifferenceRecord> keyHistory = historyStore.findKeyHistory("orders", "1001",
+                LocalDateTime.now().minusDays(7), null, 0, 10);
+        assertEquals(2, keyHistory.getTotal());
+        assertEquals("10.60", keyHistory.getContent().get(0).getTargetValue());
+    }
+
+    @Test
+    void testFailedDifferenceFileIsNotCounted(@TempDir Path directory) throws Exception {
+        // 差异目录是普通文件，差异文件写入失败，执行记录仍保存但已保存差异数为0
+        Path notDirectory = Files.createFile(directory.resolve("history"));
+        ComparisonProperties properties = (ComparisonProperties) ReflectionTestUtils.getField(historyStore, "comparisonProperties");
+        properties.getHistory().setDifferenceStorage(ComparisonProperties.DifferenceStorage.FILE);
+        properties.getHistory().setDifferenceDirectory(notDirectory.toString());
+        ComparisonResult result = result("orders", LocalDateTime.now(),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "amount"));
+        historyStore.record(result);
+        historyStore.flush();
+
+        ComparisonRunRecord run = historyStore.findRun(result.getRunId());
+        assertEquals(1, run.getDifferenceCount());
+        assertEquals(0, run.getStoredDifferences());
+    }
+
+    @Test
+    void testWindowResults() {
+        LocalDateTime hour = LocalDateTime.of(2025, 6, 27, 10, 0);
+        ComparisonResult first = result("orders", LocalDateTime.now().minusHours(1),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "amount"));
+        first.setWindowStart(hour);
+        first.setWindowEnd(hour.plusHours(1));
+        ComparisonResult recheck = result("orders", LocalDateTime.now());
+        recheck.setWindowStart(hour);
+        recheck.setWindowEnd(hour.plusHours(1));
+        ComparisonResult next = result("orders", LocalDateTime.now());
+        next.setWindowStart(hour.plusHours(1));
+        next.setWindowEnd(hour.plusHours(2));
+        historyStore.record(first);
+        historyStore.record(recheck);
+        historyStore.record(next);
+        historyStore.record(result("orders", LocalDateTime.now()));
+        historyStore.flush();
+
+        // 同一窗口只保留最近一次结果，不带窗口的执行不计入
+        HistoryPage<TimeWindowRecord> windows = historyStore.findWindows("orders", null, null, 0, 10);
+        assertEquals(2, windows.getTotal());
+        assertEquals(hour.plusHours(1), windows.getContent().get(0).getWindowStart());
+        TimeWindowRecord rechecked = windows.getContent().get(1);
+        assertEquals(2, rechecked.getCheckCount());
+        assertEquals(0, rechecked.getDifferenceCount());
+        assertEquals(recheck.getRunId(), rechecked.getRunId());
+
+        assertEquals(1, historyStore.findWindows("orders", hour.plusMinutes(30), null, 0, 10).getTotal());
+    }
+
+    @Test
+    void testFailedWriteRollsBackRun() {
+        // 字段名超过列长度，差异写入失败时执行记录也一并回滚
+        char[] longName = new char[300];
+        Arrays.fill(longName, 'f');
+        ComparisonResult broken = result("orders", LocalDateTime.now(),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.SOURCE_ONLY, new String(longName)));
+        historyStore.record(broken);
+        historyStore.flush();
+        assertNull(historyStore.findRun(broken.getRunId()));
+
+        ComparisonResult next = result("orders", LocalDateTime.now(),
+                new DifferenceDetail(1001L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "amount"));
+        historyStore.record(next);
+        historyStore.flush();
+        assertEquals(1, historyStore.findRuns("orders", null, null, null, 0, 10).getTotal());
+    }
+
+    private static ComparisonResult result(String ruleName, LocalDateTime startTime, DifferenceDetail... differences) {
+        ComparisonResult result = new ComparisonResult(ruleName);
+        result.setStartTime(startTime);
+        result.setEndTime(startTime.plusSeconds(1));
+        result.setExecutionTime(1000);
+        result.setDifferences(Arrays.asList(differences));
+        result.setDifferenceCount(differences.length);
+        return result;
+    }
+}
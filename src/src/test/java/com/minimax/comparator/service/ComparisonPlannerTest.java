@@ -0,0 +1,202 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.ComparisonPlan;
+import com.minimax.comparator.model.TablePartition;
+import com.minimax.comparator.model.TableStatistics;
+import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 比较策略规划器测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class ComparisonPlannerTest {
+
+    @Spy
+    private ComparisonProperties comparisonProperties = new ComparisonProperties();
+
+    @Mock
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @Mock
+    private DialectRegistry dialectRegistry;
+
+    @InjectMocks
+    private ComparisonPlanner comparisonPlanner;
+
+    private ComparisonProperties.ComparisonRule testRule;
+
+    @BeforeEach
+    void setUp() {
+        comparisonProperties.setBatchSize(1000);
+        comparisonProperties.setThreadPoolSize(8);
+
+        testRule = new ComparisonProperties.ComparisonRule();
+        testRule.setName("test-rule");
+        testRule.setKeyField("id");
+        testRule.setCompareField("name");
+
+        ComparisonProperties.TableConfig sourceTable = new ComparisonProperties.TableConfig();
+        sourceTable.setDataSource("source-db");
+        sourceTable.setTableName("users");
+        testRule.setSourceTable(sourceTable);
+
+        ComparisonProperties.TableConfig targetTable = new ComparisonProperties.TableConfig();
+        targetTable.setDataSource("target-db");
+        targetTable.setTableName("users");
+        testRule.setTargetTable(targetTable);
+    }
+
+    @Test
+    void testSmallTablesUseDirect() {
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(800, true), statistics(1000, true));
+
+        assertEquals(ComparisonPlan.Strategy.DIRECT, plan.getStrategy());
+        assertEquals(1000, plan.getEstimatedRows());
+    }
+
+    @Test
+    void testIndexedNumericKeysUseMerge() {
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(50000, true), statistics(50000, true));
+
+        assertEquals(ComparisonPlan.Strategy.MERGE, plan.getStrategy());
+    }
+
+    @Test
+    void testLargeIndexedTablesUseRangeParallel() {
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(5000000, true), statistics(4000000, true));
+
+        assertEquals(ComparisonPlan.Strategy.RANGE_PARALLEL, plan.getStrategy());
+        assertEquals(8, plan.getParallelism());
+    }
+
+    @Test
+    void testUnindexedKeyUsesBatch() {
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(5000000, true), statistics(5000000, false));
+
+        assertEquals(ComparisonPlan.Strategy.BATCH, plan.getStrategy());
+    }
+
+    @Test
+    void testUnindexedLargeTableUsesExternalSort() {
+        comparisonProperties.getPlanner().setExternalSortThreshold(1000000);
+
+        assertEquals(ComparisonPlan.Strategy.EXTERNAL_SORT, comparisonPlanner.choosePlan(testRule,
+                statistics(5000000, true), statistics(5000000, false)).getStrategy());
+        assertEquals(ComparisonPlan.Strategy.BATCH, comparisonPlanner.choosePlan(testRule,
+                statistics(50000, true), statistics(50000, false)).getStrategy());
+    }
+
+    @Test
+    void testUnindexedLargeTableUsesHashPartition() {
+        comparisonProperties.getPlanner().setExternalSortThreshold(1000000);
+        comparisonProperties.getPlanner().setHashPartitionThreshold(1000000);
+
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(5000000, true), statistics(5000000, false));
+
+        assertEquals(ComparisonPlan.Strategy.HASH_PARTITION, plan.getStrategy());
+        assertEquals(8, plan.getParallelism());
+        assertEquals(ComparisonPlan.Strategy.MERGE, comparisonPlanner.choosePlan(testRule,
+                statistics(500000, true), statistics(500000, true)).getStrategy());
+    }
+
+    @Test
+    void testChecksumWrapsStrategyForSameDatabaseType() {
+        comparisonProperties.getPlanner().setChecksumEnabled(true);
+        when(dialectRegistry.getDialect(anyString())).thenReturn(SqlDialect.of(SqlBuilder.DatabaseType.MYSQL));
+
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(50000, true), statistics(50000, true));
+
+        assertEquals(ComparisonPlan.Strategy.CHECKSUM, plan.getStrategy());
+        assertEquals(ComparisonPlan.Strategy.MERGE, plan.getFallbackStrategy());
+    }
+
+    @Test
+    void testChecksumSkippedForDifferentDatabaseTypes() {
+        comparisonProperties.getPlanner().setChecksumEnabled(true);
+        when(dialectRegistry.getDialect("source-db")).thenReturn(SqlDialect.of(SqlBuilder.DatabaseType.MYSQL));
+        when(dialectRegistry.getDialect("target-db")).thenReturn(SqlDialect.of(SqlBuilder.DatabaseType.ORACLE));
+
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, statistics(50000, true), statistics(50000, true));
+
+        assertEquals(ComparisonPlan.Strategy.MERGE, plan.getStrategy());
+        assertNull(plan.getFallbackStrategy());
+    }
+
+    @Test
+    void testMatchingPartitionsUsePartitionParallel() {
+        comparisonProperties.getPlanner().setPartitionAware(true);
+        comparisonProperties.getPlanner().setChecksumEnabled(true);
+        TableStatistics source = partitioned(statistics(5000000, true), "p2024", "p2025");
+        TableStatistics target = partitioned(statistics(5000000, true), "P2024", "P2025");
+
+        ComparisonPlan plan = comparisonPlanner.choosePlan(testRule, source, target);
+
+        assertEquals(ComparisonPlan.Strategy.PARTITION_PARALLEL, plan.getStrategy());
+        assertEquals(ComparisonPlan.Strategy.MERGE, plan.getFallbackStrategy());
+        assertEquals(Arrays.asList("p2024", "p2025"), plan.getPartitions());
+        assertEquals(2, plan.getParallelism());
+        // 分区内不使用数据库排序时，超过批处理大小的分区按主键哈希落盘，不超过的读入内存比较
+        assertEquals(ComparisonPlan.Strategy.HASH_PARTITION, comparisonPlanner.choosePlan(testRule,
+                partitioned(statistics(5000000, false), "p2024", "p2025"), target).getFallbackStrategy());
+        assertEquals(ComparisonPlan.Strategy.DIRECT, comparisonPlanner.choosePlan(testRule,
+                partitioned(statistics(1500, false), "p2024", "p2025"),
+                partitioned(statistics(1500, true), "p2024", "p2025")).getFallbackStrategy());
+        TableStatistics unknown = partitioned(statistics(1500, false), "p2024", "p2025");
+        unknown.getPartitions().forEach(partition -> partition.setEstimatedRows(0));
+        assertEquals(ComparisonPlan.Strategy.HASH_PARTITION, comparisonPlanner.choosePlan(testRule,
+                unknown, unknown).getFallbackStrategy());
+        verifyNoInteractions(dialectRegistry);
+    }
+
+    @Test
+    void testMismatchedPartitionsFallBackToTableStrategy() {
+        comparisonProperties.getPlanner().setPartitionAware(true);
+        TableStatistics source = partitioned(statistics(50000, true), "p2024", "p2025");
+
+        assertEquals(ComparisonPlan.Strategy.MERGE, comparisonPlanner.choosePlan(testRule,
+                source, partitioned(statistics(50000, true), "p2024")).getStrategy());
+        assertEquals(ComparisonPlan.Strategy.MERGE, comparisonPlanner.choosePlan(testRule,
+                source, statistics(50000, true)).getStrategy());
+
+        TableStatistics shifted = partitioned(statistics(50000, true), "p2024", "p2025");
+        shifted.getPartitions().get(1).setBound("'2026-02-01'");
+        assertTrue(comparisonPlanner.pairPartitions(source, shifted).isEmpty());
+        shifted.getPartitions().get(1).setBound(null);
+        assertEquals(2, comparisonPlanner.pairPartitions(source, shifted).size());
+    }
+
+    private TableStatistics partitioned(TableStatistics statistics, String... names) {
+        for (String name : names) {
+            statistics.getPartitions().add(new TablePartition(name, statistics.getEstimatedRows() / names.length,
+                    "'" + name.substring(1) + "-01-01'", "users PARTITION (" + name + ")"));
+        }
+        return statistics;
+    }
+
+    private TableStatistics statistics(long rows, boolean keyIndexed) {
+        TableStatistics statistics = new TableStatistics("ds", "users");
+        statistics.setEstimatedRows(rows);
+        statistics.setKeyIndexed(keyIndexed);
+        statistics.setKeyNumeric(true);
+        statistics.setFromCatalog(true);
+        return statistics;
+    }
+}
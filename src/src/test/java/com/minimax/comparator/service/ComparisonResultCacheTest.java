@@ -0,0 +1,183 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 比较结果缓存测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class ComparisonResultCacheTest {
+
+    @Mock
+    private ComparisonProperties comparisonProperties;
+
+    @InjectMocks
+    private ComparisonResultCache comparisonResultCache;
+
+    private ComparisonProperties.ResultCacheConfig cacheConfig;
+
+    @BeforeEach
+    void setUp() {
+        cacheConfig = new ComparisonProperties.ResultCacheConfig();
+        when(comparisonProperties.getResultCache()).thenReturn(cacheConfig);
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneExecution() throws Exception {
+        ComparisonProperties.ComparisonRule rule = rule("users", "name");
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ComparisonResult> first = CompletableFuture.supplyAsync(() ->
+                comparisonResultCache.getOrExecute("simple", rule, false, () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return success(rule);
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<ComparisonResult> second = CompletableFuture.supplyAsync(() ->
+                comparisonResultCache.getOrExecute("simple", rule, false, () -> {
+                    executions.incrementAndGet();
+                    return success(rule);
+                }));
+        // 第二个请求在第一个请求完成前到达
+        Thread.sleep(100);
+        release.countDown();
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        // 未启用结果缓存，执行完成后再次请求会重新执行
+        comparisonResultCache.getOrExecute("simple", rule, false, () -> {
+            executions.incrementAndGet();
+            return success(rule);
+        });
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testResultCacheHonorsRuleTtlAndCapacity() {
+        cacheConfig.setEnabled(true);
+        cacheConfig.setMaxEntries(2);
+        cacheConfig.getRuleTtlSeconds().put("orders-rule", 0L);
+        AtomicInteger executions = new AtomicInteger();
+        ComparisonProperties.ComparisonRule users = rule("users", "name");
+        ComparisonProperties.ComparisonRule orders = rule("orders", "amount");
+        orders.setName("orders-rule");
+
+        ComparisonResult cached = comparisonResultCache.getOrExecute("simple", users, false,
+                () -> count(executions, success(users)));
+        assertSame(cached, comparisonResultCache.getOrExecute("simple", users, false,
+                () -> count(executions, success(users))));
+        assertEquals(1, executions.get());
+
+        // refresh忽略缓存；有效期为0的规则不缓存
+        comparisonResultCache.getOrExecute("simple", users, true, () -> count(executions, success(users)));
+        comparisonResultCache.getOrExecute("simple", orders, false, () -> count(executions, success(orders)));
+        comparisonResultCache.getOrExecute("simple", orders, false, () -> count(executions, success(orders)));
+        assertEquals(4, executions.get());
+        assertEquals(1, comparisonResultCache.size());
+
+        // 超出容量时淘汰最久未访问的结果；失败结果不缓存
+        comparisonResultCache.getOrExecute("optimized", users, false, () -> count(executions, success(users)));
+        comparisonResultCache.getOrExecute("merge", users, false, () -> count(executions, success(users)));
+        assertEquals(2, comparisonResultCache.size());
+        ComparisonResult failed = new ComparisonResult("test-rule");
+        failed.setStatus(ComparisonResult.ExecutionStatus.FAILED);
+        comparisonResultCache.getOrExecute("failed", users, false, () -> failed);
+        assertEquals(2, comparisonResultCache.size());
+    }
+
+    @Test
+    void testRulesWithSameConfigurationAreCachedSeparately() {
+        cacheConfig.setEnabled(true);
+        ComparisonProperties.ComparisonRule users = rule("users", "name");
+        ComparisonProperties.ComparisonRule copy = rule("users", "name");
+        copy.setName("users-copy");
+
+        comparisonResultCache.getOrExecute("simple", users, false, () -> success(users));
+        ComparisonResult result = comparisonResultCache.getOrExecute("simple", copy, false, () -> success(copy));
+        assertEquals("users-copy", result.getRuleName());
+        assertEquals(2, comparisonResultCache.size());
+    }
+
+    @Test
+    void testErrorCompletesWaitingRequests() throws Exception {
+        ComparisonProperties.ComparisonRule rule = rule("users", "name");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ComparisonResult> first = CompletableFuture.supplyAsync(() ->
+                comparisonResultCache.getOrExecute("simple", rule, false, () -> {
+                    started.countDown();
+                    await(release);
+                    throw new StackOverflowError("too deep");
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ComparisonResult> second = CompletableFuture.supplyAsync(() ->
+                comparisonResultCache.getOrExecute("simple", rule, false, () -> success(rule)));
+        Thread.sleep(100);
+        release.countDown();
+
+        // 等待中的请求随第一个请求一起失败，而不是一直阻塞
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, error.getCause());
+    }
+
+    private static ComparisonProperties.ComparisonRule rule(String tableName, String compareField) {
+        ComparisonProperties.ComparisonRule rule = new ComparisonProperties.ComparisonRule();
+        rule.setName("test-rule");
+        rule.setKeyField("id");
+        rule.setCompareField(compareField);
+        ComparisonProperties.TableConfig sourceTable = new ComparisonProperties.TableConfig();
+        sourceTable.setDataSource("source-db");
+        sourceTable.setTableName(tableName);
+        rule.setSourceTable(sourceTable);
+        ComparisonProperties.TableConfig targetTable = new ComparisonProperties.TableConfig();
+        targetTable.setDataSource("target-db");
+        targetTable.setTableName(tableName);
+        rule.setTargetTable(targetTable);
+        return rule;
+    }
+
+    private static ComparisonResult success(ComparisonProperties.ComparisonRule rule) {
+        ComparisonResult result = new ComparisonResult(rule.getName());
+        result.setStatus(ComparisonResult.ExecutionStatus.SUCCESS);
+        return result;
+    }
+
+    private static ComparisonResult count(AtomicInteger executions, ComparisonResult result) {
+        executions.incrementAndGet();
+        return result;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
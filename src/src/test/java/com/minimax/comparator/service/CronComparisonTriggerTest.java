@@ -0,0 +1,89 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 规则定时执行测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class CronComparisonTriggerTest {
+
+    @Test
+    void testStaggerAndNextCronTime() {
+        // 窗口600秒分给4个规则：0、150、300、450秒
+        assertEquals(0, CronComparisonTrigger.staggerOffsetMillis(600, 0, 4));
+        assertEquals(450_000, CronComparisonTrigger.staggerOffsetMillis(600, 3, 4));
+        assertEquals(0, CronComparisonTrigger.staggerOffsetMillis(600, 0, 1));
+
+        CronExpression daily = CronExpression.parse("0 0 2 * * *");
+        ZoneId zone = ZoneId.of("UTC");
+        ZonedDateTime lastRun = ZonedDateTime.of(2025, 6, 27, 2, 0, 0, 0, zone);
+        // 停机两天后恢复，错过的时间点不补执行
+        ZonedDateTime now = ZonedDateTime.of(2025, 6, 29, 3, 0, 0, 0, zone);
+        assertEquals(ZonedDateTime.of(2025, 6, 30, 2, 0, 0, 0, zone),
+                CronComparisonTrigger.nextCronTime(daily, lastRun, 0, now));
+        // 偏移后的执行时间尚未到达时仍执行当天的时间点
+        assertEquals(ZonedDateTime.of(2025, 6, 29, 2, 0, 0, 0, zone),
+                CronComparisonTrigger.nextCronTime(daily, lastRun, 7_200_000, now));
+    }
+
+    @Test
+    void testSkipIfRunning() throws Exception {
+        ComparisonProperties.RuleScheduleConfig schedule = new ComparisonProperties.RuleScheduleConfig();
+        schedule.setCron("* * * * * *");
+        ComparisonProperties.TableConfig table = new ComparisonProperties.TableConfig();
+        table.setDataSource("source");
+        table.setTableName("orders");
+        ComparisonProperties.ComparisonRule rule = new ComparisonProperties.ComparisonRule();
+        rule.setName("slow-rule");
+        rule.setSourceTable(table);
+        rule.setTargetTable(table);
+        rule.setSchedule(schedule);
+        ComparisonProperties properties = new ComparisonProperties();
+        properties.setRules(Collections.singletonList(rule));
+
+        FieldComparisonService fieldComparisonService = mock(FieldComparisonService.class);
+        when(fieldComparisonService.executeComparison(eq("slow-rule"), eq(true), any(ComparisonOptions.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(2500);
+                    return new ComparisonResult("slow-rule");
+                });
+
+        RuleScheduler ruleScheduler = new RuleScheduler();
+        ReflectionTestUtils.setField(ruleScheduler, "comparisonProperties", properties);
+        ruleScheduler.afterPropertiesSet();
+        CronComparisonTrigger trigger = new CronComparisonTrigger();
+        ReflectionTestUtils.setField(trigger, "comparisonProperties", properties);
+        ReflectionTestUtils.setField(trigger, "fieldComparisonService", fieldComparisonService);
+        ReflectionTestUtils.setField(trigger, "ruleScheduler", ruleScheduler);
+        try {
+            trigger.afterPropertiesSet();
+            Thread.sleep(3200);
+
+            List<Map<String, Object>> schedules = trigger.getSchedules();
+            assertEquals(1, schedules.size());
+            assertTrue((Long) schedules.get(0).get("skipped") >= 1);
+            verify(fieldComparisonService, atMost(2)).executeComparison(anyString(), anyBoolean(), any());
+        } finally {
+            trigger.destroy();
+            ruleScheduler.destroy();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * 数据源负载限制测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class DataSourceGovernorTest {
+
+    @Mock
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @InjectMocks
+    private DataSourceGovernor dataSourceGovernor;
+
+    @Test
+    void testDisabledDataSourceIsNotLimited() {
+        when(dataSourceConfig.getThrottleConfig("source")).thenReturn(new ComparisonProperties.ThrottleConfig());
+
+        long start = System.nanoTime();
+        dataSourceGovernor.run("source", () -> dataSourceGovernor.run("source",
+                () -> dataSourceGovernor.consumeRows("source", 1_000_000)));
+
+        assertTrue(System.nanoTime() - start < 100_000_000L);
+        assertEquals(1.0, dataSourceGovernor.getRateRatio("source"));
+    }
+
+    @Test
+    void testSlowQueriesLowerRateRatioAndSameThreadMayReenter() {
+        ComparisonProperties.ThrottleConfig config = new ComparisonProperties.ThrottleConfig();
+        config.setEnabled(true);
+        config.setMaxConcurrentQueries(1);
+        config.setLatencyTargetMillis(1);
+        config.setMinRateRatio(0.5);
+        when(dataSourceConfig.getThrottleConfig("source")).thenReturn(config);
+
+        // 同一线程在持有名额时打开第二条语句不会等待自己
+        dataSourceGovernor.executeStream("source", () -> dataSourceGovernor.execute("source", () -> sleep(20)));
+        assertEquals(0.7, dataSourceGovernor.getRateRatio("source"), 1e-9);
+
+        // 降速间隔内不重复调整
+        dataSourceGovernor.run("source", () -> sleep(20));
+        assertEquals(0.7, dataSourceGovernor.getRateRatio("source"), 1e-9);
+    }
+
+    @Test
+    void testNestedStatementsAcrossDataSourcesDoNotDeadlock() throws Exception {
+        ComparisonProperties.ThrottleConfig config = new ComparisonProperties.ThrottleConfig();
+        config.setEnabled(true);
+        config.setMaxConcurrentQueries(1);
+        when(dataSourceConfig.getThrottleConfig("source")).thenReturn(config);
+        when(dataSourceConfig.getThrottleConfig("target")).thenReturn(config);
+
+        // 两个线程各持有一侧名额后再打开另一侧的语句，嵌套语句不受并发上限限制
+        CyclicBarrier bothHeld = new CyclicBarrier(2);
+        Thread forward = new Thread(() -> dataSourceGovernor.run("source", () -> {
+            await(bothHeld);
+            dataSourceGovernor.run("target", () -> sleep(10));
+        }));
+        Thread backward = new Thread(() -> dataSourceGovernor.run("target", () -> {
+            await(bothHeld);
+            dataSourceGovernor.run("source", () -> sleep(10));
+        }));
+        forward.start();
+        backward.start();
+        forward.join(5000);
+        backward.join(5000);
+
+        assertFalse(forward.isAlive());
+        assertFalse(backward.isAlive());
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
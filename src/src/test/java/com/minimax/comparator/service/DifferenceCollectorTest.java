@@ -0,0 +1,198 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.DifferenceBuffer;
+import com.minimax.comparator.model.DifferenceDetail;
+import com.minimax.comparator.model.DifferenceStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 差异收集器测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class DifferenceCollectorTest {
+
+    @Test
+    void testCountsOnlyKeepsNoDetails() {
+        DifferenceCollector collector = new DifferenceCollector(new ComparisonOptions(true, 0, 0));
+        collector.add(1L, DifferenceDetail.DifferenceType.SOURCE_ONLY, "a", null, "name");
+        collector.add(2L, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "a", "b", "name");
+        collector.add(3L, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "a", "c", "name");
+
+        ComparisonResult result = new ComparisonResult("test-rule");
+        collector.applyTo(result);
+
+        assertTrue(result.isCountsOnly());
+        assertTrue(result.getDifferences().isEmpty());
+        assertEquals(3, result.getDifferenceCount());
+        assertEquals(1, result.getSourceOnlyCount());
+        assertEquals(2, result.getValueDifferenceCount());
+        assertEquals(ComparisonResult.ExecutionStatus.SUCCESS, result.getStatus());
+    }
+
+    @Test
+    void testStopsAtDifferenceLimitAndMismatchRatio() {
+        DifferenceCollector limited = new DifferenceCollector(new ComparisonOptions(false, 2, 0));
+        limited.add(1L, DifferenceDetail.DifferenceType.TARGET_ONLY, null, "a", "name");
+        assertFalse(limited.isStopped());
+        limited.add(2L, DifferenceDetail.DifferenceType.TARGET_ONLY, null, "b", "name");
+        limited.add(3L, DifferenceDetail.DifferenceType.TARGET_ONLY, null, "c", "name");
+        assertTrue(limited.isStopped());
+
+        ComparisonResult result = new ComparisonResult("test-rule");
+        limited.applyTo(result);
+        assertEquals(2, result.getDifferences().size());
+        assertTrue(result.isTerminatedEarly());
+        assertEquals(ComparisonResult.ExecutionStatus.PARTIAL, result.getStatus());
+
+        ComparisonOptions ratioOptions = new ComparisonOptions(true, 0, 0.1);
+        ratioOptions.setMinRowsForRatio(100);
+        DifferenceCollector ratio = new DifferenceCollector(ratioOptions);
+        ratio.addScanned(50);
+        for (long key = 0; key < 10; key++) {
+            ratio.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "a", "b", "name");
+        }
+        // 未达到最少扫描数时不按比例停止
+        assertFalse(ratio.isStopped());
+        ratio.addScanned(50);
+        assertTrue(ratio.isStopped());
+    }
+
+    @Test
+    void testDetailsStoredByColumn() {
+        DifferenceCollector collector = new DifferenceCollector(ComparisonOptions.defaults());
+        for (long key = 0; key < 100; key++) {
+            collector.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "a", "b", "amount");
+        }
+        collector.add(7, DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+        collector.add("K-1", DifferenceDetail.DifferenceType.TARGET_ONLY, null, "c", null);
+
+        ComparisonResult result = new ComparisonResult("test-rule");
+        collector.applyTo(result);
+        assertInstanceOf(DifferenceBuffer.class, result.getDifferences());
+        assertEquals(102, result.getDifferences().size());
+
+        DifferenceDetail first = result.getDifferences().get(0);
+        assertEquals(0L, first.getKeyValue());
+        assertEquals("b", first.getTargetValue());
+        assertEquals("amount", first.getFieldName());
+        // Integer主键按原类型还原，字段名在出现第二个后逐行记录
+        DifferenceDetail integerKey = result.getDifferences().get(100);
+        assertEquals(7, integerKey.getKeyValue());
+        assertEquals(DifferenceDetail.DifferenceType.SOURCE_ONLY, integerKey.getType());
+        assertNull(integerKey.getSourceValue());
+        assertEquals("status", integerKey.getFieldName());
+        DifferenceDetail stringKey = result.getDifferences().get(101);
+        assertEquals("K-1", stringKey.getKeyValue());
+        assertEquals("c", stringKey.getTargetValue());
+        assertNull(stringKey.getFieldName());
+        assertEquals("amount", result.getDifferences().get(99).getFieldName());
+        assertThrows(UnsupportedOperationException.class, () -> result.getDifferences().add(first));
+    }
+
+    @Test
+    void testIncrementalStatistics() throws Exception {
+        DifferenceCollector collector = new DifferenceCollector(new ComparisonOptions(true, 0, 0));
+        Thread[] workers = new Thread[4];
+        for (int w = 0; w < workers.length; w++) {
+            long lower = w * 1000L;
+            DifferenceCollector range = collector.segment("RANGE", "[" + lower + ", " + (lower + 1000) + ")");
+            workers[w] = new Thread(() -> {
+                for (long key = lower; key < lower + 1000; key++) {
+                    range.addScanned(1);
+                    if (key % 10 == 0) {
+                        range.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "PAID", "REFUNDED", "status");
+                    } else if (key % 25 == 1) {
+                        range.add(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "PAID", "NEW", "status");
+                    }
+                }
+            });
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        collector.add("K-1", DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+
+        ComparisonResult result = new ComparisonResult("test-rule");
+        collector.applyTo(result);
+        DifferenceStatistics statistics = result.getStatistics();
+        assertTrue(result.getDifferences().isEmpty());
+        assertEquals(561, result.getDifferenceCount());
+        assertEquals(4, statistics.getSegments().size());
+        assertEquals(1000, statistics.getSegments().get(0).getScannedKeys());
+        assertEquals(140, statistics.getSegments().get(3).getValueDifferenceCount());
+
+        assertEquals("REFUNDED", statistics.getTopValueDifferences().get(0).getTargetValue());
+        assertEquals(400, statistics.getTopValueDifferences().get(0).getCount());
+        assertEquals(160, statistics.getTopValueDifferences().get(1).getCount());
+
+        long histogramTotal = 0;
+        for (DifferenceStatistics.KeyBucket bucket : statistics.getKeyHistogram()) {
+            histogramTotal += bucket.getCount();
+            assertTrue(bucket.getLowerKey() < bucket.getUpperKey());
+        }
+        assertEquals(560, histogramTotal);
+        assertTrue(statistics.getKeyHistogram().size() <= 32);
+        assertEquals(0, statistics.getKeyHistogram().get(0).getLowerKey());
+        assertTrue(statistics.getKeyHistogram().get(statistics.getKeyHistogram().size() - 1).getUpperKey() >= 3991);
+        assertEquals(1, statistics.getNonNumericKeyDifferences());
+    }
+
+    @Test
+    void testTopValuesSurviveCounterReplacement() {
+        DifferenceCollector collector = new DifferenceCollector(new ComparisonOptions(true, 0, 0));
+        // 不同取值远多于计数器个数，高频取值仍排在最前，且计数不低于实际次数
+        for (int i = 0; i < 500; i++) {
+            collector.add((long) i, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "A", "V-" + i, "status");
+            if (i % 5 == 0) {
+                collector.add((long) i, DifferenceDetail.DifferenceType.VALUE_DIFFERENT, "A", "HOT", "status");
+            }
+        }
+
+        ComparisonResult result = new ComparisonResult("test-rule");
+        collector.applyTo(result);
+        List<DifferenceStatistics.ValueCount> top = result.getStatistics().getTopValueDifferences();
+        assertEquals("HOT", top.get(0).getTargetValue());
+        assertTrue(top.get(0).getCount() >= 100);
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).getCount() >= top.get(i).getCount());
+        }
+    }
+
+    @Test
+    void testKeyHistogramWithMixedSignKeys() {
+        DifferenceCollector collector = new DifferenceCollector(new ComparisonOptions(true, 0, 0));
+        // 先出现正数主键，再出现更小的负数主键时范围向左扩展
+        collector.add(5L, DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+        collector.add(-3L, DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+        for (long key = -100; key <= 100; key += 10) {
+            collector.add(key, DifferenceDetail.DifferenceType.TARGET_ONLY, null, null, "status");
+        }
+
+        ComparisonResult result = new ComparisonResult("test-rule");
+        collector.applyTo(result);
+        List<DifferenceStatistics.KeyBucket> buckets = result.getStatistics().getKeyHistogram();
+        assertTrue(buckets.size() <= 32);
+        assertTrue(buckets.get(0).getLowerKey() <= -100);
+        assertTrue(buckets.get(buckets.size() - 1).getUpperKey() > 100);
+        assertEquals(23, buckets.stream().mapToLong(DifferenceStatistics.KeyBucket::getCount).sum());
+
+        // 跨越整个long范围的主键也不会越界
+        DifferenceCollector extremes = new DifferenceCollector(new ComparisonOptions(true, 0, 0));
+        extremes.add(Long.MAX_VALUE, DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+        extremes.add(Long.MIN_VALUE, DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+        extremes.add(0L, DifferenceDetail.DifferenceType.SOURCE_ONLY, null, null, "status");
+        ComparisonResult extremeResult = new ComparisonResult("test-rule");
+        extremes.applyTo(extremeResult);
+        assertEquals(3, extremeResult.getStatistics().getKeyHistogram().stream()
+                .mapToLong(DifferenceStatistics.KeyBucket::getCount).sum());
+    }
+}
@@ -0,0 +1,135 @@
+package com.minimax.comparator.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.DifferenceDetail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 差异流式输出服务测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class DifferenceStreamServiceTest {
+
+    private DifferenceStreamService streamService;
+
+    private OptimizedComparisonService optimizedComparisonService;
+
+    private ComparisonHistoryStore historyStore;
+
+    private ComparisonProperties.ComparisonRule rule;
+
+    @BeforeEach
+    void setUp() {
+        ComparisonProperties properties = new ComparisonProperties();
+        properties.getStream().setBufferSize(2);
+        properties.getStream().setStallTimeoutSeconds(5);
+        rule = new ComparisonProperties.ComparisonRule();
+        rule.setName("orders");
+        properties.setRules(Collections.singletonList(rule));
+
+        optimizedComparisonService = mock(OptimizedComparisonService.class);
+        historyStore = mock(ComparisonHistoryStore.class);
+        streamService = new DifferenceStreamService();
+        ReflectionTestUtils.setField(streamService, "comparisonProperties", properties);
+        ReflectionTestUtils.setField(streamService, "optimizedComparisonService", optimizedComparisonService);
+        ReflectionTestUtils.setField(streamService, "comparisonHistoryStore", historyStore);
+        ReflectionTestUtils.setField(streamService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        streamService.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.destroy();
+    }
+
+    @Test
+    void testStreamsDifferencesThenSummary() throws Exception {
+        when(optimizedComparisonService.performOptimizedComparison(eq(rule), any(ComparisonOptions.class), any()))
+                .thenAnswer(invocation -> {
+                    ComparisonOptions options = invocation.getArgument(1);
+                    assertTrue(options.isCountsOnly());
+                    DifferenceListener listener = invocation.getArgument(2);
+                    for (long key = 1; key <= 5; key++) {
+                        listener.onDifference(new DifferenceDetail(key, DifferenceDetail.DifferenceType.VALUE_DIFFERENT,
+                                "a", "b", "status"));
+                    }
+                    ComparisonResult result = new ComparisonResult("orders");
+                    result.setDifferenceCount(5);
+                    return result;
+                });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamService.stream(streamService.findRule("orders"), ComparisonOptions.defaults(), out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(6, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals("difference", first.get("event").asText());
+        assertEquals(1, first.get("data").get("keyValue").asLong());
+        JsonNode summary = mapper.readTree(lines[5]);
+        assertEquals("summary", summary.get("event").asText());
+        assertEquals(5, summary.get("data").get("differenceCount").asLong());
+        verify(historyStore).record(any(ComparisonResult.class));
+        assertThrows(IllegalArgumentException.class, () -> streamService.findRule("missing"));
+    }
+
+    @Test
+    void testClientDisconnectStopsComparison() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(1);
+        when(optimizedComparisonService.performOptimizedComparison(eq(rule), any(ComparisonOptions.class), any()))
+                .thenAnswer(invocation -> {
+                    DifferenceListener listener = invocation.getArgument(2);
+                    ComparisonResult result = new ComparisonResult("orders");
+                    try {
+                        for (long key = 0; key < 1_000_000; key++) {
+                            listener.onDifference(new DifferenceDetail(key, DifferenceDetail.DifferenceType.SOURCE_ONLY,
+                                    "status"));
+                            produced.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        result.setStatus(ComparisonResult.ExecutionStatus.FAILED);
+                    } finally {
+                        finished.countDown();
+                    }
+                    return result;
+                });
+
+        OutputStream brokenClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        assertThrows(IOException.class,
+                () -> streamService.stream(rule, ComparisonOptions.defaults(), brokenClient));
+
+        // 缓冲区只有2条，客户端断开后比较线程不再继续产生差异
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertTrue(produced.get() <= 4);
+        verify(historyStore, never()).record(any());
+    }
+}
@@ -3,14 +3,17 @@ package com.minimax.comparator.service;
 import com.minimax.comparator.config.ComparisonProperties;
 import com.minimax.comparator.config.DynamicDataSourceConfig;
 import com.minimax.comparator.model.ComparisonResult;
+import com.minimax.comparator.model.DataSourceStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.List;
@@ -40,6 +43,18 @@ class FieldComparisonServiceTest {
     @Mock
     private JdbcTemplate targetJdbcTemplate;
 
+    @Mock
+    private OptimizedComparisonService optimizedComparisonService;
+
+    @Spy
+    private ComparisonResultCache comparisonResultCache = new ComparisonResultCache();
+
+    @Spy
+    private RuleScheduler ruleScheduler = new RuleScheduler();
+
+    @Spy
+    private ComparisonHistoryStore comparisonHistoryStore = new ComparisonHistoryStore();
+
     @InjectMocks
     private FieldComparisonService fieldComparisonService;
 
@@ -72,8 +87,10 @@ class FieldComparisonServiceTest {
     void testExecuteComparison_Success() {
         // 配置mock
         when(comparisonProperties.getRules()).thenReturn(Arrays.asList(testRule));
-        when(dataSourceConfig.getJdbcTemplate("source-db")).thenReturn(sourceJdbcTemplate);
-        when(dataSourceConfig.getJdbcTemplate("target-db")).thenReturn(targetJdbcTemplate);
+        when(dataSourceConfig.getReadJdbcTemplate("source-db")).thenReturn(sourceJdbcTemplate);
+        when(dataSourceConfig.getReadJdbcTemplate("target-db")).thenReturn(targetJdbcTemplate);
+        when(comparisonProperties.getResultCache()).thenReturn(new ComparisonProperties.ResultCacheConfig());
+        ReflectionTestUtils.setField(comparisonResultCache, "comparisonProperties", comparisonProperties);
         
         // 模拟数据查询
         doAnswer(invocation -> {
@@ -98,6 +115,34 @@ class FieldComparisonServiceTest {
         assertEquals(ComparisonResult.ExecutionStatus.SUCCESS, result.getStatus());
     }
 
+    @Test
+    void testExecuteAllComparisons_SharesScanForSameTablePair() {
+        ComparisonProperties.ComparisonRule amountRule = new ComparisonProperties.ComparisonRule();
+        amountRule.setName("amount-rule");
+        amountRule.setEnabled(true);
+        amountRule.setKeyField("ID");
+        amountRule.setCompareField("amount");
+        amountRule.setSourceTable(testRule.getSourceTable());
+        amountRule.setTargetTable(testRule.getTargetTable());
+        
+        when(comparisonProperties.getRules()).thenReturn(Arrays.asList(testRule, amountRule));
+        when(comparisonProperties.isEnableParallel()).thenReturn(false);
+        when(comparisonProperties.isSharedScan()).thenReturn(true);
+        when(comparisonProperties.getScheduler()).thenReturn(new ComparisonProperties.SchedulerConfig());
+        ReflectionTestUtils.setField(ruleScheduler, "comparisonProperties", comparisonProperties);
+        when(optimizedComparisonService.performSharedComparison(eq(Arrays.asList(testRule, amountRule)), any()))
+                .thenReturn(Arrays.asList(new ComparisonResult("test-rule"), new ComparisonResult("amount-rule")));
+        
+        List<ComparisonResult> results = fieldComparisonService.executeAllComparisons();
+        
+        // 两个规则只触发一次共享扫描，结果保持规则顺序
+        assertEquals(2, results.size());
+        assertEquals("test-rule", results.get(0).getRuleName());
+        assertEquals("amount-rule", results.get(1).getRuleName());
+        verify(optimizedComparisonService, times(1)).performSharedComparison(anyList(), any());
+        verifyNoInteractions(dataSourceConfig);
+    }
+
     @Test
     void testExecuteComparison_RuleNotFound() {
         // 配置mock
@@ -130,9 +175,10 @@ class FieldComparisonServiceTest {
     @Test
     void testValidateDataSourceConnections() {
         // 配置mock
-        when(dataSourceConfig.getAllDataSourceNames()).thenReturn(java.util.Set.of("source-db", "target-db"));
-        when(dataSourceConfig.testConnection("source-db")).thenReturn(true);
-        when(dataSourceConfig.testConnection("target-db")).thenReturn(false);
+        java.util.Map<String, DataSourceStatus> statuses = new java.util.TreeMap<>();
+        statuses.put("source-db", new DataSourceStatus("source-db", DataSourceStatus.State.READY, null));
+        statuses.put("target-db", new DataSourceStatus("target-db", DataSourceStatus.State.TIMEOUT, "超过 5000 毫秒未完成"));
+        when(dataSourceConfig.validateConnections()).thenReturn(statuses);
         
         // 执行测试
         java.util.Map<String, Boolean> connectionStatus = fieldComparisonService.validateDataSourceConnections();
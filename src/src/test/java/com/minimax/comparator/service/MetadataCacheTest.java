@@ -0,0 +1,146 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.config.DynamicDataSourceConfig;
+import com.minimax.comparator.model.TableMetadata;
+import com.minimax.comparator.util.SqlBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * 表元数据缓存测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class MetadataCacheTest {
+
+    @Mock
+    private DynamicDataSourceConfig dataSourceConfig;
+
+    @Mock
+    private DialectRegistry dialectRegistry;
+
+    @InjectMocks
+    private MetadataCache metadataCache;
+
+    private ComparisonProperties properties;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ComparisonProperties();
+        properties.getMetadata().setTtlSeconds(3600);
+        ReflectionTestUtils.setField(metadataCache, "comparisonProperties", properties);
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:metadata" + System.nanoTime() + ";DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, status VARCHAR(16) NOT NULL, amount DECIMAL(10, 2))");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_status ON orders (status)");
+    }
+
+    @Test
+    void testLoadsColumnsAndReloadsAfterTtl() {
+        when(dataSourceConfig.getJdbcTemplate("source")).thenReturn(jdbcTemplate);
+        ComparisonProperties.TableConfig table = table("source", null, "orders");
+
+        TableMetadata metadata = metadataCache.getTableMetadata(table);
+        assertTrue(metadata.exists());
+        assertEquals(Collections.singletonList("ID"), metadata.getPrimaryKeyColumns());
+        assertFalse(metadata.getColumn("status").isNullable());
+        assertTrue(metadata.getIndexes().containsKey("IDX_ORDERS_STATUS"));
+
+        // 未过期时使用缓存，表结构变化不可见
+        jdbcTemplate.execute("ALTER TABLE orders ADD COLUMN remark VARCHAR(64)");
+        assertSame(metadata, metadataCache.getTableMetadata(table));
+
+        // 过期后重新加载
+        properties.getMetadata().setTtlSeconds(0);
+        TableMetadata reloaded = metadataCache.getTableMetadata(table);
+        assertNotSame(metadata, reloaded);
+        assertNotNull(reloaded.getColumn("remark"));
+    }
+
+    @Test
+    void testRefreshOnlyClearsGivenDataSource() {
+        when(dataSourceConfig.getJdbcTemplate("source")).thenReturn(jdbcTemplate);
+        when(dataSourceConfig.getJdbcTemplate("target")).thenReturn(jdbcTemplate);
+        ComparisonProperties.TableConfig source = table("source", null, "orders");
+        ComparisonProperties.TableConfig target = table("target", null, "orders");
+        TableMetadata sourceMetadata = metadataCache.getTableMetadata(source);
+        TableMetadata targetMetadata = metadataCache.getTableMetadata(target);
+
+        jdbcTemplate.execute("ALTER TABLE orders ADD COLUMN remark VARCHAR(64)");
+        metadataCache.refresh("source");
+
+        assertNotNull(metadataCache.getTableMetadata(source).getColumn("remark"));
+        assertSame(targetMetadata, metadataCache.getTableMetadata(target));
+        assertNotSame(sourceMetadata, metadataCache.getTableMetadata(source));
+    }
+
+    @Test
+    void testMySqlSchemaIsReadAsCatalog() {
+        when(dataSourceConfig.getJdbcTemplate("mysql")).thenReturn(jdbcTemplate);
+        when(dialectRegistry.getDatabaseType("mysql")).thenReturn(SqlBuilder.DatabaseType.MYSQL);
+        when(dataSourceConfig.getJdbcTemplate("h2")).thenReturn(jdbcTemplate);
+        when(dialectRegistry.getDatabaseType("h2")).thenReturn(SqlBuilder.DatabaseType.H2);
+
+        // 未配置schema时使用连接当前的catalog（MySQL的当前database）
+        assertTrue(metadataCache.getTableMetadata(table("mysql", null, "orders")).exists());
+        // MySQL配置的schema是database，按catalog查找，不会当作JDBC schema
+        assertFalse(metadataCache.getTableMetadata(table("mysql", "PUBLIC", "orders")).exists());
+        assertTrue(metadataCache.getTableMetadata(table("h2", "public", "orders")).exists());
+    }
+
+    @Test
+    void testValidateRuleReportsMissingTablesAndFields() {
+        when(dataSourceConfig.getJdbcTemplate("source")).thenReturn(jdbcTemplate);
+        when(dataSourceConfig.getJdbcTemplate("missing")).thenThrow(new IllegalArgumentException("数据源不存在: missing"));
+
+        ComparisonProperties.ComparisonRule rule = rule(table("source", null, "orders"), table("source", null, "orders"));
+        assertTrue(metadataCache.validateRule(rule).isEmpty());
+
+        rule.setCompareField("total");
+        rule.setTargetTable(table("source", null, "order_copy"));
+        assertEquals(Arrays.asList("源表 orders 中不存在字段 total", "目标表 order_copy 不存在"),
+                metadataCache.validateRule(rule));
+
+        rule.setTargetTable(table("missing", null, "orders"));
+        List<String> errors = metadataCache.validateRule(rule);
+        assertEquals("目标表 orders 元数据读取失败: 数据源不存在: missing", errors.get(1));
+    }
+
+    private static ComparisonProperties.TableConfig table(String dataSource, String schema, String tableName) {
+        ComparisonProperties.TableConfig table = new ComparisonProperties.TableConfig();
+        table.setDataSource(dataSource);
+        table.setSchema(schema);
+        table.setTableName(tableName);
+        return table;
+    }
+
+    private static ComparisonProperties.ComparisonRule rule(ComparisonProperties.TableConfig sourceTable,
+                                                            ComparisonProperties.TableConfig targetTable) {
+        ComparisonProperties.ComparisonRule rule = new ComparisonProperties.ComparisonRule();
+        rule.setSourceTable(sourceTable);
+        rule.setTargetTable(targetTable);
+        rule.setKeyField("id");
+        rule.setCompareField("amount");
+        return rule;
+    }
+}
@@ -0,0 +1,194 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ColumnMetadata;
+import com.minimax.comparator.model.TableMetadata;
+import com.minimax.comparator.util.SqlBuilder;
+import com.minimax.comparator.util.SqlDialect;
+import com.minimax.comparator.util.ValueComparator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 规则查询计划缓存测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class RuleQueryPlanCacheTest {
+
+    @Mock
+    private DialectRegistry dialectRegistry;
+
+    @Mock
+    private MetadataCache metadataCache;
+
+    @InjectMocks
+    private RuleQueryPlanCache ruleQueryPlanCache;
+
+    private ComparisonProperties.ComparisonRule testRule;
+
+    @BeforeEach
+    void setUp() {
+        testRule = new ComparisonProperties.ComparisonRule();
+        testRule.setName("test-rule");
+        testRule.setKeyField("id");
+        testRule.setCompareField("name");
+
+        ComparisonProperties.TableConfig sourceTable = new ComparisonProperties.TableConfig();
+        sourceTable.setDataSource("source-db");
+        sourceTable.setTableName("users");
+        testRule.setSourceTable(sourceTable);
+
+        ComparisonProperties.TableConfig targetTable = new ComparisonProperties.TableConfig();
+        targetTable.setDataSource("target-db");
+        targetTable.setTableName("users");
+        testRule.setTargetTable(targetTable);
+
+        when(dialectRegistry.getDialect("source-db")).thenReturn(SqlDialect.of(SqlBuilder.DatabaseType.MYSQL));
+        when(dialectRegistry.getDialect("target-db")).thenReturn(SqlDialect.of(SqlBuilder.DatabaseType.ORACLE, 11));
+    }
+
+    @Test
+    void testPlanIsCompiledOnceWithDialectSpecificPaging() {
+        RuleQueryPlan plan = ruleQueryPlanCache.getPlan(testRule);
+
+        assertSame(plan, ruleQueryPlanCache.getPlan(testRule));
+        verify(dialectRegistry, times(1)).getDialect("source-db");
+
+        assertEquals("SELECT id, name FROM users ORDER BY id LIMIT ?", plan.getSource().getKeysetPageSql(false));
+        assertEquals("SELECT id, name FROM users WHERE id > ? ORDER BY id LIMIT ?", plan.getSource().getKeysetPageSql(true));
+        assertArrayEquals(new Object[]{100L, 500}, plan.getSource().keysetPageParameters(100L, 500));
+        // Oracle 11g不支持FETCH FIRST，使用ROWNUM
+        assertEquals("SELECT * FROM (SELECT id, name FROM users WHERE id > ? ORDER BY id) WHERE ROWNUM <= ?",
+                plan.getTarget().getKeysetPageSql(true));
+        assertEquals("SELECT COUNT(*), SUM(ORA_HASH(id || '|' || name)) FROM users", plan.getTarget().getChecksumSql());
+    }
+
+    @Test
+    void testPlanIsRecompiledWhenRuleChanges() {
+        RuleQueryPlan plan = ruleQueryPlanCache.getPlan(testRule);
+
+        testRule.setWhereCondition("status = 1");
+        RuleQueryPlan changed = ruleQueryPlanCache.getPlan(testRule);
+
+        assertNotSame(plan, changed);
+        assertTrue(changed.getSource().getSelectSql().endsWith("WHERE status = 1"));
+    }
+
+    @Test
+    void testInvalidateDataSource() {
+        RuleQueryPlan plan = ruleQueryPlanCache.getPlan(testRule);
+
+        ruleQueryPlanCache.invalidateDataSource("other-db");
+        assertSame(plan, ruleQueryPlanCache.getPlan(testRule));
+
+        ruleQueryPlanCache.invalidateDataSource("target-db");
+        assertNotSame(plan, ruleQueryPlanCache.getPlan(testRule));
+    }
+
+    @Test
+    void testKeyLookupIsPaddedToBucket() {
+        RuleQueryPlan plan = ruleQueryPlanCache.getPlan(testRule);
+        RuleQueryPlan.TableQueries target = plan.getTarget();
+        List<Object> keys = Arrays.asList(1L, 2L, 3L);
+
+        assertEquals("SELECT id, name FROM users WHERE id IN (?, ?, ?, ?)", target.getKeyLookupSql(keys.size()));
+        assertArrayEquals(new Object[]{1L, 2L, 3L, 3L}, target.keyLookupParameters(keys));
+        assertEquals(1000, target.getMaxLookupKeys());
+        assertEquals(5000, plan.getSource().getMaxLookupKeys());
+        assertEquals(1000, RuleQueryPlan.lookupBucket(600, 1000));
+        assertEquals(512, RuleQueryPlan.lookupBucket(512, 1000));
+    }
+
+    @Test
+    void testWhereParametersAreBoundWithoutRecompiling() {
+        testRule.setWhereCondition("created_at >= ? AND created_at < ?");
+        RuleQueryPlan plan = ruleQueryPlanCache.getPlan(testRule);
+        Timestamp start = Timestamp.valueOf(LocalDateTime.of(2025, 6, 27, 9, 0));
+        Timestamp end = Timestamp.valueOf(LocalDateTime.of(2025, 6, 27, 10, 0));
+        RuleQueryPlan bound = plan.bind(new Object[]{start, end});
+
+        // 绑定参数不改变SQL文本，也不会使缓存的计划失效
+        assertSame(plan, plan.bind(new Object[0]));
+        assertSame(plan, ruleQueryPlanCache.getPlan(testRule));
+        assertEquals(plan.getSource().getSelectSql(), bound.getSource().getSelectSql());
+        assertEquals(0, plan.getSource().getWhereParameters().length);
+        assertArrayEquals(new Object[]{start, end}, bound.getSource().getWhereParameters());
+
+        // 参数顺序与SQL中占位符的顺序一致
+        assertEquals("SELECT id, name FROM users WHERE id > ? AND (created_at >= ? AND created_at < ?) ORDER BY id LIMIT ?",
+                bound.getSource().getKeysetPageSql(true));
+        assertArrayEquals(new Object[]{100L, start, end, 500}, bound.getSource().keysetPageParameters(100L, 500));
+        assertArrayEquals(new Object[]{start, end, 500}, bound.getSource().keysetPageParameters(null, 500));
+        assertArrayEquals(new Object[]{1L, 2L, start, end}, bound.getTarget().keyLookupParameters(Arrays.asList(1L, 2L)));
+        assertArrayEquals(new Object[]{0L, 10L, start, end}, bound.getTarget().rangeParameters(new Object[]{0L, 10L}));
+    }
+
+    @Test
+    void testComparatorsAreCompiledFromColumnMetadata() {
+        testRule.setCompareField("amount");
+        when(metadataCache.getTableMetadata(testRule.getSourceTable())).thenReturn(table("source-db",
+                new ColumnMetadata("id", Types.BIGINT, "BIGINT", 19, 0, false),
+                new ColumnMetadata("amount", Types.DECIMAL, "DECIMAL", 10, 2, true)));
+        when(metadataCache.getTableMetadata(testRule.getTargetTable())).thenReturn(table("target-db",
+                new ColumnMetadata("id", Types.NUMERIC, "NUMBER", 12, 0, false),
+                new ColumnMetadata("amount", Types.NUMERIC, "NUMBER", 0, -127, true)));
+
+        RuleQueryPlan plan = ruleQueryPlanCache.getPlan(testRule);
+
+        assertEquals(ValueComparator.Kind.INTEGRAL, plan.getKeyComparator().getKind());
+        ValueComparator amount = plan.getValueComparator();
+        assertEquals(ValueComparator.Kind.DECIMAL, amount.getKind());
+        assertTrue(amount.matches(new BigDecimal("10.0"), new BigDecimal("10.00")));
+        assertFalse(amount.matches(new BigDecimal("10.0"), null));
+        assertTrue(amount.matches(null, null));
+
+        // 未指定精度的NUMBER可能存有小数，不能按整数读取
+        ColumnMetadata unconstrained = new ColumnMetadata("amount", Types.NUMERIC, "NUMBER", 0, 0, true);
+        ColumnMetadata unknownScale = new ColumnMetadata("amount", Types.NUMERIC, "NUMBER", -1, -1, true);
+        assertFalse(unconstrained.isIntegral());
+        assertEquals(ValueComparator.Kind.DECIMAL,
+                ValueComparator.forColumns(unconstrained, new ColumnMetadata("amount", Types.BIGINT, "BIGINT", 19, 0, true)).getKind());
+        assertEquals(ValueComparator.Kind.DECIMAL, ValueComparator.forColumns(unknownScale, unknownScale).getKind());
+        assertFalse(ValueComparator.forColumns(unconstrained, unconstrained)
+                .matches(new BigDecimal("12.5"), new BigDecimal("12.7")));
+
+        // 缺少元数据时使用通用比较
+        assertSame(ValueComparator.GENERIC, ValueComparator.forColumns(null, null));
+        assertTrue(ValueComparator.genericEquals(1L, new BigDecimal("1.000")));
+        assertTrue(ValueComparator.genericEquals(Timestamp.valueOf("2025-06-27 10:00:00"),
+                LocalDateTime.of(2025, 6, 27, 10, 0)));
+        assertTrue(ValueComparator.genericEquals(new byte[]{1, 2}, new byte[]{1, 2}));
+        assertFalse(ValueComparator.genericEquals("1", 1L));
+        assertEquals(5L, ValueComparator.canonicalKey(new BigDecimal("5.00")));
+        assertEquals(5L, ValueComparator.canonicalKey(5));
+    }
+
+    private static TableMetadata table(String dataSourceName, ColumnMetadata... columns) {
+        TableMetadata metadata = new TableMetadata(dataSourceName, "users");
+        Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>();
+        for (ColumnMetadata column : columns) {
+            columnMap.put(column.getName(), column);
+        }
+        metadata.setColumns(columnMap);
+        return metadata;
+    }
+}
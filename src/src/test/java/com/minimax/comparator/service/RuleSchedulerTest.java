@@ -0,0 +1,112 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 规则调度器测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class RuleSchedulerTest {
+
+    private ComparisonProperties comparisonProperties;
+
+    private RuleScheduler ruleScheduler;
+
+    @BeforeEach
+    void setUp() {
+        comparisonProperties = new ComparisonProperties();
+        comparisonProperties.getScheduler().setMaxConcurrentRules(4);
+        ruleScheduler = new RuleScheduler();
+        ReflectionTestUtils.setField(ruleScheduler, "comparisonProperties", comparisonProperties);
+        ruleScheduler.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ruleScheduler.destroy();
+    }
+
+    @Test
+    void testOrderByPriorityThenExpectedDuration() {
+        ruleScheduler.recordDuration("big", 60000);
+        ruleScheduler.recordDuration("small", 50);
+        ruleScheduler.recordDuration("weighted", 1000);
+
+        List<String> executed = new ArrayList<>();
+        List<RuleScheduler.ScheduledTask> tasks = Arrays.asList(
+                task(rule("big", "a", 0, 1), executed),
+                task(rule("weighted", "a", 0, 100), executed),
+                task(rule("small", "a", 0, 1), executed),
+                task(rule("critical", "a", 5, 1), executed));
+
+        ruleScheduler.executeSequentially(tasks);
+
+        // 高优先级先执行；同一优先级按预计耗时/权重：weighted 10，small 50，big 60000
+        assertEquals(Arrays.asList("critical", "weighted", "small", "big"), executed);
+        assertTrue(ruleScheduler.getExpectedMillis("critical") >= 0);
+    }
+
+    @Test
+    void testDataSourceConcurrencyLimit() {
+        comparisonProperties.getScheduler().setMaxRulesPerDataSource(1);
+        AtomicInteger runningOnShared = new AtomicInteger();
+        AtomicInteger maxRunningOnShared = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+
+        List<RuleScheduler.ScheduledTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(new RuleScheduler.ScheduledTask(Collections.singletonList(rule("shared-" + i, "shared", 0, 1)), () -> {
+                maxRunningOnShared.accumulateAndGet(runningOnShared.incrementAndGet(), Math::max);
+                sleep(30);
+                runningOnShared.decrementAndGet();
+                completed.incrementAndGet();
+            }));
+        }
+        tasks.add(new RuleScheduler.ScheduledTask(Collections.singletonList(rule("other", "other", 0, 1)),
+                completed::incrementAndGet));
+
+        ruleScheduler.executeAll(tasks);
+
+        assertEquals(5, completed.get());
+        assertEquals(1, maxRunningOnShared.get());
+    }
+
+    private static RuleScheduler.ScheduledTask task(ComparisonProperties.ComparisonRule rule, List<String> executed) {
+        return new RuleScheduler.ScheduledTask(Collections.singletonList(rule), () -> executed.add(rule.getName()));
+    }
+
+    private static ComparisonProperties.ComparisonRule rule(String name, String dataSource, int priority, int weight) {
+        ComparisonProperties.TableConfig table = new ComparisonProperties.TableConfig();
+        table.setDataSource(dataSource);
+        table.setTableName("orders");
+        ComparisonProperties.ComparisonRule rule = new ComparisonProperties.ComparisonRule();
+        rule.setName(name);
+        rule.setSourceTable(table);
+        rule.setTargetTable(table);
+        rule.setPriority(priority);
+        rule.setWeight(weight);
+        return rule;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.model.SamplingEstimate;
+import com.minimax.comparator.model.SamplingOptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 抽样比较估计测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class SamplingComparisonServiceTest {
+
+    @Test
+    void testZeroMismatchSampleStillHasUpperBound() {
+        SamplingComparisonService.SideSample source = new SamplingComparisonService.SideSample(false, false, 1_000_000);
+        source.addStratum(10_000, 0, 1.0);
+        SamplingComparisonService.SideSample target = new SamplingComparisonService.SideSample(false, false, 1_000_000);
+        target.addStratum(10_000, 0, 1.0);
+
+        SamplingEstimate estimate = SamplingComparisonService.combine(source, target, new SamplingOptions());
+
+        assertEquals("HASH", estimate.getMethod());
+        assertEquals(0.0, estimate.getEstimatedMismatchRate());
+        assertEquals(0.0, estimate.getLowerBound(), 1e-12);
+        // 两端各10000行无差异，95%上界约为 2 * 3.84 / 10000
+        assertTrue(estimate.getUpperBound() > 0.0005 && estimate.getUpperBound() < 0.001);
+    }
+
+    @Test
+    void testStratifiedEstimateWeightsStrataAndCoversRate() {
+        SamplingComparisonService.SideSample source = new SamplingComparisonService.SideSample(true, true, 100_000);
+        source.addStratum(1000, 100, 0.5);
+        source.addStratum(1000, 0, 0.5);
+        SamplingComparisonService.SideSample target = new SamplingComparisonService.SideSample(true, false, 100_000);
+        target.addStratum(2000, 0, 1.0);
+
+        SamplingEstimate estimate = SamplingComparisonService.combine(source, target, new SamplingOptions());
+
+        assertEquals("BLOCK", estimate.getMethod());
+        assertTrue(estimate.isStratified());
+        assertEquals(0.05, estimate.getEstimatedMismatchRate(), 1e-9);
+        assertEquals(5000, estimate.getEstimatedDifferenceRows());
+        assertTrue(estimate.getLowerBound() < 0.05 && estimate.getUpperBound() > 0.05);
+        assertEquals(1.96, SamplingComparisonService.zScore(0.95), 1e-3);
+
+        List<long[]> strata = SamplingComparisonService.splitStrata(1, 10, 3);
+        assertEquals(3, strata.size());
+        assertArrayEquals(new long[]{1, 5}, strata.get(0));
+        assertArrayEquals(new long[]{9, 11}, strata.get(2));
+    }
+}
@@ -0,0 +1,141 @@
+package com.minimax.comparator.service;
+
+import com.minimax.comparator.config.ComparisonProperties;
+import com.minimax.comparator.model.ComparisonOptions;
+import com.minimax.comparator.model.ComparisonResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 按时间窗口滚动比较测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+@ExtendWith(MockitoExtension.class)
+class TimeWindowComparisonServiceTest {
+
+    @Mock
+    private ComparisonProperties comparisonProperties;
+
+    @Mock
+    private OptimizedComparisonService optimizedComparisonService;
+
+    @Mock
+    private ComparisonHistoryStore comparisonHistoryStore;
+
+    @InjectMocks
+    private TimeWindowComparisonService timeWindowComparisonService;
+
+    private ComparisonProperties.ComparisonRule rule;
+
+    private final List<String> whereConditions = new ArrayList<>();
+
+    private final List<Object[]> whereParameters = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ComparisonProperties.TimeWindowConfig config = new ComparisonProperties.TimeWindowConfig();
+        config.setTimeColumn("created_at");
+        config.setWindowSeconds(3600);
+        config.setLookbackWindows(6);
+        rule = new ComparisonProperties.ComparisonRule();
+        rule.setName("orders");
+        rule.setKeyField("id");
+        rule.setCompareField("amount");
+        rule.setWhereCondition("status = 'ACTIVE'");
+        rule.setTimeWindow(config);
+    }
+
+    @Test
+    void testLatestWindowsAndDecayedRechecks() {
+        // 08:00窗口一直存在差异
+        stubComparison(LocalDateTime.of(2025, 6, 27, 8, 0));
+        List<ComparisonResult> first = timeWindowComparisonService.compareWindows(rule, ComparisonOptions.defaults(),
+                LocalDateTime.of(2025, 6, 27, 10, 30));
+        assertEquals(List.of(9, 8, 7, 6, 5, 4), startHours(first));
+        assertEquals("(status = 'ACTIVE') AND created_at >= ? AND created_at < ?", whereConditions.get(0));
+        assertArrayEquals(new Object[]{Timestamp.valueOf(LocalDateTime.of(2025, 6, 27, 9, 0)),
+                Timestamp.valueOf(LocalDateTime.of(2025, 6, 27, 10, 0))}, whereParameters.get(0));
+        assertEquals(LocalDateTime.of(2025, 6, 27, 10, 0), first.get(0).getWindowEnd());
+        assertEquals("orders", first.get(0).getRuleName());
+        verify(comparisonHistoryStore, times(6)).record(any());
+
+        // 新结束的10:00窗口、结束后第1个和第4个窗口长度的窗口到期复查，存在差异的08:00窗口每次都复查
+        List<ComparisonResult> second = timeWindowComparisonService.compareWindows(rule, ComparisonOptions.defaults(),
+                LocalDateTime.of(2025, 6, 27, 11, 5));
+        assertEquals(List.of(10, 9, 8, 6), startHours(second));
+
+        // 同一窗口内再次执行时只复查仍有差异的窗口
+        List<ComparisonResult> third = timeWindowComparisonService.compareWindows(rule, ComparisonOptions.defaults(),
+                LocalDateTime.of(2025, 6, 27, 11, 40));
+        assertEquals(List.of(8), startHours(third));
+
+        // 各窗口的SQL文本相同，查询计划不会因窗口变化重新编译
+        assertEquals(1, whereConditions.stream().distinct().count());
+    }
+
+    @Test
+    void testMaxWindowsPerRun() {
+        rule.getTimeWindow().setMaxWindowsPerRun(2);
+        rule.setWhereCondition(null);
+        stubComparison(null);
+        List<ComparisonResult> results = timeWindowComparisonService.compareWindows(rule, ComparisonOptions.defaults(),
+                LocalDateTime.of(2025, 6, 27, 10, 30));
+        assertEquals(List.of(9, 8), startHours(results));
+        assertEquals("created_at >= ? AND created_at < ?", whereConditions.get(0));
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2025, 6, 27, 8, 0)), whereParameters.get(1)[0]);
+    }
+
+    @Test
+    void testAlignWindowStartAndMissingConfig() {
+        assertEquals(LocalDateTime.of(2025, 6, 27, 0, 0),
+                TimeWindowComparisonService.alignWindowStart(LocalDateTime.of(2025, 6, 27, 23, 59), 86400));
+        assertEquals(LocalDateTime.of(2025, 6, 27, 10, 15),
+                TimeWindowComparisonService.alignWindowStart(LocalDateTime.of(2025, 6, 27, 10, 29, 59), 900));
+
+        rule.getTimeWindow().setTimeColumn(null);
+        assertThrows(IllegalStateException.class,
+                () -> timeWindowComparisonService.compareWindows(rule, ComparisonOptions.defaults()));
+        when(comparisonProperties.getRules()).thenReturn(Collections.singletonList(rule));
+        assertThrows(IllegalArgumentException.class,
+                () -> timeWindowComparisonService.compareWindows("missing", ComparisonOptions.defaults()));
+    }
+
+    /**
+     * 模拟比较，开始时间为mismatchStart的窗口返回差异
+     */
+    private void stubComparison(LocalDateTime mismatchStart) {
+        when(optimizedComparisonService.performOptimizedComparison(any(), any(Object[].class), any()))
+                .thenAnswer(invocation -> {
+                    ComparisonProperties.ComparisonRule windowRule = invocation.getArgument(0);
+                    Object[] parameters = invocation.getArgument(1);
+                    ComparisonResult result = new ComparisonResult(windowRule.getName());
+                    if (mismatchStart != null && Timestamp.valueOf(mismatchStart).equals(parameters[0])) {
+                        result.setDifferenceCount(2);
+                    }
+                    whereConditions.add(windowRule.getWhereCondition());
+                    whereParameters.add(parameters);
+                    return result;
+                });
+    }
+
+    private static List<Integer> startHours(List<ComparisonResult> results) {
+        return results.stream().map(result -> result.getWindowStart().getHour()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,66 @@
+package com.minimax.comparator.util;
+
+import com.minimax.comparator.model.DifferenceDetail;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 差异文件读写测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class DifferenceFileTest {
+
+    @Test
+    void testWriteAndRead(@TempDir Path directory) throws Exception {
+        List<DifferenceDetail> differences = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 10 == 0) {
+                differences.add(new DifferenceDetail(i, DifferenceDetail.DifferenceType.SOURCE_ONLY, "status"));
+            } else {
+                differences.add(new DifferenceDetail((long) i, DifferenceDetail.DifferenceType.VALUE_DIFFERENT,
+                        "PAID", "REFUNDED", i % 2 == 0 ? "status" : "amount"));
+            }
+        }
+        differences.add(new DifferenceDetail("A-1", DifferenceDetail.DifferenceType.TARGET_ONLY, null));
+        Collections.shuffle(differences);
+        Path path = directory.resolve("run.cdf");
+        DifferenceFileWriter.write(path, differences, 500);
+
+        DifferenceFileReader reader = DifferenceFileReader.open(path);
+        assertEquals(10_001, reader.getRowCount());
+        assertEquals(1_000, reader.count(DifferenceDetail.DifferenceType.SOURCE_ONLY));
+        assertEquals(1, reader.count(DifferenceDetail.DifferenceType.TARGET_ONLY));
+        // 重复的字段名和取值按列压缩后远小于原始文本
+        assertTrue(Files.size(path) < 10_001 * 20);
+
+        // 按主键排序分页，整数主键在字符串主键之前
+        List<DifferenceDetail> page = reader.read(null, 9_999, 5);
+        assertEquals(2, page.size());
+        assertEquals(9_999L, page.get(0).getKeyValue());
+        assertEquals("A-1", page.get(1).getKeyValue());
+        assertNull(page.get(1).getFieldName());
+
+        List<DifferenceDetail> sourceOnly = reader.read(DifferenceDetail.DifferenceType.SOURCE_ONLY, 10, 3);
+        assertEquals(100L, sourceOnly.get(0).getKeyValue());
+        assertEquals(120L, sourceOnly.get(2).getKeyValue());
+        assertNull(sourceOnly.get(0).getTargetValue());
+
+        assertEquals(11, reader.findRange(4_990, 5_000, 100).size());
+        List<DifferenceDetail> matches = reader.findKey("4321");
+        assertEquals(1, matches.size());
+        assertEquals("amount", matches.get(0).getFieldName());
+        assertEquals("REFUNDED", matches.get(0).getTargetValue());
+        assertEquals(1, reader.findKey("A-1").size());
+        assertTrue(reader.findKey("missing").isEmpty());
+    }
+}
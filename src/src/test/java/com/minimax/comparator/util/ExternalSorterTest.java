@@ -0,0 +1,147 @@
+package com.minimax.comparator.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 外部排序器测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class ExternalSorterTest {
+
+    private static final Comparator<Object> KEY_ORDER = (left, right) -> Long.compare((Long) left, (Long) right);
+
+    @Test
+    void testSpillsRunsAndMergesInKeyOrder(@TempDir Path directory) throws IOException {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 0; key < 10_000; key++) {
+            keys.add(key);
+        }
+        Collections.shuffle(keys);
+
+        try (ExternalSorter sorter = new ExternalSorter(directory, 1000, KEY_ORDER)) {
+            for (Long key : keys) {
+                Object value = key % 3 == 0 ? null : key % 3 == 1 ? "v" + key : new BigDecimal(key).movePointLeft(2);
+                sorter.add(key, value);
+            }
+            assertEquals(9, sorter.getRunCount());
+
+            ExternalSorter.SortedRows rows = sorter.finish();
+            long expected = 0;
+            while (rows.next()) {
+                assertEquals(expected, rows.key());
+                if (expected % 3 == 0) {
+                    assertNull(rows.value());
+                } else if (expected % 3 == 1) {
+                    assertEquals("v" + expected, rows.value());
+                } else {
+                    assertEquals(new BigDecimal(expected).movePointLeft(2), rows.value());
+                }
+                expected++;
+            }
+            assertEquals(10_000, expected);
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testSmallInputStaysInMemory(@TempDir Path directory) throws IOException {
+        LocalDateTime time = LocalDateTime.of(2025, 6, 27, 12, 30, 15, 123456789);
+        try (ExternalSorter sorter = new ExternalSorter(directory, 1000, KEY_ORDER)) {
+            sorter.add(2L, time);
+            sorter.add(1L, new byte[]{1, 2});
+            ExternalSorter.SortedRows rows = sorter.finish();
+            assertEquals(0, sorter.getRunCount());
+            assertTrue(rows.next());
+            assertArrayEquals(new byte[]{1, 2}, (byte[]) rows.value());
+            assertTrue(rows.next());
+            assertEquals(time, rows.value());
+            assertFalse(rows.next());
+        }
+    }
+
+    @Test
+    void testSpilledRowsKeepTypesAndOrder(@TempDir Path directory) throws IOException {
+        List<UUID> keys = new ArrayList<>();
+        for (int i = 0; i < 2_500; i++) {
+            keys.add(UUID.nameUUIDFromBytes(("k" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        Comparator<Object> uuidOrder = (left, right) -> ((UUID) left).compareTo((UUID) right);
+        try (ExternalSorter sorter = new ExternalSorter(directory, 1000, uuidOrder)) {
+            for (int i = 0; i < keys.size(); i++) {
+                sorter.add(keys.get(i), value(i));
+            }
+            // 前两段落盘，最后一段留在内存中
+            assertEquals(2, sorter.getRunCount());
+
+            List<UUID> sorted = new ArrayList<>(keys);
+            Collections.sort(sorted);
+            ExternalSorter.SortedRows rows = sorter.finish();
+            int count = 0;
+            while (rows.next()) {
+                assertEquals(sorted.get(count), rows.key());
+                Object expected = ExternalSorter.canonical(value(keys.indexOf((UUID) rows.key())));
+                assertEquals(expected.getClass(), rows.value().getClass());
+                assertEquals(expected, rows.value());
+                count++;
+            }
+            assertEquals(keys.size(), count);
+        }
+    }
+
+    @Test
+    void testCanonicalTypesRoundTrip() throws IOException {
+        Object[] values = {java.sql.Date.valueOf("2024-01-01"), java.sql.Time.valueOf("12:30:15"),
+                OffsetDateTime.of(2025, 6, 27, 12, 30, 0, 5, ZoneOffset.ofHours(8)), UUID.randomUUID(),
+                (short) 7, 1.5f, 'c', new java.util.Date(1_700_000_000_000L)};
+        for (Object value : values) {
+            Object canonical = ExternalSorter.canonical(value);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ExternalSorter.writeValue(new DataOutputStream(bytes), canonical);
+            Object read = ExternalSorter.readValue(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertEquals(canonical.getClass(), read.getClass(), value.getClass().getName());
+            assertEquals(canonical, read);
+        }
+        assertEquals(java.sql.Date.class, ExternalSorter.canonical(java.sql.Date.valueOf("2024-01-01")).getClass());
+        assertEquals("c", ExternalSorter.canonical('c'));
+    }
+
+    private static Object value(int i) {
+        switch (i % 4) {
+            case 0:
+                return java.sql.Date.valueOf(LocalDate.of(2024, 1, 1).plusDays(i));
+            case 1:
+                return (short) i;
+            case 2:
+                return 'x';
+            default:
+                return UUID.nameUUIDFromBytes(new byte[]{(byte) i});
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.minimax.comparator.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 哈希分区器测试类
+ *
+ * @author MiniMax Agent
+ * @since 2025-06-27
+ */
+class HashPartitionerTest {
+
+    @Test
+    void testSameKeyLandsInSamePartitionOnBothSides(@TempDir Path directory) throws IOException {
+        try (HashPartitioner source = new HashPartitioner(directory, "source", 16);
+             HashPartitioner target = new HashPartitioner(directory, "target", 16)) {
+            for (long key = 0; key < 10_000; key++) {
+                source.add(key, "v" + key);
+                // 目标端按相反顺序写入，缺少偶数百位的主键
+                long targetKey = 9_999 - key;
+                if (targetKey % 200 != 0) {
+                    target.add(targetKey, targetKey % 3 == 0 ? new BigDecimal(targetKey) : "v" + targetKey);
+                }
+            }
+            source.finish();
+            target.finish();
+            assertEquals(10_000, source.getRowCount());
+
+            long loaded = 0;
+            long missing = 0;
+            for (int partition = 0; partition < source.getPartitionCount(); partition++) {
+                Map<Object, Object> sourceRows = source.load(partition);
+                Map<Object, Object> targetRows = target.load(partition);
+                assertEquals(source.getRowCount(partition), sourceRows.size());
+                // 连续主键均匀分散到各分区
+                assertTrue(sourceRows.size() > 300 && sourceRows.size() < 950, "partition " + partition);
+                for (Map.Entry<Object, Object> row : sourceRows.entrySet()) {
+                    assertEquals(partition, HashPartitioner.partitionOf(row.getKey(), 16));
+                    assertEquals("v" + row.getKey(), row.getValue());
+                    if (!targetRows.containsKey(row.getKey())) {
+                        missing++;
+                    }
+                }
+                for (Object key : targetRows.keySet()) {
+                    assertTrue(sourceRows.containsKey(key));
+                }
+                loaded += sourceRows.size();
+                source.delete(partition);
+            }
+            assertEquals(10_000, loaded);
+            assertEquals(50, missing);
+            assertEquals(new BigDecimal(9), target.load(HashPartitioner.partitionOf(9L, 16)).get(9L));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testMultiColumnRows(@TempDir Path directory) throws IOException {
+        try (HashPartitioner rows = new HashPartitioner(directory, "shared", 4)) {
+            rows.add("k1", new Object[]{10L, null, new BigDecimal("1.50"), "a"});
+            rows.finish();
+            Object[] row = (Object[]) rows.load(HashPartitioner.partitionOf("k1", 4)).get("k1");
+            assertArrayEquals(new Object[]{10L, null, new BigDecimal("1.50"), "a"}, row);
+        }
+    }
+}